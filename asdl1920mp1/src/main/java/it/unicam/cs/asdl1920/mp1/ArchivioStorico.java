@@ -0,0 +1,266 @@
+package it.unicam.cs.asdl1920.mp1;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Archivio delle prenotazioni passate di un'aula, memorizzate fuori dallo heap
+ * in un {@link ByteBuffer} diretto. Ogni prenotazione è un record di
+ * {@value #BYTE_RECORD} byte: inizio e fine in millisecondi e gli
+ * identificativi di docente e motivo in un {@link DizionarioStringhe}. Il
+ * garbage collector non deve quindi visitare le prenotazioni archiviate, e
+ * gli oggetti {@link Prenotazione} sono creati solo quando richiesti.
+ *
+ * I record sono ordinati per inizio e, a parità, per fine; come in
+ * {@link PrenotazioniColonnari} le ricerche per inizio e il controllo delle
+ * sovrapposizioni sono ricerche binarie, e i calendari delle prenotazioni
+ * restituite hanno il fuso orario dell'archivio, dato alla creazione o preso
+ * dalla prima prenotazione archiviata. Di solito le prenotazioni arrivano in
+ * ordine e vengono accodate.
+ *
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+public class ArchivioStorico {
+
+    /**
+     * Dimensione in byte di un record.
+     */
+    public static final int BYTE_RECORD = 24;
+
+    // Posizioni dei campi all'interno di un record
+    private static final int START = 0;
+
+    private static final int STOP = 8;
+
+    private static final int DOCENTE = 16;
+
+    private static final int MOTIVO = 20;
+
+    private static final int CAPACITA_INIZIALE = 64;
+
+    private final Aula aula;
+
+    private final DizionarioStringhe dizionario;
+
+    // Fuso orario dei calendari creati, null finché non viene archiviata una
+    // prenotazione in un archivio creato senza fuso
+    private TimeZone zona;
+
+    private ByteBuffer record;
+
+    private int size;
+
+    /**
+     * Crea un archivio vuoto per un'aula, con il fuso orario della prima
+     * prenotazione che verrà archiviata.
+     *
+     * @param aula       l'aula a cui si riferiscono le prenotazioni
+     * @param dizionario il dizionario in cui memorizzare docenti e motivi
+     * @throws NullPointerException se una qualsiasi delle informazioni
+     *                              richieste è nulla
+     */
+    public ArchivioStorico(Aula aula, DizionarioStringhe dizionario) {
+        this(aula, dizionario, null);
+    }
+
+    /**
+     * Crea un archivio vuoto per un'aula con un certo fuso orario.
+     *
+     * @param aula       l'aula a cui si riferiscono le prenotazioni
+     * @param dizionario il dizionario in cui memorizzare docenti e motivi
+     * @param zona       il fuso orario dei calendari delle prenotazioni
+     *                   restituite, null per prendere quello della prima
+     *                   prenotazione archiviata
+     * @throws NullPointerException se l'aula o il dizionario sono nulli
+     */
+    public ArchivioStorico(Aula aula, DizionarioStringhe dizionario, TimeZone zona) {
+        if (aula == null || dizionario == null) {
+            throw new NullPointerException("Tentativo di creare un archivio senza aula o dizionario");
+        }
+        this.aula = aula;
+        this.dizionario = dizionario;
+        this.zona = zona;
+        this.record = ByteBuffer.allocateDirect(CAPACITA_INIZIALE * BYTE_RECORD);
+        this.size = 0;
+    }
+
+    /**
+     * @return il numero di prenotazioni archiviate
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return il fuso orario dei calendari delle prenotazioni restituite,
+     * null se non è stato dato e non è ancora stata archiviata nessuna
+     * prenotazione
+     */
+    public TimeZone getZona() {
+        return zona;
+    }
+
+    /**
+     * @return il numero di byte riservati fuori dallo heap
+     */
+    public long getCapacitaByte() {
+        return this.record.capacity();
+    }
+
+    /**
+     * @param i l'indice di una prenotazione, nell'ordine delle prenotazioni
+     * @return l'istante di inizio in millisecondi
+     * @throws IndexOutOfBoundsException se l'indice non è valido
+     */
+    public long getStartMillis(int i) {
+        this.controllaIndice(i);
+        return this.start(i);
+    }
+
+    /**
+     * @param i l'indice di una prenotazione, nell'ordine delle prenotazioni
+     * @return l'istante di fine in millisecondi
+     * @throws IndexOutOfBoundsException se l'indice non è valido
+     */
+    public long getStopMillis(int i) {
+        this.controllaIndice(i);
+        return this.stop(i);
+    }
+
+    /**
+     * Crea l'oggetto prenotazione corrispondente a una posizione
+     * dell'archivio.
+     *
+     * @param i l'indice di una prenotazione, nell'ordine delle prenotazioni
+     * @return una nuova prenotazione equivalente a quella archiviata
+     * @throws IndexOutOfBoundsException se l'indice non è valido
+     */
+    public Prenotazione get(int i) {
+        this.controllaIndice(i);
+        int base = i * BYTE_RECORD;
+        return new Prenotazione(this.aula,
+                new TimeSlot(this.calendario(this.start(i)), this.calendario(this.stop(i))),
+                this.dizionario.stringa(this.record.getInt(base + DOCENTE)),
+                this.dizionario.stringa(this.record.getInt(base + MOTIVO)));
+    }
+
+    /**
+     * Aggiunge una prenotazione all'archivio, nella sua posizione
+     * nell'ordine. Le sovrapposizioni non vengono controllate: le prenotazioni
+     * arrivano da un'aula, che le ha già controllate.
+     *
+     * @param p la prenotazione da archiviare
+     * @throws NullPointerException se la prenotazione passata è nulla
+     */
+    public void aggiungi(Prenotazione p) {
+        if (p == null) {
+            throw new NullPointerException("Tentativo di archiviare una prenotazione nulla");
+        }
+        long s = p.getTimeSlot().getStart().getTimeInMillis();
+        long e = p.getTimeSlot().getStop().getTimeInMillis();
+        if (this.zona == null) {
+            this.zona = (TimeZone) p.getTimeSlot().getStart().getTimeZone().clone();
+        }
+        this.garantisciCapacita(this.size + 1);
+        int i = this.size;
+        // Sposto in avanti i record successivi, di solito nessuno
+        while (i > 0 && (this.start(i - 1) > s || (this.start(i - 1) == s && this.stop(i - 1) > e))) {
+            this.copia(i - 1, i);
+            i--;
+        }
+        int base = i * BYTE_RECORD;
+        this.record.putLong(base + START, s);
+        this.record.putLong(base + STOP, e);
+        this.record.putInt(base + DOCENTE, this.dizionario.id(p.getDocente()));
+        this.record.putInt(base + MOTIVO, this.dizionario.id(p.getMotivo()));
+        this.size++;
+    }
+
+    /**
+     * Restituisce le prenotazioni archiviate che iniziano in un intervallo di
+     * tempo.
+     *
+     * @param da l'inizio dell'intervallo, incluso
+     * @param a  la fine dell'intervallo, esclusa
+     * @return le prenotazioni, in ordine di inizio
+     * @throws NullPointerException se uno degli estremi è nullo
+     */
+    public List<Prenotazione> cerca(GregorianCalendar da, GregorianCalendar a) {
+        if (da == null || a == null) {
+            throw new NullPointerException("Tentativo di cercare prenotazioni in un intervallo nullo");
+        }
+        int fine = this.primoConInizioAlmeno(a.getTimeInMillis());
+        List<Prenotazione> risultato = new ArrayList<>();
+        for (int i = this.primoConInizioAlmeno(da.getTimeInMillis()); i < fine; i++) {
+            risultato.add(this.get(i));
+        }
+        return risultato;
+    }
+
+    /**
+     * Determina se una prenotazione archiviata si sovrappone a un time slot.
+     *
+     * @param ts il time slot da controllare
+     * @return true se almeno una prenotazione si sovrappone al time slot
+     * @throws NullPointerException se il time slot passato è nullo
+     */
+    public boolean siSovrappone(TimeSlot ts) {
+        if (ts == null) {
+            throw new NullPointerException("Tentativo di controllare un time slot nullo");
+        }
+        // Come in PrenotazioniColonnari: le prenotazioni lunghe hanno fini
+        // crescenti, quindi basta la prima lunga che precede
+        return NucleoSovrapposizioni.sovrappostaFraOrdinati(this::start, this::stop, this.size,
+                ts.getStart().getTimeInMillis(), ts.getStop().getTimeInMillis()) >= 0;
+    }
+
+    private long start(int i) {
+        return this.record.getLong(i * BYTE_RECORD + START);
+    }
+
+    private long stop(int i) {
+        return this.record.getLong(i * BYTE_RECORD + STOP);
+    }
+
+    private int primoConInizioAlmeno(long t) {
+        return NucleoSovrapposizioni.primoConInizioAlmeno(this::start, 0, this.size, t);
+    }
+
+    private void copia(int da, int a) {
+        int sorgente = da * BYTE_RECORD;
+        int destinazione = a * BYTE_RECORD;
+        this.record.putLong(destinazione + START, this.record.getLong(sorgente + START));
+        this.record.putLong(destinazione + STOP, this.record.getLong(sorgente + STOP));
+        this.record.putInt(destinazione + DOCENTE, this.record.getInt(sorgente + DOCENTE));
+        this.record.putInt(destinazione + MOTIVO, this.record.getInt(sorgente + MOTIVO));
+    }
+
+    private void garantisciCapacita(int capacita) {
+        int attuale = this.record.capacity() / BYTE_RECORD;
+        if (capacita <= attuale) return;
+        int nuova = Math.max(capacita, attuale + (attuale >> 1));
+        ByteBuffer b = ByteBuffer.allocateDirect(Math.multiplyExact(nuova, BYTE_RECORD));
+        // Copia con accessi assoluti: posizione e limite dei buffer restano
+        // quelli iniziali
+        for (int i = 0; i < this.size * BYTE_RECORD; i += 8) {
+            b.putLong(i, this.record.getLong(i));
+        }
+        this.record = b;
+    }
+
+    private void controllaIndice(int i) {
+        if (i < 0 || i >= this.size) {
+            throw new IndexOutOfBoundsException("Indice " + i + " non valido per " + this.size + " prenotazioni");
+        }
+    }
+
+    private GregorianCalendar calendario(long millis) {
+        GregorianCalendar c = new GregorianCalendar(this.zona);
+        c.setTimeInMillis(millis);
+        return c;
+    }
+}
@@ -0,0 +1,49 @@
+package it.unicam.cs.asdl1920.mp1;
+
+/**
+ * Un ascoltatore di prenotazioni viene notificato delle modifiche alle
+ * prenotazioni delle aule su cui è registrato (si vedano
+ * {@link Aula#addAscoltatore(AscoltatorePrenotazioni)} e
+ * {@link GestoreAule#addAscoltatore(AscoltatorePrenotazioni)}). Le notifiche
+ * avvengono nel thread che ha modificato l'aula, dopo che la modifica è stata
+ * effettuata.
+ *
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+public interface AscoltatorePrenotazioni {
+
+    /**
+     * Notifica che una prenotazione è stata aggiunta alla sua aula.
+     *
+     * @param p la prenotazione aggiunta
+     */
+    void prenotazioneAggiunta(Prenotazione p);
+
+    /**
+     * Notifica che una prenotazione è stata cancellata dalla sua aula.
+     *
+     * @param p la prenotazione cancellata, così come era memorizzata
+     *          nell'aula
+     */
+    void prenotazioneRimossa(Prenotazione p);
+
+    /**
+     * Notifica che una prenotazione è stata rimossa dalla sua aula perché
+     * scaduta, ad esempio da {@link Aula#removePrenotazioniBefore}.
+     *
+     * @param p la prenotazione scaduta
+     */
+    void prenotazioneScaduta(Prenotazione p);
+
+    /**
+     * Notifica che un'aula è stata aggiunta a un gestore su cui l'ascoltatore
+     * è registrato. Le aule non inviano questa notifica; l'implementazione di
+     * default non fa nulla.
+     *
+     * @param a l'aula aggiunta
+     */
+    default void aulaAggiunta(Aula a) {
+    }
+
+}
@@ -1,16 +1,34 @@
 package it.unicam.cs.asdl1920.mp1;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.GregorianCalendar;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 import java.util.SortedSet;
-import java.util.TreeSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Un oggetto della classe aula rappresenta una certa aula con le sue facilities
  * e le sue prenotazioni.
  *
+ * Tutti i metodi che modificano le prenotazioni, compresi quelli della lista
+ * d'attesa e le transazioni di {@link GestoreAule#addPrenotazioni(List)}, sono
+ * eseguiti con un lock dell'aula, quindi le modifiche fatte da thread diversi
+ * non si mescolano. Anche {@link #isFree(TimeSlot)} e le letture
+ * dell'archivio prendono il lock, quindi vedono le prenotazioni prima o dopo
+ * ogni modifica o transazione e mai a metà. L'insieme restituito da
+ * {@link #getPrenotazioni()} può essere letto e scorso mentre altri thread
+ * modificano l'aula, senza lock.
+ *
+ * Nome e location dell'aula, e docente e motivo delle prenotazioni che
+ * memorizza, sono deduplicati con {@code InternatoreStringhe}.
+ *
  * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
  *
  */
@@ -25,9 +43,42 @@ public class Aula implements Comparable<Aula> {
     private final Set<Facility> facilities;
 
     // Insieme delle prenotazioni per quest'aula, segue l'ordinamento naturale
-    // delle prenotazioni
+    // delle prenotazioni; è modificato con il lock, ma può essere letto
+    // senza
     private final SortedSet<Prenotazione> prenotazioni;
 
+    // Ascoltatori da notificare a ogni modifica delle prenotazioni
+    private final List<AscoltatorePrenotazioni> ascoltatori;
+
+    // Numero di prenotazioni da cui l'aula tiene un riepilogo di occupazione;
+    // per le aule con meno prenotazioni il controllo esatto costa poco
+    private static final int SOGLIA_RIEPILOGO = 32;
+
+    // Riepilogo di occupazione per quarti d'ora, null finché l'aula ha meno
+    // di SOGLIA_RIEPILOGO prenotazioni e dopo che si è svuotata
+    private RiepilogoOccupazione occupazione;
+
+    // Prenotazioni archiviate fuori dallo heap, null finché non se ne
+    // archivia nessuna
+    private ArchivioStorico archivio;
+
+    // Lista d'attesa, creata con il lock alla prima richiesta
+    private ListaAttesa listaAttesa;
+
+    // Lock di tutte le modifiche alle prenotazioni; GestoreAule lo prende
+    // anche per le transazioni su più aule
+    private final ReentrantLock lock;
+
+    // Inizi e fini in millisecondi delle prenotazioni più lunghe della
+    // tolleranza, in ordine di inizio, per NucleoSovrapposizioni; le altre
+    // non si sovrappongono a nessun time slot. Sono aggiornati sul posto a
+    // ogni modifica delle prenotazioni e letti solo con il lock
+    private long[] inizi;
+
+    private long[] fini;
+
+    private int lunghe;
+
     /**
      * Costruisce una certa aula con nome e location. Il set delle facilities è
      * vuoto. L'aula non ha inizialmente nessuna prenotazione.
@@ -41,10 +92,14 @@ public class Aula implements Comparable<Aula> {
         if (nome == null || location == null) {
             throw new NullPointerException("Tentativo di creare un'aula senza nome o location");
         }
-        this.location = location;
-        this.nome = nome;
-        this.prenotazioni = new TreeSet<>();
+        this.location = InternatoreStringhe.interna(location);
+        this.nome = InternatoreStringhe.interna(nome);
+        this.prenotazioni = new ConcurrentSkipListSet<>();
         this.facilities = new HashSet<>();
+        this.ascoltatori = new CopyOnWriteArrayList<>();
+        this.inizi = new long[0];
+        this.fini = new long[0];
+        this.lock = new ReentrantLock();
     }
 
     /**
@@ -61,10 +116,14 @@ public class Aula implements Comparable<Aula> {
         if (nome == null || location == null || facilities == null) {
             throw new NullPointerException("Tentativo di creare un'aula senza nome, location o facilities");
         }
-        this.location = location;
-        this.nome = nome;
-        this.prenotazioni = new TreeSet<>();
+        this.location = InternatoreStringhe.interna(location);
+        this.nome = InternatoreStringhe.interna(nome);
+        this.prenotazioni = new ConcurrentSkipListSet<>();
         this.facilities = facilities;
+        this.ascoltatori = new CopyOnWriteArrayList<>();
+        this.inizi = new long[0];
+        this.fini = new long[0];
+        this.lock = new ReentrantLock();
     }
 
     /* Due aule sono uguali se e solo se hanno lo stesso nome */
@@ -111,10 +170,77 @@ public class Aula implements Comparable<Aula> {
     }
 
     /**
-     * @return the prenotazioni
+     * Restituisce le prenotazioni di quest'aula. L'insieme è una vista non
+     * modificabile, aggiornata con l'aula: i suoi metodi di modifica, anche
+     * quelli dei suoi iteratori e sottoinsiemi, sollevano
+     * {@link UnsupportedOperationException}. In precedenza era l'insieme
+     * stesso dell'aula; ora le prenotazioni si aggiungono e si cancellano solo
+     * con {@link #addPrenotazione(TimeSlot, String, String)},
+     * {@link #caricaPrenotazioni(PrenotazioniColonnari)},
+     * {@link #removePrenotazione(Prenotazione)} e
+     * {@link #removePrenotazioniBefore(GregorianCalendar)}, così che gli
+     * ascoltatori e gli indici dell'aula vengano sempre aggiornati.
+     *
+     * La vista può essere usata mentre altri thread modificano l'aula: i suoi
+     * iteratori non sollevano {@link java.util.ConcurrentModificationException}
+     * e riflettono lo stato dell'aula in un momento qualsiasi fra la loro
+     * creazione e il loro uso, quindi possono vedere solo una parte di una
+     * modifica contemporanea. Il metodo {@code size()} della vista costa
+     * tempo lineare.
+     *
+     * @return una vista non modificabile delle prenotazioni
      */
     public SortedSet<Prenotazione> getPrenotazioni() {
-        return prenotazioni;
+        return Collections.unmodifiableSortedSet(prenotazioni);
+    }
+
+    /**
+     * Registra un ascoltatore che verrà notificato di ogni aggiunta,
+     * cancellazione o scadenza di prenotazioni di quest'aula.
+     *
+     * @param l l'ascoltatore da registrare
+     * @return true se l'ascoltatore è stato registrato, false se lo era già
+     * @throws NullPointerException se l'ascoltatore passato è nullo
+     */
+    public boolean addAscoltatore(AscoltatorePrenotazioni l) {
+        if (l == null) {
+            throw new NullPointerException("Tentativo di registrare un ascoltatore nullo");
+        }
+        if (this.ascoltatori.contains(l)) return false;
+        return this.ascoltatori.add(l);
+    }
+
+    /**
+     * Cancella la registrazione di un ascoltatore.
+     *
+     * @param l l'ascoltatore da cancellare
+     * @return true se l'ascoltatore era registrato, false altrimenti
+     * @throws NullPointerException se l'ascoltatore passato è nullo
+     */
+    public boolean removeAscoltatore(AscoltatorePrenotazioni l) {
+        if (l == null) {
+            throw new NullPointerException("Tentativo di cancellare un ascoltatore nullo");
+        }
+        return this.ascoltatori.remove(l);
+    }
+
+    /**
+     * Restituisce la lista d'attesa di quest'aula, creandola alla prima
+     * chiamata. La lista viene creata con il lock dell'aula, quindi thread
+     * diversi ottengono sempre la stessa lista.
+     *
+     * @return la lista d'attesa dell'aula
+     */
+    public ListaAttesa getListaAttesa() {
+        this.lock.lock();
+        try {
+            if (this.listaAttesa == null) {
+                this.listaAttesa = new ListaAttesa(this);
+            }
+            return this.listaAttesa;
+        } finally {
+            this.lock.unlock();
+        }
     }
 
     /**
@@ -146,14 +272,123 @@ public class Aula implements Comparable<Aula> {
         if (ts == null) {
             throw new NullPointerException("Tentativo di controllare un time slot nullo");
         }
-        Iterator<Prenotazione> iter = this.getPrenotazioni().iterator();
-        while (iter.hasNext()) {
-            Prenotazione p = iter.next();
-            if (p.getTimeSlot().overlapsWith(ts)) {
+        this.lock.lock();
+        try {
+            if (this.sicuramenteOccupata(ts)) {
                 return false;
             }
+            if (this.archivio != null && this.archivio.siSovrappone(ts)) {
+                return false;
+            }
+            return !this.siSovrappone(ts);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /*
+     * Controlla se una prenotazione corrente si sovrappone al time slot, con
+     * una ricerca binaria sugli estremi; si veda
+     * NucleoSovrapposizioni#sovrappostaFraDisgiunti.
+     */
+    private boolean siSovrappone(TimeSlot ts) {
+        return NucleoSovrapposizioni.sovrappostaFraDisgiunti(this.inizi, this.fini, this.lunghe,
+                ts.getStart().getTimeInMillis(), ts.getStop().getTimeInMillis()) >= 0;
+    }
+
+    /*
+     * Il lock preso da tutti i metodi che modificano le prenotazioni.
+     */
+    ReentrantLock getLock() {
+        return this.lock;
+    }
+
+    /*
+     * Gli estremi delle prenotazioni più lunghe della tolleranza: i primi
+     * getNumeroLunghe() elementi dei due array, in ordine di inizio. Gli array
+     * sono quelli dell'aula, non copie, e vanno letti con il lock, perché
+     * ogni modifica li aggiorna sul posto o li sostituisce.
+     */
+    long[] getIniziLunghe() {
+        return this.inizi;
+    }
+
+    long[] getFiniLunghe() {
+        return this.fini;
+    }
+
+    int getNumeroLunghe() {
+        return this.lunghe;
+    }
+
+    /*
+     * Controlla sul riepilogo di occupazione, se c'è, se l'aula è certamente
+     * occupata nel time slot; si veda RiepilogoOccupazione.
+     */
+    private boolean sicuramenteOccupata(TimeSlot ts) {
+        RiepilogoOccupazione o = this.occupazione;
+        return o != null && o.sicuramenteOccupata(ts.getStart().getTimeInMillis(),
+                ts.getStop().getTimeInMillis());
+    }
+
+    /*
+     * Inserisce (segno 1) o toglie (segno -1) gli estremi di una prenotazione
+     * lunga, spostando quelli che seguono. Le prenotazioni lunghe dell'aula
+     * non possono iniziare nello stesso istante, perché si sovrapporrebbero.
+     */
+    private void aggiornaEstremi(Prenotazione p, int segno) {
+        long s = p.getTimeSlot().getStart().getTimeInMillis();
+        long e = p.getTimeSlot().getStop().getTimeInMillis();
+        if (e - s <= NucleoSovrapposizioni.TOLLERANZA) return;
+        int i = NucleoSovrapposizioni.primoConInizioAlmeno(this.inizi, 0, this.lunghe, s);
+        if (segno > 0) {
+            if (this.lunghe == this.inizi.length) {
+                int capacita = Math.max(4, 2 * this.lunghe);
+                this.inizi = Arrays.copyOf(this.inizi, capacita);
+                this.fini = Arrays.copyOf(this.fini, capacita);
+            }
+            System.arraycopy(this.inizi, i, this.inizi, i + 1, this.lunghe - i);
+            System.arraycopy(this.fini, i, this.fini, i + 1, this.lunghe - i);
+            this.inizi[i] = s;
+            this.fini[i] = e;
+            this.lunghe++;
+        } else if (i < this.lunghe && this.inizi[i] == s) {
+            System.arraycopy(this.inizi, i + 1, this.inizi, i, this.lunghe - i - 1);
+            System.arraycopy(this.fini, i + 1, this.fini, i, this.lunghe - i - 1);
+            this.lunghe--;
+        }
+    }
+
+    /*
+     * Aggiunge (segno 1) o toglie (segno -1) una prenotazione dal riepilogo
+     * di occupazione e dagli estremi. Viene chiamato a ogni modifica delle
+     * prenotazioni, dopo la modifica. Il riepilogo viene
+     * costruito quando l'aula raggiunge SOGLIA_RIEPILOGO prenotazioni e
+     * liberato quando si svuota.
+     */
+    private void aggiornaOccupazione(Prenotazione p, int segno) {
+        this.aggiornaEstremi(p, segno);
+        this.aggiornaRiepilogo(p, segno);
+    }
+
+    // La parte di aggiornaOccupazione che riguarda il riepilogo
+    private void aggiornaRiepilogo(Prenotazione p, int segno) {
+        if (this.prenotazioni.isEmpty()) {
+            this.occupazione = null;
+        } else if (this.occupazione != null) {
+            this.occupazione.aggiorna(p.getTimeSlot().getStart().getTimeInMillis(),
+                    p.getTimeSlot().getStop().getTimeInMillis(), segno);
+        } else if (this.prenotazioni.size() >= SOGLIA_RIEPILOGO) {
+            // Contare le prenotazioni costa tempo lineare, ma senza
+            // riepilogo l'aula ne ha poche, tranne dopo un caricamento in
+            // blocco
+            RiepilogoOccupazione o = new RiepilogoOccupazione();
+            for (Prenotazione q : this.prenotazioni) {
+                o.aggiorna(q.getTimeSlot().getStart().getTimeInMillis(),
+                        q.getTimeSlot().getStop().getTimeInMillis(), 1);
+            }
+            this.occupazione = o;
         }
-        return true;
     }
 
     /**
@@ -186,21 +421,182 @@ public class Aula implements Comparable<Aula> {
      *                                  richieste è nulla.
      */
     public void addPrenotazione(TimeSlot ts, String docente, String motivo) {
+        this.aggiungiPrenotazione(ts, docente, motivo);
+    }
+
+    /*
+     * Come addPrenotazione, ma restituisce la prenotazione memorizzata
+     * nell'aula, o null se una prenotazione uguale era già presente.
+     */
+    Prenotazione aggiungiPrenotazione(TimeSlot ts, String docente, String motivo) {
         if (ts == null || docente == null || motivo == null) {
             throw new NullPointerException("Tentativo di aggiungere una prenotazione senza time slot, docente o motivo");
         }
+        this.lock.lock();
+        try {
+            Prenotazione p = this.inserisciPrenotazione(ts, docente, motivo);
+            if (p != null) {
+                this.notificaAggiunta(p);
+            }
+            return p;
+        } finally {
+            this.lock.unlock();
+        }
+    }
 
-        // Crea un'iterator e controlla se nell'insieme delle prenotazioni ci sono sovrapposizioni nella stessa aula
-        Iterator<Prenotazione> iter = this.getPrenotazioni().iterator();
-        while (iter.hasNext()) {
-            if (ts.overlapsWith(iter.next().getTimeSlot())) {
-                throw new IllegalArgumentException("Tentativo di aggiungere una prenotazione che si sovrappone con un'altra");
+    /*
+     * Controlla le sovrapposizioni e memorizza una prenotazione senza
+     * notificarla; restituisce la prenotazione memorizzata, o null se una
+     * prenotazione uguale era già presente. Va chiamato con il lock
+     * dell'aula, e la prenotazione va poi notificata con notificaAggiunta.
+     */
+    Prenotazione inserisciPrenotazione(TimeSlot ts, String docente, String motivo) {
+        // Controlla se nell'insieme delle prenotazioni ci sono sovrapposizioni nella stessa aula
+        if (this.siSovrappone(ts)) {
+            throw new IllegalArgumentException("Tentativo di aggiungere una prenotazione che si sovrappone con un'altra");
+        }
+        if (this.archivio != null && this.archivio.siSovrappone(ts)) {
+            throw new IllegalArgumentException("Tentativo di aggiungere una prenotazione che si sovrappone con una archiviata");
+        }
+        Prenotazione p = new Prenotazione(this, ts, InternatoreStringhe.interna(docente),
+                InternatoreStringhe.interna(motivo));
+        if (!this.prenotazioni.add(p)) return null;
+        this.aggiornaOccupazione(p, 1);
+        return p;
+    }
+
+    /**
+     * Carica in quest'aula tutte le prenotazioni di un archivio colonnare,
+     * ad esempio costruito da un'importazione o ricevuto da un'altra aula con
+     * lo stesso nome. Il caricamento è atomico: se una prenotazione si
+     * sovrappone a una dell'aula, o a una archiviata, l'aula non viene
+     * modificata. Gli estremi usati da {@link #isFree(TimeSlot)} vengono
+     * fusi una volta sola con quelli dell'archivio, invece di spostarli a
+     * ogni prenotazione, e gli ascoltatori sono notificati di ciascuna
+     * prenotazione aggiunta.
+     *
+     * @param c l'archivio da caricare
+     * @return il numero di prenotazioni aggiunte; quelle uguali a una già
+     * presente non vengono aggiunte
+     * @throws NullPointerException     se l'archivio passato è nullo
+     * @throws IllegalArgumentException se l'archivio si riferisce a un'altra
+     *                                  aula o una sua prenotazione si
+     *                                  sovrappone a una dell'aula, o inizia
+     *                                  nello stesso istante di una diversa
+     */
+    public int caricaPrenotazioni(PrenotazioniColonnari c) {
+        if (c == null) {
+            throw new NullPointerException("Tentativo di caricare un archivio nullo");
+        }
+        if (!this.equals(c.getAula())) {
+            throw new IllegalArgumentException("Tentativo di caricare le prenotazioni di un'altra aula");
+        }
+        this.lock.lock();
+        try {
+            // Le prenotazioni dell'archivio non si sovrappongono fra loro,
+            // quindi basta controllarle con quelle dell'aula prima di
+            // modificare qualcosa. Una prenotazione con lo stesso inizio di
+            // un'altra ma diversa non si sovrappone, ma l'insieme la
+            // considererebbe uguale e non la aggiungerebbe
+            Prenotazione[] nuove = new Prenotazione[c.size()];
+            for (int i = 0; i < nuove.length; i++) {
+                Prenotazione p = c.get(i, this);
+                TimeSlot ts = p.getTimeSlot();
+                if (this.siSovrappone(ts)) {
+                    throw new IllegalArgumentException("Tentativo di aggiungere una prenotazione che si sovrappone con un'altra");
+                }
+                if (this.archivio != null && this.archivio.siSovrappone(ts)) {
+                    throw new IllegalArgumentException("Tentativo di aggiungere una prenotazione che si sovrappone con una archiviata");
+                }
+                Prenotazione presente = this.cerca(p);
+                if ((presente != null && !presente.equals(p))
+                        || (i > 0 && nuove[i - 1].compareTo(p) == 0 && !nuove[i - 1].equals(p))) {
+                    throw new IllegalArgumentException("Tentativo di aggiungere una prenotazione con lo stesso inizio di un'altra");
+                }
+                nuove[i] = p;
+            }
+            // Indici nell'archivio delle prenotazioni aggiunte
+            int[] indici = new int[nuove.length];
+            int aggiunte = 0;
+            for (int i = 0; i < nuove.length; i++) {
+                if (this.prenotazioni.add(nuove[i])) {
+                    nuove[aggiunte] = nuove[i];
+                    indici[aggiunte++] = i;
+                }
+            }
+            this.fondiEstremi(c, indici, aggiunte);
+            if (this.occupazione != null) {
+                for (int i = 0; i < aggiunte; i++) {
+                    this.occupazione.aggiorna(c.getStartMillis(indici[i]), c.getStopMillis(indici[i]), 1);
+                }
+            } else if (aggiunte > 0) {
+                // Se serve, il riepilogo viene costruito una volta sola da
+                // tutte le prenotazioni, comprese quelle appena aggiunte
+                this.aggiornaRiepilogo(nuove[0], 1);
             }
+            for (int i = 0; i < aggiunte; i++) {
+                this.notificaAggiunta(nuove[i]);
+            }
+            return aggiunte;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /*
+     * Fonde con gli estremi dell'aula quelli delle prenotazioni lunghe di un
+     * archivio colonnare appena aggiunte, date dai loro indici nell'archivio;
+     * entrambi sono in ordine di inizio. Le prenotazioni lunghe aggiunte non
+     * possono iniziare nello stesso istante di una dell'aula, perché si
+     * sovrapporrebbero.
+     */
+    private void fondiEstremi(PrenotazioniColonnari c, int[] indici, int aggiunte) {
+        int n = 0;
+        for (int j = 0; j < aggiunte; j++) {
+            if (c.getStopMillis(indici[j]) - c.getStartMillis(indici[j]) > NucleoSovrapposizioni.TOLLERANZA) n++;
         }
+        if (n == 0) return;
+        long[] inizi = new long[Math.max(4, this.lunghe + n)];
+        long[] fini = new long[inizi.length];
+        int i = 0;
+        int k = 0;
+        for (int j = 0; j < aggiunte; j++) {
+            long s = c.getStartMillis(indici[j]);
+            long e = c.getStopMillis(indici[j]);
+            if (e - s <= NucleoSovrapposizioni.TOLLERANZA) continue;
+            while (i < this.lunghe && this.inizi[i] < s) {
+                inizi[k] = this.inizi[i];
+                fini[k++] = this.fini[i++];
+            }
+            inizi[k] = s;
+            fini[k++] = e;
+        }
+        while (i < this.lunghe) {
+            inizi[k] = this.inizi[i];
+            fini[k++] = this.fini[i++];
+        }
+        this.inizi = inizi;
+        this.fini = fini;
+        this.lunghe = k;
+    }
 
-        Prenotazione p = new Prenotazione(this, ts, docente, motivo);
-        this.getPrenotazioni().add(p);
+    /*
+     * Restituisce la prenotazione memorizzata uguale a p per l'ordinamento
+     * naturale, null se non c'è.
+     */
+    private Prenotazione cerca(Prenotazione p) {
+        SortedSet<Prenotazione> coda = this.prenotazioni.tailSet(p);
+        return coda.isEmpty() || coda.first().compareTo(p) != 0 ? null : coda.first();
+    }
 
+    /*
+     * Notifica agli ascoltatori una prenotazione memorizzata con
+     * inserisciPrenotazione.
+     */
+    void notificaAggiunta(Prenotazione p) {
+        for (AscoltatorePrenotazioni l : this.ascoltatori) {
+            l.prenotazioneAggiunta(p);
+        }
     }
 
     /**
@@ -215,7 +611,69 @@ public class Aula implements Comparable<Aula> {
         if (p == null) {
             throw new NullPointerException("Tentativo di rimuovere una prenotazione nulla");
         }
-        return this.getPrenotazioni().remove(p);
+        this.lock.lock();
+        try {
+            // Cerco la prenotazione memorizzata, che è quella da notificare
+            SortedSet<Prenotazione> coda = this.prenotazioni.tailSet(p);
+            if (coda.isEmpty() || coda.first().compareTo(p) != 0) {
+                return false;
+            }
+            Prenotazione rimossa = coda.first();
+            this.prenotazioni.remove(rimossa);
+            this.aggiornaOccupazione(rimossa, -1);
+            for (AscoltatorePrenotazioni l : this.ascoltatori) {
+                l.prenotazioneRimossa(rimossa);
+            }
+            this.promuovi(rimossa);
+            return true;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Rimuove una prenotazione perché scaduta, notificando gli ascoltatori
+     * come {@link #removePrenotazioniBefore}. Viene rimossa solo se è proprio
+     * la prenotazione memorizzata nell'aula, e non una prenotazione uguale
+     * aggiunta dopo che quella era stata cancellata.
+     *
+     * @param p la prenotazione scaduta
+     * @return true se la prenotazione è stata rimossa, false se non era più
+     * presente
+     * @throws NullPointerException se la prenotazione passata è nulla
+     */
+    boolean removePrenotazioneScaduta(Prenotazione p) {
+        if (p == null) {
+            throw new NullPointerException("Tentativo di rimuovere una prenotazione nulla");
+        }
+        this.lock.lock();
+        try {
+            SortedSet<Prenotazione> coda = this.prenotazioni.tailSet(p);
+            if (coda.isEmpty() || coda.first() != p) {
+                return false;
+            }
+            this.prenotazioni.remove(p);
+            this.aggiornaOccupazione(p, -1);
+            for (AscoltatorePrenotazioni l : this.ascoltatori) {
+                l.prenotazioneScaduta(p);
+            }
+            this.promuovi(p);
+            return true;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /*
+     * Avvisa la lista d'attesa, se c'è, che una prenotazione ha liberato
+     * l'aula. Viene chiamato dopo aver notificato la rimozione a tutti gli
+     * ascoltatori, così che questi vedano la rimozione prima delle
+     * prenotazioni fatte dalla lista d'attesa nel time slot liberato.
+     */
+    private void promuovi(Prenotazione liberata) {
+        if (this.listaAttesa != null) {
+            this.listaAttesa.promuovi(liberata.getTimeSlot());
+        }
     }
 
     /**
@@ -231,14 +689,118 @@ public class Aula implements Comparable<Aula> {
         if (timePoint == null) {
             throw new NullPointerException("Tentativo di rimuovere prenotazioni prima di un time slot nullo");
         }
-        Iterator<Prenotazione> iter = this.prenotazioni.iterator();
-        boolean esitoRemove = false;
-        while (iter.hasNext() &&
-                !iter.next().getTimeSlot().getStart().after(timePoint)
-        ) {     iter.remove();
-                esitoRemove = true;
+        this.lock.lock();
+        try {
+            Iterator<Prenotazione> iter = this.prenotazioni.iterator();
+            // Le notifiche sono inviate dopo la rimozione, perché un ascoltatore
+            // potrebbe modificare le prenotazioni
+            List<Prenotazione> scadute = new ArrayList<>();
+            Prenotazione p;
+            while (iter.hasNext() &&
+                    !(p = iter.next()).getTimeSlot().getStart().after(timePoint)
+            ) {     iter.remove();
+                    this.aggiornaOccupazione(p, -1);
+                    scadute.add(p);
+                }
+            for (Prenotazione scaduta : scadute) {
+                for (AscoltatorePrenotazioni l : this.ascoltatori) {
+                    l.prenotazioneScaduta(scaduta);
+                }
+            }
+            for (Prenotazione scaduta : scadute) {
+                this.promuovi(scaduta);
+            }
+            return !scadute.isEmpty();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Sposta nell'archivio storico, fuori dallo heap, tutte le prenotazioni
+     * di questa aula che iniziano prima (o esattamente in) di un punto nel
+     * tempo specificato. Le prenotazioni archiviate non compaiono più in
+     * {@link #getPrenotazioni()} ma continuano a occupare l'aula per
+     * {@link #isFree(TimeSlot)} e
+     * {@link #addPrenotazione(TimeSlot, String, String)}, e si ottengono con
+     * {@link #getPrenotazioniArchiviate(GregorianCalendar, GregorianCalendar)}.
+     * Gli ascoltatori non vengono notificati, perché le prenotazioni non sono
+     * cancellate.
+     *
+     * @param timePoint un certo punto nel tempo
+     * @return il numero di prenotazioni archiviate
+     * @throws NullPointerException se il punto nel tempo passato è nullo.
+     */
+    public int archiviaPrenotazioniBefore(GregorianCalendar timePoint) {
+        if (timePoint == null) {
+            throw new NullPointerException("Tentativo di archiviare prenotazioni prima di un punto nel tempo nullo");
+        }
+        this.lock.lock();
+        try {
+            Iterator<Prenotazione> iter = this.prenotazioni.iterator();
+            int n = 0;
+            Prenotazione p;
+            while (iter.hasNext() && !(p = iter.next()).getTimeSlot().getStart().after(timePoint)) {
+                if (this.archivio == null) {
+                    this.archivio = new ArchivioStorico(this, new DizionarioStringhe());
+                }
+                iter.remove();
+                this.aggiornaOccupazione(p, -1);
+                this.archivio.aggiungi(p);
+                n++;
             }
-        return esitoRemove;
+            return n;
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * Restituisce le prenotazioni archiviate di quest'aula che iniziano in un
+     * intervallo di tempo.
+     *
+     * @param da l'inizio dell'intervallo, incluso
+     * @param a  la fine dell'intervallo, esclusa
+     * @return nuove prenotazioni equivalenti a quelle archiviate, in ordine di
+     * inizio
+     * @throws NullPointerException se uno degli estremi è nullo
+     */
+    public List<Prenotazione> getPrenotazioniArchiviate(GregorianCalendar da, GregorianCalendar a) {
+        if (da == null || a == null) {
+            throw new NullPointerException("Tentativo di cercare prenotazioni in un intervallo nullo");
+        }
+        this.lock.lock();
+        try {
+            if (this.archivio == null) return new ArrayList<>();
+            return this.archivio.cerca(da, a);
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /**
+     * @return il numero di prenotazioni archiviate di quest'aula
+     */
+    public int getNumeroPrenotazioniArchiviate() {
+        this.lock.lock();
+        try {
+            return this.archivio == null ? 0 : this.archivio.size();
+        } finally {
+            this.lock.unlock();
+        }
+    }
+
+    /*
+     * Controlla le sovrapposizioni solo con le prenotazioni archiviate; usato
+     * da MatriceDisponibilita, che controlla da sé quelle correnti.
+     */
+    boolean isLiberaInArchivio(TimeSlot ts) {
+        this.lock.lock();
+        try {
+            return this.archivio == null || !this.archivio.siSovrappone(ts);
+        } finally {
+            this.lock.unlock();
+        }
     }
 
 }
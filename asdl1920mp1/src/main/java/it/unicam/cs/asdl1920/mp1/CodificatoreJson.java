@@ -0,0 +1,194 @@
+package it.unicam.cs.asdl1920.mp1;
+
+/**
+ * Un codificatore JSON minimale che scrive direttamente su uno
+ * {@link StringBuilder}, senza riflessione né oggetti intermedi. Gestisce da
+ * solo le virgole fra gli elementi: il chiamante apre e chiude oggetti e array
+ * e aggiunge campi o valori nell'ordine in cui devono comparire.
+ *
+ * Esempio: {@code new CodificatoreJson().inizioOggetto().campo("nome",
+ * "LA1").fineOggetto().toString()} produce {@code {"nome":"LA1"}}.
+ *
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+public class CodificatoreJson {
+
+    private final StringBuilder sb;
+
+    // true se il prossimo elemento è il primo del contenitore corrente
+    private boolean primo;
+
+    /**
+     * Crea un codificatore vuoto.
+     */
+    public CodificatoreJson() {
+        this.sb = new StringBuilder(256);
+        this.primo = true;
+    }
+
+    /**
+     * Apre un oggetto.
+     *
+     * @return questo codificatore
+     */
+    public CodificatoreJson inizioOggetto() {
+        this.separa();
+        this.sb.append('{');
+        this.primo = true;
+        return this;
+    }
+
+    /**
+     * Chiude l'oggetto corrente.
+     *
+     * @return questo codificatore
+     */
+    public CodificatoreJson fineOggetto() {
+        this.sb.append('}');
+        this.primo = false;
+        return this;
+    }
+
+    /**
+     * Apre un array.
+     *
+     * @return questo codificatore
+     */
+    public CodificatoreJson inizioArray() {
+        this.separa();
+        this.sb.append('[');
+        this.primo = true;
+        return this;
+    }
+
+    /**
+     * Chiude l'array corrente.
+     *
+     * @return questo codificatore
+     */
+    public CodificatoreJson fineArray() {
+        this.sb.append(']');
+        this.primo = false;
+        return this;
+    }
+
+    /**
+     * Scrive il nome di un campo dell'oggetto corrente; deve essere seguito
+     * da un valore, un oggetto o un array.
+     *
+     * @param nome il nome del campo
+     * @return questo codificatore
+     */
+    public CodificatoreJson nome(String nome) {
+        this.separa();
+        this.stringa(nome);
+        this.sb.append(':');
+        this.primo = true;
+        return this;
+    }
+
+    /**
+     * Scrive un campo stringa dell'oggetto corrente.
+     *
+     * @param nome   il nome del campo
+     * @param valore il valore del campo, eventualmente null
+     * @return questo codificatore
+     */
+    public CodificatoreJson campo(String nome, String valore) {
+        return this.nome(nome).valore(valore);
+    }
+
+    /**
+     * Scrive un campo numerico dell'oggetto corrente.
+     *
+     * @param nome   il nome del campo
+     * @param valore il valore del campo
+     * @return questo codificatore
+     */
+    public CodificatoreJson campo(String nome, long valore) {
+        return this.nome(nome).valore(valore);
+    }
+
+    /**
+     * Scrive un campo booleano dell'oggetto corrente.
+     *
+     * @param nome   il nome del campo
+     * @param valore il valore del campo
+     * @return questo codificatore
+     */
+    public CodificatoreJson campo(String nome, boolean valore) {
+        this.nome(nome);
+        this.sb.append(valore);
+        this.primo = false;
+        return this;
+    }
+
+    /**
+     * Scrive un valore stringa nel contenitore corrente.
+     *
+     * @param valore il valore, eventualmente null
+     * @return questo codificatore
+     */
+    public CodificatoreJson valore(String valore) {
+        this.separa();
+        if (valore == null) {
+            this.sb.append("null");
+        } else {
+            this.stringa(valore);
+        }
+        this.primo = false;
+        return this;
+    }
+
+    /**
+     * Scrive un valore numerico nel contenitore corrente.
+     *
+     * @param valore il valore
+     * @return questo codificatore
+     */
+    public CodificatoreJson valore(long valore) {
+        this.separa();
+        this.sb.append(valore);
+        this.primo = false;
+        return this;
+    }
+
+    /**
+     * @return il testo JSON prodotto finora
+     */
+    @Override
+    public String toString() {
+        return this.sb.toString();
+    }
+
+    private void separa() {
+        if (!this.primo) {
+            this.sb.append(',');
+        }
+    }
+
+    /*
+     * Scrive una stringa fra virgolette, con gli escape richiesti da JSON.
+     */
+    private void stringa(String s) {
+        this.sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+                case '"': this.sb.append("\\\""); break;
+                case '\\': this.sb.append("\\\\"); break;
+                case '\n': this.sb.append("\\n"); break;
+                case '\r': this.sb.append("\\r"); break;
+                case '\t': this.sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) {
+                        this.sb.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        this.sb.append(c);
+                    }
+            }
+        }
+        this.sb.append('"');
+    }
+}
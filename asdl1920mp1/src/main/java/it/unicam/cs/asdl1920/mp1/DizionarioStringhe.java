@@ -0,0 +1,113 @@
+package it.unicam.cs.asdl1920.mp1;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Un dizionario di stringhe associa a ogni stringa distinta un identificativo
+ * intero, assegnato in ordine di inserimento a partire da 0. Permette di
+ * memorizzare al posto di stringhe ripetute (ad esempio docenti e motivi delle
+ * prenotazioni) un solo intero, e di ottenere di nuovo la stringa a partire
+ * dall'identificativo.
+ *
+ * Il dizionario può essere usato da più thread. La ricerca di una stringa già
+ * presente e la lettura di una stringa non prendono lock; solo l'inserimento
+ * di una stringa nuova è sincronizzato. Le stringhe non vengono mai rimosse,
+ * quindi un dizionario vive quanto la struttura compatta che lo possiede
+ * (un {@link ArchivioStorico} o delle {@link PrenotazioniColonnari}) e non
+ * va condiviso fra strutture che non vengono liberate insieme: docenti e
+ * motivi sono testo libero che arriva anche da fuori, e un dizionario
+ * condiviso crescerebbe senza limite. Le stringhe delle aule e delle
+ * prenotazioni vive sono invece deduplicate da {@code InternatoreStringhe},
+ * che le tiene con riferimenti deboli.
+ *
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+public class DizionarioStringhe {
+
+    private final Map<String, Integer> identificativi;
+
+    // Le stringhe per identificativo; le posizioni fino a size sono scritte
+    // prima di size e non cambiano più, l'array viene sostituito quando è
+    // pieno
+    private volatile String[] stringhe;
+
+    private volatile int size;
+
+    /**
+     * Crea un dizionario vuoto.
+     */
+    public DizionarioStringhe() {
+        this.identificativi = new ConcurrentHashMap<>();
+        this.stringhe = new String[16];
+    }
+
+    /**
+     * Restituisce l'identificativo di una stringa, aggiungendola al dizionario
+     * se non era presente.
+     *
+     * @param s la stringa
+     * @return l'identificativo della stringa
+     * @throws NullPointerException se la stringa passata è nulla
+     */
+    public int id(String s) {
+        if (s == null) {
+            throw new NullPointerException("Tentativo di inserire una stringa nulla nel dizionario");
+        }
+        Integer id = this.identificativi.get(s);
+        return id != null ? id : this.inserisci(s);
+    }
+
+    private synchronized int inserisci(String s) {
+        Integer id = this.identificativi.get(s);
+        if (id != null) return id;
+        int n = this.size;
+        String[] a = this.stringhe;
+        if (n == a.length) {
+            a = Arrays.copyOf(a, n * 2);
+            this.stringhe = a;
+        }
+        a[n] = s;
+        // La scrittura di size pubblica la stringa a chi legge size prima
+        // dell'array
+        this.size = n + 1;
+        this.identificativi.put(s, n);
+        return n;
+    }
+
+    /**
+     * Restituisce la stringa associata a un identificativo.
+     *
+     * @param id l'identificativo
+     * @return la stringa associata
+     * @throws IndexOutOfBoundsException se l'identificativo non è stato
+     *                                   assegnato da questo dizionario
+     */
+    public String stringa(int id) {
+        if (id < 0 || id >= this.size) {
+            throw new IndexOutOfBoundsException("Identificativo non assegnato: " + id);
+        }
+        return this.stringhe[id];
+    }
+
+    /**
+     * Restituisce l'unica istanza del dizionario uguale a una stringa,
+     * aggiungendola se non era presente.
+     *
+     * @param s la stringa
+     * @return la stringa del dizionario uguale a s
+     * @throws NullPointerException se la stringa passata è nulla
+     */
+    public String interna(String s) {
+        return this.stringa(this.id(s));
+    }
+
+    /**
+     * @return il numero di stringhe distinte nel dizionario
+     */
+    public int size() {
+        return this.size;
+    }
+}
@@ -0,0 +1,70 @@
+package it.unicam.cs.asdl1920.mp1;
+
+/**
+ * Un evento di modifica di una prenotazione, pubblicato da un
+ * {@link FeedPrenotazioni}. Gli oggetti della classe sono immutabili.
+ *
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+public class EventoPrenotazione {
+
+    /**
+     * I tipi di modifica di una prenotazione.
+     */
+    public enum Tipo {
+        AGGIUNTA, RIMOZIONE, SCADENZA
+    }
+
+    private final Tipo tipo;
+
+    private final Prenotazione prenotazione;
+
+    private final long sequenza;
+
+    /**
+     * Costruisce un evento.
+     *
+     * @param tipo         il tipo di modifica
+     * @param prenotazione la prenotazione modificata
+     * @param sequenza     il numero progressivo dell'evento nel feed
+     * @throws NullPointerException se il tipo o la prenotazione sono nulli
+     */
+    public EventoPrenotazione(Tipo tipo, Prenotazione prenotazione,
+                              long sequenza) {
+        if (tipo == null || prenotazione == null) {
+            throw new NullPointerException("Tentativo di creare un evento senza tipo o prenotazione");
+        }
+        this.tipo = tipo;
+        this.prenotazione = prenotazione;
+        this.sequenza = sequenza;
+    }
+
+    /**
+     * @return the tipo
+     */
+    public Tipo getTipo() {
+        return tipo;
+    }
+
+    /**
+     * @return the prenotazione
+     */
+    public Prenotazione getPrenotazione() {
+        return prenotazione;
+    }
+
+    /**
+     * @return the sequenza
+     */
+    public long getSequenza() {
+        return sequenza;
+    }
+
+    @Override
+    public String toString() {
+        return "EventoPrenotazione [sequenza=" + sequenza + ", tipo=" + tipo
+                + ", prenotazione=" + prenotazione + "]";
+    }
+
+}
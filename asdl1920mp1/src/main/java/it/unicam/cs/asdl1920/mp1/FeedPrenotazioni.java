@@ -0,0 +1,277 @@
+package it.unicam.cs.asdl1920.mp1;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Un feed di prenotazioni pubblica gli eventi di modifica delle prenotazioni
+ * in un buffer circolare di capacità limitata, da cui ogni sottoscrittore
+ * legge tutti gli eventi in ordine con un proprio cursore. Il feed è un
+ * {@link AscoltatorePrenotazioni}: di solito lo si ottiene con
+ * {@link GestoreAule#creaFeed(int, Politica)}, che lo registra su tutte le
+ * aule del gestore.
+ *
+ * Il buffer non usa lock: chi pubblica riserva un numero di sequenza con un
+ * incremento atomico e scrive l'evento nella posizione corrispondente; un
+ * sottoscrittore considera pubblicato l'evento di sequenza s quando nella
+ * posizione di s trova un evento con quella sequenza. Una posizione può
+ * essere sovrascritta solo quando contiene già l'evento del giro precedente,
+ * così che gli eventi di una posizione siano scritti in ordine anche se chi
+ * pubblica si ferma fra la riserva e la scrittura, e quando tutti i
+ * sottoscrittori hanno letto quell'evento. Se un sottoscrittore è troppo
+ * lento la {@link Politica} del feed decide se chi pubblica deve attendere o
+ * se il sottoscrittore viene scollegato.
+ *
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+public class FeedPrenotazioni implements AscoltatorePrenotazioni {
+
+    /**
+     * Il comportamento del feed quando il buffer è pieno perché un
+     * sottoscrittore non ha ancora letto gli eventi più vecchi.
+     */
+    public enum Politica {
+        /**
+         * Chi pubblica attende che i sottoscrittori lenti leggano: le
+         * modifiche alle aule rallentano fino al ritmo del sottoscrittore più
+         * lento. Con questa politica i sottoscrittori devono leggere da un
+         * thread diverso da quello che modifica le aule.
+         */
+        BLOCCA,
+        /**
+         * I sottoscrittori lenti vengono scollegati e la pubblicazione non
+         * attende mai.
+         */
+        SCOLLEGA
+    }
+
+    private final AtomicReferenceArray<EventoPrenotazione> buffer;
+
+    private final int maschera;
+
+    private final Politica politica;
+
+    // Prossimo numero di sequenza da assegnare
+    private final AtomicLong prossima;
+
+    private final List<Sottoscrittore> sottoscrittori;
+
+    /**
+     * Crea un feed.
+     *
+     * @param capacita il numero minimo di eventi che il buffer può contenere,
+     *                 arrotondato alla potenza di 2 successiva
+     * @param politica il comportamento con il buffer pieno
+     * @throws NullPointerException     se la politica è nulla
+     * @throws IllegalArgumentException se la capacità non è compresa fra 1 e
+     *                                  2^30
+     */
+    public FeedPrenotazioni(int capacita, Politica politica) {
+        if (politica == null) {
+            throw new NullPointerException("Tentativo di creare un feed senza politica");
+        }
+        if (capacita < 1 || capacita > (1 << 30)) {
+            throw new IllegalArgumentException("Tentativo di creare un feed con capacità non valida");
+        }
+        int c = Integer.highestOneBit(capacita);
+        if (c < capacita) c <<= 1;
+        this.buffer = new AtomicReferenceArray<>(c);
+        this.maschera = c - 1;
+        this.politica = politica;
+        this.prossima = new AtomicLong();
+        this.sottoscrittori = new CopyOnWriteArrayList<>();
+    }
+
+    /**
+     * @return il numero di eventi che il buffer può contenere
+     */
+    public int getCapacita() {
+        return this.maschera + 1;
+    }
+
+    /**
+     * @return il numero di eventi pubblicati o in corso di pubblicazione
+     */
+    public long getEventiPubblicati() {
+        return this.prossima.get();
+    }
+
+    /**
+     * Crea un nuovo sottoscrittore, che riceverà tutti gli eventi pubblicati
+     * da questo momento in poi.
+     *
+     * @return il sottoscrittore
+     */
+    public Sottoscrittore sottoscrivi() {
+        Sottoscrittore s = new Sottoscrittore(this.prossima.get());
+        this.sottoscrittori.add(s);
+        // Chi ha controllato i cursori prima dell'iscrizione ha riservato una
+        // sequenza precedente a questa, quindi non sovrascrive eventi che il
+        // sottoscrittore deve leggere
+        s.cursore.set(this.prossima.get());
+        s.iscritto = true;
+        return s;
+    }
+
+    @Override
+    public void prenotazioneAggiunta(Prenotazione p) {
+        this.pubblica(EventoPrenotazione.Tipo.AGGIUNTA, p);
+    }
+
+    @Override
+    public void prenotazioneRimossa(Prenotazione p) {
+        this.pubblica(EventoPrenotazione.Tipo.RIMOZIONE, p);
+    }
+
+    @Override
+    public void prenotazioneScaduta(Prenotazione p) {
+        this.pubblica(EventoPrenotazione.Tipo.SCADENZA, p);
+    }
+
+    /**
+     * Pubblica un evento.
+     *
+     * @param tipo il tipo di modifica
+     * @param p    la prenotazione modificata
+     * @return il numero di sequenza dell'evento pubblicato
+     * @throws NullPointerException se il tipo o la prenotazione sono nulli
+     */
+    public long pubblica(EventoPrenotazione.Tipo tipo, Prenotazione p) {
+        if (tipo == null || p == null) {
+            throw new NullPointerException("Tentativo di pubblicare un evento senza tipo o prenotazione");
+        }
+        long seq = this.prossima.getAndIncrement();
+        int i = (int) (seq & this.maschera);
+        // La posizione deve contenere l'evento seq - capacità, che deve essere
+        // stato letto da tutti; finché chi l'ha riservato non l'ha scritto la
+        // posizione è vuota o contiene un evento ancora più vecchio
+        long daLeggere = seq - this.buffer.length();
+        int attese = 0;
+        while (true) {
+            EventoPrenotazione vecchio = this.buffer.get(i);
+            if (daLeggere < 0 || (vecchio != null && vecchio.getSequenza() == daLeggere)) {
+                if (this.minimoCursore() > daLeggere) break;
+                if (this.politica == Politica.SCOLLEGA) {
+                    for (Sottoscrittore s : this.sottoscrittori) {
+                        // Chi si sta iscrivendo ha ancora il cursore
+                        // provvisorio e non va scollegato
+                        if (s.iscritto && s.cursore.get() <= daLeggere) {
+                            s.scollega();
+                        }
+                    }
+                    if (this.minimoCursore() > daLeggere) break;
+                }
+            }
+            if (++attese < 1000) {
+                Thread.yield();
+            } else {
+                LockSupport.parkNanos(10_000);
+            }
+        }
+        this.buffer.set(i, new EventoPrenotazione(tipo, p, seq));
+        return seq;
+    }
+
+    private long minimoCursore() {
+        long min = Long.MAX_VALUE;
+        for (Sottoscrittore s : this.sottoscrittori) {
+            min = Math.min(min, s.cursore.get());
+        }
+        return min;
+    }
+
+    /**
+     * Un sottoscrittore legge gli eventi del feed in ordine di sequenza. Un
+     * sottoscrittore va usato da un solo thread alla volta.
+     */
+    public class Sottoscrittore {
+
+        // Sequenza del prossimo evento da leggere
+        private final AtomicLong cursore;
+
+        private volatile boolean scollegato;
+
+        // Falso finché sottoscrivi non ha fissato il cursore
+        private volatile boolean iscritto;
+
+        private Sottoscrittore(long inizio) {
+            this.cursore = new AtomicLong(inizio);
+        }
+
+        /**
+         * Restituisce il prossimo evento, se è già stato pubblicato.
+         *
+         * @return il prossimo evento, null se non ci sono nuovi eventi
+         * @throws IllegalStateException se il sottoscrittore è stato
+         *                               scollegato o chiuso
+         */
+        public EventoPrenotazione poll() {
+            if (this.scollegato) {
+                throw new IllegalStateException("Sottoscrittore scollegato dal feed");
+            }
+            long seq = this.cursore.get();
+            EventoPrenotazione e = buffer.get((int) (seq & maschera));
+            if (e == null || e.getSequenza() < seq) {
+                return null;
+            }
+            if (e.getSequenza() > seq) {
+                // L'evento atteso è stato sovrascritto
+                this.scollega();
+                throw new IllegalStateException("Sottoscrittore scollegato dal feed");
+            }
+            this.cursore.set(seq + 1);
+            return e;
+        }
+
+        /**
+         * Aggiunge a una lista gli eventi già pubblicati, fino a un massimo
+         * dato.
+         *
+         * @param destinazione la lista a cui aggiungere gli eventi
+         * @param massimo      il numero massimo di eventi da leggere
+         * @return il numero di eventi aggiunti
+         * @throws IllegalStateException se il sottoscrittore è stato
+         *                               scollegato o chiuso
+         */
+        public int drena(List<EventoPrenotazione> destinazione, int massimo) {
+            int n = 0;
+            EventoPrenotazione e;
+            while (n < massimo && (e = this.poll()) != null) {
+                destinazione.add(e);
+                n++;
+            }
+            return n;
+        }
+
+        /**
+         * @return il numero di eventi pubblicati che questo sottoscrittore non
+         * ha ancora letto
+         */
+        public long getRitardo() {
+            return Math.max(0, prossima.get() - this.cursore.get());
+        }
+
+        /**
+         * @return true se il sottoscrittore è stato scollegato o chiuso
+         */
+        public boolean isScollegato() {
+            return this.scollegato;
+        }
+
+        /**
+         * Chiude il sottoscrittore: il feed non attenderà più le sue letture.
+         */
+        public void chiudi() {
+            this.scollega();
+        }
+
+        private void scollega() {
+            this.scollegato = true;
+            sottoscrittori.remove(this);
+        }
+    }
+}
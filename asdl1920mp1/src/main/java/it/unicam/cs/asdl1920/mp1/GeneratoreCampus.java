@@ -0,0 +1,214 @@
+package it.unicam.cs.asdl1920.mp1;
+
+import java.util.ArrayList;
+import java.util.GregorianCalendar;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Un generatore di campus costruisce in modo riproducibile un gestore di aule
+ * sintetico, con aule distribuite su più location e dotate di facilities
+ * realistiche, e genera le richieste (time slot e facilities) usate per
+ * simulare il carico sul gestore. A parità di seme e di parametri il campus
+ * generato è sempre lo stesso.
+ *
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+public class GeneratoreCampus {
+
+    /**
+     * Codici delle presence facilities che un'aula generata può avere.
+     */
+    public static final String[] CODICI_PRESENZA = {"HDMI", "VGA",
+            "WHITEBOARD", "AMPLIFICAZIONE", "ARIACONDIZIONATA"};
+
+    /**
+     * Codice della quantitative facility che indica i posti a sedere normali.
+     */
+    public static final String CODICE_POSTI = "POSTI";
+
+    /**
+     * Codice della quantitative facility che indica i posti con Thin Client.
+     */
+    public static final String CODICE_POSTITC = "POSTITC";
+
+    // Prima ora prenotabile di ogni giorno
+    private static final int ORA_APERTURA = 8;
+
+    // Ultima ora in cui può terminare una prenotazione
+    private static final int ORA_CHIUSURA = 20;
+
+    // Durata massima in ore di un time slot generato
+    private static final int DURATA_MASSIMA_ORE = 3;
+
+    private final long seme;
+
+    private final int numeroAule;
+
+    private final int numeroLocation;
+
+    private final int giorniOrizzonte;
+
+    private final GregorianCalendar inizioOrizzonte;
+
+    /**
+     * Crea un generatore di campus.
+     *
+     * @param seme            il seme da cui derivano tutte le scelte casuali
+     * @param numeroAule      il numero di aule del campus
+     * @param numeroLocation  il numero di location (edifici) su cui sono
+     *                        distribuite le aule
+     * @param giorniOrizzonte il numero di giorni, a partire da
+     *                        {@code inizioOrizzonte}, in cui cadono i time
+     *                        slot generati
+     * @param inizioOrizzonte il primo giorno dell'orizzonte di prenotazione
+     * @throws NullPointerException     se {@code inizioOrizzonte} è nullo
+     * @throws IllegalArgumentException se uno dei numeri passati non è
+     *                                  positivo
+     */
+    public GeneratoreCampus(long seme, int numeroAule, int numeroLocation,
+                            int giorniOrizzonte,
+                            GregorianCalendar inizioOrizzonte) {
+        if (inizioOrizzonte == null) {
+            throw new NullPointerException("Tentativo di creare un generatore senza inizio dell'orizzonte");
+        }
+        if (numeroAule <= 0 || numeroLocation <= 0 || giorniOrizzonte <= 0) {
+            throw new IllegalArgumentException("Tentativo di creare un generatore con aule, location o giorni non positivi");
+        }
+        this.seme = seme;
+        this.numeroAule = numeroAule;
+        this.numeroLocation = numeroLocation;
+        this.giorniOrizzonte = giorniOrizzonte;
+        this.inizioOrizzonte = inizioOrizzonte;
+    }
+
+    /**
+     * @return il seme del generatore
+     */
+    public long getSeme() {
+        return seme;
+    }
+
+    /**
+     * Costruisce un nuovo gestore contenente le aule del campus. Le
+     * prenotazioni iniziali sono vuote.
+     *
+     * @return un gestore con {@code numeroAule} aule
+     */
+    public GestoreAule creaGestore() {
+        GestoreAule g = new GestoreAule();
+        for (Aula a : this.creaAule()) {
+            g.addAula(a);
+        }
+        return g;
+    }
+
+    /**
+     * Genera le aule del campus, ordinate per nome. Ogni aula ha un nome unico
+     * del tipo "B2.07" (edificio, piano e numero) e un sottoinsieme casuale
+     * delle facilities note.
+     *
+     * @return la lista delle aule generate
+     */
+    public List<Aula> creaAule() {
+        Random r = new Random(this.seme);
+        List<Aula> aule = new ArrayList<>(this.numeroAule);
+        for (int i = 0; i < this.numeroAule; i++) {
+            int edificio = i % this.numeroLocation;
+            int piano = r.nextInt(4);
+            String location = "Polo " + nomeEdificio(edificio) + " Piano " + piano;
+            String nome = nomeEdificio(edificio) + piano + "." + (i / this.numeroLocation);
+            Set<Facility> facilities = new HashSet<>();
+            for (String codice : CODICI_PRESENZA) {
+                if (r.nextInt(100) < 60) {
+                    facilities.add(new PresenceFacility(codice, ""));
+                }
+            }
+            facilities.add(new QuantitativeFacility(CODICE_POSTI, "",
+                    20 + 10 * r.nextInt(28)));
+            if (r.nextBoolean()) {
+                facilities.add(new QuantitativeFacility(CODICE_POSTITC, "",
+                        10 + 5 * r.nextInt(11)));
+            }
+            aule.add(new Aula(nome, location, facilities));
+        }
+        return aule;
+    }
+
+    /**
+     * Genera un time slot casuale dentro l'orizzonte, allineato al quarto
+     * d'ora e compreso nell'orario di apertura.
+     *
+     * @param r il generatore di numeri casuali da usare
+     * @return un time slot casuale
+     * @throws NullPointerException se {@code r} è nullo
+     */
+    public TimeSlot prossimoTimeSlot(Random r) {
+        if (r == null) {
+            throw new NullPointerException("Tentativo di generare un time slot senza generatore casuale");
+        }
+        int giorno = r.nextInt(this.giorniOrizzonte);
+        int durataQuarti = 4 + r.nextInt(4 * (DURATA_MASSIMA_ORE - 1) + 1);
+        int ultimoInizio = 4 * (ORA_CHIUSURA - ORA_APERTURA) - durataQuarti;
+        int inizioQuarti = 4 * ORA_APERTURA + r.nextInt(ultimoInizio + 1);
+        GregorianCalendar start = this.istante(giorno, inizioQuarti);
+        GregorianCalendar stop = this.istante(giorno, inizioQuarti + durataQuarti);
+        return new TimeSlot(start, stop);
+    }
+
+    /**
+     * Genera un insieme casuale di facilities richieste, con al più due
+     * elementi, scelte fra quelle note al generatore.
+     *
+     * @param r il generatore di numeri casuali da usare
+     * @return un insieme di facilities richieste, eventualmente vuoto
+     * @throws NullPointerException se {@code r} è nullo
+     */
+    public Set<Facility> prossimeFacilityRichieste(Random r) {
+        if (r == null) {
+            throw new NullPointerException("Tentativo di generare facilities senza generatore casuale");
+        }
+        Set<Facility> richieste = new HashSet<>();
+        int quante = r.nextInt(3);
+        for (int i = 0; i < quante; i++) {
+            if (r.nextInt(4) == 0) {
+                richieste.add(new QuantitativeFacility(CODICE_POSTI, "",
+                        20 + 10 * r.nextInt(10)));
+            } else {
+                richieste.add(new PresenceFacility(
+                        CODICI_PRESENZA[r.nextInt(CODICI_PRESENZA.length)], ""));
+            }
+        }
+        return richieste;
+    }
+
+    /*
+     * Restituisce l'istante che cade nel giorno dato dell'orizzonte al quarto
+     * d'ora indicato.
+     */
+    private GregorianCalendar istante(int giorno, int quarti) {
+        GregorianCalendar c = new GregorianCalendar(
+                this.inizioOrizzonte.get(GregorianCalendar.YEAR),
+                this.inizioOrizzonte.get(GregorianCalendar.MONTH),
+                this.inizioOrizzonte.get(GregorianCalendar.DAY_OF_MONTH));
+        c.add(GregorianCalendar.DAY_OF_MONTH, giorno);
+        c.add(GregorianCalendar.MINUTE, quarti * 15);
+        return c;
+    }
+
+    /*
+     * Nome dell'edificio di indice dato: A, B, ..., Z, AA, AB, ...
+     */
+    private static String nomeEdificio(int indice) {
+        String nome = "";
+        int i = indice;
+        do {
+            nome = (char) ('A' + i % 26) + nome;
+            i = i / 26 - 1;
+        } while (i >= 0);
+        return nome;
+    }
+}
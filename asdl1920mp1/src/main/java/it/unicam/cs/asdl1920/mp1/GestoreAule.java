@@ -1,13 +1,27 @@
 package it.unicam.cs.asdl1920.mp1;
 
+import java.util.ArrayList;
+import java.util.GregorianCalendar;
+import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.Iterator;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Un gestore di aule gestisce un insieme di aule e permette di cercare aule
  * libere con certe caratteristiche fra quelle che gestisce.
  *
+ * Prenotazioni e ricerche possono essere eseguite da più thread, perché ogni
+ * aula protegge le proprie prenotazioni con un lock. L'insieme delle aule e
+ * gli ascoltatori invece non sono sincronizzati: vanno aggiunti prima di
+ * usare il gestore da più thread, o con un lock esterno.
+ *
  * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
  *
  */
@@ -15,11 +29,37 @@ public class GestoreAule {
 
     private final Set<Aula> aule;
 
+    // Le stesse aule indicizzate per nome
+    private final Map<String, Aula> aulePerNome;
+
+    // Indice per le ricerche per nome e location parziali o approssimate
+    private final IndiceAule indice;
+
+    // Ascoltatori registrati su tutte le aule del gestore
+    private final List<AscoltatorePrenotazioni> ascoltatori;
+
+    /**
+     * Durata in millisecondi di un tick della ruota delle scadenze: le
+     * prenotazioni vengono rimosse al più un tick dopo la loro fine.
+     */
+    public static final long TICK_SCADENZE = 60_000;
+
+    // Fine delle prenotazioni, null finché le scadenze non sono attivate
+    private RuotaTemporale<Prenotazione> scadenze;
+
+    // Programmazione nella ruota di ciascuna prenotazione memorizzata, per
+    // cancellarla quando la prenotazione viene rimossa; protetta dal
+    // monitor della ruota
+    private Map<Prenotazione, RuotaTemporale.Programmazione<Prenotazione>> programmate;
+
     /**
      * Crea un gestore vuoto.
      */
     public GestoreAule() {
         this.aule = new HashSet<>();
+        this.aulePerNome = new HashMap<>();
+        this.indice = new IndiceAule();
+        this.ascoltatori = new CopyOnWriteArrayList<>();
     }
 
     /**
@@ -33,7 +73,16 @@ public class GestoreAule {
         if (a == null) {
             throw new NullPointerException("Tentativo di aggiungere un'aula nulla");
         }
-        return this.getAule().add(a);
+        if (!this.getAule().add(a)) {
+            return false;
+        }
+        this.aulePerNome.put(a.getNome(), a);
+        this.indice.aggiungi(a);
+        for (AscoltatorePrenotazioni l : this.ascoltatori) {
+            a.addAscoltatore(l);
+            l.aulaAggiunta(a);
+        }
+        return true;
     }
 
     /**
@@ -43,6 +92,365 @@ public class GestoreAule {
         return aule;
     }
 
+    /**
+     * Restituisce l'aula gestita con un certo nome.
+     *
+     * @param nome il nome dell'aula
+     * @return l'aula con quel nome, null se non è gestita da questo gestore
+     * @throws NullPointerException se il nome passato è nullo
+     */
+    public Aula getAula(String nome) {
+        if (nome == null) {
+            throw new NullPointerException("Tentativo di cercare un'aula con nome nullo");
+        }
+        return this.aulePerNome.get(nome);
+    }
+
+    /**
+     * Cerca le aule il cui nome o location, o una loro parola, inizia con un
+     * testo dato, ammettendo alcuni errori di battitura; si veda
+     * {@link IndiceAule#cerca(String, int)}.
+     *
+     * @param testo     il testo cercato, ad esempio "lodov" o "B2."
+     * @param maxErrori il numero massimo di caratteri sbagliati, mancanti o
+     *                  in più; 0 per una ricerca per prefisso
+     * @return l'insieme delle aule trovate, vuoto se non ce ne sono
+     * @throws NullPointerException     se il testo è nullo
+     * @throws IllegalArgumentException se il numero di errori è negativo
+     */
+    public Set<Aula> cercaAule(String testo, int maxErrori) {
+        return this.indice.cerca(testo, maxErrori);
+    }
+
+    /**
+     * Registra un ascoltatore su tutte le aule del gestore, comprese quelle
+     * che verranno aggiunte in seguito; l'ascoltatore viene anche notificato
+     * delle aule aggiunte dopo la registrazione.
+     *
+     * @param l l'ascoltatore da registrare
+     * @return true se l'ascoltatore è stato registrato, false se lo era già
+     * @throws NullPointerException se l'ascoltatore passato è nullo
+     */
+    public boolean addAscoltatore(AscoltatorePrenotazioni l) {
+        if (l == null) {
+            throw new NullPointerException("Tentativo di registrare un ascoltatore nullo");
+        }
+        if (this.ascoltatori.contains(l)) return false;
+        this.ascoltatori.add(l);
+        for (Aula a : this.getAule()) {
+            a.addAscoltatore(l);
+        }
+        return true;
+    }
+
+    /**
+     * Cancella la registrazione di un ascoltatore da tutte le aule del
+     * gestore.
+     *
+     * @param l l'ascoltatore da cancellare
+     * @return true se l'ascoltatore era registrato, false altrimenti
+     * @throws NullPointerException se l'ascoltatore passato è nullo
+     */
+    public boolean removeAscoltatore(AscoltatorePrenotazioni l) {
+        if (l == null) {
+            throw new NullPointerException("Tentativo di cancellare un ascoltatore nullo");
+        }
+        if (!this.ascoltatori.remove(l)) return false;
+        for (Aula a : this.getAule()) {
+            a.removeAscoltatore(l);
+        }
+        return true;
+    }
+
+    /**
+     * Aggiunge un gruppo di prenotazioni, anche su aule diverse, in modo
+     * atomico: o vengono aggiunte tutte o non ne viene aggiunta nessuna. Le
+     * prenotazioni passate servono solo a descrivere la richiesta (nome
+     * dell'aula, time slot, docente e motivo); le aule sono quelle gestite
+     * con quei nomi, anche se le prenotazioni si riferiscono a copie, e nelle
+     * aule vengono memorizzate nuove prenotazioni con gli stessi dati.
+     *
+     * Le aule coinvolte vengono bloccate in ordine di nome con il lock che
+     * l'aula prende per ogni modifica delle prenotazioni, quindi la
+     * transazione è atomica anche rispetto alle modifiche fatte con i metodi
+     * dell'aula, della lista d'attesa o del gestore da altri thread, e più
+     * transazioni senza aule in comune procedono davvero in parallelo. Anche
+     * {@link Aula#isFree(TimeSlot)}, e quindi
+     * {@link #cercaAuleLibere(Set, TimeSlot)}, prende il lock di ciascuna
+     * aula, quindi non vede mai una transazione a metà in un'aula.
+     *
+     * Le prenotazioni vengono prima tutte controllate e memorizzate, poi
+     * notificate agli ascoltatori: un ascoltatore che solleva un'eccezione
+     * non annulla la transazione, che a quel punto è già completa; le
+     * notifiche vengono comunque inviate tutte, e la prima eccezione viene
+     * sollevata alla fine. Gli ascoltatori registrati devono tollerare
+     * notifiche da thread diversi.
+     *
+     * @param richieste le prenotazioni da aggiungere
+     * @throws NullPointerException     se la lista o una delle prenotazioni
+     *                                  sono nulle
+     * @throws IllegalArgumentException se un'aula non appartiene a questo
+     *                                  gestore, o se una prenotazione si
+     *                                  sovrappone a una prenotazione già
+     *                                  presente o a un'altra della richiesta
+     */
+    public void addPrenotazioni(List<Prenotazione> richieste) {
+        if (richieste == null) {
+            throw new NullPointerException("Tentativo di aggiungere una lista di prenotazioni nulla");
+        }
+        // Raggruppo le richieste per aula gestita, in ordine di nome
+        Map<Aula, List<Prenotazione>> perAula = new TreeMap<>();
+        List<Aula> gestite = new ArrayList<>(richieste.size());
+        for (Prenotazione p : richieste) {
+            if (p == null) {
+                throw new NullPointerException("Tentativo di aggiungere una prenotazione nulla");
+            }
+            Aula a = this.aulePerNome.get(p.getAula().getNome());
+            if (a == null) {
+                throw new IllegalArgumentException("Tentativo di prenotare un'aula non gestita: " + p.getAula().getNome());
+            }
+            gestite.add(a);
+            perAula.computeIfAbsent(a, x -> new ArrayList<>()).add(p);
+        }
+        List<Aula> bloccate = new ArrayList<>(perAula.size());
+        try {
+            for (Aula a : perAula.keySet()) {
+                a.getLock().lock();
+                bloccate.add(a);
+            }
+            for (Map.Entry<Aula, List<Prenotazione>> e : perAula.entrySet()) {
+                verificaPrenotazioni(e.getKey(), e.getValue());
+            }
+            // Tutte le prenotazioni sono valide: la memorizzazione non può
+            // fallire
+            List<Prenotazione> aggiunte = new ArrayList<>(richieste.size());
+            for (int i = 0; i < richieste.size(); i++) {
+                Prenotazione p = richieste.get(i);
+                Prenotazione q = gestite.get(i).inserisciPrenotazione(p.getTimeSlot(), p.getDocente(), p.getMotivo());
+                if (q != null) aggiunte.add(q);
+            }
+            RuntimeException errore = null;
+            for (Prenotazione p : aggiunte) {
+                try {
+                    p.getAula().notificaAggiunta(p);
+                } catch (RuntimeException ex) {
+                    if (errore == null) errore = ex;
+                    else errore.addSuppressed(ex);
+                }
+            }
+            if (errore != null) throw errore;
+        } finally {
+            for (int i = bloccate.size() - 1; i >= 0; i--) {
+                bloccate.get(i).getLock().unlock();
+            }
+        }
+    }
+
+    /*
+     * Controlla che le prenotazioni richieste per un'aula possano essere
+     * aggiunte tutte: non devono sovrapporsi a quelle dell'aula né fra loro,
+     * e non devono iniziare insieme a un'altra, perché l'aula non potrebbe
+     * memorizzarle entrambe.
+     */
+    private static void verificaPrenotazioni(Aula a, List<Prenotazione> richieste) {
+        for (int i = 0; i < richieste.size(); i++) {
+            Prenotazione p = richieste.get(i);
+            if (!a.isFree(p.getTimeSlot()) || a.getPrenotazioni().contains(p)) {
+                throw new IllegalArgumentException("Tentativo di aggiungere una prenotazione che si sovrappone con un'altra: " + p);
+            }
+            for (int j = 0; j < i; j++) {
+                Prenotazione q = richieste.get(j);
+                if (p.getTimeSlot().overlapsWith(q.getTimeSlot()) || p.compareTo(q) == 0) {
+                    throw new IllegalArgumentException("Tentativo di aggiungere due prenotazioni che si sovrappongono: " + p + ", " + q);
+                }
+            }
+        }
+    }
+
+    /**
+     * Crea un feed delle modifiche alle prenotazioni di tutte le aule del
+     * gestore, a cui i consumatori possono sottoscriversi invece di
+     * confrontare periodicamente gli insiemi delle prenotazioni.
+     *
+     * @param capacita il numero di eventi che il feed può contenere
+     * @param politica il comportamento del feed con il buffer pieno
+     * @return il feed, già registrato come ascoltatore del gestore
+     * @throws NullPointerException     se la politica è nulla
+     * @throws IllegalArgumentException se la capacità non è valida
+     */
+    public FeedPrenotazioni creaFeed(int capacita, FeedPrenotazioni.Politica politica) {
+        FeedPrenotazioni f = new FeedPrenotazioni(capacita, politica);
+        this.addAscoltatore(f);
+        return f;
+    }
+
+    /**
+     * Attiva la rimozione automatica delle prenotazioni scadute: da questo
+     * momento la fine di ogni prenotazione delle aule del gestore, presenti e
+     * future, viene programmata in una {@link RuotaTemporale} e
+     * {@link #rimuoviScadute(GregorianCalendar)} rimuove le prenotazioni
+     * finite senza scorrere le aule.
+     *
+     * @param ora l'istante da cui parte la ruota
+     * @return true se le scadenze sono state attivate, false se lo erano già
+     * @throws NullPointerException se l'istante passato è nullo
+     */
+    public boolean attivaScadenze(GregorianCalendar ora) {
+        if (ora == null) {
+            throw new NullPointerException("Tentativo di attivare le scadenze da un istante nullo");
+        }
+        if (this.scadenze != null) return false;
+        this.scadenze = new RuotaTemporale<>(TICK_SCADENZE, ora.getTimeInMillis());
+        this.programmate = new IdentityHashMap<>();
+        Scadenziere s = new Scadenziere();
+        for (Aula a : this.getAule()) {
+            s.aulaAggiunta(a);
+        }
+        this.addAscoltatore(s);
+        return true;
+    }
+
+    /**
+     * Rimuove dalle loro aule le prenotazioni finite entro un certo istante
+     * (al tick di {@link #TICK_SCADENZE}), notificando agli ascoltatori la
+     * loro scadenza. Il costo è proporzionale alle prenotazioni scadute e al
+     * tempo trascorso, non al numero di prenotazioni delle aule.
+     *
+     * @param ora l'istante corrente
+     * @return il numero di prenotazioni rimosse
+     * @throws NullPointerException  se l'istante passato è nullo
+     * @throws IllegalStateException se le scadenze non sono state attivate
+     */
+    public int rimuoviScadute(GregorianCalendar ora) {
+        if (ora == null) {
+            throw new NullPointerException("Tentativo di rimuovere le prenotazioni scadute a un istante nullo");
+        }
+        if (this.scadenze == null) {
+            throw new IllegalStateException("Scadenze non attivate");
+        }
+        List<Prenotazione> scadute;
+        synchronized (this.scadenze) {
+            scadute = this.scadenze.avanzaFinoA(ora.getTimeInMillis());
+            for (Prenotazione p : scadute) {
+                this.programmate.remove(p);
+            }
+        }
+        int rimosse = 0;
+        // Le prenotazioni archiviate nel frattempo non sono più nelle aule e
+        // vengono ignorate
+        for (Prenotazione p : scadute) {
+            if (p.getAula().removePrenotazioneScaduta(p)) {
+                rimosse++;
+            }
+        }
+        return rimosse;
+    }
+
+    /*
+     * Restituisce il numero di prenotazioni programmate nella ruota delle
+     * scadenze, 0 se le scadenze non sono attivate.
+     */
+    int scadenzeProgrammate() {
+        if (this.scadenze == null) return 0;
+        synchronized (this.scadenze) {
+            return this.scadenze.size();
+        }
+    }
+
+    /*
+     * Programma nella ruota la fine di ogni prenotazione aggiunta e la
+     * cancella quando la prenotazione viene rimossa, così la ruota non
+     * trattiene prenotazioni cancellate fino alla loro fine.
+     */
+    private class Scadenziere implements AscoltatorePrenotazioni {
+
+        @Override
+        public void prenotazioneAggiunta(Prenotazione p) {
+            synchronized (scadenze) {
+                programmate.put(p, scadenze.programma(p.getTimeSlot().getStop().getTimeInMillis(), p));
+            }
+        }
+
+        @Override
+        public void prenotazioneRimossa(Prenotazione p) {
+            synchronized (scadenze) {
+                RuotaTemporale.Programmazione<Prenotazione> v = programmate.remove(p);
+                if (v != null) scadenze.cancella(v);
+            }
+        }
+
+        @Override
+        public void prenotazioneScaduta(Prenotazione p) {
+            this.prenotazioneRimossa(p);
+        }
+
+        @Override
+        public void aulaAggiunta(Aula a) {
+            for (Prenotazione p : a.getPrenotazioni()) {
+                this.prenotazioneAggiunta(p);
+            }
+        }
+    }
+
+    /**
+     * Carica in blocco le prenotazioni di un archivio colonnare nell'aula del
+     * gestore con lo stesso nome, come
+     * {@link Aula#caricaPrenotazioni(PrenotazioniColonnari)}. L'archivio può
+     * riferirsi a una copia dell'aula, ad esempio costruita da
+     * un'importazione.
+     *
+     * @param c l'archivio da caricare
+     * @return il numero di prenotazioni aggiunte
+     * @throws NullPointerException     se l'archivio passato è nullo
+     * @throws IllegalArgumentException se il gestore non ha un'aula con il
+     *                                  nome di quella dell'archivio o una
+     *                                  prenotazione si sovrappone a una
+     *                                  dell'aula
+     */
+    public int caricaPrenotazioni(PrenotazioniColonnari c) {
+        if (c == null) {
+            throw new NullPointerException("Tentativo di caricare un archivio nullo");
+        }
+        Aula a = this.aulePerNome.get(c.getAula().getNome());
+        if (a == null) {
+            throw new IllegalArgumentException("Tentativo di caricare prenotazioni di un'aula non gestita");
+        }
+        return a.caricaPrenotazioni(c);
+    }
+
+    /**
+     * Sposta nell'archivio storico di ciascuna aula le prenotazioni che
+     * iniziano prima (o esattamente in) di un punto nel tempo, come
+     * {@link Aula#archiviaPrenotazioniBefore(GregorianCalendar)}; di solito
+     * l'inizio del periodo didattico corrente.
+     *
+     * @param timePoint un certo punto nel tempo
+     * @return il numero totale di prenotazioni archiviate
+     * @throws NullPointerException se il punto nel tempo passato è nullo
+     */
+    public int archiviaPrenotazioniBefore(GregorianCalendar timePoint) {
+        if (timePoint == null) {
+            throw new NullPointerException("Tentativo di archiviare prenotazioni prima di un punto nel tempo nullo");
+        }
+        int n = 0;
+        for (Aula a : this.getAule()) {
+            n += a.archiviaPrenotazioniBefore(timePoint);
+        }
+        return n;
+    }
+
+    /**
+     * Calcola la disponibilità di tutte le aule del gestore, in ordine di
+     * nome, in una sequenza di time slot; si veda {@link MatriceDisponibilita}.
+     *
+     * @param slots i time slot, uno per colonna della matrice
+     * @return la matrice di disponibilità
+     * @throws NullPointerException se la lista o uno dei time slot sono nulli
+     */
+    public MatriceDisponibilita calcolaDisponibilita(List<TimeSlot> slots) {
+        return MatriceDisponibilita.calcola(new ArrayList<>(new TreeSet<>(this.getAule())), slots);
+    }
+
     /**
      * Cerca tutte le aule che soddisfano un certo insieme di facilities e che
      * siano libere in un time slot specificato.
@@ -63,7 +471,37 @@ public class GestoreAule {
         if (requestedFacilities == null || ts == null) {
             throw new NullPointerException();
         }
-        Iterator<Aula> iter = this.getAule().iterator();
+        return filtra(this.getAule(), requestedFacilities, ts);
+    }
+
+    /**
+     * Cerca, fra le aule trovate da {@link #cercaAule(String, int)}, quelle
+     * che soddisfano un certo insieme di facilities e che sono libere in un
+     * time slot specificato.
+     *
+     * @param testo               il testo cercato nel nome o nella location
+     * @param maxErrori           il numero massimo di errori nel testo
+     * @param requestedFacilities insieme di facilities richieste che
+     *                            un'aula deve soddisfare
+     * @param ts                  il time slot in cui un'aula deve essere
+     *                            libera
+     * @return l'insieme delle aule trovate che soddisfano le facilities
+     * richieste e sono libere nel time slot, eventualmente vuoto
+     * @throws NullPointerException     se una qualsiasi delle informazioni
+     *                                  passate è nulla
+     * @throws IllegalArgumentException se il numero di errori è negativo
+     */
+    public Set<Aula> cercaAuleLibere(String testo, int maxErrori,
+                                     Set<Facility> requestedFacilities, TimeSlot ts) {
+        if (requestedFacilities == null || ts == null) {
+            throw new NullPointerException();
+        }
+        return filtra(this.cercaAule(testo, maxErrori), requestedFacilities, ts);
+    }
+
+    private static Set<Aula> filtra(Set<Aula> aule, Set<Facility> requestedFacilities,
+                                    TimeSlot ts) {
+        Iterator<Aula> iter = aule.iterator();
         Set<Aula> insiemeAule = new HashSet<Aula>();
         while (iter.hasNext()) {
             Aula a = iter.next();
@@ -0,0 +1,152 @@
+package it.unicam.cs.asdl1920.mp1;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Un indice delle aule per nome e location, per cercarle a partire da un
+ * testo parziale o scritto con qualche errore. I termini indicizzati di
+ * un'aula sono il nome, la location e ciascuna parola del nome e della
+ * location, senza distinguere maiuscole e minuscole; sono memorizzati in un
+ * trie.
+ *
+ * Una ricerca restituisce le aule con un termine che inizia con un prefisso a
+ * distanza di edit (inserimenti, cancellazioni e sostituzioni di caratteri)
+ * non maggiore di quella data dal testo cercato: con distanza 0 è una ricerca
+ * per prefisso, con distanza 1 "lodovci" trova "Polo Lodovici". Il trie
+ * viene visitato calcolando una riga della matrice della distanza di
+ * Levenshtein per nodo, e i rami in cui ogni valore della riga supera la
+ * distanza massima vengono scartati, quindi il costo dipende dalla lunghezza
+ * del testo e dai termini vicini e non dal numero di aule.
+ *
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+public class IndiceAule {
+
+    // Un nodo del trie, con le aule dei termini che terminano nel nodo
+    private static final class Nodo {
+        private final Map<Character, Nodo> figli = new HashMap<>();
+
+        private final Set<Aula> aule = new HashSet<>();
+    }
+
+    private final Nodo radice;
+
+    private int size;
+
+    /**
+     * Crea un indice vuoto.
+     */
+    public IndiceAule() {
+        this.radice = new Nodo();
+    }
+
+    /**
+     * @return il numero di aule indicizzate
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Aggiunge un'aula all'indice.
+     *
+     * @param a l'aula da indicizzare
+     * @throws NullPointerException se l'aula passata è nulla
+     */
+    public void aggiungi(Aula a) {
+        if (a == null) {
+            throw new NullPointerException("Tentativo di indicizzare un'aula nulla");
+        }
+        boolean nuova = false;
+        for (String testo : new String[] { a.getNome(), a.getLocation() }) {
+            String t = normalizza(testo);
+            nuova |= this.inserisci(t, a);
+            for (String parola : t.split("\\s+")) {
+                this.inserisci(parola, a);
+            }
+        }
+        if (nuova) this.size++;
+    }
+
+    /**
+     * Cerca le aule con un termine che inizia con un certo testo, ammettendo
+     * alcuni errori.
+     *
+     * @param testo     il testo cercato
+     * @param maxErrori la distanza di edit massima fra il testo e un prefisso
+     *                  di un termine
+     * @return l'insieme delle aule trovate, vuoto se non ce ne sono
+     * @throws NullPointerException     se il testo è nullo
+     * @throws IllegalArgumentException se il numero di errori è negativo
+     */
+    public Set<Aula> cerca(String testo, int maxErrori) {
+        if (testo == null) {
+            throw new NullPointerException("Tentativo di cercare un testo nullo");
+        }
+        if (maxErrori < 0) {
+            throw new IllegalArgumentException("Tentativo di cercare con un numero di errori negativo");
+        }
+        String q = normalizza(testo);
+        Set<Aula> risultato = new HashSet<>();
+        int[] riga = new int[q.length() + 1];
+        for (int i = 0; i <= q.length(); i++) riga[i] = i;
+        this.visita(this.radice, q, riga, maxErrori, risultato);
+        return risultato;
+    }
+
+    /*
+     * La riga contiene, per ogni prefisso del testo cercato, la distanza dal
+     * percorso che porta al nodo. Se l'ultimo valore è entro la distanza
+     * massima tutto il sottoalbero corrisponde; se tutti i valori la superano
+     * nessun discendente può corrispondere.
+     */
+    private void visita(Nodo n, String q, int[] riga, int maxErrori, Set<Aula> risultato) {
+        if (riga[q.length()] <= maxErrori) {
+            raccogli(n, risultato);
+            return;
+        }
+        for (Map.Entry<Character, Nodo> e : n.figli.entrySet()) {
+            char c = e.getKey();
+            int[] prossima = new int[riga.length];
+            prossima[0] = riga[0] + 1;
+            int minimo = prossima[0];
+            for (int i = 1; i < riga.length; i++) {
+                int sostituzione = riga[i - 1] + (q.charAt(i - 1) == c ? 0 : 1);
+                prossima[i] = Math.min(sostituzione, Math.min(riga[i] + 1, prossima[i - 1] + 1));
+                minimo = Math.min(minimo, prossima[i]);
+            }
+            if (minimo <= maxErrori) {
+                this.visita(e.getValue(), q, prossima, maxErrori, risultato);
+            }
+        }
+    }
+
+    private static void raccogli(Nodo n, Set<Aula> risultato) {
+        risultato.addAll(n.aule);
+        for (Nodo f : n.figli.values()) {
+            raccogli(f, risultato);
+        }
+    }
+
+    /*
+     * Inserisce un termine; restituisce true se l'aula non era già
+     * indicizzata sotto il termine.
+     */
+    private boolean inserisci(String termine, Aula a) {
+        if (termine.isEmpty()) return false;
+        Nodo n = this.radice;
+        for (int i = 0; i < termine.length(); i++) {
+            n = n.figli.computeIfAbsent(termine.charAt(i), c -> new Nodo());
+        }
+        return n.aule.add(a);
+    }
+
+    private static String normalizza(String testo) {
+        return testo.trim().toLowerCase(Locale.ROOT);
+    }
+}
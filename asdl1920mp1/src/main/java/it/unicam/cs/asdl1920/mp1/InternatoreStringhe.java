@@ -0,0 +1,83 @@
+package it.unicam.cs.asdl1920.mp1;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Deduplica le stringhe del modello delle prenotazioni: nome e location delle
+ * aule, docente e motivo delle prenotazioni. Stringhe uguali arrivate da parti
+ * diverse (importazioni, richieste HTTP, repliche e shard) vengono sostituite
+ * da un'unica istanza, così che ogni stringa ripetuta sia in memoria una volta
+ * sola.
+ *
+ * A differenza di un {@link DizionarioStringhe}, che non rimuove mai niente e
+ * per questo vive quanto la struttura compatta che lo possiede, l'internatore
+ * tiene le stringhe con riferimenti deboli: una stringa che non è più usata da
+ * nessuna aula o prenotazione viene raccolta dal garbage collector e la sua
+ * voce sparisce. L'internatore è quindi limitato dalle stringhe vive e può
+ * essere condiviso da tutto il processo, anche per il testo libero che arriva
+ * da fuori.
+ *
+ * Le voci sono divise in {@value #SEGMENTI} segmenti secondo l'hash della
+ * stringa, ognuno sincronizzato per conto suo, così che thread diversi
+ * internino di solito senza contendersi lo stesso lock.
+ *
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+final class InternatoreStringhe {
+
+    // Numero di segmenti, una potenza di 2
+    private static final int SEGMENTI = 16;
+
+    // Le chiavi sono deboli e i valori sono riferimenti deboli alla chiave
+    // stessa, così che una voce non tenga in vita la sua stringa
+    private static final Map<String, WeakReference<String>>[] SEGMENTO = creaSegmenti();
+
+    private InternatoreStringhe() {
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, WeakReference<String>>[] creaSegmenti() {
+        Map<String, WeakReference<String>>[] s = new Map[SEGMENTI];
+        for (int i = 0; i < SEGMENTI; i++) {
+            s[i] = new WeakHashMap<>();
+        }
+        return s;
+    }
+
+    /*
+     * Restituisce l'unica istanza viva uguale alla stringa, che diventa
+     * quella istanza se non ce n'era nessuna.
+     */
+    static String interna(String s) {
+        if (s == null) {
+            throw new NullPointerException("Tentativo di internare una stringa nulla");
+        }
+        int h = s.hashCode();
+        Map<String, WeakReference<String>> m = SEGMENTO[(h ^ (h >>> 16)) & (SEGMENTI - 1)];
+        synchronized (m) {
+            WeakReference<String> r = m.get(s);
+            String t = r == null ? null : r.get();
+            if (t != null) return t;
+            m.put(s, new WeakReference<>(s));
+            return s;
+        }
+    }
+
+    /*
+     * Il numero di stringhe internate ancora presenti; quelle raccolte dal
+     * garbage collector possono essere contate finché le loro voci non
+     * vengono eliminate.
+     */
+    static int size() {
+        int n = 0;
+        for (Map<String, WeakReference<String>> m : SEGMENTO) {
+            synchronized (m) {
+                n += m.size();
+            }
+        }
+        return n;
+    }
+}
@@ -0,0 +1,250 @@
+package it.unicam.cs.asdl1920.mp1;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeMap;
+
+/**
+ * La lista d'attesa di un'aula: raccoglie le richieste di prenotazione per
+ * time slot già occupati e, quando una prenotazione viene cancellata o scade,
+ * prenota l'aula per le richieste che sono diventate soddisfacibili, in ordine
+ * di priorità (a parità, di arrivo).
+ *
+ * Le richieste sono indicizzate per istante di inizio in una mappa ordinata;
+ * insieme alla durata massima delle richieste questo permette di trovare con
+ * una ricerca logaritmica solo le richieste che si sovrappongono alla
+ * prenotazione liberata, le sole che possono essere diventate
+ * soddisfacibili, senza scorrere tutta la lista.
+ *
+ * La lista si ottiene con {@link Aula#getListaAttesa()}. L'aula la avvisa
+ * quando una prenotazione viene cancellata o scade, dopo averlo notificato a
+ * tutti i suoi {@link AscoltatorePrenotazioni}: gli ascoltatori, ad esempio
+ * un feed o una replica, vedono sempre la rimozione prima delle prenotazioni
+ * fatte dalla lista nel time slot liberato.
+ *
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+public class ListaAttesa {
+
+    /**
+     * Una richiesta in lista d'attesa.
+     */
+    public static class Attesa {
+
+        private final TimeSlot timeSlot;
+
+        private final String docente;
+
+        private final String motivo;
+
+        private final int priorita;
+
+        // Ordine di arrivo, per le richieste con la stessa priorità
+        private final long sequenza;
+
+        private Prenotazione prenotazione;
+
+        private Attesa(TimeSlot timeSlot, String docente, String motivo, int priorita, long sequenza) {
+            this.timeSlot = timeSlot;
+            this.docente = docente;
+            this.motivo = motivo;
+            this.priorita = priorita;
+            this.sequenza = sequenza;
+        }
+
+        /**
+         * @return il time slot richiesto
+         */
+        public TimeSlot getTimeSlot() {
+            return timeSlot;
+        }
+
+        /**
+         * @return il docente che ha fatto la richiesta
+         */
+        public String getDocente() {
+            return docente;
+        }
+
+        /**
+         * @return il motivo della richiesta
+         */
+        public String getMotivo() {
+            return motivo;
+        }
+
+        /**
+         * @return la priorità della richiesta, maggiore è più urgente
+         */
+        public int getPriorita() {
+            return priorita;
+        }
+
+        /**
+         * @return la prenotazione fatta per questa richiesta, così come è
+         * memorizzata nell'aula, null se la richiesta è ancora in attesa o è
+         * stata annullata
+         */
+        public Prenotazione getPrenotazione() {
+            return prenotazione;
+        }
+
+        @Override
+        public String toString() {
+            return "Attesa [time slot = " + timeSlot + ", docente=" + docente
+                    + ", motivo=" + motivo + ", priorita=" + priorita + "]";
+        }
+    }
+
+    // Prima la priorità più alta, poi la richiesta arrivata prima
+    private static final Comparator<Attesa> PER_PRIORITA = (a, b) -> a.priorita != b.priorita
+            ? Integer.compare(b.priorita, a.priorita)
+            : Long.compare(a.sequenza, b.sequenza);
+
+    private final Aula aula;
+
+    // Richieste in attesa per istante di inizio in millisecondi
+    private final TreeMap<Long, List<Attesa>> perInizio;
+
+    // Durata massima delle richieste accodate, non diminuisce mai
+    private long durataMassima;
+
+    private long prossimaSequenza;
+
+    private int size;
+
+    /*
+     * Crea la lista d'attesa di un'aula; usato da Aula#getListaAttesa.
+     */
+    ListaAttesa(Aula aula) {
+        this.aula = aula;
+        this.perInizio = new TreeMap<>();
+    }
+
+    /**
+     * @return l'aula a cui si riferisce la lista
+     */
+    public Aula getAula() {
+        return aula;
+    }
+
+    /**
+     * @return il numero di richieste in attesa
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Chiede di prenotare l'aula. Se l'aula è libera nel time slot viene
+     * prenotata subito, altrimenti la richiesta resta in attesa.
+     *
+     * @param ts       il time slot richiesto
+     * @param docente  il docente che fa la richiesta
+     * @param motivo   il motivo della richiesta
+     * @param priorita la priorità della richiesta, maggiore è più urgente
+     * @return la richiesta, già soddisfatta se l'aula era libera
+     * @throws NullPointerException se una qualsiasi delle informazioni
+     *                              richieste è nulla
+     */
+    public Attesa accoda(TimeSlot ts, String docente, String motivo, int priorita) {
+        if (ts == null || docente == null || motivo == null) {
+            throw new NullPointerException("Tentativo di accodare una richiesta senza time slot, docente o motivo");
+        }
+        this.aula.getLock().lock();
+        try {
+            Attesa a = new Attesa(ts, docente, motivo, priorita, this.prossimaSequenza++);
+            if (!this.prova(a)) {
+                long start = ts.getStart().getTimeInMillis();
+                this.perInizio.computeIfAbsent(start, k -> new ArrayList<>()).add(a);
+                this.durataMassima = Math.max(this.durataMassima, ts.getStop().getTimeInMillis() - start);
+                this.size++;
+            }
+            return a;
+        } finally {
+            this.aula.getLock().unlock();
+        }
+    }
+
+    /**
+     * Annulla una richiesta in attesa.
+     *
+     * @param a la richiesta da annullare
+     * @return true se la richiesta era in attesa, false se era già stata
+     * soddisfatta o annullata
+     * @throws NullPointerException se la richiesta è nulla
+     */
+    public boolean annulla(Attesa a) {
+        if (a == null) {
+            throw new NullPointerException("Tentativo di annullare una richiesta nulla");
+        }
+        this.aula.getLock().lock();
+        try {
+            return this.rimuovi(a);
+        } finally {
+            this.aula.getLock().unlock();
+        }
+    }
+
+    /**
+     * @return le richieste in attesa, in ordine di priorità e di arrivo
+     */
+    public List<Attesa> getAttese() {
+        List<Attesa> l = new ArrayList<>(this.size);
+        for (List<Attesa> stesse : this.perInizio.values()) {
+            l.addAll(stesse);
+        }
+        l.sort(PER_PRIORITA);
+        return l;
+    }
+
+    /*
+     * Prenota, in ordine di priorità, le richieste che si sovrappongono al
+     * time slot liberato e che ora trovano l'aula libera. Una richiesta
+     * sovrapposta inizia prima della fine del time slot e dopo il suo inizio
+     * meno la durata massima delle richieste. Chiamato dall'aula, con il suo
+     * lock, dopo la notifica della cancellazione o della scadenza.
+     */
+    void promuovi(TimeSlot liberato) {
+        if (this.size == 0) return;
+        long s = liberato.getStart().getTimeInMillis();
+        long e = liberato.getStop().getTimeInMillis();
+        List<Attesa> candidate = new ArrayList<>();
+        for (List<Attesa> stesse : this.perInizio.subMap(s - this.durataMassima, true, e, false).values()) {
+            for (Attesa a : stesse) {
+                if (a.timeSlot.overlapsWith(liberato)) {
+                    candidate.add(a);
+                }
+            }
+        }
+        candidate.sort(PER_PRIORITA);
+        for (Attesa a : candidate) {
+            if (this.prova(a)) {
+                this.rimuovi(a);
+            }
+        }
+    }
+
+    /*
+     * Prenota l'aula per una richiesta, se possibile. L'aula non può
+     * memorizzare due prenotazioni con lo stesso inizio, quindi anche in quel
+     * caso la richiesta resta in attesa.
+     */
+    private boolean prova(Attesa a) {
+        Prenotazione p = new Prenotazione(this.aula, a.timeSlot, a.docente, a.motivo);
+        if (!this.aula.isFree(a.timeSlot) || this.aula.getPrenotazioni().contains(p)) return false;
+        a.prenotazione = this.aula.aggiungiPrenotazione(a.timeSlot, a.docente, a.motivo);
+        return true;
+    }
+
+    private boolean rimuovi(Attesa a) {
+        Long start = a.timeSlot.getStart().getTimeInMillis();
+        List<Attesa> stesse = this.perInizio.get(start);
+        if (stesse == null || !stesse.remove(a)) return false;
+        if (stesse.isEmpty()) this.perInizio.remove(start);
+        this.size--;
+        return true;
+    }
+}
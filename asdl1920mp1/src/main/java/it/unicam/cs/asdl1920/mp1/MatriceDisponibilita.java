@@ -0,0 +1,223 @@
+package it.unicam.cs.asdl1920.mp1;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * La disponibilità di un insieme di aule in una sequenza di time slot, ad
+ * esempio la griglia aule per ore di un orario. La matrice ha una riga per
+ * aula e una colonna per time slot ed è memorizzata come bitset: ogni riga
+ * occupa (numero di time slot + 63) / 64 long, con il bit a 1 se l'aula è
+ * libera nel time slot secondo {@link Aula#isFree(TimeSlot)}.
+ *
+ * La matrice si calcola con
+ * {@link #calcola(List, List)}: per ciascuna aula le prenotazioni e i time
+ * slot, ordinati per inizio, vengono fusi in una sola passata invece di
+ * chiamare isFree per ogni cella, e le aule sono divise fra i thread del
+ * {@link ForkJoinPool} comune.
+ *
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+public class MatriceDisponibilita {
+
+    // Numero di aule sotto il quale un compito non viene più diviso
+    private static final int SOGLIA = 8;
+
+    private final List<Aula> aule;
+
+    private final List<TimeSlot> slots;
+
+    // Long per riga
+    private final int passo;
+
+    private final long[] bit;
+
+    private MatriceDisponibilita(List<Aula> aule, List<TimeSlot> slots) {
+        this.aule = aule;
+        this.slots = slots;
+        this.passo = (slots.size() + 63) >>> 6;
+        this.bit = new long[Math.multiplyExact(aule.size(), this.passo)];
+    }
+
+    /**
+     * Calcola la disponibilità di alcune aule in alcuni time slot. Ogni riga
+     * viene calcolata con il lock della sua aula, quindi mostra l'aula in un
+     * solo istante anche se altri thread la stanno modificando.
+     *
+     * @param aule  le aule, una per riga nell'ordine dato
+     * @param slots i time slot, uno per colonna nell'ordine dato
+     * @return la matrice di disponibilità
+     * @throws NullPointerException se una delle liste o uno dei loro elementi
+     *                              è nullo
+     */
+    public static MatriceDisponibilita calcola(List<Aula> aule, List<TimeSlot> slots) {
+        if (aule == null || slots == null) {
+            throw new NullPointerException("Tentativo di calcolare una matrice senza aule o time slot");
+        }
+        List<Aula> righe = Collections.unmodifiableList(new ArrayList<>(aule));
+        List<TimeSlot> colonne = Collections.unmodifiableList(new ArrayList<>(slots));
+        if (righe.contains(null) || colonne.contains(null)) {
+            throw new NullPointerException("Tentativo di calcolare una matrice con aule o time slot nulli");
+        }
+        MatriceDisponibilita m = new MatriceDisponibilita(righe, colonne);
+        // Ordine dei time slot per inizio, comune a tutte le aule
+        int n = colonne.size();
+        long[] start = new long[n];
+        long[] stop = new long[n];
+        for (int i = 0; i < n; i++) {
+            start[i] = colonne.get(i).getStart().getTimeInMillis();
+            stop[i] = colonne.get(i).getStop().getTimeInMillis();
+        }
+        Integer[] ordine = new Integer[n];
+        for (int i = 0; i < n; i++) ordine[i] = i;
+        Arrays.sort(ordine, (a, b) -> Long.compare(start[a], start[b]));
+        int[] ord = new int[n];
+        for (int i = 0; i < n; i++) ord[i] = ordine[i];
+        ForkJoinPool.commonPool().invoke(m.new Calcolo(0, righe.size(), start, stop, ord));
+        return m;
+    }
+
+    /**
+     * @return le aule, nell'ordine delle righe
+     */
+    public List<Aula> getAule() {
+        return aule;
+    }
+
+    /**
+     * @return i time slot, nell'ordine delle colonne
+     */
+    public List<TimeSlot> getTimeSlots() {
+        return slots;
+    }
+
+    /**
+     * @param riga    l'indice di un'aula
+     * @param colonna l'indice di un time slot
+     * @return true se l'aula è libera nel time slot
+     * @throws IndexOutOfBoundsException se uno degli indici non è valido
+     */
+    public boolean isLibera(int riga, int colonna) {
+        this.controllaRiga(riga);
+        if (colonna < 0 || colonna >= this.slots.size()) {
+            throw new IndexOutOfBoundsException("Colonna " + colonna + " non valida");
+        }
+        return (this.bit[riga * this.passo + (colonna >>> 6)] & (1L << colonna)) != 0;
+    }
+
+    /**
+     * @param riga l'indice di un'aula
+     * @return un nuovo bitset con i time slot in cui l'aula è libera
+     * @throws IndexOutOfBoundsException se l'indice non è valido
+     */
+    public BitSet getRiga(int riga) {
+        this.controllaRiga(riga);
+        return BitSet.valueOf(Arrays.copyOfRange(this.bit, riga * this.passo, (riga + 1) * this.passo));
+    }
+
+    /**
+     * @param riga l'indice di un'aula
+     * @return il numero di time slot in cui l'aula è libera
+     * @throws IndexOutOfBoundsException se l'indice non è valido
+     */
+    public int contaLibere(int riga) {
+        this.controllaRiga(riga);
+        int n = 0;
+        for (int i = riga * this.passo; i < (riga + 1) * this.passo; i++) {
+            n += Long.bitCount(this.bit[i]);
+        }
+        return n;
+    }
+
+    private void controllaRiga(int riga) {
+        if (riga < 0 || riga >= this.aule.size()) {
+            throw new IndexOutOfBoundsException("Riga " + riga + " non valida");
+        }
+    }
+
+    /*
+     * Calcola le righe di un intervallo di aule, dividendolo a metà finché è
+     * più grande della soglia.
+     */
+    private class Calcolo extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int da;
+
+        private final int a;
+
+        private final long[] start;
+
+        private final long[] stop;
+
+        private final int[] ordine;
+
+        private Calcolo(int da, int a, long[] start, long[] stop, int[] ordine) {
+            this.da = da;
+            this.a = a;
+            this.start = start;
+            this.stop = stop;
+            this.ordine = ordine;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.a - this.da <= SOGLIA) {
+                for (int r = this.da; r < this.a; r++) {
+                    this.riga(r);
+                }
+            } else {
+                int m = (this.da + this.a) >>> 1;
+                invokeAll(new Calcolo(this.da, m, this.start, this.stop, this.ordine),
+                        new Calcolo(m, this.a, this.start, this.stop, this.ordine));
+            }
+        }
+
+        /*
+         * Le prenotazioni lunghe più della tolleranza hanno inizi e fini
+         * crescenti; per un time slot [s, e] conta solo la prima di quelle che
+         * finiscono dopo s + tolleranza, che si sovrappone se e solo se inizia
+         * prima di e - tolleranza. Scorrendo i time slot per inizio crescente
+         * quella prenotazione avanza soltanto, quindi basta una passata sugli
+         * estremi che l'aula tiene già, letti con il suo lock.
+         */
+        private void riga(int r) {
+            Aula aula = aule.get(r);
+            ReentrantLock lock = aula.getLock();
+            lock.lock();
+            try {
+                long[] bs = aula.getIniziLunghe();
+                long[] be = aula.getFiniLunghe();
+                int lunghe = aula.getNumeroLunghe();
+                boolean archivio = aula.getNumeroPrenotazioniArchiviate() > 0;
+                int base = r * passo;
+                int j = 0;
+                for (int c : this.ordine) {
+                    long s = this.start[c];
+                    long e = this.stop[c];
+                    boolean libera = true;
+                    if (e - s > NucleoSovrapposizioni.TOLLERANZA) {
+                        while (j < lunghe && be[j] - s <= NucleoSovrapposizioni.TOLLERANZA) j++;
+                        libera = j == lunghe || e - bs[j] <= NucleoSovrapposizioni.TOLLERANZA;
+                        if (libera && archivio) {
+                            libera = aula.isLiberaInArchivio(slots.get(c));
+                        }
+                    }
+                    if (libera) {
+                        bit[base + (c >>> 6)] |= 1L << c;
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package it.unicam.cs.asdl1920.mp1;
+
+import java.util.function.IntToLongFunction;
+
+/**
+ * Controllo delle sovrapposizioni di un time slot con molti intervalli in una
+ * volta sola. Gli intervalli sono dati come array paralleli di istanti di
+ * inizio e fine in millisecondi, ordinati per inizio; il controllo ha lo stesso
+ * risultato di {@link TimeSlot#overlapsWith(TimeSlot)} ma non crea oggetti e
+ * non legge calendari.
+ *
+ * Il ciclo interno non ha salti dipendenti dai dati: per ogni intervallo
+ * calcola la durata e l'intersezione con il time slot (con min e max, che la
+ * JIT traduce in mosse condizionate) e accumula il bit di segno di
+ * (tolleranza - intersezione) AND (tolleranza - durata), che è 1 solo se
+ * entrambe superano la tolleranza. Gli intervalli sono esaminati a blocchi e
+ * solo in un blocco con una sovrapposizione si cerca quale sia.
+ *
+ * Per intervalli che non si sovrappongono fra loro, come le prenotazioni di
+ * un'aula, basta invece una ricerca binaria: la usa {@link Aula#isFree}. Gli
+ * archivi, che tengono anche le prenotazioni più corte della tolleranza, la
+ * seguono con una scansione all'indietro che salta quelle corte.
+ *
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+final class NucleoSovrapposizioni {
+
+    // Soglia di tolleranza per la sovrapposizione in millisecondi
+    static final long TOLLERANZA = TimeSlot.MINUTES_OF_TOLERANCE_FOR_OVERLAPPING * 60_000L;
+
+    // Intervalli esaminati prima di controllare se c'è una sovrapposizione
+    private static final int BLOCCO = 64;
+
+    private NucleoSovrapposizioni() {
+    }
+
+    /*
+     * Restituisce l'indice del primo intervallo fra da (incluso) e a
+     * (escluso) che si sovrappone a [s, e], -1 se non ce ne sono. Gli
+     * intervalli dopo il primo che inizia da e - tolleranza in poi non possono
+     * sovrapporsi, quindi il limite a viene ridotto con una ricerca binaria.
+     */
+    static int primaSovrapposta(long[] start, long[] stop, int da, int a, long s, long e) {
+        if (e - s <= TOLLERANZA) return -1;
+        a = Math.min(a, primoConInizioAlmeno(start, da, a, e - TOLLERANZA));
+        for (int base = da; base < a; base += BLOCCO) {
+            int fine = Math.min(a, base + BLOCCO);
+            long trovate = 0;
+            for (int i = base; i < fine; i++) {
+                long intersezione = Math.min(stop[i], e) - Math.max(start[i], s);
+                long durata = stop[i] - start[i];
+                trovate |= (TOLLERANZA - intersezione) & (TOLLERANZA - durata);
+            }
+            if (trovate < 0) {
+                for (int i = base; i < fine; i++) {
+                    long intersezione = Math.min(stop[i], e) - Math.max(start[i], s);
+                    if (intersezione > TOLLERANZA && stop[i] - start[i] > TOLLERANZA) return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    /*
+     * Come primaSovrapposta, ma per i primi n intervalli più lunghi della
+     * tolleranza che non si sovrappongono fra loro, come le prenotazioni di
+     * un'aula: restituisce l'indice di un intervallo che si sovrappone a
+     * [s, e], -1 se non ce ne sono. Due intervalli di questo tipo non possono
+     * essere uno dentro l'altro, quindi le loro fini crescono con gli inizi;
+     * se uno si sovrappone, si sovrappone anche l'ultimo che inizia prima di
+     * e - tolleranza, e basta una ricerca binaria.
+     */
+    static int sovrappostaFraDisgiunti(long[] start, long[] stop, int n, long s, long e) {
+        if (e - s <= TOLLERANZA) return -1;
+        int i = primoConInizioAlmeno(start, 0, n, e - TOLLERANZA) - 1;
+        return i >= 0 && stop[i] - s > TOLLERANZA ? i : -1;
+    }
+
+    /*
+     * Come sovrappostaFraDisgiunti, ma fra i primi n intervalli di un archivio
+     * ordinato per inizio che contiene anche intervalli non più lunghi della
+     * tolleranza, che non si sovrappongono mai a niente e possono stare
+     * ovunque; inizi e fini sono letti con le due funzioni. Dall'ultimo
+     * intervallo che inizia prima di e - tolleranza si torna indietro fino al
+     * primo lungo: se non si sovrappone lui non si sovrappone nessuno dei
+     * precedenti, che finiscono ancora prima.
+     */
+    static int sovrappostaFraOrdinati(IntToLongFunction start, IntToLongFunction stop, int n,
+            long s, long e) {
+        if (e - s <= TOLLERANZA) return -1;
+        for (int i = primoConInizioAlmeno(start, 0, n, e - TOLLERANZA) - 1; i >= 0; i--) {
+            long fine = stop.applyAsLong(i);
+            if (fine - start.applyAsLong(i) > TOLLERANZA) {
+                return fine - s > TOLLERANZA ? i : -1;
+            }
+        }
+        return -1;
+    }
+
+    /*
+     * Ricerca binaria della prima posizione fra da e a con inizio maggiore o
+     * uguale a t.
+     */
+    static int primoConInizioAlmeno(long[] start, int da, int a, long t) {
+        int lo = da;
+        int hi = a;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (start[mid] < t) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    /*
+     * Come la precedente, con gli inizi letti da una funzione.
+     */
+    static int primoConInizioAlmeno(IntToLongFunction start, int da, int a, long t) {
+        int lo = da;
+        int hi = a;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (start.applyAsLong(mid) < t) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+}
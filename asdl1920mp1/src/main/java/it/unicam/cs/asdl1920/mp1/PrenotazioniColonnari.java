@@ -0,0 +1,393 @@
+package it.unicam.cs.asdl1920.mp1;
+
+import java.util.Arrays;
+import java.util.GregorianCalendar;
+import java.util.SortedSet;
+import java.util.TimeZone;
+import java.util.TreeSet;
+
+/**
+ * Archivio alternativo delle prenotazioni di un'aula, memorizzate per colonne:
+ * gli istanti di inizio e fine sono in due array paralleli di {@code long}
+ * (millisecondi) e docente e motivo sono identificativi interi in un
+ * {@link DizionarioStringhe}. Ogni prenotazione occupa così 24 byte invece
+ * degli oggetti {@link Prenotazione}, {@link TimeSlot} e dei due
+ * {@link GregorianCalendar} usati da {@link Aula}. Gli oggetti
+ * {@link Prenotazione} sono creati solo quando richiesti.
+ *
+ * Le prenotazioni sono mantenute ordinate per istante di inizio e, a parità,
+ * di fine, e non si sovrappongono (secondo
+ * {@link TimeSlot#overlapsWith(TimeSlot)}). Le prenotazioni lunghe più della
+ * soglia di tolleranza hanno quindi anche gli istanti di fine crescenti, il
+ * che permette di controllare le sovrapposizioni con una ricerca binaria.
+ *
+ * Gli istanti non conservano il fuso orario dei calendari da cui vengono:
+ * l'archivio ha un unico fuso, dato alla creazione o preso dal primo time
+ * slot aggiunto, con cui crea i calendari delle prenotazioni restituite.
+ *
+ * Un archivio costruito fuori da un'aula, ad esempio da un'importazione, si
+ * carica in blocco nell'aula con
+ * {@link Aula#caricaPrenotazioni(PrenotazioniColonnari)} o
+ * {@link GestoreAule#caricaPrenotazioni(PrenotazioniColonnari)}.
+ *
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+public class PrenotazioniColonnari {
+
+    // Soglia di tolleranza per la sovrapposizione in millisecondi
+    private static final int CAPACITA_INIZIALE = 16;
+
+    private final Aula aula;
+
+    private final DizionarioStringhe dizionario;
+
+    // Fuso orario dei calendari creati, null finché non viene aggiunta una
+    // prenotazione a un archivio creato senza fuso
+    private TimeZone zona;
+
+    private long[] start;
+
+    private long[] stop;
+
+    private int[] docenti;
+
+    private int[] motivi;
+
+    private int size;
+
+    /**
+     * Crea un archivio vuoto per un'aula, con il fuso orario del primo time
+     * slot che verrà aggiunto.
+     *
+     * @param aula       l'aula a cui si riferiscono le prenotazioni
+     * @param dizionario il dizionario in cui memorizzare docenti e motivi,
+     *                   eventualmente condiviso con gli archivi di altre aule
+     * @throws NullPointerException se una qualsiasi delle informazioni
+     *                              richieste è nulla
+     */
+    public PrenotazioniColonnari(Aula aula, DizionarioStringhe dizionario) {
+        this(aula, dizionario, null);
+    }
+
+    /**
+     * Crea un archivio vuoto per un'aula con un certo fuso orario.
+     *
+     * @param aula       l'aula a cui si riferiscono le prenotazioni
+     * @param dizionario il dizionario in cui memorizzare docenti e motivi,
+     *                   eventualmente condiviso con gli archivi di altre aule
+     * @param zona       il fuso orario dei calendari delle prenotazioni
+     *                   restituite, null per prendere quello del primo time
+     *                   slot aggiunto
+     * @throws NullPointerException se l'aula o il dizionario sono nulli
+     */
+    public PrenotazioniColonnari(Aula aula, DizionarioStringhe dizionario, TimeZone zona) {
+        if (aula == null || dizionario == null) {
+            throw new NullPointerException("Tentativo di creare un archivio senza aula o dizionario");
+        }
+        this.aula = aula;
+        this.dizionario = dizionario;
+        this.zona = zona;
+        this.start = new long[CAPACITA_INIZIALE];
+        this.stop = new long[CAPACITA_INIZIALE];
+        this.docenti = new int[CAPACITA_INIZIALE];
+        this.motivi = new int[CAPACITA_INIZIALE];
+        this.size = 0;
+    }
+
+    /**
+     * Crea un archivio contenente una copia delle prenotazioni attuali di
+     * un'aula.
+     *
+     * @param aula       l'aula da copiare
+     * @param dizionario il dizionario in cui memorizzare docenti e motivi
+     * @return un archivio con le stesse prenotazioni dell'aula
+     * @throws NullPointerException se una qualsiasi delle informazioni
+     *                              richieste è nulla
+     */
+    public static PrenotazioniColonnari da(Aula aula, DizionarioStringhe dizionario) {
+        PrenotazioniColonnari c = new PrenotazioniColonnari(aula, dizionario);
+        c.garantisciCapacita(aula.getPrenotazioni().size());
+        // Le prenotazioni dell'aula sono già ordinate per inizio
+        for (Prenotazione p : aula.getPrenotazioni()) {
+            TimeSlot ts = p.getTimeSlot();
+            c.impostaZona(ts);
+            c.inserisci(c.size, ts.getStart().getTimeInMillis(),
+                    ts.getStop().getTimeInMillis(), p.getDocente(), p.getMotivo());
+        }
+        return c;
+    }
+
+    /**
+     * @return l'aula a cui si riferiscono le prenotazioni
+     */
+    public Aula getAula() {
+        return aula;
+    }
+
+    /**
+     * @return il fuso orario dei calendari delle prenotazioni restituite,
+     * null se non è stato dato e non è ancora stato aggiunto nessun time slot
+     */
+    public TimeZone getZona() {
+        return zona;
+    }
+
+    /**
+     * @return il numero di prenotazioni nell'archivio
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param i l'indice di una prenotazione, nell'ordine delle prenotazioni
+     * @return l'istante di inizio in millisecondi
+     * @throws IndexOutOfBoundsException se l'indice non è valido
+     */
+    public long getStartMillis(int i) {
+        this.controllaIndice(i);
+        return this.start[i];
+    }
+
+    /**
+     * @param i l'indice di una prenotazione, nell'ordine delle prenotazioni
+     * @return l'istante di fine in millisecondi
+     * @throws IndexOutOfBoundsException se l'indice non è valido
+     */
+    public long getStopMillis(int i) {
+        this.controllaIndice(i);
+        return this.stop[i];
+    }
+
+    /**
+     * Crea l'oggetto prenotazione corrispondente a una posizione
+     * dell'archivio.
+     *
+     * @param i l'indice di una prenotazione, nell'ordine delle prenotazioni
+     * @return una nuova prenotazione equivalente a quella memorizzata
+     * @throws IndexOutOfBoundsException se l'indice non è valido
+     */
+    public Prenotazione get(int i) {
+        return this.get(i, this.aula);
+    }
+
+    /*
+     * Come get(i), ma per un'aula data, uguale a quella dell'archivio: chi
+     * carica l'archivio in un'aula vi memorizza prenotazioni che si
+     * riferiscono proprio a quell'aula e non a una sua copia, con docente e
+     * motivo internati come quelli delle altre prenotazioni dell'aula.
+     */
+    Prenotazione get(int i, Aula aula) {
+        this.controllaIndice(i);
+        return new Prenotazione(aula,
+                new TimeSlot(this.calendario(this.start[i]), this.calendario(this.stop[i])),
+                InternatoreStringhe.interna(this.dizionario.stringa(this.docenti[i])),
+                InternatoreStringhe.interna(this.dizionario.stringa(this.motivi[i])));
+    }
+
+    /**
+     * Crea l'insieme ordinato di tutte le prenotazioni dell'archivio, come
+     * quello restituito da {@link Aula#getPrenotazioni()}.
+     *
+     * @return un nuovo insieme con le prenotazioni dell'archivio
+     */
+    public SortedSet<Prenotazione> getPrenotazioni() {
+        SortedSet<Prenotazione> s = new TreeSet<>();
+        for (int i = 0; i < this.size; i++) {
+            s.add(this.get(i));
+        }
+        return s;
+    }
+
+    /**
+     * Determina se l'aula è libera in un certo time slot.
+     *
+     * @param ts il time slot da controllare
+     * @return true se nessuna prenotazione si sovrappone al time slot
+     * @throws NullPointerException se il time slot passato è nullo
+     */
+    public boolean isFree(TimeSlot ts) {
+        if (ts == null) {
+            throw new NullPointerException("Tentativo di controllare un time slot nullo");
+        }
+        return this.sovrapposta(ts.getStart().getTimeInMillis(),
+                ts.getStop().getTimeInMillis()) < 0;
+    }
+
+    /**
+     * Aggiunge una prenotazione controllando eventuali sovrapposizioni, con lo
+     * stesso contratto di
+     * {@link Aula#addPrenotazione(TimeSlot, String, String)}.
+     *
+     * @param ts      il time slot della prenotazione
+     * @param docente il docente che prenota
+     * @param motivo  il motivo della prenotazione
+     * @throws IllegalArgumentException se la prenotazione comporta una
+     *                                  sovrapposizione con un'altra
+     *                                  prenotazione
+     * @throws NullPointerException     se una qualsiasi delle informazioni
+     *                                  richieste è nulla
+     */
+    public void addPrenotazione(TimeSlot ts, String docente, String motivo) {
+        if (ts == null || docente == null || motivo == null) {
+            throw new NullPointerException("Tentativo di aggiungere una prenotazione senza time slot, docente o motivo");
+        }
+        long s = ts.getStart().getTimeInMillis();
+        long e = ts.getStop().getTimeInMillis();
+        if (this.sovrapposta(s, e) >= 0) {
+            throw new IllegalArgumentException("Tentativo di aggiungere una prenotazione che si sovrappone con un'altra");
+        }
+        this.impostaZona(ts);
+        this.garantisciCapacita(this.size + 1);
+        this.inserisci(this.posizione(s, e), s, e, docente, motivo);
+    }
+
+    /**
+     * Cancella una prenotazione dall'archivio.
+     *
+     * @param p la prenotazione da cancellare
+     * @return true se la prenotazione è stata cancellata, false se non era
+     * presente
+     * @throws NullPointerException se la prenotazione passata è nulla
+     */
+    public boolean removePrenotazione(Prenotazione p) {
+        if (p == null) {
+            throw new NullPointerException("Tentativo di rimuovere una prenotazione nulla");
+        }
+        if (!this.aula.equals(p.getAula())) return false;
+        long s = p.getTimeSlot().getStart().getTimeInMillis();
+        long e = p.getTimeSlot().getStop().getTimeInMillis();
+        int i = this.posizione(s, e);
+        if (i == this.size || this.start[i] != s || this.stop[i] != e) return false;
+        this.rimuovi(i, 1);
+        return true;
+    }
+
+    /**
+     * Rimuove tutte le prenotazioni che iniziano prima (o esattamente in) di
+     * un punto nel tempo specificato.
+     *
+     * @param timePoint un certo punto nel tempo
+     * @return true se almeno una prenotazione è stata cancellata, false
+     * altrimenti
+     * @throws NullPointerException se il punto nel tempo passato è nullo
+     */
+    public boolean removePrenotazioniBefore(GregorianCalendar timePoint) {
+        if (timePoint == null) {
+            throw new NullPointerException("Tentativo di rimuovere prenotazioni prima di un time slot nullo");
+        }
+        // Prima posizione con inizio strettamente successivo al punto dato
+        int n = this.primoConInizioAlmeno(timePoint.getTimeInMillis() + 1);
+        this.rimuovi(0, n);
+        return n > 0;
+    }
+
+    /**
+     * Riduce la capacità degli array al numero di prenotazioni presenti.
+     */
+    public void trimToSize() {
+        this.start = Arrays.copyOf(this.start, this.size);
+        this.stop = Arrays.copyOf(this.stop, this.size);
+        this.docenti = Arrays.copyOf(this.docenti, this.size);
+        this.motivi = Arrays.copyOf(this.motivi, this.size);
+    }
+
+    /**
+     * Stima l'occupazione di memoria degli array dell'archivio, escluso il
+     * dizionario condiviso.
+     *
+     * @return il numero di byte occupati dagli array
+     */
+    public long stimaByte() {
+        // 16 byte di intestazione per ciascuno dei quattro array
+        return 4 * 16 + (long) this.start.length * (8 + 8 + 4 + 4);
+    }
+
+    /*
+     * Restituisce l'indice di una prenotazione che si sovrappone
+     * all'intervallo [s, e], oppure -1 se non ce ne sono. Le prenotazioni
+     * corte non si sovrappongono mai e vengono saltate; vedi
+     * NucleoSovrapposizioni#sovrappostaFraOrdinati.
+     */
+    private int sovrapposta(long s, long e) {
+        return NucleoSovrapposizioni.sovrappostaFraOrdinati(i -> this.start[i], i -> this.stop[i],
+                this.size, s, e);
+    }
+
+    /*
+     * Ricerca binaria della prima posizione con inizio maggiore o uguale a t.
+     */
+    private int primoConInizioAlmeno(long t) {
+        return NucleoSovrapposizioni.primoConInizioAlmeno(this.start, 0, this.size, t);
+    }
+
+    /*
+     * Ricerca binaria della prima posizione maggiore o uguale a (s, e)
+     * nell'ordine per inizio e poi per fine.
+     */
+    private int posizione(long s, long e) {
+        int lo = 0;
+        int hi = this.size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (this.start[mid] < s || (this.start[mid] == s && this.stop[mid] < e)) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    private void inserisci(int i, long s, long e, String docente, String motivo) {
+        int daSpostare = this.size - i;
+        if (daSpostare > 0) {
+            System.arraycopy(this.start, i, this.start, i + 1, daSpostare);
+            System.arraycopy(this.stop, i, this.stop, i + 1, daSpostare);
+            System.arraycopy(this.docenti, i, this.docenti, i + 1, daSpostare);
+            System.arraycopy(this.motivi, i, this.motivi, i + 1, daSpostare);
+        }
+        this.start[i] = s;
+        this.stop[i] = e;
+        this.docenti[i] = this.dizionario.id(docente);
+        this.motivi[i] = this.dizionario.id(motivo);
+        this.size++;
+    }
+
+    private void rimuovi(int i, int n) {
+        int daSpostare = this.size - i - n;
+        if (daSpostare > 0) {
+            System.arraycopy(this.start, i + n, this.start, i, daSpostare);
+            System.arraycopy(this.stop, i + n, this.stop, i, daSpostare);
+            System.arraycopy(this.docenti, i + n, this.docenti, i, daSpostare);
+            System.arraycopy(this.motivi, i + n, this.motivi, i, daSpostare);
+        }
+        this.size -= n;
+    }
+
+    private void garantisciCapacita(int capacita) {
+        if (capacita <= this.start.length) return;
+        int nuova = Math.max(capacita, this.start.length + (this.start.length >> 1));
+        this.start = Arrays.copyOf(this.start, nuova);
+        this.stop = Arrays.copyOf(this.stop, nuova);
+        this.docenti = Arrays.copyOf(this.docenti, nuova);
+        this.motivi = Arrays.copyOf(this.motivi, nuova);
+    }
+
+    private void controllaIndice(int i) {
+        if (i < 0 || i >= this.size) {
+            throw new IndexOutOfBoundsException("Indice " + i + " non valido per " + this.size + " prenotazioni");
+        }
+    }
+
+    // Prende il fuso orario dal primo time slot aggiunto
+    private void impostaZona(TimeSlot ts) {
+        if (this.zona == null) {
+            this.zona = (TimeZone) ts.getStart().getTimeZone().clone();
+        }
+    }
+
+    private GregorianCalendar calendario(long millis) {
+        GregorianCalendar c = new GregorianCalendar(this.zona);
+        c.setTimeInMillis(millis);
+        return c;
+    }
+}
@@ -0,0 +1,90 @@
+package it.unicam.cs.asdl1920.mp1;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.GregorianCalendar;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Codifica binaria di aule, facilities e time slot usata dai componenti che
+ * trasmettono lo stato di un gestore su un socket (replica e sharding). Gli
+ * istanti sono trasmessi in millisecondi, le stringhe con la codifica UTF
+ * modificata di {@link DataOutput#writeUTF(String)}.
+ *
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+final class ProtocolloAule {
+
+    // Marcatori del tipo di facility
+    private static final byte PRESENCE = 'P';
+
+    private static final byte QUANTITATIVE = 'Q';
+
+    private ProtocolloAule() {
+    }
+
+    /*
+     * Scrive nome, location e facilities di un'aula, senza le prenotazioni.
+     */
+    static void scriviAula(DataOutput out, Aula a) throws IOException {
+        out.writeUTF(a.getNome());
+        out.writeUTF(a.getLocation());
+        scriviFacilities(out, a.getFacilities());
+    }
+
+    static Aula leggiAula(DataInput in) throws IOException {
+        String nome = in.readUTF();
+        String location = in.readUTF();
+        return new Aula(nome, location, leggiFacilities(in));
+    }
+
+    static void scriviFacilities(DataOutput out, Set<Facility> facilities) throws IOException {
+        out.writeInt(facilities.size());
+        for (Facility f : facilities) {
+            if (f instanceof QuantitativeFacility) {
+                out.writeByte(QUANTITATIVE);
+                out.writeUTF(f.getCodice());
+                out.writeUTF(f.getDescrizione());
+                out.writeInt(((QuantitativeFacility) f).getQuantity());
+            } else {
+                out.writeByte(PRESENCE);
+                out.writeUTF(f.getCodice());
+                out.writeUTF(f.getDescrizione());
+            }
+        }
+    }
+
+    static Set<Facility> leggiFacilities(DataInput in) throws IOException {
+        int n = in.readInt();
+        Set<Facility> facilities = new HashSet<>();
+        for (int i = 0; i < n; i++) {
+            byte tipo = in.readByte();
+            String codice = in.readUTF();
+            String descrizione = in.readUTF();
+            if (tipo == QUANTITATIVE) {
+                facilities.add(new QuantitativeFacility(codice, descrizione, in.readInt()));
+            } else if (tipo == PRESENCE) {
+                facilities.add(new PresenceFacility(codice, descrizione));
+            } else {
+                throw new IOException("Tipo di facility sconosciuto: " + tipo);
+            }
+        }
+        return facilities;
+    }
+
+    static void scriviTimeSlot(DataOutput out, TimeSlot ts) throws IOException {
+        out.writeLong(ts.getStart().getTimeInMillis());
+        out.writeLong(ts.getStop().getTimeInMillis());
+    }
+
+    static TimeSlot leggiTimeSlot(DataInput in) throws IOException {
+        GregorianCalendar start = new GregorianCalendar();
+        start.setTimeInMillis(in.readLong());
+        GregorianCalendar stop = new GregorianCalendar();
+        stop.setTimeInMillis(in.readLong());
+        return new TimeSlot(start, stop);
+    }
+}
@@ -0,0 +1,470 @@
+package it.unicam.cs.asdl1920.mp1;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Il lato primario della replica di un gestore di aule. Registra in un log
+ * tutte le operazioni fatte sul gestore (aule aggiunte, prenotazioni aggiunte,
+ * cancellate o scadute) e lo invia, su un socket locale, alle
+ * {@link ReplicaSecondaria} che si collegano. Quando non ci sono nuove
+ * operazioni il primario invia periodicamente un battito con l'ultima
+ * sequenza registrata, da cui la replica calcola il proprio ritardo.
+ *
+ * Il log non cresce con la storia del gestore: ogni replica conferma le
+ * sequenze che ha applicato e, quando il log supera
+ * {@value #SOGLIA_TRONCAMENTO} record, il primario ingloba la parte
+ * confermata da tutte le repliche collegate in uno stato del gestore,
+ * memorizzato in forma compatta con {@link PrenotazioniColonnari}, e la
+ * toglie dal log. Senza repliche collegate viene inglobato tutto il log. Una
+ * replica che si collega riceve prima lo stato e poi il resto del log, quindi
+ * può collegarsi in qualsiasi momento.
+ *
+ * Il log contiene lo stato del gestore al momento della creazione del
+ * primario e le operazioni successive; le facilities di un'aula sono
+ * registrate come sono quando l'aula viene aggiunta al gestore. Il primario
+ * va creato prima che il gestore venga usato da più thread.
+ *
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+public class ReplicaPrimaria implements AscoltatorePrenotazioni {
+
+    // Tipi dei record del log
+    static final byte AULA = 1;
+
+    static final byte AGGIUNTA = 2;
+
+    static final byte RIMOZIONE = 3;
+
+    static final byte BATTITO = 4;
+
+    static final byte STATO = 5;
+
+    /**
+     * Intervallo in millisecondi fra due battiti in assenza di operazioni.
+     */
+    public static final int INTERVALLO_BATTITO = 100;
+
+    /**
+     * Numero di record del log da cui il primario prova a inglobare nello
+     * stato la parte confermata dalle repliche.
+     */
+    public static final int SOGLIA_TRONCAMENTO = 4096;
+
+    private final GestoreAule gestore;
+
+    // Record codificati non ancora inglobati nello stato; il record in
+    // posizione i ha sequenza base + i + 1. Tutti i campi che seguono, fino
+    // a prossimoTroncamento, sono protetti dal monitor del log
+    private final List<byte[]> log;
+
+    // Sequenza dell'ultimo record inglobato nello stato
+    private long base;
+
+    // Lo stato del gestore alla sequenza base: le prenotazioni di ciascuna
+    // aula, per nome dell'aula
+    private final Map<String, PrenotazioniColonnari> stato;
+
+    // Il dizionario di docenti e motivi dello stato, ricostruito quando
+    // contiene troppe stringhe di prenotazioni non più presenti
+    private DizionarioStringhe dizionario;
+
+    private int prenotazioniStato;
+
+    // Dimensione del log a cui provare il prossimo troncamento
+    private int prossimoTroncamento;
+
+    private final ServerSocket server;
+
+    private final List<Collegamento> connessioni;
+
+    // Una replica collegata
+    private static final class Collegamento {
+        private final Socket socket;
+
+        // Ultima sequenza confermata dalla replica; finché la replica non ha
+        // ricevuto lo stato non vincola il troncamento
+        private volatile long confermata = Long.MAX_VALUE;
+
+        private Collegamento(Socket socket) {
+            this.socket = socket;
+        }
+    }
+
+    private volatile boolean chiuso;
+
+    /**
+     * Crea il primario per un gestore e si mette in ascolto delle repliche
+     * sull'interfaccia di loopback.
+     *
+     * @param gestore il gestore da replicare
+     * @param porta   la porta TCP, 0 per sceglierne una libera
+     * @throws NullPointerException se il gestore è nullo
+     * @throws IOException          se non è possibile aprire la porta
+     */
+    public ReplicaPrimaria(GestoreAule gestore, int porta) throws IOException {
+        if (gestore == null) {
+            throw new NullPointerException("Tentativo di creare un primario senza gestore");
+        }
+        this.gestore = gestore;
+        this.log = new ArrayList<>();
+        this.stato = new TreeMap<>();
+        this.dizionario = new DizionarioStringhe();
+        this.prossimoTroncamento = SOGLIA_TRONCAMENTO;
+        this.connessioni = new CopyOnWriteArrayList<>();
+        // Lo stato iniziale del gestore è la prima parte del log
+        for (Aula a : new TreeSet<>(gestore.getAule())) {
+            this.aulaAggiunta(a);
+            for (Prenotazione p : a.getPrenotazioni()) {
+                this.prenotazioneAggiunta(p);
+            }
+        }
+        gestore.addAscoltatore(this);
+        this.server = new ServerSocket(porta, 50, InetAddress.getLoopbackAddress());
+        Thread t = new Thread(this::accetta, "replica-primaria");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /**
+     * @return la porta su cui il primario attende le repliche
+     */
+    public int getPorta() {
+        return this.server.getLocalPort();
+    }
+
+    /**
+     * @return la sequenza dell'ultima operazione registrata nel log
+     */
+    public long getUltimaSequenza() {
+        synchronized (this.log) {
+            return this.base + this.log.size();
+        }
+    }
+
+    /*
+     * Il numero di record del log non ancora inglobati nello stato.
+     */
+    int getRecordNelLog() {
+        synchronized (this.log) {
+            return this.log.size();
+        }
+    }
+
+    /**
+     * Smette di accettare repliche e chiude i collegamenti esistenti. Il
+     * gestore non viene più osservato.
+     */
+    public void chiudi() {
+        this.chiuso = true;
+        this.gestore.removeAscoltatore(this);
+        try {
+            this.server.close();
+        } catch (IOException e) {
+            // Il socket è comunque inutilizzabile
+        }
+        for (Collegamento c : this.connessioni) {
+            try {
+                c.socket.close();
+            } catch (IOException e) {
+                // Come sopra
+            }
+        }
+        synchronized (this.log) {
+            this.log.notifyAll();
+        }
+    }
+
+    @Override
+    public void aulaAggiunta(Aula a) {
+        this.registra(AULA, a, null);
+    }
+
+    @Override
+    public void prenotazioneAggiunta(Prenotazione p) {
+        this.registra(AGGIUNTA, p.getAula(), p);
+    }
+
+    @Override
+    public void prenotazioneRimossa(Prenotazione p) {
+        this.registra(RIMOZIONE, p.getAula(), p);
+    }
+
+    @Override
+    public void prenotazioneScaduta(Prenotazione p) {
+        this.registra(RIMOZIONE, p.getAula(), p);
+    }
+
+    /*
+     * Codifica un record e lo aggiunge al log. Formato: tipo, sequenza,
+     * istante di registrazione e poi, per AULA l'aula intera, per le
+     * prenotazioni il nome dell'aula, il time slot e, solo per AGGIUNTA,
+     * docente e motivo.
+     */
+    private void registra(byte tipo, Aula a, Prenotazione p) {
+        try {
+            synchronized (this.log) {
+                ByteArrayOutputStream b = new ByteArrayOutputStream(64);
+                DataOutputStream out = new DataOutputStream(b);
+                out.writeByte(tipo);
+                out.writeLong(this.base + this.log.size() + 1);
+                out.writeLong(System.currentTimeMillis());
+                if (tipo == AULA) {
+                    ProtocolloAule.scriviAula(out, a);
+                } else {
+                    out.writeUTF(a.getNome());
+                    ProtocolloAule.scriviTimeSlot(out, p.getTimeSlot());
+                    if (tipo == AGGIUNTA) {
+                        out.writeUTF(p.getDocente());
+                        out.writeUTF(p.getMotivo());
+                    }
+                }
+                this.log.add(b.toByteArray());
+                this.log.notifyAll();
+                if (this.log.size() >= this.prossimoTroncamento) {
+                    this.tronca();
+                }
+            }
+        } catch (IOException e) {
+            // Non può accadere scrivendo in memoria
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /*
+     * Ingloba nello stato i record confermati da tutte le repliche collegate
+     * e li toglie dal log. Se una replica lenta impedisce di togliere buona
+     * parte del log, il prossimo tentativo avviene quando il log è
+     * raddoppiato, così il costo resta proporzionale ai record registrati.
+     * Va chiamato con il monitor del log.
+     */
+    private void tronca() throws IOException {
+        long limite = this.base + this.log.size();
+        for (Collegamento c : this.connessioni) {
+            limite = Math.min(limite, c.confermata);
+        }
+        int k = (int) (limite - this.base);
+        if (k > 0) {
+            for (byte[] record : this.log.subList(0, k)) {
+                this.ingloba(record);
+            }
+            this.log.subList(0, k).clear();
+            this.base = limite;
+            if (this.dizionario.size() > 2 * this.prenotazioniStato + SOGLIA_TRONCAMENTO) {
+                this.compattaDizionario();
+            }
+        }
+        this.prossimoTroncamento = Math.max(SOGLIA_TRONCAMENTO, 2 * this.log.size());
+    }
+
+    // Applica un record allo stato, come fa ReplicaSecondaria al suo gestore
+    private void ingloba(byte[] record) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+        byte tipo = in.readByte();
+        in.readLong();
+        in.readLong();
+        if (tipo == AULA) {
+            Aula a = ProtocolloAule.leggiAula(in);
+            this.stato.putIfAbsent(a.getNome(), new PrenotazioniColonnari(a, this.dizionario));
+            return;
+        }
+        PrenotazioniColonnari c = this.stato.get(in.readUTF());
+        TimeSlot ts = ProtocolloAule.leggiTimeSlot(in);
+        if (tipo == AGGIUNTA) {
+            c.addPrenotazione(ts, in.readUTF(), in.readUTF());
+            this.prenotazioniStato++;
+        } else if (c.removePrenotazione(new Prenotazione(c.getAula(), ts, "", ""))) {
+            this.prenotazioniStato--;
+        }
+    }
+
+    /*
+     * Ricostruisce lo stato con un dizionario nuovo, che contiene solo le
+     * stringhe delle prenotazioni presenti.
+     */
+    private void compattaDizionario() {
+        DizionarioStringhe d = new DizionarioStringhe();
+        for (Map.Entry<String, PrenotazioniColonnari> e : this.stato.entrySet()) {
+            PrenotazioniColonnari vecchie = e.getValue();
+            PrenotazioniColonnari nuove = new PrenotazioniColonnari(vecchie.getAula(), d, vecchie.getZona());
+            for (int i = 0; i < vecchie.size(); i++) {
+                Prenotazione p = vecchie.get(i);
+                nuove.addPrenotazione(p.getTimeSlot(), p.getDocente(), p.getMotivo());
+            }
+            e.setValue(nuove);
+        }
+        this.dizionario = d;
+    }
+
+    /*
+     * Codifica lo stato. Formato: tipo, sequenza base, istante, numero di
+     * aule e, per ciascuna, l'aula, il numero di prenotazioni e per ogni
+     * prenotazione time slot, docente e motivo. Va chiamato con il monitor
+     * del log.
+     */
+    private byte[] codificaStato() throws IOException {
+        ByteArrayOutputStream b = new ByteArrayOutputStream(64 + 48 * this.prenotazioniStato);
+        DataOutputStream out = new DataOutputStream(b);
+        out.writeByte(STATO);
+        out.writeLong(this.base);
+        out.writeLong(System.currentTimeMillis());
+        out.writeInt(this.stato.size());
+        for (PrenotazioniColonnari c : this.stato.values()) {
+            ProtocolloAule.scriviAula(out, c.getAula());
+            out.writeInt(c.size());
+            for (int i = 0; i < c.size(); i++) {
+                Prenotazione p = c.get(i);
+                ProtocolloAule.scriviTimeSlot(out, p.getTimeSlot());
+                out.writeUTF(p.getDocente());
+                out.writeUTF(p.getMotivo());
+            }
+        }
+        return b.toByteArray();
+    }
+
+    private void accetta() {
+        while (!this.chiuso) {
+            try {
+                Socket s = this.server.accept();
+                Collegamento c = new Collegamento(s);
+                this.connessioni.add(c);
+                Thread t = new Thread(() -> this.invia(c), "replica-invio-" + s.getPort());
+                t.setDaemon(true);
+                t.start();
+            } catch (IOException e) {
+                // Il server è stato chiuso
+            }
+        }
+    }
+
+    /*
+     * Invia a una replica lo stato e poi i record del log man mano che
+     * vengono registrati, leggendo le sequenze che la replica conferma.
+     */
+    private void invia(Collegamento c) {
+        Socket s = c.socket;
+        try (DataOutputStream out = new DataOutputStream(
+                new BufferedOutputStream(s.getOutputStream()));
+             DataInputStream conferme = new DataInputStream(s.getInputStream())) {
+            byte[] iniziale;
+            long prossima;
+            synchronized (this.log) {
+                iniziale = this.codificaStato();
+                prossima = this.base + 1;
+                c.confermata = this.base;
+            }
+            out.write(iniziale);
+            out.flush();
+            while (!this.chiuso) {
+                while (conferme.available() >= 8) {
+                    c.confermata = Math.max(c.confermata, conferme.readLong());
+                }
+                byte[] record = null;
+                long ultima;
+                synchronized (this.log) {
+                    if (prossima > this.base + this.log.size()) {
+                        this.log.wait(INTERVALLO_BATTITO);
+                    }
+                    // I record da prossima in poi non sono stati confermati,
+                    // quindi sono ancora nel log
+                    ultima = this.base + this.log.size();
+                    if (prossima <= ultima) {
+                        record = this.log.get((int) (prossima - this.base - 1));
+                    }
+                }
+                if (record != null) {
+                    out.write(record);
+                    prossima++;
+                    if (prossima > ultima) {
+                        out.flush();
+                    }
+                } else {
+                    out.writeByte(BATTITO);
+                    out.writeLong(ultima);
+                    out.writeLong(System.currentTimeMillis());
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            // La replica si è scollegata
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            this.connessioni.remove(c);
+            try {
+                s.close();
+            } catch (IOException e) {
+                // Niente da fare
+            }
+        }
+    }
+
+    /**
+     * Avvia un primario su un campus sintetico e vi esegue prenotazioni e
+     * cancellazioni casuali, stampando ogni secondo l'ultima sequenza del
+     * log. Insieme al main di {@link ReplicaSecondaria} permette di provare
+     * la replica fra due JVM sulla stessa macchina.
+     *
+     * @param args la porta (default 7070), il numero di aule (default 200) e
+     *             le operazioni al secondo (default 1000)
+     * @throws IOException          se non è possibile aprire la porta
+     * @throws InterruptedException se il thread principale viene interrotto
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int porta = args.length > 0 ? Integer.parseInt(args[0]) : 7070;
+        int nAule = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        int tasso = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        GeneratoreCampus c = new GeneratoreCampus(42, nAule, 8, 90,
+                new GregorianCalendar(2019, 8, 1));
+        List<Aula> aule = c.creaAule();
+        GestoreAule g = new GestoreAule();
+        ReplicaPrimaria p = new ReplicaPrimaria(g, porta);
+        for (Aula a : aule) {
+            g.addAula(a);
+        }
+        System.out.println("Primario in ascolto sulla porta " + p.getPorta());
+        Random r = new Random(42);
+        List<Prenotazione> fatte = new ArrayList<>();
+        long intervallo = 1_000_000_000L / Math.max(1, tasso);
+        long prossima = System.nanoTime();
+        long prossimaStampa = System.currentTimeMillis() + 1000;
+        while (true) {
+            if (!fatte.isEmpty() && r.nextInt(4) == 0) {
+                Prenotazione pr = fatte.remove(fatte.size() - 1);
+                pr.getAula().removePrenotazione(pr);
+            } else {
+                Aula a = aule.get(r.nextInt(aule.size()));
+                TimeSlot ts = c.prossimoTimeSlot(r);
+                if (a.isFree(ts)) {
+                    a.addPrenotazione(ts, "Docente" + r.nextInt(500), "Replica");
+                    fatte.add(new Prenotazione(a, ts, "", ""));
+                }
+            }
+            if (System.currentTimeMillis() >= prossimaStampa) {
+                System.out.println("Ultima sequenza: " + p.getUltimaSequenza());
+                prossimaStampa += 1000;
+            }
+            prossima += intervallo;
+            long attesa = prossima - System.nanoTime();
+            if (attesa > 0) {
+                Thread.sleep(attesa / 1_000_000, (int) (attesa % 1_000_000));
+            }
+        }
+    }
+}
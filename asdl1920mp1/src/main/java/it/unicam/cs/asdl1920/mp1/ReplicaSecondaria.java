@@ -0,0 +1,312 @@
+package it.unicam.cs.asdl1920.mp1;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+import java.util.Collections;
+import java.util.GregorianCalendar;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+
+/**
+ * Una replica in sola lettura di un gestore di aule. Si collega a una
+ * {@link ReplicaPrimaria}, riceve il suo log delle operazioni e lo applica a
+ * un proprio gestore, su cui serve le ricerche di aule libere. Le ricerche
+ * vedono sempre uno stato del primario realmente esistito, eventualmente in
+ * ritardo: il ritardo è disponibile sia in numero di operazioni non ancora
+ * applicate sia in millisecondi.
+ *
+ * La replica riceve per primo lo stato in cui il primario ha inglobato la
+ * parte più vecchia del log, e lo carica in blocco con
+ * {@link GestoreAule#caricaPrenotazioni(PrenotazioniColonnari)}; a ogni
+ * battito, e quando ha applicato tutti i record ricevuti, conferma al
+ * primario l'ultima sequenza applicata, così che il primario possa
+ * troncare il log.
+ *
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+public class ReplicaSecondaria {
+
+    private final GestoreAule gestore;
+
+    private final ReentrantReadWriteLock lock;
+
+    private final Socket socket;
+
+    // Sequenza dell'ultima operazione applicata, protetta dal monitor della
+    // replica per attendiSequenza
+    private long applicata;
+
+    // Ultima sequenza nota del primario
+    private volatile long primario;
+
+    private volatile long ritardoMillis;
+
+    private volatile Exception errore;
+
+    private volatile boolean connessa;
+
+    /**
+     * Crea una replica e si collega al primario.
+     *
+     * @param host  l'host del primario
+     * @param porta la porta del primario
+     * @throws IOException se non è possibile collegarsi
+     */
+    public ReplicaSecondaria(String host, int porta) throws IOException {
+        this.gestore = new GestoreAule();
+        this.lock = new ReentrantReadWriteLock();
+        this.socket = new Socket(host, porta);
+        this.connessa = true;
+        Thread t = new Thread(this::ricevi, "replica-secondaria");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /**
+     * Cerca le aule libere nello stato replicato, con lo stesso contratto di
+     * {@link GestoreAule#cercaAuleLibere(Set, TimeSlot)}.
+     *
+     * @param requestedFacilities insieme di facilities richieste
+     * @param ts                  il time slot in cui un'aula deve essere
+     *                            libera
+     * @return l'insieme delle aule replicate che soddisfano la richiesta
+     * @throws NullPointerException se una qualsiasi delle informazioni
+     *                              passate è nulla
+     */
+    public Set<Aula> cercaAuleLibere(Set<Facility> requestedFacilities, TimeSlot ts) {
+        return this.leggi(g -> g.cercaAuleLibere(requestedFacilities, ts));
+    }
+
+    /**
+     * Esegue una lettura arbitraria sul gestore replicato, mentre non vengono
+     * aggiunte aule né caricato lo stato. Le prenotazioni possono invece
+     * cambiare durante la lettura: ogni aula le vede prima o dopo ciascuna
+     * operazione applicata. La funzione non deve modificare il gestore.
+     *
+     * @param lettura la lettura da eseguire
+     * @param <T>     il tipo del risultato
+     * @return il risultato della lettura
+     * @throws NullPointerException se la lettura è nulla
+     */
+    public <T> T leggi(Function<GestoreAule, T> lettura) {
+        if (lettura == null) {
+            throw new NullPointerException("Tentativo di eseguire una lettura nulla");
+        }
+        this.lock.readLock().lock();
+        try {
+            return lettura.apply(this.gestore);
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return la sequenza dell'ultima operazione applicata
+     */
+    public synchronized long getUltimaSequenzaApplicata() {
+        return this.applicata;
+    }
+
+    /**
+     * @return il numero di operazioni registrate dal primario e non ancora
+     * applicate, secondo l'ultima informazione ricevuta
+     */
+    public synchronized long getRitardoOperazioni() {
+        return Math.max(0, this.primario - this.applicata);
+    }
+
+    /**
+     * @return il tempo trascorso fra la registrazione sul primario e
+     * l'applicazione sulla replica dell'ultima operazione applicata, 0 se la
+     * replica è allineata all'ultimo battito del primario
+     */
+    public long getRitardoMillis() {
+        return this.ritardoMillis;
+    }
+
+    /**
+     * @return true se la replica è ancora collegata al primario
+     */
+    public boolean isConnessa() {
+        return this.connessa;
+    }
+
+    /**
+     * @return l'errore che ha interrotto la replica, null se non ce ne sono
+     * stati
+     */
+    public Exception getErrore() {
+        return this.errore;
+    }
+
+    /**
+     * Attende che la replica abbia applicato l'operazione con una certa
+     * sequenza.
+     *
+     * @param sequenza  la sequenza da attendere
+     * @param timeoutMs il tempo massimo di attesa in millisecondi
+     * @return true se l'operazione è stata applicata, false se il tempo è
+     * scaduto o la replica si è scollegata
+     * @throws InterruptedException se il thread viene interrotto durante
+     *                              l'attesa
+     */
+    public synchronized boolean attendiSequenza(long sequenza, long timeoutMs)
+            throws InterruptedException {
+        long fine = System.currentTimeMillis() + timeoutMs;
+        while (this.applicata < sequenza && this.connessa) {
+            long attesa = fine - System.currentTimeMillis();
+            if (attesa <= 0) return false;
+            this.wait(attesa);
+        }
+        return this.applicata >= sequenza;
+    }
+
+    /**
+     * Si scollega dal primario; lo stato replicato resta leggibile.
+     */
+    public void chiudi() {
+        try {
+            this.socket.close();
+        } catch (IOException e) {
+            // Il socket è comunque inutilizzabile
+        }
+    }
+
+    private void ricevi() {
+        try (DataInputStream in = new DataInputStream(
+                new BufferedInputStream(this.socket.getInputStream()));
+             DataOutputStream conferme = new DataOutputStream(this.socket.getOutputStream())) {
+            while (true) {
+                byte tipo = in.readByte();
+                long seq = in.readLong();
+                long istante = in.readLong();
+                if (tipo == ReplicaPrimaria.BATTITO) {
+                    long applicata;
+                    synchronized (this) {
+                        this.primario = Math.max(this.primario, seq);
+                        if (this.applicata >= seq) this.ritardoMillis = 0;
+                        applicata = this.applicata;
+                    }
+                    conferme.writeLong(applicata);
+                    continue;
+                }
+                // Solo lo stato e le nuove aule modificano l'insieme delle
+                // aule; le prenotazioni sono protette dal lock di ciascuna
+                // aula, e le letture possono procedere mentre si applicano
+                boolean aule = tipo == ReplicaPrimaria.STATO || tipo == ReplicaPrimaria.AULA;
+                Lock l = aule ? this.lock.writeLock() : this.lock.readLock();
+                l.lock();
+                try {
+                    if (tipo == ReplicaPrimaria.STATO) {
+                        this.applicaStato(in);
+                    } else {
+                        this.applica(tipo, in);
+                    }
+                } finally {
+                    l.unlock();
+                }
+                synchronized (this) {
+                    this.applicata = seq;
+                    this.primario = Math.max(this.primario, seq);
+                    this.ritardoMillis = Math.max(0, System.currentTimeMillis() - istante);
+                    this.notifyAll();
+                }
+                if (in.available() == 0) {
+                    conferme.writeLong(seq);
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            if (!this.socket.isClosed()) {
+                this.errore = e;
+            }
+        } finally {
+            synchronized (this) {
+                this.connessa = false;
+                this.notifyAll();
+            }
+        }
+    }
+
+    /*
+     * Carica lo stato inviato dal primario; si veda
+     * ReplicaPrimaria#codificaStato. Le prenotazioni di ciascuna aula sono
+     * raccolte in forma colonnare e caricate in blocco.
+     */
+    private void applicaStato(DataInputStream in) throws IOException {
+        int aule = in.readInt();
+        DizionarioStringhe dizionario = new DizionarioStringhe();
+        for (int k = 0; k < aule; k++) {
+            Aula a = ProtocolloAule.leggiAula(in);
+            this.gestore.addAula(a);
+            int n = in.readInt();
+            PrenotazioniColonnari c = new PrenotazioniColonnari(a, dizionario);
+            for (int i = 0; i < n; i++) {
+                TimeSlot ts = ProtocolloAule.leggiTimeSlot(in);
+                c.addPrenotazione(ts, in.readUTF(), in.readUTF());
+            }
+            this.gestore.caricaPrenotazioni(c);
+        }
+    }
+
+    private void applica(byte tipo, DataInputStream in) throws IOException {
+        if (tipo == ReplicaPrimaria.AULA) {
+            this.gestore.addAula(ProtocolloAule.leggiAula(in));
+            return;
+        }
+        String nome = in.readUTF();
+        TimeSlot ts = ProtocolloAule.leggiTimeSlot(in);
+        Aula a = this.gestore.getAula(nome);
+        if (a == null) {
+            throw new IOException("Operazione su un'aula sconosciuta: " + nome);
+        }
+        if (tipo == ReplicaPrimaria.AGGIUNTA) {
+            String docente = in.readUTF();
+            String motivo = in.readUTF();
+            a.addPrenotazione(ts, docente, motivo);
+        } else if (tipo == ReplicaPrimaria.RIMOZIONE) {
+            a.removePrenotazione(new Prenotazione(a, ts, "", ""));
+        } else {
+            throw new IOException("Tipo di operazione sconosciuto: " + tipo);
+        }
+    }
+
+    /**
+     * Collega una replica a un primario avviato con il main di
+     * {@link ReplicaPrimaria} e stampa ogni secondo il ritardo e il tempo
+     * medio di una ricerca di aule libere.
+     *
+     * @param args l'host (default localhost) e la porta (default 7070) del
+     *             primario
+     * @throws IOException          se non è possibile collegarsi
+     * @throws InterruptedException se il thread principale viene interrotto
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String host = args.length > 0 ? args[0] : "localhost";
+        int porta = args.length > 1 ? Integer.parseInt(args[1]) : 7070;
+        ReplicaSecondaria r = new ReplicaSecondaria(host, porta);
+        GeneratoreCampus c = new GeneratoreCampus(42, 1, 1, 90,
+                new GregorianCalendar(2019, 8, 1));
+        Random random = new Random();
+        while (r.isConnessa()) {
+            long inizio = System.nanoTime();
+            int ricerche = 0;
+            while (System.nanoTime() - inizio < 1_000_000_000L) {
+                r.cercaAuleLibere(Collections.<Facility>emptySet(), c.prossimoTimeSlot(random));
+                ricerche++;
+            }
+            System.out.printf("Applicata %d, ritardo %d operazioni / %d ms, ricerca media %.1f us%n",
+                    r.getUltimaSequenzaApplicata(), r.getRitardoOperazioni(),
+                    r.getRitardoMillis(), (System.nanoTime() - inizio) / 1e3 / ricerche);
+        }
+        if (r.getErrore() != null) {
+            r.getErrore().printStackTrace();
+        }
+    }
+}
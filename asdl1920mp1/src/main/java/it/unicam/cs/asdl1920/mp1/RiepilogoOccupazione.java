@@ -0,0 +1,174 @@
+package it.unicam.cs.asdl1920.mp1;
+
+import java.util.Arrays;
+
+/**
+ * Riepilogo di occupazione di un'aula: per ogni quarto d'ora toccato da
+ * almeno una prenotazione, i millisecondi occupati dalle prenotazioni nel
+ * quarto d'ora e il numero di queste prenotazioni. Serve a
+ * {@link Aula#isFree(TimeSlot)} per scartare subito le aule certamente
+ * occupate.
+ *
+ * I quarti d'ora sono memorizzati in una tabella hash ad indirizzamento
+ * aperto con scansione lineare, su array di long: per ogni quarto d'ora una
+ * chiave e un valore che contiene sia il numero di prenotazioni (nei 32 bit
+ * alti) sia i millisecondi occupati (nei 32 bit bassi), senza oggetti per
+ * voce. Le cancellazioni spostano indietro le voci successive, così che la
+ * tabella non contenga voci cancellate.
+ *
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+final class RiepilogoOccupazione {
+
+    // Durata in millisecondi di un periodo del riepilogo
+    static final long PERIODO = 15 * 60 * 1000;
+
+    // Chiave delle posizioni libere; nessun quarto d'ora ha questo indice
+    private static final long LIBERA = Long.MIN_VALUE;
+
+    // Una prenotazione in più nel valore di una voce
+    private static final long UNA = 1L << 32;
+
+    private static final long MILLISECONDI = UNA - 1;
+
+    // Indici dei quarti d'ora, LIBERA nelle posizioni libere
+    private long[] chiavi;
+
+    // Numero di prenotazioni e millisecondi occupati di ogni quarto d'ora
+    private long[] valori;
+
+    // Logaritmo in base 2 della capacità
+    private int bit;
+
+    private int size;
+
+    RiepilogoOccupazione() {
+        this.bit = 4;
+        this.chiavi = new long[1 << this.bit];
+        this.valori = new long[1 << this.bit];
+        Arrays.fill(this.chiavi, LIBERA);
+    }
+
+    /*
+     * Il numero di quarti d'ora occupati da almeno una prenotazione.
+     */
+    int size() {
+        return this.size;
+    }
+
+    /*
+     * Aggiunge (segno 1) o toglie (segno -1) dal riepilogo una prenotazione
+     * da start a stop, in millisecondi.
+     */
+    void aggiorna(long start, long stop, int segno) {
+        if (stop <= start) return;
+        for (long i = Math.floorDiv(start, PERIODO); i <= Math.floorDiv(stop - 1, PERIODO); i++) {
+            long occupati = Math.min(stop, (i + 1) * PERIODO) - Math.max(start, i * PERIODO);
+            int pos = this.posizione(i);
+            if (this.chiavi[pos] == LIBERA) {
+                if (segno < 0) continue;
+                this.chiavi[pos] = i;
+                this.valori[pos] = 0;
+                this.size++;
+            }
+            this.valori[pos] += segno * (UNA + occupati);
+            if (this.valori[pos] >>> 32 == 0) {
+                this.cancella(pos);
+            } else if (this.size * 4 > this.chiavi.length * 3) {
+                this.raddoppia();
+            }
+        }
+    }
+
+    /*
+     * Controlla se l'aula è certamente occupata fra start e stop. Se un
+     * quarto d'ora interamente contenuto nell'intervallo ha più millisecondi
+     * occupati di quanti ne consente la tolleranza per ciascuna delle sue
+     * prenotazioni, almeno una di esse lo occupa per più della tolleranza e
+     * quindi si sovrappone all'intervallo. Non vale il contrario: se il
+     * riepilogo non basta serve il controllo esatto.
+     */
+    boolean sicuramenteOccupata(long start, long stop) {
+        if (this.size == 0) return false;
+        long tolleranza = TimeSlot.MINUTES_OF_TOLERANCE_FOR_OVERLAPPING * 60 * 1000;
+        long primo = Math.floorDiv(start + PERIODO - 1, PERIODO);
+        long ultimo = Math.floorDiv(stop, PERIODO) - 1;
+        if (ultimo < primo) return false;
+        if (ultimo - primo < this.size) {
+            for (long i = primo; i <= ultimo; i++) {
+                int pos = this.posizione(i);
+                if (this.chiavi[pos] != LIBERA && occupata(this.valori[pos], tolleranza)) return true;
+            }
+        } else {
+            // L'intervallo è più lungo dei periodi occupati: scorro questi
+            for (int pos = 0; pos < this.chiavi.length; pos++) {
+                long i = this.chiavi[pos];
+                if (i != LIBERA && i >= primo && i <= ultimo && occupata(this.valori[pos], tolleranza)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean occupata(long valore, long tolleranza) {
+        return (valore & MILLISECONDI) > tolleranza * (valore >>> 32);
+    }
+
+    // Posizione iniziale di una chiave nella tabella
+    private int casa(long chiave) {
+        return (int) ((chiave * 0x9E3779B97F4A7C15L) >>> (64 - this.bit));
+    }
+
+    // Posizione della chiave, o della posizione libera in cui andrebbe
+    private int posizione(long chiave) {
+        int maschera = this.chiavi.length - 1;
+        int pos = this.casa(chiave);
+        while (this.chiavi[pos] != LIBERA && this.chiavi[pos] != chiave) {
+            pos = (pos + 1) & maschera;
+        }
+        return pos;
+    }
+
+    /*
+     * Cancella la voce in pos e riporta indietro le voci successive che non
+     * sarebbero più raggiungibili dalla loro posizione iniziale.
+     */
+    private void cancella(int pos) {
+        int maschera = this.chiavi.length - 1;
+        int libera = pos;
+        int j = pos;
+        while (true) {
+            j = (j + 1) & maschera;
+            if (this.chiavi[j] == LIBERA) break;
+            int k = this.casa(this.chiavi[j]);
+            // La voce in j resta raggiungibile se la sua posizione iniziale
+            // cade ciclicamente fra la posizione liberata (esclusa) e j
+            boolean raggiungibile = libera <= j ? libera < k && k <= j : libera < k || k <= j;
+            if (!raggiungibile) {
+                this.chiavi[libera] = this.chiavi[j];
+                this.valori[libera] = this.valori[j];
+                libera = j;
+            }
+        }
+        this.chiavi[libera] = LIBERA;
+        this.size--;
+    }
+
+    private void raddoppia() {
+        long[] vecchieChiavi = this.chiavi;
+        long[] vecchiValori = this.valori;
+        this.bit++;
+        this.chiavi = new long[1 << this.bit];
+        this.valori = new long[1 << this.bit];
+        Arrays.fill(this.chiavi, LIBERA);
+        for (int i = 0; i < vecchieChiavi.length; i++) {
+            if (vecchieChiavi[i] != LIBERA) {
+                int pos = this.posizione(vecchieChiavi[i]);
+                this.chiavi[pos] = vecchieChiavi[i];
+                this.valori[pos] = vecchiValori[i];
+            }
+        }
+    }
+}
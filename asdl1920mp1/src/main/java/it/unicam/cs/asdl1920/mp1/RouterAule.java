@@ -0,0 +1,431 @@
+package it.unicam.cs.asdl1920.mp1;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Il livello di instradamento di un gestore di aule partizionato su più
+ * {@link ShardAule}, tutti sulla stessa macchina. Ogni aula appartiene a un
+ * solo shard, scelto con l'hash del nome o della location dell'aula secondo
+ * il {@link Partizionamento}; le prenotazioni e le cancellazioni vengono
+ * inviate solo allo shard dell'aula, mentre la ricerca di aule libere viene
+ * inviata a tutti gli shard in parallelo e i risultati vengono riuniti.
+ *
+ * Le richieste a uno stesso shard passano su un'unica connessione e sono
+ * quindi eseguite una alla volta; richieste a shard diversi procedono in
+ * parallelo. Gli errori di comunicazione sono segnalati con
+ * {@link UncheckedIOException}, quelli sugli argomenti con le stesse eccezioni
+ * di {@link GestoreAule} e {@link Aula}.
+ *
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+public class RouterAule {
+
+    /**
+     * Criterio di assegnazione delle aule agli shard.
+     */
+    public enum Partizionamento {
+        /**
+         * Per hash del nome: aule distribuite uniformemente.
+         */
+        NOME,
+        /**
+         * Per hash della location: le aule di uno stesso edificio stanno
+         * nello stesso shard.
+         */
+        LOCATION
+    }
+
+    // Una connessione a uno shard, usata da un thread alla volta
+    private static final class Connessione {
+        private final Socket socket;
+
+        private final DataInputStream in;
+
+        private final DataOutputStream out;
+
+        private Connessione(int porta) throws IOException {
+            this.socket = new Socket(InetAddress.getLoopbackAddress(), porta);
+            this.socket.setTcpNoDelay(true);
+            this.in = new DataInputStream(new BufferedInputStream(this.socket.getInputStream()));
+            this.out = new DataOutputStream(new BufferedOutputStream(this.socket.getOutputStream()));
+        }
+
+        /*
+         * Invia la richiesta già scritta su out e legge l'esito; se è un
+         * errore lo rilancia come eccezione, altrimenti il chiamante legge il
+         * risultato da in.
+         */
+        private void attendiEsito() throws IOException {
+            this.out.flush();
+            byte esito = this.in.readByte();
+            if (esito == ShardAule.ARGOMENTO_NON_VALIDO) {
+                throw new IllegalArgumentException(this.in.readUTF());
+            }
+            if (esito == ShardAule.ERRORE) {
+                throw new IllegalStateException("Errore nello shard: " + this.in.readUTF());
+            }
+        }
+    }
+
+    private final Partizionamento partizionamento;
+
+    private final List<Connessione> shard;
+
+    // Shard di ogni aula aggiunta tramite il router
+    private final Map<String, Integer> shardAule;
+
+    private final ExecutorService esecutore;
+
+    // Processi degli shard avviati dal router, vuota se gli shard sono esterni
+    private final List<Process> processi;
+
+    /**
+     * Crea un router e si collega a shard già avviati.
+     *
+     * @param partizionamento il criterio di assegnazione delle aule
+     * @param porte           le porte locali degli shard
+     * @throws IOException              se non è possibile collegarsi a uno
+     *                                  shard
+     * @throws NullPointerException     se il partizionamento o le porte sono
+     *                                  nulli
+     * @throws IllegalArgumentException se non ci sono porte
+     */
+    public RouterAule(Partizionamento partizionamento, int... porte) throws IOException {
+        this(partizionamento, porte, Collections.emptyList());
+    }
+
+    private RouterAule(Partizionamento partizionamento, int[] porte, List<Process> processi) throws IOException {
+        if (partizionamento == null || porte == null) {
+            throw new NullPointerException("Tentativo di creare un router senza partizionamento o shard");
+        }
+        if (porte.length == 0) {
+            throw new IllegalArgumentException("Tentativo di creare un router senza shard");
+        }
+        this.partizionamento = partizionamento;
+        this.shard = new ArrayList<>(porte.length);
+        this.shardAule = new ConcurrentHashMap<>();
+        this.processi = processi;
+        this.esecutore = Executors.newFixedThreadPool(porte.length, r -> {
+            Thread t = new Thread(r, "router-aule");
+            t.setDaemon(true);
+            return t;
+        });
+        try {
+            for (int porta : porte) {
+                this.shard.add(new Connessione(porta));
+            }
+        } catch (IOException e) {
+            this.chiudi();
+            throw e;
+        }
+    }
+
+    /**
+     * Avvia un certo numero di shard come processi separati, con la stessa
+     * JVM e lo stesso classpath del processo corrente, e crea un router
+     * collegato a loro. I processi vengono terminati da {@link #chiudi()}.
+     *
+     * @param partizionamento il criterio di assegnazione delle aule
+     * @param numero          il numero di shard
+     * @return il router collegato ai nuovi shard
+     * @throws IOException              se non è possibile avviare uno shard o
+     *                                  collegarsi
+     * @throws IllegalArgumentException se il numero di shard non è positivo
+     */
+    public static RouterAule avviaProcessi(Partizionamento partizionamento, int numero) throws IOException {
+        if (numero <= 0) {
+            throw new IllegalArgumentException("Tentativo di avviare un numero di shard non positivo");
+        }
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        String classpath = System.getProperty("java.class.path");
+        List<Process> processi = new ArrayList<>(numero);
+        int[] porte = new int[numero];
+        try {
+            for (int i = 0; i < numero; i++) {
+                Process p = new ProcessBuilder(java, "-cp", classpath, ShardAule.class.getName())
+                        .redirectError(ProcessBuilder.Redirect.INHERIT).start();
+                processi.add(p);
+            }
+            // Gli shard si avviano in parallelo, qui si attende solo la porta
+            for (int i = 0; i < numero; i++) {
+                porte[i] = leggiPorta(processi.get(i));
+            }
+            return new RouterAule(partizionamento, porte, processi);
+        } catch (IOException | RuntimeException e) {
+            for (Process p : processi) {
+                p.destroy();
+            }
+            throw e;
+        }
+    }
+
+    private static int leggiPorta(Process p) throws IOException {
+        BufferedReader r = new BufferedReader(new InputStreamReader(p.getInputStream(), StandardCharsets.UTF_8));
+        String riga = r.readLine();
+        if (riga == null || !riga.startsWith("PORTA ")) {
+            throw new IOException("Lo shard non si è avviato: " + riga);
+        }
+        return Integer.parseInt(riga.substring("PORTA ".length()));
+    }
+
+    /**
+     * @return il numero di shard
+     */
+    public int getNumeroShard() {
+        return this.shard.size();
+    }
+
+    /**
+     * Restituisce lo shard a cui appartiene un'aula.
+     *
+     * @param a l'aula
+     * @return l'indice dello shard, fra 0 e il numero di shard escluso
+     * @throws NullPointerException se l'aula è nulla
+     */
+    public int shardDi(Aula a) {
+        if (a == null) {
+            throw new NullPointerException("Tentativo di cercare lo shard di un'aula nulla");
+        }
+        String chiave = this.partizionamento == Partizionamento.NOME ? a.getNome() : a.getLocation();
+        return Math.floorMod(chiave.hashCode(), this.shard.size());
+    }
+
+    /*
+     * Lo shard di un'aula di cui si conosce solo il nome. Con il
+     * partizionamento per nome si calcola, altrimenti deve essere un'aula
+     * aggiunta tramite questo router.
+     */
+    private int shardDi(String nome) {
+        if (this.partizionamento == Partizionamento.NOME) {
+            return Math.floorMod(nome.hashCode(), this.shard.size());
+        }
+        Integer i = this.shardAule.get(nome);
+        if (i == null) {
+            throw new IllegalArgumentException("Aula sconosciuta: " + nome);
+        }
+        return i;
+    }
+
+    /**
+     * Aggiunge un'aula al suo shard, con lo stesso contratto di
+     * {@link GestoreAule#addAula(Aula)}. Le prenotazioni dell'aula non
+     * vengono trasmesse.
+     *
+     * @param a l'aula da aggiungere
+     * @return true se l'aula è stata aggiunta, false se esisteva già
+     * @throws NullPointerException se l'aula passata è nulla
+     */
+    public boolean addAula(Aula a) {
+        if (a == null) {
+            throw new NullPointerException("Tentativo di aggiungere un'aula nulla");
+        }
+        int i = this.shardDi(a);
+        Connessione c = this.shard.get(i);
+        synchronized (c) {
+            try {
+                c.out.writeByte(ShardAule.AGGIUNGI_AULA);
+                ProtocolloAule.scriviAula(c.out, a);
+                c.attendiEsito();
+                boolean aggiunta = c.in.readBoolean();
+                this.shardAule.putIfAbsent(a.getNome(), i);
+                return aggiunta;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Prenota un'aula nel suo shard, con lo stesso contratto di
+     * {@link Aula#addPrenotazione(TimeSlot, String, String)}.
+     *
+     * @param nome    il nome dell'aula
+     * @param ts      il time slot della prenotazione
+     * @param docente il nome del docente che ha prenotato l'aula
+     * @param motivo  il motivo della prenotazione
+     * @throws NullPointerException     se una qualsiasi delle informazioni
+     *                                  passate è nulla
+     * @throws IllegalArgumentException se l'aula non esiste o non è libera
+     *                                  nel time slot
+     */
+    public void addPrenotazione(String nome, TimeSlot ts, String docente, String motivo) {
+        if (nome == null || ts == null || docente == null || motivo == null) {
+            throw new NullPointerException("Tentativo di prenotare con aula, time slot, docente o motivo nulli");
+        }
+        Connessione c = this.shard.get(this.shardDi(nome));
+        synchronized (c) {
+            try {
+                c.out.writeByte(ShardAule.PRENOTA);
+                c.out.writeUTF(nome);
+                ProtocolloAule.scriviTimeSlot(c.out, ts);
+                c.out.writeUTF(docente);
+                c.out.writeUTF(motivo);
+                c.attendiEsito();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Cancella la prenotazione di un'aula che inizia con il time slot dato.
+     *
+     * @param nome il nome dell'aula
+     * @param ts   il time slot della prenotazione
+     * @return true se la prenotazione è stata cancellata, false se non c'era
+     * @throws NullPointerException     se il nome o il time slot sono nulli
+     * @throws IllegalArgumentException se l'aula non esiste
+     */
+    public boolean removePrenotazione(String nome, TimeSlot ts) {
+        if (nome == null || ts == null) {
+            throw new NullPointerException("Tentativo di cancellare una prenotazione con aula o time slot nulli");
+        }
+        Connessione c = this.shard.get(this.shardDi(nome));
+        synchronized (c) {
+            try {
+                c.out.writeByte(ShardAule.CANCELLA);
+                c.out.writeUTF(nome);
+                ProtocolloAule.scriviTimeSlot(c.out, ts);
+                c.attendiEsito();
+                return c.in.readBoolean();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Cerca le aule libere in tutti gli shard, con lo stesso contratto di
+     * {@link GestoreAule#cercaAuleLibere(Set, TimeSlot)}. Gli shard vengono
+     * interrogati in parallelo. Le aule restituite sono copie con nome,
+     * location e facilities, senza prenotazioni.
+     *
+     * @param requestedFacilities insieme di facilities richieste
+     * @param ts                  il time slot in cui un'aula deve essere
+     *                            libera
+     * @return l'insieme delle aule che soddisfano la richiesta
+     * @throws NullPointerException se una qualsiasi delle informazioni
+     *                              passate è nulla
+     */
+    public Set<Aula> cercaAuleLibere(Set<Facility> requestedFacilities, TimeSlot ts) {
+        if (requestedFacilities == null || ts == null) {
+            throw new NullPointerException("Tentativo di cercare aule libere con facilities o time slot nulli");
+        }
+        List<Future<List<Aula>>> risposte = new ArrayList<>(this.shard.size());
+        for (Connessione c : this.shard) {
+            risposte.add(this.esecutore.submit(() -> cerca(c, requestedFacilities, ts)));
+        }
+        Set<Aula> libere = new HashSet<>();
+        for (Future<List<Aula>> f : risposte) {
+            libere.addAll(attendi(f));
+        }
+        return libere;
+    }
+
+    private static List<Aula> cerca(Connessione c, Set<Facility> facilities, TimeSlot ts) throws IOException {
+        synchronized (c) {
+            c.out.writeByte(ShardAule.CERCA);
+            ProtocolloAule.scriviFacilities(c.out, facilities);
+            ProtocolloAule.scriviTimeSlot(c.out, ts);
+            c.attendiEsito();
+            int n = c.in.readInt();
+            List<Aula> aule = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                aule.add(ProtocolloAule.leggiAula(c.in));
+            }
+            return aule;
+        }
+    }
+
+    /**
+     * Restituisce il numero di aule di ogni shard.
+     *
+     * @return un array con il numero di aule per indice di shard
+     */
+    public int[] getNumeroAulePerShard() {
+        List<Future<Integer>> risposte = new ArrayList<>(this.shard.size());
+        for (Connessione c : this.shard) {
+            risposte.add(this.esecutore.submit(() -> {
+                synchronized (c) {
+                    c.out.writeByte(ShardAule.CONTA_AULE);
+                    c.attendiEsito();
+                    return c.in.readInt();
+                }
+            }));
+        }
+        int[] numeri = new int[risposte.size()];
+        for (int i = 0; i < numeri.length; i++) {
+            numeri[i] = attendi(risposte.get(i));
+        }
+        return numeri;
+    }
+
+    /*
+     * Attende la risposta di uno shard e rilancia la sua eccezione così come
+     * l'avrebbe lanciata una chiamata diretta.
+     */
+    private static <T> T attendi(Future<T> f) {
+        try {
+            return f.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrotto in attesa di uno shard", e);
+        } catch (ExecutionException e) {
+            Throwable causa = e.getCause();
+            if (causa instanceof RuntimeException) throw (RuntimeException) causa;
+            if (causa instanceof IOException) throw new UncheckedIOException((IOException) causa);
+            throw new IllegalStateException(causa);
+        }
+    }
+
+    /**
+     * Chiude le connessioni agli shard e termina i processi avviati da
+     * {@link #avviaProcessi(Partizionamento, int)}.
+     */
+    public void chiudi() {
+        this.esecutore.shutdownNow();
+        for (Connessione c : this.shard) {
+            try {
+                c.socket.close();
+            } catch (IOException e) {
+                // La connessione è comunque inutilizzabile
+            }
+        }
+        for (Process p : this.processi) {
+            try {
+                // Lo shard termina alla chiusura del suo standard input
+                p.getOutputStream().close();
+                if (!p.waitFor(1, TimeUnit.SECONDS)) p.destroy();
+            } catch (IOException e) {
+                p.destroy();
+            } catch (InterruptedException e) {
+                p.destroy();
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package it.unicam.cs.asdl1920.mp1;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Una ruota temporale gerarchica: programma elementi con una scadenza e li
+ * restituisce quando il tempo della ruota supera la scadenza. Il tempo è
+ * diviso in tick di durata fissa e la ruota ha {@value #LIVELLI} livelli di
+ * {@value #POSIZIONI} posizioni: una posizione del livello l copre 64^l tick,
+ * quindi i quattro livelli insieme coprono 64^4 tick (con tick di un minuto,
+ * circa 31 anni). Scadenze più lontane restano nell'ultima posizione del
+ * livello più alto e vengono riprogrammate quando la si raggiunge.
+ *
+ * Programmare un elemento costa O(1); ogni elemento scende al più una volta
+ * per livello prima di scadere, quindi il costo ammortizzato di una scadenza
+ * è costante. Un elemento non viene mai restituito prima della sua scadenza,
+ * e al più un tick dopo. Le liste delle posizioni sono doppiamente
+ * concatenate e ogni voce sa in quale lista si trova, quindi anche
+ * cancellare un elemento programmato, con la {@link Programmazione}
+ * restituita da {@link #programma(long, Object)}, costa O(1).
+ *
+ * La ruota non è sincronizzata.
+ *
+ * @param <T> il tipo degli elementi programmati
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+public class RuotaTemporale<T> {
+
+    /**
+     * Numero di livelli della ruota.
+     */
+    public static final int LIVELLI = 4;
+
+    /**
+     * Numero di posizioni di ciascun livello.
+     */
+    public static final int POSIZIONI = 64;
+
+    private static final int BIT = 6;
+
+    private static final int MASCHERA = POSIZIONI - 1;
+
+    // Livello delle voci fra gli scaduti e di quelle non più nella ruota
+    private static final int SCADUTI = -1;
+
+    private static final int NESSUNO = -2;
+
+    /**
+     * Un elemento programmato in una ruota, da usare per cancellarlo con
+     * {@link RuotaTemporale#cancella(Programmazione)}.
+     *
+     * @param <T> il tipo dell'elemento
+     */
+    public static final class Programmazione<T> {
+        private final long scadenza;
+
+        private final T elemento;
+
+        private Programmazione<T> prossima;
+
+        private Programmazione<T> precedente;
+
+        // Lista in cui si trova la voce
+        private int livello;
+
+        private int posizione;
+
+        private Programmazione(long scadenza, T elemento) {
+            this.scadenza = scadenza;
+            this.elemento = elemento;
+            this.livello = NESSUNO;
+        }
+
+        /**
+         * @return l'elemento programmato
+         */
+        public T getElemento() {
+            return elemento;
+        }
+
+        /**
+         * @return true se l'elemento è ancora nella ruota, false se è stato
+         * restituito o cancellato
+         */
+        public boolean isProgrammata() {
+            return livello != NESSUNO;
+        }
+    }
+
+    private final long durataTick;
+
+    // Teste delle liste di ciascuna posizione, per livello
+    private final Programmazione<T>[][] posizioni;
+
+    // Elementi già scaduti al momento della programmazione
+    private Programmazione<T> scaduti;
+
+    // Tick corrente: tutte le scadenze fino a questo tick sono state
+    // restituite
+    private long corrente;
+
+    private int size;
+
+    /**
+     * Crea una ruota vuota.
+     *
+     * @param durataTick la durata di un tick in millisecondi
+     * @param inizio     l'istante iniziale della ruota in millisecondi
+     * @throws IllegalArgumentException se la durata del tick non è positiva
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public RuotaTemporale(long durataTick, long inizio) {
+        if (durataTick <= 0) {
+            throw new IllegalArgumentException("Tentativo di creare una ruota con tick non positivo");
+        }
+        this.durataTick = durataTick;
+        this.posizioni = (Programmazione<T>[][]) new Programmazione[LIVELLI][POSIZIONI];
+        this.corrente = Math.floorDiv(inizio, durataTick);
+    }
+
+    /**
+     * @return il numero di elementi programmati e non ancora restituiti
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return l'istante in millisecondi fino a cui la ruota è avanzata,
+     * arrotondato al tick
+     */
+    public long getIstante() {
+        return this.corrente * this.durataTick;
+    }
+
+    /**
+     * Programma un elemento. Se la scadenza è già passata l'elemento verrà
+     * restituito dal prossimo avanzamento.
+     *
+     * @param scadenza l'istante di scadenza in millisecondi
+     * @param elemento l'elemento da programmare
+     * @return la programmazione, con cui l'elemento può essere cancellato
+     * @throws NullPointerException se l'elemento è nullo
+     */
+    public Programmazione<T> programma(long scadenza, T elemento) {
+        if (elemento == null) {
+            throw new NullPointerException("Tentativo di programmare un elemento nullo");
+        }
+        // Arrotondo per eccesso, così l'elemento non scade mai in anticipo
+        long tick = Math.floorDiv(scadenza, this.durataTick);
+        if (tick * this.durataTick < scadenza) tick++;
+        Programmazione<T> v = new Programmazione<>(tick, elemento);
+        this.inserisci(v);
+        this.size++;
+        return v;
+    }
+
+    /**
+     * Cancella un elemento programmato in questa ruota, che non verrà più
+     * restituito.
+     *
+     * @param p la programmazione dell'elemento
+     * @return true se l'elemento è stato cancellato, false se era già stato
+     * restituito o cancellato
+     * @throws NullPointerException se la programmazione è nulla
+     */
+    public boolean cancella(Programmazione<T> p) {
+        if (p == null) {
+            throw new NullPointerException("Tentativo di cancellare una programmazione nulla");
+        }
+        if (p.livello == NESSUNO) return false;
+        this.scollega(p);
+        this.size--;
+        return true;
+    }
+
+    /**
+     * Avanza la ruota fino a un istante e restituisce gli elementi scaduti.
+     * Gli elementi che scadono in tick diversi dell'avanzamento sono
+     * restituiti in ordine di tick. Un istante precedente a quello della
+     * ruota restituisce solo gli elementi programmati con scadenza già
+     * passata.
+     *
+     * @param istante l'istante in millisecondi
+     * @return gli elementi con scadenza non successiva all'istante (al tick)
+     */
+    public List<T> avanzaFinoA(long istante) {
+        List<T> risultato = new ArrayList<>();
+        this.raccogli(risultato);
+        long obiettivo = Math.floorDiv(istante, this.durataTick);
+        while (this.corrente < obiettivo) {
+            if (this.size == 0) {
+                // Niente da scorrere tick per tick
+                this.corrente = obiettivo;
+                break;
+            }
+            this.corrente++;
+            // Faccio scendere le posizioni dei livelli alti che iniziano in
+            // questo tick
+            for (int l = 1; l < LIVELLI
+                    && (this.corrente & ((1L << (BIT * l)) - 1)) == 0; l++) {
+                int i = (int) ((this.corrente >> (BIT * l)) & MASCHERA);
+                Programmazione<T> v = this.posizioni[l][i];
+                this.posizioni[l][i] = null;
+                while (v != null) {
+                    Programmazione<T> prossima = v.prossima;
+                    this.inserisci(v);
+                    v = prossima;
+                }
+            }
+            int i = (int) (this.corrente & MASCHERA);
+            Programmazione<T> v = this.posizioni[0][i];
+            this.posizioni[0][i] = null;
+            while (v != null) {
+                Programmazione<T> prossima = v.prossima;
+                this.inserisci(v);
+                v = prossima;
+            }
+            this.raccogli(risultato);
+        }
+        return risultato;
+    }
+
+    /*
+     * Mette una voce nella posizione del livello più basso che contiene la
+     * sua scadenza, o fra gli scaduti se la scadenza è già stata raggiunta.
+     */
+    private void inserisci(Programmazione<T> v) {
+        long distanza = v.scadenza - this.corrente;
+        if (distanza <= 0) {
+            this.collega(v, SCADUTI, 0);
+            return;
+        }
+        long tick = v.scadenza;
+        int l = 0;
+        while (l < LIVELLI - 1 && distanza >= (1L << (BIT * (l + 1)))) {
+            l++;
+        }
+        if (distanza >= (1L << (BIT * LIVELLI))) {
+            // Oltre l'orizzonte: ultima posizione raggiungibile del livello
+            // più alto, da cui verrà riprogrammata
+            tick = this.corrente + (1L << (BIT * LIVELLI)) - 1;
+        }
+        this.collega(v, l, (int) ((tick >> (BIT * l)) & MASCHERA));
+    }
+
+    // Mette una voce in testa alla lista di una posizione o degli scaduti
+    private void collega(Programmazione<T> v, int livello, int posizione) {
+        Programmazione<T> testa = livello == SCADUTI ? this.scaduti : this.posizioni[livello][posizione];
+        v.precedente = null;
+        v.prossima = testa;
+        if (testa != null) testa.precedente = v;
+        if (livello == SCADUTI) this.scaduti = v;
+        else this.posizioni[livello][posizione] = v;
+        v.livello = livello;
+        v.posizione = posizione;
+    }
+
+    // Toglie una voce dalla sua lista
+    private void scollega(Programmazione<T> v) {
+        if (v.precedente != null) v.precedente.prossima = v.prossima;
+        else if (v.livello == SCADUTI) this.scaduti = v.prossima;
+        else this.posizioni[v.livello][v.posizione] = v.prossima;
+        if (v.prossima != null) v.prossima.precedente = v.precedente;
+        v.prossima = null;
+        v.precedente = null;
+        v.livello = NESSUNO;
+    }
+
+    private void raccogli(List<T> risultato) {
+        Programmazione<T> v = this.scaduti;
+        this.scaduti = null;
+        while (v != null) {
+            Programmazione<T> prossima = v.prossima;
+            risultato.add(v.elemento);
+            v.prossima = null;
+            v.precedente = null;
+            v.livello = NESSUNO;
+            this.size--;
+            v = prossima;
+        }
+    }
+}
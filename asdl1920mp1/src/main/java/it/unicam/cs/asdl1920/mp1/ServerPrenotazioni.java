@@ -0,0 +1,420 @@
+package it.unicam.cs.asdl1920.mp1;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.GregorianCalendar;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Server HTTP incorporato che espone un gestore di aule. Usa il server HTTP
+ * del JDK e serve le richieste su virtual thread quando la JVM li mette a
+ * disposizione (Java 21 o successivi), altrimenti su un pool di thread di
+ * dimensione fissa con una coda limitata; quando anche la coda è piena la
+ * richiesta viene servita dal thread che accetta le connessioni, che smette
+ * così di accettarne altre. Le risposte sono codificate in JSON con
+ * {@link CodificatoreJson}. Se non è indicato un indirizzo il server ascolta
+ * solo sull'interfaccia di loopback.
+ *
+ * Endpoint (gli istanti sono nel formato {@code aaaa-MM-ggTHH:mm}):
+ * <ul>
+ * <li>{@code POST /prenotazioni} con parametri {@code aula}, {@code start},
+ * {@code stop}, {@code docente} e {@code motivo} (nella query o nel corpo
+ * {@code application/x-www-form-urlencoded}, al più
+ * {@value #DIMENSIONE_MASSIMA_CORPO} byte): prenota l'aula. Risponde 201,
+ * oppure 409 se la prenotazione si sovrappone a un'altra e 413 se il corpo è
+ * troppo grande.</li>
+ * <li>{@code GET /prenotazioni?aula=...}: elenca le prenotazioni
+ * dell'aula.</li>
+ * <li>{@code GET /aule/libere?start=...&stop=...&facility=...}: cerca le aule
+ * libere. Il parametro {@code facility} può essere ripetuto e vale
+ * {@code CODICE} per una presence facility o {@code CODICE:quantità} per una
+ * quantitative facility.</li>
+ * </ul>
+ * Le aule sconosciute producono 404, i parametri mancanti o malformati 400,
+ * come quelli ripetuti (anche fra query e corpo) tranne {@code facility}.
+ *
+ * Le richieste sono servite in parallelo senza lock del server: ogni aula
+ * protegge le proprie prenotazioni, quindi prenotazioni su aule diverse non si
+ * attendono. Le aule del gestore non vanno aggiunte mentre il server è
+ * attivo; le prenotazioni possono invece essere modificate anche
+ * direttamente.
+ *
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+public class ServerPrenotazioni {
+
+    /**
+     * Dimensione massima in byte del corpo di una richiesta.
+     */
+    public static final int DIMENSIONE_MASSIMA_CORPO = 16 * 1024;
+
+    // Richieste in attesa di un thread del pool, oltre le quali le serve il
+    // thread che accetta le connessioni
+    private static final int CODA_RICHIESTE = 1024;
+
+    private final GestoreAule gestore;
+
+    private final HttpServer server;
+
+    private final ExecutorService esecutore;
+
+    /**
+     * Crea un server sulla porta indicata dell'interfaccia di loopback; il
+     * server non accetta richieste finché non viene chiamato
+     * {@link #avvia()}.
+     *
+     * @param gestore il gestore da esporre
+     * @param porta   la porta TCP, 0 per sceglierne una libera
+     * @throws NullPointerException se il gestore è nullo
+     * @throws IOException          se non è possibile aprire la porta
+     */
+    public ServerPrenotazioni(GestoreAule gestore, int porta) throws IOException {
+        this(gestore, InetAddress.getLoopbackAddress(), porta);
+    }
+
+    /**
+     * Crea un server sulla porta indicata di un certo indirizzo; il server
+     * non accetta richieste finché non viene chiamato {@link #avvia()}.
+     *
+     * @param gestore   il gestore da esporre
+     * @param indirizzo l'indirizzo locale su cui ascoltare
+     * @param porta     la porta TCP, 0 per sceglierne una libera
+     * @throws NullPointerException se il gestore o l'indirizzo sono nulli
+     * @throws IOException          se non è possibile aprire la porta
+     */
+    public ServerPrenotazioni(GestoreAule gestore, InetAddress indirizzo, int porta) throws IOException {
+        if (gestore == null || indirizzo == null) {
+            throw new NullPointerException("Tentativo di creare un server senza gestore o indirizzo");
+        }
+        this.gestore = gestore;
+        this.esecutore = creaEsecutore();
+        this.server = HttpServer.create(new InetSocketAddress(indirizzo, porta), 1024);
+        this.server.setExecutor(this.esecutore);
+        this.server.createContext("/prenotazioni", this::gestisciPrenotazioni);
+        this.server.createContext("/aule/libere", this::gestisciAuleLibere);
+    }
+
+    /**
+     * Avvia il server.
+     */
+    public void avvia() {
+        this.server.start();
+    }
+
+    /**
+     * Ferma il server, attendendo al più un secondo che le richieste in corso
+     * terminino.
+     */
+    public void ferma() {
+        this.server.stop(1);
+        this.esecutore.shutdown();
+    }
+
+    /**
+     * @return la porta su cui il server è in ascolto
+     */
+    public int getPorta() {
+        return this.server.getAddress().getPort();
+    }
+
+    /**
+     * @return l'indirizzo locale su cui il server è in ascolto
+     */
+    public InetAddress getIndirizzo() {
+        return this.server.getAddress().getAddress();
+    }
+
+    private void gestisciPrenotazioni(HttpExchange ex) throws IOException {
+        try {
+            String metodo = ex.getRequestMethod();
+            if ("POST".equals(metodo)) {
+                String corpo = leggiCorpo(ex);
+                if (corpo == null) {
+                    rispondiErrore(ex, 413, "Corpo della richiesta troppo grande");
+                    return;
+                }
+                Map<String, List<String>> p = parametri(ex.getRequestURI().getRawQuery());
+                for (Map.Entry<String, List<String>> e : parametri(corpo).entrySet()) {
+                    if (p.putIfAbsent(e.getKey(), e.getValue()) != null) {
+                        throw new IllegalArgumentException("Parametro ripetuto: " + e.getKey());
+                    }
+                }
+                this.prenota(ex, p);
+            } else if ("GET".equals(metodo)) {
+                this.elencaPrenotazioni(ex, parametri(ex.getRequestURI().getRawQuery()));
+            } else {
+                rispondiErrore(ex, 405, "Metodo non consentito");
+            }
+        } catch (IllegalArgumentException e) {
+            rispondiErrore(ex, 400, e.getMessage());
+        } finally {
+            ex.close();
+        }
+    }
+
+    private void prenota(HttpExchange ex, Map<String, List<String>> p) throws IOException {
+        String nome = obbligatorio(p, "aula");
+        TimeSlot ts = new TimeSlot(istante(obbligatorio(p, "start")),
+                istante(obbligatorio(p, "stop")));
+        String docente = obbligatorio(p, "docente");
+        String motivo = obbligatorio(p, "motivo");
+        Aula a = this.gestore.getAula(nome);
+        boolean prenotata = false;
+        if (a != null) {
+            // Il controllo e l'aggiunta sono atomici con il lock dell'aula
+            try {
+                a.addPrenotazione(ts, docente, motivo);
+                prenotata = true;
+            } catch (IllegalArgumentException e) {
+                // Si sovrappone a un'altra prenotazione
+            }
+        }
+        if (a == null) {
+            rispondiErrore(ex, 404, "Aula sconosciuta: " + nome);
+        } else if (!prenotata) {
+            rispondiErrore(ex, 409, "La prenotazione si sovrappone con un'altra");
+        } else {
+            CodificatoreJson j = new CodificatoreJson();
+            codifica(j, new Prenotazione(a, ts, docente, motivo));
+            rispondi(ex, 201, j.toString());
+        }
+    }
+
+    private void elencaPrenotazioni(HttpExchange ex, Map<String, List<String>> p) throws IOException {
+        String nome = obbligatorio(p, "aula");
+        CodificatoreJson j = new CodificatoreJson();
+        Aula a = this.gestore.getAula(nome);
+        if (a == null) {
+            j = null;
+        } else {
+            j.inizioArray();
+            for (Prenotazione pr : a.getPrenotazioni()) {
+                codifica(j, pr);
+            }
+            j.fineArray();
+        }
+        if (j == null) {
+            rispondiErrore(ex, 404, "Aula sconosciuta: " + nome);
+        } else {
+            rispondi(ex, 200, j.toString());
+        }
+    }
+
+    private void gestisciAuleLibere(HttpExchange ex) throws IOException {
+        try {
+            if (!"GET".equals(ex.getRequestMethod())) {
+                rispondiErrore(ex, 405, "Metodo non consentito");
+                return;
+            }
+            Map<String, List<String>> p = parametri(ex.getRequestURI().getRawQuery());
+            TimeSlot ts = new TimeSlot(istante(obbligatorio(p, "start")),
+                    istante(obbligatorio(p, "stop")));
+            Set<Facility> richieste = new HashSet<>();
+            List<String> fs = p.get("facility");
+            if (fs != null) {
+                for (String f : fs) {
+                    richieste.add(facility(f));
+                }
+            }
+            Set<Aula> libere = this.gestore.cercaAuleLibere(richieste, ts);
+            CodificatoreJson j = new CodificatoreJson().inizioArray();
+            for (Aula a : libere) {
+                j.inizioOggetto().campo("nome", a.getNome())
+                        .campo("location", a.getLocation()).fineOggetto();
+            }
+            rispondi(ex, 200, j.fineArray().toString());
+        } catch (IllegalArgumentException e) {
+            rispondiErrore(ex, 400, e.getMessage());
+        } finally {
+            ex.close();
+        }
+    }
+
+    private static void codifica(CodificatoreJson j, Prenotazione p) {
+        j.inizioOggetto()
+                .campo("aula", p.getAula().getNome())
+                .campo("start", formatta(p.getTimeSlot().getStart()))
+                .campo("stop", formatta(p.getTimeSlot().getStop()))
+                .campo("docente", p.getDocente())
+                .campo("motivo", p.getMotivo())
+                .fineOggetto();
+    }
+
+    private static void rispondi(HttpExchange ex, int codice, String json) throws IOException {
+        byte[] corpo = json.getBytes(StandardCharsets.UTF_8);
+        ex.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        ex.sendResponseHeaders(codice, corpo.length);
+        OutputStream o = ex.getResponseBody();
+        o.write(corpo);
+        o.close();
+    }
+
+    private static void rispondiErrore(HttpExchange ex, int codice, String messaggio) throws IOException {
+        rispondi(ex, codice, new CodificatoreJson().inizioOggetto()
+                .campo("errore", messaggio).fineOggetto().toString());
+    }
+
+    /*
+     * Legge il corpo della richiesta, o restituisce null se supera
+     * DIMENSIONE_MASSIMA_CORPO; se la lunghezza è dichiarata, il corpo troppo
+     * grande non viene nemmeno letto.
+     */
+    private static String leggiCorpo(HttpExchange ex) throws IOException {
+        String lunghezza = ex.getRequestHeaders().getFirst("Content-Length");
+        if (lunghezza != null) {
+            try {
+                if (Long.parseLong(lunghezza.trim()) > DIMENSIONE_MASSIMA_CORPO) return null;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Content-Length non valida: " + lunghezza);
+            }
+        }
+        InputStream in = ex.getRequestBody();
+        ByteArrayOutputStream b = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int letti;
+        while ((letti = in.read(buffer)) > 0) {
+            if (b.size() + letti > DIMENSIONE_MASSIMA_CORPO) return null;
+            b.write(buffer, 0, letti);
+        }
+        return new String(b.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+    /*
+     * Decodifica parametri nella forma nome=valore&nome=valore, ammettendo
+     * nomi ripetuti.
+     */
+    private static Map<String, List<String>> parametri(String s) {
+        Map<String, List<String>> p = new HashMap<>();
+        if (s == null || s.isEmpty()) return p;
+        for (String coppia : s.split("&")) {
+            int uguale = coppia.indexOf('=');
+            String nome = decodifica(uguale < 0 ? coppia : coppia.substring(0, uguale));
+            String valore = uguale < 0 ? "" : decodifica(coppia.substring(uguale + 1));
+            List<String> valori = p.get(nome);
+            if (valori == null) {
+                valori = new ArrayList<>(1);
+                p.put(nome, valori);
+            }
+            valori.add(valore);
+        }
+        return p;
+    }
+
+    private static String decodifica(String s) {
+        try {
+            return URLDecoder.decode(s, "UTF-8");
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String obbligatorio(Map<String, List<String>> p, String nome) {
+        List<String> valori = p.get(nome);
+        if (valori == null) {
+            throw new IllegalArgumentException("Parametro mancante: " + nome);
+        }
+        if (valori.size() > 1) {
+            throw new IllegalArgumentException("Parametro ripetuto: " + nome);
+        }
+        return valori.get(0);
+    }
+
+    /*
+     * Interpreta un istante nel formato aaaa-MM-ggTHH:mm.
+     */
+    private static GregorianCalendar istante(String s) {
+        if (s.length() != 16 || s.charAt(4) != '-' || s.charAt(7) != '-'
+                || s.charAt(10) != 'T' || s.charAt(13) != ':') {
+            throw new IllegalArgumentException("Istante non valido: " + s);
+        }
+        try {
+            return new GregorianCalendar(Integer.parseInt(s.substring(0, 4)),
+                    Integer.parseInt(s.substring(5, 7)) - 1,
+                    Integer.parseInt(s.substring(8, 10)),
+                    Integer.parseInt(s.substring(11, 13)),
+                    Integer.parseInt(s.substring(14, 16)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Istante non valido: " + s);
+        }
+    }
+
+    private static String formatta(GregorianCalendar c) {
+        return String.format("%04d-%02d-%02dT%02d:%02d", c.get(Calendar.YEAR),
+                c.get(Calendar.MONTH) + 1, c.get(Calendar.DAY_OF_MONTH),
+                c.get(Calendar.HOUR_OF_DAY), c.get(Calendar.MINUTE));
+    }
+
+    private static Facility facility(String s) {
+        int dp = s.indexOf(':');
+        if (dp < 0) {
+            return new PresenceFacility(s, "");
+        }
+        try {
+            return new QuantitativeFacility(s.substring(0, dp), "",
+                    Integer.parseInt(s.substring(dp + 1)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Facility non valida: " + s);
+        }
+    }
+
+    /*
+     * Usa un virtual thread per richiesta se la JVM lo consente, altrimenti
+     * un pool di thread di dimensione fissa con una coda limitata.
+     */
+    private static ExecutorService creaEsecutore() {
+        try {
+            Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) m.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            int thread = Math.max(8, 4 * Runtime.getRuntime().availableProcessors());
+            return new ThreadPoolExecutor(thread, thread, 60, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<>(CODA_RICHIESTE),
+                    new ThreadPoolExecutor.CallerRunsPolicy());
+        }
+    }
+
+    /**
+     * Avvia un server su un campus sintetico generato da
+     * {@link GeneratoreCampus}.
+     *
+     * @param args la porta (default 8080), il numero di aule (default 200) e
+     *             l'indirizzo su cui ascoltare (default l'interfaccia di
+     *             loopback)
+     * @throws IOException se non è possibile aprire la porta
+     */
+    public static void main(String[] args) throws IOException {
+        int porta = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        int aule = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+        InetAddress indirizzo = args.length > 2 ? InetAddress.getByName(args[2])
+                : InetAddress.getLoopbackAddress();
+        GestoreAule g = new GeneratoreCampus(42, aule, 8, 90,
+                new GregorianCalendar(2019, 8, 1)).creaGestore();
+        ServerPrenotazioni s = new ServerPrenotazioni(g, indirizzo, porta);
+        s.avvia();
+        System.out.println("Server in ascolto su " + s.getIndirizzo().getHostAddress()
+                + " porta " + s.getPorta());
+    }
+}
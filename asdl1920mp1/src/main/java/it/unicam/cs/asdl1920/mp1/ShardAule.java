@@ -0,0 +1,266 @@
+package it.unicam.cs.asdl1920.mp1;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Un shard di un gestore di aule partizionato: contiene un
+ * {@link GestoreAule} con una parte delle aule e risponde, su un socket
+ * locale, alle richieste di un {@link RouterAule}. Di solito ogni shard è un
+ * processo separato avviato dal router con il main di questa classe, così che
+ * ogni JVM abbia uno heap più piccolo; per le prove può anche essere creato
+ * nello stesso processo.
+ *
+ * Il protocollo è a richiesta e risposta sulla stessa connessione. Una
+ * richiesta è un byte con l'operazione seguito dai suoi argomenti, codificati
+ * con {@link ProtocolloAule}; una risposta è un byte di esito ({@link #OK},
+ * {@link #ARGOMENTO_NON_VALIDO} o {@link #ERRORE}) seguito dal risultato o dal
+ * messaggio d'errore.
+ *
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+public class ShardAule {
+
+    // Operazioni
+    static final byte AGGIUNGI_AULA = 1;
+
+    static final byte PRENOTA = 2;
+
+    static final byte CANCELLA = 3;
+
+    static final byte CERCA = 4;
+
+    static final byte CONTA_AULE = 5;
+
+    // Esiti
+    static final byte OK = 0;
+
+    static final byte ARGOMENTO_NON_VALIDO = 1;
+
+    static final byte ERRORE = 2;
+
+    private final GestoreAule gestore;
+
+    // Protegge l'insieme delle aule del gestore: solo le aggiunte di aule lo
+    // prendono in scrittura, perché le prenotazioni sono protette dal lock
+    // di ciascuna aula e più connessioni possono prenotare in parallelo
+    private final ReentrantReadWriteLock lock;
+
+    private final ServerSocket server;
+
+    private final List<Socket> connessioni;
+
+    private volatile boolean chiuso;
+
+    /**
+     * Crea uno shard vuoto e si mette in ascolto sull'interfaccia di loopback.
+     *
+     * @param porta la porta TCP, 0 per sceglierne una libera
+     * @throws IOException se non è possibile aprire la porta
+     */
+    public ShardAule(int porta) throws IOException {
+        this.gestore = new GestoreAule();
+        this.lock = new ReentrantReadWriteLock();
+        this.connessioni = new CopyOnWriteArrayList<>();
+        this.server = new ServerSocket(porta, 50, InetAddress.getLoopbackAddress());
+        Thread t = new Thread(this::accetta, "shard-aule");
+        t.setDaemon(true);
+        t.start();
+    }
+
+    /**
+     * @return la porta su cui lo shard attende le richieste
+     */
+    public int getPorta() {
+        return this.server.getLocalPort();
+    }
+
+    /**
+     * @return il numero di aule di questo shard
+     */
+    public int getNumeroAule() {
+        this.lock.readLock().lock();
+        try {
+            return this.gestore.getAule().size();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Smette di accettare richieste e chiude le connessioni.
+     */
+    public void chiudi() {
+        this.chiuso = true;
+        try {
+            this.server.close();
+        } catch (IOException e) {
+            // Il socket è comunque inutilizzabile
+        }
+        for (Socket s : this.connessioni) {
+            try {
+                s.close();
+            } catch (IOException e) {
+                // Come sopra
+            }
+        }
+    }
+
+    private void accetta() {
+        while (!this.chiuso) {
+            try {
+                Socket s = this.server.accept();
+                s.setTcpNoDelay(true);
+                this.connessioni.add(s);
+                Thread t = new Thread(() -> this.servi(s), "shard-aule-" + s.getPort());
+                t.setDaemon(true);
+                t.start();
+            } catch (IOException e) {
+                // Il server è stato chiuso
+            }
+        }
+    }
+
+    private void servi(Socket s) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()))) {
+            while (true) {
+                byte op;
+                try {
+                    op = in.readByte();
+                } catch (EOFException e) {
+                    return;
+                }
+                this.esegui(op, in, out);
+                out.flush();
+            }
+        } catch (IOException e) {
+            // Il router si è scollegato
+        } finally {
+            this.connessioni.remove(s);
+        }
+    }
+
+    /*
+     * Legge gli argomenti di un'operazione, la esegue e scrive la risposta.
+     * Gli argomenti vengono letti interamente prima di eseguire, così che un
+     * errore non lasci dati non letti sulla connessione.
+     */
+    private void esegui(byte op, DataInputStream in, DataOutputStream out) throws IOException {
+        try {
+            switch (op) {
+            case AGGIUNGI_AULA: {
+                Aula a = ProtocolloAule.leggiAula(in);
+                boolean aggiunta;
+                this.lock.writeLock().lock();
+                try {
+                    aggiunta = this.gestore.addAula(a);
+                } finally {
+                    this.lock.writeLock().unlock();
+                }
+                out.writeByte(OK);
+                out.writeBoolean(aggiunta);
+                break;
+            }
+            case PRENOTA: {
+                String nome = in.readUTF();
+                TimeSlot ts = ProtocolloAule.leggiTimeSlot(in);
+                String docente = in.readUTF();
+                String motivo = in.readUTF();
+                this.lock.readLock().lock();
+                try {
+                    this.aula(nome).addPrenotazione(ts, docente, motivo);
+                } finally {
+                    this.lock.readLock().unlock();
+                }
+                out.writeByte(OK);
+                break;
+            }
+            case CANCELLA: {
+                String nome = in.readUTF();
+                TimeSlot ts = ProtocolloAule.leggiTimeSlot(in);
+                boolean cancellata;
+                this.lock.readLock().lock();
+                try {
+                    Aula a = this.aula(nome);
+                    cancellata = a.removePrenotazione(new Prenotazione(a, ts, "", ""));
+                } finally {
+                    this.lock.readLock().unlock();
+                }
+                out.writeByte(OK);
+                out.writeBoolean(cancellata);
+                break;
+            }
+            case CERCA: {
+                Set<Facility> facilities = ProtocolloAule.leggiFacilities(in);
+                TimeSlot ts = ProtocolloAule.leggiTimeSlot(in);
+                Set<Aula> libere;
+                this.lock.readLock().lock();
+                try {
+                    libere = this.gestore.cercaAuleLibere(facilities, ts);
+                } finally {
+                    this.lock.readLock().unlock();
+                }
+                out.writeByte(OK);
+                out.writeInt(libere.size());
+                for (Aula a : libere) {
+                    ProtocolloAule.scriviAula(out, a);
+                }
+                break;
+            }
+            case CONTA_AULE:
+                out.writeByte(OK);
+                out.writeInt(this.getNumeroAule());
+                break;
+            default:
+                throw new IOException("Operazione sconosciuta: " + op);
+            }
+        } catch (IllegalArgumentException e) {
+            out.writeByte(ARGOMENTO_NON_VALIDO);
+            out.writeUTF(String.valueOf(e.getMessage()));
+        } catch (RuntimeException e) {
+            out.writeByte(ERRORE);
+            out.writeUTF(e.toString());
+        }
+    }
+
+    private Aula aula(String nome) {
+        Aula a = this.gestore.getAula(nome);
+        if (a == null) {
+            throw new IllegalArgumentException("Aula sconosciuta: " + nome);
+        }
+        return a;
+    }
+
+    /**
+     * Avvia uno shard come processo separato. Stampa su una riga
+     * {@code PORTA <numero>} quando è pronto e termina quando il suo standard
+     * input viene chiuso, cioè quando il processo che lo ha avviato termina o
+     * chiude lo shard.
+     *
+     * @param args la porta (default 0, una porta libera)
+     * @throws IOException se non è possibile aprire la porta
+     */
+    public static void main(String[] args) throws IOException {
+        int porta = args.length > 0 ? Integer.parseInt(args[0]) : 0;
+        ShardAule s = new ShardAule(porta);
+        System.out.println("PORTA " + s.getPorta());
+        System.out.flush();
+        while (System.in.read() >= 0) {
+            // Attendo la chiusura dello standard input
+        }
+        s.chiudi();
+    }
+}
@@ -0,0 +1,408 @@
+package it.unicam.cs.asdl1920.mp1;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Simula un carico sintetico su un gestore di aule. Più thread eseguono una
+ * miscela configurabile di prenotazioni, ricerche di aule libere e
+ * cancellazioni su un campus costruito da un {@link GeneratoreCampus},
+ * rispettando (se richiesto) un tasso complessivo di operazioni al secondo. Al
+ * termine vengono riportati il throughput e i percentili della latenza di
+ * ogni tipo di operazione.
+ *
+ * Le aule sono tutte aggiunte al gestore prima della simulazione, quindi i
+ * thread non usano lock propri: ogni aula protegge le proprie prenotazioni, e
+ * operazioni su aule diverse procedono in parallelo.
+ *
+ * Il main accetta parametri nella forma {@code --nome=valore}; si veda
+ * {@link Configurazione} per i nomi e i valori di default. La latenza è
+ * misurata a partire dall'istante in cui l'operazione era stata pianificata,
+ * così che i ritardi accumulati quando il gestore non regge il tasso
+ * richiesto non vengano nascosti.
+ *
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+public class SimulatoreCarico {
+
+    /**
+     * I tipi di operazione eseguiti dal simulatore.
+     */
+    public enum TipoOperazione {
+        PRENOTAZIONE, RICERCA, CANCELLAZIONE
+    }
+
+    /**
+     * Parametri di una simulazione. I campi sono inizializzati ai valori di
+     * default e possono essere modificati prima di avviare la simulazione.
+     */
+    public static class Configurazione {
+        /** Seme per la generazione del campus e delle operazioni. */
+        public long seme = 42;
+        /** Numero di aule del campus. */
+        public int aule = 200;
+        /** Numero di location (edifici) del campus. */
+        public int location = 8;
+        /** Numero di giorni dell'orizzonte di prenotazione. */
+        public int giorni = 90;
+        /** Numero di thread che generano il carico. */
+        public int thread = 4;
+        /** Numero totale di operazioni da eseguire. */
+        public int operazioni = 20000;
+        /** Operazioni al secondo complessive, 0 per nessun limite. */
+        public int tasso = 0;
+        /** Percentuale di prenotazioni nella miscela. */
+        public int percentualePrenotazioni = 50;
+        /** Percentuale di ricerche nella miscela, il resto sono cancellazioni. */
+        public int percentualeRicerche = 40;
+
+        /**
+         * Imposta un parametro a partire da un argomento di linea di comando
+         * nella forma {@code --nome=valore}.
+         *
+         * @param argomento l'argomento da interpretare
+         * @throws IllegalArgumentException se l'argomento non è nella forma
+         *                                  attesa o il nome non è noto
+         */
+        public void imposta(String argomento) {
+            int uguale = argomento.indexOf('=');
+            if (!argomento.startsWith("--") || uguale < 0) {
+                throw new IllegalArgumentException("Argomento non valido: " + argomento);
+            }
+            String nome = argomento.substring(2, uguale);
+            String valore = argomento.substring(uguale + 1);
+            switch (nome) {
+                case "seme": this.seme = Long.parseLong(valore); break;
+                case "aule": this.aule = Integer.parseInt(valore); break;
+                case "location": this.location = Integer.parseInt(valore); break;
+                case "giorni": this.giorni = Integer.parseInt(valore); break;
+                case "thread": this.thread = Integer.parseInt(valore); break;
+                case "operazioni": this.operazioni = Integer.parseInt(valore); break;
+                case "tasso": this.tasso = Integer.parseInt(valore); break;
+                case "prenotazioni": this.percentualePrenotazioni = Integer.parseInt(valore); break;
+                case "ricerche": this.percentualeRicerche = Integer.parseInt(valore); break;
+                default:
+                    throw new IllegalArgumentException("Parametro sconosciuto: " + nome);
+            }
+        }
+    }
+
+    /**
+     * Risultato di una simulazione: numero di operazioni eseguite per tipo,
+     * prenotazioni rifiutate per sovrapposizione, durata complessiva e
+     * latenze ordinate di ogni tipo di operazione.
+     */
+    public static class Risultato {
+
+        private final long[][] latenze;
+
+        private final int prenotazioniRifiutate;
+
+        private final long durataNano;
+
+        private Risultato(long[][] latenze, int prenotazioniRifiutate,
+                          long durataNano) {
+            this.latenze = latenze;
+            this.prenotazioniRifiutate = prenotazioniRifiutate;
+            this.durataNano = durataNano;
+        }
+
+        /**
+         * @param t un tipo di operazione
+         * @return il numero di operazioni di quel tipo eseguite
+         */
+        public int getNumeroOperazioni(TipoOperazione t) {
+            return this.latenze[t.ordinal()].length;
+        }
+
+        /**
+         * @return il numero totale di operazioni eseguite
+         */
+        public int getNumeroOperazioni() {
+            int totale = 0;
+            for (long[] l : this.latenze) {
+                totale += l.length;
+            }
+            return totale;
+        }
+
+        /**
+         * @return il numero di prenotazioni rifiutate perché sovrapposte
+         */
+        public int getPrenotazioniRifiutate() {
+            return prenotazioniRifiutate;
+        }
+
+        /**
+         * @return la durata della simulazione in nanosecondi
+         */
+        public long getDurataNano() {
+            return durataNano;
+        }
+
+        /**
+         * @return le operazioni eseguite al secondo
+         */
+        public double getThroughput() {
+            return this.getNumeroOperazioni() * 1e9 / Math.max(1, this.durataNano);
+        }
+
+        /**
+         * Restituisce un percentile della latenza di un tipo di operazione.
+         *
+         * @param t          un tipo di operazione
+         * @param percentile il percentile richiesto, fra 0 e 100
+         * @return la latenza in nanosecondi, 0 se non è stata eseguita nessuna
+         * operazione di quel tipo
+         */
+        public long getPercentile(TipoOperazione t, double percentile) {
+            long[] l = this.latenze[t.ordinal()];
+            if (l.length == 0) return 0;
+            int indice = (int) Math.ceil(percentile / 100 * l.length) - 1;
+            return l[Math.max(0, Math.min(l.length - 1, indice))];
+        }
+
+        /**
+         * Stampa un riepilogo leggibile del risultato.
+         *
+         * @param o lo stream su cui stampare
+         */
+        public void stampa(PrintStream o) {
+            o.printf("Operazioni: %d in %.3f s, throughput %.1f op/s, prenotazioni rifiutate %d%n",
+                    this.getNumeroOperazioni(), this.durataNano / 1e9,
+                    this.getThroughput(), this.prenotazioniRifiutate);
+            o.println("Operazione,N,p50us,p90us,p99us,p99.9us,maxus");
+            for (TipoOperazione t : TipoOperazione.values()) {
+                o.printf("%s,%d,%.1f,%.1f,%.1f,%.1f,%.1f%n", t,
+                        this.getNumeroOperazioni(t),
+                        this.getPercentile(t, 50) / 1e3,
+                        this.getPercentile(t, 90) / 1e3,
+                        this.getPercentile(t, 99) / 1e3,
+                        this.getPercentile(t, 99.9) / 1e3,
+                        this.getPercentile(t, 100) / 1e3);
+            }
+        }
+    }
+
+    private final Configurazione conf;
+
+    private final GeneratoreCampus generatore;
+
+    private final GestoreAule gestore;
+
+    private final List<Aula> aule;
+
+    /**
+     * Crea un simulatore e costruisce il campus descritto dalla
+     * configurazione.
+     *
+     * @param conf la configurazione della simulazione
+     * @throws NullPointerException     se la configurazione è nulla
+     * @throws IllegalArgumentException se i parametri non sono coerenti
+     */
+    public SimulatoreCarico(Configurazione conf) {
+        if (conf == null) {
+            throw new NullPointerException("Tentativo di creare un simulatore senza configurazione");
+        }
+        if (conf.thread <= 0 || conf.operazioni < 0 || conf.tasso < 0
+                || conf.percentualePrenotazioni < 0 || conf.percentualeRicerche < 0
+                || conf.percentualePrenotazioni + conf.percentualeRicerche > 100) {
+            throw new IllegalArgumentException("Tentativo di creare un simulatore con parametri non validi");
+        }
+        this.conf = conf;
+        this.generatore = new GeneratoreCampus(conf.seme, conf.aule,
+                conf.location, conf.giorni, new GregorianCalendar(2019, 8, 1));
+        this.aule = this.generatore.creaAule();
+        this.gestore = new GestoreAule();
+        for (Aula a : this.aule) {
+            this.gestore.addAula(a);
+        }
+    }
+
+    /**
+     * @return il gestore su cui viene simulato il carico
+     */
+    public GestoreAule getGestore() {
+        return gestore;
+    }
+
+    /**
+     * Esegue la simulazione e attende che tutti i thread abbiano terminato.
+     *
+     * @return il risultato della simulazione
+     * @throws InterruptedException se il thread chiamante viene interrotto
+     *                              durante l'attesa
+     */
+    public Risultato esegui() throws InterruptedException {
+        int nThread = this.conf.thread;
+        Esecutore[] esecutori = new Esecutore[nThread];
+        Thread[] threads = new Thread[nThread];
+        // Ogni thread ha un seme proprio, derivato da quello globale
+        for (int i = 0; i < nThread; i++) {
+            int quote = this.conf.operazioni / nThread
+                    + (i < this.conf.operazioni % nThread ? 1 : 0);
+            esecutori[i] = new Esecutore(this.conf.seme * 31 + i + 1, quote);
+            threads[i] = new Thread(esecutori[i], "simulatore-" + i);
+        }
+        long inizio = System.nanoTime();
+        for (Thread t : threads) {
+            t.start();
+        }
+        for (Thread t : threads) {
+            t.join();
+        }
+        long durata = System.nanoTime() - inizio;
+        // Unisco le latenze dei thread e le ordino per i percentili
+        long[][] latenze = new long[TipoOperazione.values().length][];
+        int rifiutate = 0;
+        for (int t = 0; t < latenze.length; t++) {
+            int n = 0;
+            for (Esecutore e : esecutori) {
+                n += e.conteggi[t];
+            }
+            latenze[t] = new long[n];
+            int k = 0;
+            for (Esecutore e : esecutori) {
+                System.arraycopy(e.latenze[t], 0, latenze[t], k, e.conteggi[t]);
+                k += e.conteggi[t];
+            }
+            Arrays.sort(latenze[t]);
+        }
+        for (Esecutore e : esecutori) {
+            rifiutate += e.rifiutate;
+        }
+        return new Risultato(latenze, rifiutate, durata);
+    }
+
+    /*
+     * Il lavoro svolto da un singolo thread del simulatore.
+     */
+    private class Esecutore implements Runnable {
+
+        private final Random r;
+
+        private final int quote;
+
+        private final long[][] latenze;
+
+        private final int[] conteggi;
+
+        private int rifiutate;
+
+        // Prenotazioni fatte da questo thread e non ancora cancellate
+        private final List<Prenotazione> fatte;
+
+        private Esecutore(long seme, int quote) {
+            this.r = new Random(seme);
+            this.quote = quote;
+            this.latenze = new long[TipoOperazione.values().length][quote];
+            this.conteggi = new int[TipoOperazione.values().length];
+            this.fatte = new ArrayList<>();
+        }
+
+        @Override
+        public void run() {
+            long intervallo = conf.tasso == 0 ? 0
+                    : 1_000_000_000L * conf.thread / conf.tasso;
+            long pianificata = System.nanoTime();
+            for (int i = 0; i < this.quote; i++) {
+                if (intervallo > 0) {
+                    pianificata += intervallo;
+                    long attesa = pianificata - System.nanoTime();
+                    if (attesa > 0) {
+                        try {
+                            Thread.sleep(attesa / 1_000_000, (int) (attesa % 1_000_000));
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                            return;
+                        }
+                    }
+                } else {
+                    pianificata = System.nanoTime();
+                }
+                TipoOperazione t = this.esegui(this.scegli());
+                this.latenze[t.ordinal()][this.conteggi[t.ordinal()]++] =
+                        System.nanoTime() - pianificata;
+            }
+        }
+
+        private TipoOperazione scegli() {
+            int x = this.r.nextInt(100);
+            if (x < conf.percentualePrenotazioni) return TipoOperazione.PRENOTAZIONE;
+            if (x < conf.percentualePrenotazioni + conf.percentualeRicerche) return TipoOperazione.RICERCA;
+            return TipoOperazione.CANCELLAZIONE;
+        }
+
+        /*
+         * Esegue l'operazione scelta. Una cancellazione senza prenotazioni da
+         * cancellare diventa una prenotazione, così che il numero totale di
+         * operazioni resti quello configurato.
+         */
+        private TipoOperazione esegui(TipoOperazione t) {
+            if (t == TipoOperazione.CANCELLAZIONE && this.fatte.isEmpty()) {
+                t = TipoOperazione.PRENOTAZIONE;
+            }
+            switch (t) {
+                case PRENOTAZIONE: {
+                    Aula a = aule.get(this.r.nextInt(aule.size()));
+                    TimeSlot ts = generatore.prossimoTimeSlot(this.r);
+                    String docente = "Docente" + this.r.nextInt(500);
+                    try {
+                        a.addPrenotazione(ts, docente, "Simulazione");
+                        this.fatte.add(new Prenotazione(a, ts, docente, "Simulazione"));
+                    } catch (IllegalArgumentException e) {
+                        this.rifiutate++;
+                    }
+                    break;
+                }
+                case RICERCA: {
+                    Set<Facility> richieste = generatore.prossimeFacilityRichieste(this.r);
+                    TimeSlot ts = generatore.prossimoTimeSlot(this.r);
+                    gestore.cercaAuleLibere(richieste, ts);
+                    break;
+                }
+                case CANCELLAZIONE: {
+                    // Rimuove una prenotazione a caso scambiandola con l'ultima
+                    int i = this.r.nextInt(this.fatte.size());
+                    Prenotazione p = this.fatte.get(i);
+                    this.fatte.set(i, this.fatte.get(this.fatte.size() - 1));
+                    this.fatte.remove(this.fatte.size() - 1);
+                    p.getAula().removePrenotazione(p);
+                    break;
+                }
+            }
+            return t;
+        }
+    }
+
+    /**
+     * Esegue una simulazione configurata dagli argomenti di linea di comando e
+     * ne stampa il risultato sullo standard output.
+     *
+     * @param args parametri nella forma {@code --nome=valore}
+     * @throws InterruptedException se il thread principale viene interrotto
+     */
+    public static void main(String[] args) throws InterruptedException {
+        Configurazione conf = new Configurazione();
+        try {
+            for (String a : args) {
+                conf.imposta(a);
+            }
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            System.out.println("Parametri: --seme --aule --location --giorni --thread "
+                    + "--operazioni --tasso --prenotazioni --ricerche");
+            System.exit(1);
+        }
+        SimulatoreCarico s = new SimulatoreCarico(conf);
+        System.out.println("Campus con " + conf.aule + " aule su " + conf.location
+                + " location, seme " + conf.seme + ", " + conf.thread + " thread");
+        s.esegui().stampa(System.out);
+    }
+}
@@ -0,0 +1,154 @@
+package it.unicam.cs.asdl1920.mp1;
+
+import java.util.ArrayList;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Micro benchmark del controllo di disponibilità di un'aula. Per aule con un
+ * numero crescente di prenotazioni confronta il tempo medio di un controllo
+ * fatto con {@link TimeSlot#overlapsWith(TimeSlot)} su tutte le prenotazioni
+ * (come faceva {@link Aula#isFree(TimeSlot)}) con quello di
+ * {@link NucleoSovrapposizioni}, a blocchi e con la ricerca binaria per
+ * prenotazioni disgiunte, e stampa una riga per dimensione in formato CSV.
+ * Misura poi il costo per prenotazione di riempire un'aula alternando
+ * {@link Aula#isFree(TimeSlot)} e
+ * {@link Aula#addPrenotazione(TimeSlot, String, String)}, come fanno la
+ * lista d'attesa e il server di prenotazione.
+ *
+ * Ogni misura è preceduta da un riscaldamento per dare tempo alla JIT di
+ * compilare i cicli; i risultati dei controlli vengono sommati e stampati
+ * perché la JIT non possa eliminarli.
+ *
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+public class ValutazioneSovrapposizioni {
+
+    private static final int[] DIMENSIONI = { 16, 64, 256, 1024, 4096 };
+
+    private static final int INTERROGAZIONI = 1024;
+
+    /**
+     * Esegue il benchmark.
+     *
+     * @param args il numero di ripetizioni per misura (default 200)
+     */
+    public static void main(String[] args) {
+        int ripetizioni = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        Random random = new Random(37);
+        long controllo = 0;
+        System.out.println("prenotazioni;overlapsWith ns;nucleo ns;disgiunti ns;accelerazione");
+        for (int n : DIMENSIONI) {
+            // Prenotazioni di un'ora separate da mezz'ora, a partire dalle 8
+            List<TimeSlot> prenotazioni = new ArrayList<>(n);
+            long[] start = new long[n];
+            long[] stop = new long[n];
+            for (int i = 0; i < n; i++) {
+                TimeSlot ts = slot(8 * 60 + 90 * i, 60);
+                prenotazioni.add(ts);
+                start[i] = ts.getStart().getTimeInMillis();
+                stop[i] = ts.getStop().getTimeInMillis();
+            }
+            // Interrogazioni sparse su tutto il periodo, libere e occupate
+            TimeSlot[] interrogazioni = new TimeSlot[INTERROGAZIONI];
+            for (int i = 0; i < INTERROGAZIONI; i++) {
+                interrogazioni[i] = slot(8 * 60 + random.nextInt(90 * n), 15 + random.nextInt(60));
+            }
+            for (int r = 0; r < ripetizioni; r++) {
+                controllo += conOverlapsWith(prenotazioni, interrogazioni);
+                controllo += conNucleo(start, stop, interrogazioni);
+                controllo += conDisgiunti(start, stop, interrogazioni);
+            }
+            long t0 = System.nanoTime();
+            for (int r = 0; r < ripetizioni; r++) {
+                controllo += conOverlapsWith(prenotazioni, interrogazioni);
+            }
+            long t1 = System.nanoTime();
+            for (int r = 0; r < ripetizioni; r++) {
+                controllo += conNucleo(start, stop, interrogazioni);
+            }
+            long t2 = System.nanoTime();
+            for (int r = 0; r < ripetizioni; r++) {
+                controllo += conDisgiunti(start, stop, interrogazioni);
+            }
+            long t3 = System.nanoTime();
+            double vecchio = (double) (t1 - t0) / ripetizioni / INTERROGAZIONI;
+            double blocchi = (double) (t2 - t1) / ripetizioni / INTERROGAZIONI;
+            double nuovo = (double) (t3 - t2) / ripetizioni / INTERROGAZIONI;
+            System.out.printf("%d;%.1f;%.1f;%.1f;%.1f%n", n, vecchio, blocchi, nuovo, vecchio / nuovo);
+        }
+        System.out.println("prenotazioni;isFree e addPrenotazione ns per prenotazione");
+        for (int n : DIMENSIONI) {
+            controllo += riempi(n);
+            long t0 = System.nanoTime();
+            for (int r = 0; r < Math.max(1, ripetizioni / 20); r++) {
+                controllo += riempi(n);
+            }
+            long t1 = System.nanoTime();
+            System.out.printf("%d;%.1f%n", n, (double) (t1 - t0) / Math.max(1, ripetizioni / 20) / n);
+        }
+        System.out.println("Controllo: " + controllo);
+    }
+
+    private static int conOverlapsWith(List<TimeSlot> prenotazioni, TimeSlot[] interrogazioni) {
+        int libere = 0;
+        for (TimeSlot q : interrogazioni) {
+            boolean libera = true;
+            for (TimeSlot p : prenotazioni) {
+                if (p.overlapsWith(q)) {
+                    libera = false;
+                    break;
+                }
+            }
+            if (libera) libere++;
+        }
+        return libere;
+    }
+
+    private static int conNucleo(long[] start, long[] stop, TimeSlot[] interrogazioni) {
+        int libere = 0;
+        for (TimeSlot q : interrogazioni) {
+            if (NucleoSovrapposizioni.primaSovrapposta(start, stop, 0, start.length,
+                    q.getStart().getTimeInMillis(), q.getStop().getTimeInMillis()) < 0) {
+                libere++;
+            }
+        }
+        return libere;
+    }
+
+    private static int conDisgiunti(long[] start, long[] stop, TimeSlot[] interrogazioni) {
+        int libere = 0;
+        for (TimeSlot q : interrogazioni) {
+            if (NucleoSovrapposizioni.sovrappostaFraDisgiunti(start, stop, start.length,
+                    q.getStart().getTimeInMillis(), q.getStop().getTimeInMillis()) < 0) {
+                libere++;
+            }
+        }
+        return libere;
+    }
+
+    /*
+     * Riempie un'aula con n prenotazioni in ordine sparso, controllando prima
+     * di ogni aggiunta che l'aula sia libera.
+     */
+    private static int riempi(int n) {
+        Aula a = new Aula("Prova", "Prova");
+        int libere = 0;
+        for (int i = 0; i < n; i++) {
+            // Permutazione degli indici, perché le aggiunte non siano in coda
+            TimeSlot ts = slot(8 * 60 + 90 * (int) ((i * 7919L) % n), 60);
+            if (a.isFree(ts)) {
+                a.addPrenotazione(ts, "Docente", "Lezione");
+                libere++;
+            }
+        }
+        return libere;
+    }
+
+    private static TimeSlot slot(int minuto, int durata) {
+        return new TimeSlot(new GregorianCalendar(2019, 8, 2, 0, minuto),
+                new GregorianCalendar(2019, 8, 2, 0, minuto + durata));
+    }
+}
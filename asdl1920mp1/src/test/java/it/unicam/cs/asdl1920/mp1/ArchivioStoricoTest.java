@@ -0,0 +1,133 @@
+/**
+ * 
+ */
+package it.unicam.cs.asdl1920.mp1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Random;
+import java.util.TimeZone;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+class ArchivioStoricoTest {
+
+    private static TimeSlot slot(int giorno, int da, int a) {
+        return new TimeSlot(new GregorianCalendar(2019, 10, giorno, 0, da),
+                new GregorianCalendar(2019, 10, giorno, 0, a));
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.ArchivioStorico#ArchivioStorico(it.unicam.cs.asdl1920.mp1.Aula, it.unicam.cs.asdl1920.mp1.DizionarioStringhe)}.
+     */
+    @Test
+    final void testArchivioStorico() {
+        assertThrows(NullPointerException.class,
+                () -> new ArchivioStorico(null, new DizionarioStringhe()));
+        assertThrows(NullPointerException.class,
+                () -> new ArchivioStorico(new Aula("LA1", ""), null));
+        ArchivioStorico a = new ArchivioStorico(new Aula("LA1", ""), new DizionarioStringhe());
+        assertEquals(0, a.size());
+        assertThrows(IndexOutOfBoundsException.class, () -> a.get(0));
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.ArchivioStorico#aggiungi(it.unicam.cs.asdl1920.mp1.Prenotazione)}.
+     */
+    @Test
+    final void testAggiungi() {
+        Aula aula = new Aula("LA1", "");
+        ArchivioStorico a = new ArchivioStorico(aula, new DizionarioStringhe());
+        assertThrows(NullPointerException.class, () -> a.aggiungi(null));
+        // Oltre la capacità iniziale e non in ordine
+        for (int g = 30; g >= 1; g--) {
+            for (int h = 0; h < 5; h++) {
+                a.aggiungi(new Prenotazione(aula, slot(g, 600 + 120 * h, 700 + 120 * h),
+                        "Docente" + h, "Motivo" + g));
+            }
+        }
+        assertEquals(150, a.size());
+        assertTrue(a.getCapacitaByte() >= 150 * ArchivioStorico.BYTE_RECORD);
+        for (int i = 1; i < a.size(); i++) {
+            assertTrue(a.getStartMillis(i - 1) < a.getStartMillis(i));
+        }
+        Prenotazione p = a.get(5);
+        assertEquals(slot(2, 600, 700), p.getTimeSlot());
+        assertEquals("Docente0", p.getDocente());
+        assertEquals("Motivo2", p.getMotivo());
+        assertEquals(aula, p.getAula());
+        List<Prenotazione> l = a.cerca(new GregorianCalendar(2019, 10, 3),
+                new GregorianCalendar(2019, 10, 5));
+        assertEquals(10, l.size());
+        assertEquals(slot(3, 600, 700), l.get(0).getTimeSlot());
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.ArchivioStorico#getZona()}.
+     */
+    @Test
+    final void testGetZona() {
+        // I calendari restituiti hanno il fuso dell'archivio, non quello di
+        // default
+        TimeZone tokyo = TimeZone.getTimeZone("Asia/Tokyo");
+        GregorianCalendar s = new GregorianCalendar(tokyo);
+        s.clear();
+        s.set(2019, 10, 4, 11, 0);
+        GregorianCalendar e = (GregorianCalendar) s.clone();
+        e.add(GregorianCalendar.HOUR_OF_DAY, 2);
+        Aula aula = new Aula("LA1", "");
+        Prenotazione p = new Prenotazione(aula, new TimeSlot(s, e), "LT", "");
+        ArchivioStorico a = new ArchivioStorico(aula, new DizionarioStringhe());
+        assertNull(a.getZona());
+        a.aggiungi(p);
+        assertEquals(tokyo.getID(), a.getZona().getID());
+        assertEquals(11, a.get(0).getTimeSlot().getStart().get(GregorianCalendar.HOUR_OF_DAY));
+        ArchivioStorico u = new ArchivioStorico(aula, new DizionarioStringhe(), TimeZone.getTimeZone("UTC"));
+        u.aggiungi(p);
+        assertEquals(2, u.get(0).getTimeSlot().getStart().get(GregorianCalendar.HOUR_OF_DAY));
+        // Le prenotazioni archiviate da un'aula tengono il loro fuso
+        aula.addPrenotazione(new TimeSlot(s, e), "LT", "");
+        GregorianCalendar dopo = (GregorianCalendar) e.clone();
+        dopo.add(GregorianCalendar.DAY_OF_MONTH, 1);
+        aula.archiviaPrenotazioniBefore(dopo);
+        assertEquals(tokyo.getID(), aula.getPrenotazioniArchiviate(s, dopo).get(0)
+                .getTimeSlot().getStart().getTimeZone().getID());
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.ArchivioStorico#siSovrappone(it.unicam.cs.asdl1920.mp1.TimeSlot)}.
+     */
+    @Test
+    final void testSiSovrappone() {
+        Random random = new Random(34);
+        Aula aula = new Aula("LA1", "");
+        ArchivioStorico a = new ArchivioStorico(aula, new DizionarioStringhe());
+        List<TimeSlot> archiviati = new ArrayList<TimeSlot>();
+        for (int n = 0; n < 2000; n++) {
+            int inizio = random.nextInt(5 * 24 * 60);
+            TimeSlot ts = slot(1, inizio, inizio + 1 + random.nextInt(120));
+            boolean sovrapposto = false;
+            for (TimeSlot t : archiviati) {
+                sovrapposto |= t.overlapsWith(ts);
+            }
+            assertEquals(sovrapposto, a.siSovrappone(ts));
+            if (!sovrapposto) {
+                a.aggiungi(new Prenotazione(aula, ts, "LT", ""));
+                archiviati.add(ts);
+            }
+        }
+        assertThrows(NullPointerException.class, () -> a.siSovrappone(null));
+    }
+
+}
@@ -7,8 +7,12 @@ import static org.junit.jupiter.api.Assertions.*;
 
 import static java.time.Duration.ofMillis;
 
+import java.util.ArrayList;
 import java.util.GregorianCalendar;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
@@ -228,6 +232,35 @@ class AulaTest {
         assertEquals(ps, a.getPrenotazioni());
     }
 
+    /**
+     * Test method for {@link it.unicam.cs.asdl1920.mp1.Aula#getPrenotazioni()}:
+     * l'insieme restituito è una vista non modificabile ma aggiornata.
+     */
+    @Test
+    final void testGetPrenotazioniNonModificabile() {
+        Aula a = new Aula("LA1", "Polo Lodovici Piano Terra");
+        TimeSlot ts1 = new TimeSlot(new GregorianCalendar(2019, 10, 4, 11, 0),
+                new GregorianCalendar(2019, 10, 4, 13, 0));
+        TimeSlot ts2 = new TimeSlot(new GregorianCalendar(2019, 10, 4, 14, 0),
+                new GregorianCalendar(2019, 10, 4, 16, 0));
+        SortedSet<Prenotazione> vista = a.getPrenotazioni();
+        a.addPrenotazione(ts1, "Luca Tesei", "Lezione ASDL");
+        assertEquals(1, vista.size());
+        Prenotazione p = new Prenotazione(a, ts1, "", "");
+        assertThrows(UnsupportedOperationException.class, () -> vista.remove(p));
+        assertThrows(UnsupportedOperationException.class,
+                () -> vista.add(new Prenotazione(a, ts2, "", "")));
+        assertThrows(UnsupportedOperationException.class, () -> {
+            Iterator<Prenotazione> it = vista.iterator();
+            it.next();
+            it.remove();
+        });
+        assertThrows(UnsupportedOperationException.class, () -> vista.headSet(p).clear());
+        // Le cancellazioni passano dall'aula
+        assertTrue(a.removePrenotazione(p));
+        assertTrue(vista.isEmpty());
+    }
+
     /**
      * Test method for
      * {@link it.unicam.cs.asdl1920.mp1.Aula#addFacility(it.unicam.cs.asdl1920.mp1.Facility)}.
@@ -322,6 +355,42 @@ class AulaTest {
 
     }
 
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.Aula#isFree(it.unicam.cs.asdl1920.mp1.TimeSlot)}.
+     */
+    @Test
+    final void testIsFreeCasuale() {
+        // Confronta isFree, che usa il riepilogo di occupazione, con il
+        // controllo di tutte le prenotazioni, mentre le prenotazioni vengono
+        // aggiunte e cancellate
+        Random random = new Random(32);
+        Aula a = new Aula("LA1", "Polo Lodovici Piano Terra");
+        List<TimeSlot> fatte = new ArrayList<TimeSlot>();
+        for (int n = 0; n < 3000; n++) {
+            int giorno = 1 + random.nextInt(5);
+            int inizio = 8 * 60 + random.nextInt(12 * 60);
+            TimeSlot ts = new TimeSlot(
+                    new GregorianCalendar(2019, 10, giorno, inizio / 60, inizio % 60),
+                    new GregorianCalendar(2019, 10, giorno, 0, inizio + 3 + random.nextInt(180)));
+            boolean libera = true;
+            for (Prenotazione p : a.getPrenotazioni()) {
+                libera &= !p.getTimeSlot().overlapsWith(ts);
+            }
+            assertEquals(libera, a.isFree(ts));
+            if (libera && random.nextBoolean()) {
+                a.addPrenotazione(ts, "LT", "");
+                fatte.add(ts);
+            } else if (!fatte.isEmpty() && random.nextInt(3) == 0) {
+                a.removePrenotazione(new Prenotazione(a,
+                        fatte.remove(random.nextInt(fatte.size())), "", ""));
+            }
+        }
+        a.removePrenotazioniBefore(new GregorianCalendar(2019, 10, 6));
+        assertTrue(a.isFree(new TimeSlot(new GregorianCalendar(2019, 10, 1),
+                new GregorianCalendar(2019, 10, 6))));
+    }
+
     /**
      * Test method for
      * {@link it.unicam.cs.asdl1920.mp1.Aula#satisfiesFacilities(java.util.Set)}.
@@ -398,6 +467,125 @@ class AulaTest {
                 () -> a.addPrenotazione(ts3, "Luca Tesei", "Pippo"));
     }
 
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.Aula#caricaPrenotazioni(it.unicam.cs.asdl1920.mp1.PrenotazioniColonnari)}.
+     */
+    @Test
+    final void testCaricaPrenotazioni() {
+        // Carica in un'aula con qualche prenotazione un archivio costruito su
+        // una copia dell'aula, e confronta isFree con un'aula in cui le
+        // stesse prenotazioni sono aggiunte una per una
+        Random random = new Random(27);
+        Aula a = new Aula("LA1", "Polo Lodovici Piano Terra");
+        Aula attesa = new Aula("LA1", "Polo Lodovici Piano Terra");
+        List<String> notifiche = new ArrayList<String>();
+        a.addAscoltatore(new AscoltatorePrenotazioni() {
+            public void prenotazioneAggiunta(Prenotazione p) {
+                notifiche.add(p.getMotivo());
+            }
+
+            public void prenotazioneRimossa(Prenotazione p) {
+            }
+
+            public void prenotazioneScaduta(Prenotazione p) {
+            }
+        });
+        PrenotazioniColonnari c = new PrenotazioniColonnari(new Aula("LA1", ""),
+                new DizionarioStringhe());
+        for (int n = 0; n < 400; n++) {
+            int giorno = 1 + random.nextInt(20);
+            int inizio = 8 * 60 + random.nextInt(12 * 60);
+            TimeSlot ts = new TimeSlot(
+                    new GregorianCalendar(2019, 10, giorno, inizio / 60, inizio % 60),
+                    new GregorianCalendar(2019, 10, giorno, 0, inizio + 3 + random.nextInt(180)));
+            if (!attesa.isFree(ts)) continue;
+            attesa.addPrenotazione(ts, "LT", "");
+            if (n % 4 == 0) a.addPrenotazione(ts, "LT", "Singola");
+            else c.addPrenotazione(ts, "LT", "Caricata");
+        }
+        assertThrows(NullPointerException.class, () -> a.caricaPrenotazioni(null));
+        assertThrows(IllegalArgumentException.class, () -> a.caricaPrenotazioni(
+                new PrenotazioniColonnari(new Aula("LA2", ""), new DizionarioStringhe())));
+        int singole = a.getPrenotazioni().size();
+        notifiche.clear();
+        assertEquals(c.size(), a.caricaPrenotazioni(c));
+        assertEquals(c.size(), notifiche.size());
+        assertEquals(attesa.getPrenotazioni(), a.getPrenotazioni());
+        assertEquals(singole + c.size(), a.getPrenotazioni().size());
+        for (int n = 0; n < 2000; n++) {
+            int giorno = 1 + random.nextInt(21);
+            int inizio = 8 * 60 + random.nextInt(12 * 60);
+            TimeSlot ts = new TimeSlot(
+                    new GregorianCalendar(2019, 10, giorno, inizio / 60, inizio % 60),
+                    new GregorianCalendar(2019, 10, giorno, 0, inizio + 1 + random.nextInt(300)));
+            assertEquals(attesa.isFree(ts), a.isFree(ts));
+        }
+        // Un archivio che si sovrappone non modifica l'aula
+        PrenotazioniColonnari d = new PrenotazioniColonnari(a, new DizionarioStringhe());
+        d.addPrenotazione(new TimeSlot(new GregorianCalendar(2019, 10, 25, 9, 0),
+                new GregorianCalendar(2019, 10, 25, 11, 0)), "LT", "");
+        d.addPrenotazione(a.getPrenotazioni().last().getTimeSlot(), "LT", "");
+        assertThrows(IllegalArgumentException.class, () -> a.caricaPrenotazioni(d));
+        assertEquals(attesa.getPrenotazioni(), a.getPrenotazioni());
+        assertTrue(a.isFree(new TimeSlot(new GregorianCalendar(2019, 10, 25, 9, 0),
+                new GregorianCalendar(2019, 10, 25, 11, 0))));
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.Aula#caricaPrenotazioni(it.unicam.cs.asdl1920.mp1.PrenotazioniColonnari)}
+     * con abbastanza prenotazioni da costruire il riepilogo di occupazione.
+     */
+    @Test
+    final void testCaricaPrenotazioniRiepilogo() {
+        Aula a = new Aula("LA1", "Polo Lodovici Piano Terra");
+        PrenotazioniColonnari c = new PrenotazioniColonnari(a, new DizionarioStringhe());
+        for (int i = 0; i < 40; i++) {
+            c.addPrenotazione(new TimeSlot(new GregorianCalendar(2019, 10, 4, 0, 60 * i),
+                    new GregorianCalendar(2019, 10, 4, 0, 60 * i + 60)), "LT", "");
+        }
+        assertEquals(40, a.caricaPrenotazioni(c));
+        Prenotazione ultima = a.getPrenotazioni().last();
+        assertFalse(a.isFree(ultima.getTimeSlot()));
+        assertTrue(a.removePrenotazione(ultima));
+        // Le prenotazioni caricate sono contate una volta sola
+        assertTrue(a.isFree(ultima.getTimeSlot()));
+        // Un secondo caricamento aggiorna il riepilogo già costruito
+        PrenotazioniColonnari d = new PrenotazioniColonnari(a, new DizionarioStringhe());
+        d.addPrenotazione(ultima.getTimeSlot(), "LT", "");
+        assertEquals(1, a.caricaPrenotazioni(d));
+        assertFalse(a.isFree(ultima.getTimeSlot()));
+        assertTrue(a.removePrenotazione(ultima));
+        assertTrue(a.isFree(ultima.getTimeSlot()));
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.Aula#caricaPrenotazioni(it.unicam.cs.asdl1920.mp1.PrenotazioniColonnari)}
+     * con una prenotazione che inizia insieme a una dell'aula.
+     */
+    @Test
+    final void testCaricaPrenotazioniStessoInizio() {
+        Aula a = new Aula("LA1", "Polo Lodovici Piano Terra");
+        a.addPrenotazione(new TimeSlot(new GregorianCalendar(2019, 10, 4, 10, 0),
+                new GregorianCalendar(2019, 10, 4, 10, 3)), "LT", "");
+        PrenotazioniColonnari c = new PrenotazioniColonnari(a, new DizionarioStringhe());
+        c.addPrenotazione(new TimeSlot(new GregorianCalendar(2019, 10, 4, 10, 0),
+                new GregorianCalendar(2019, 10, 4, 11, 0)), "LT", "");
+        assertThrows(IllegalArgumentException.class, () -> a.caricaPrenotazioni(c));
+        TimeSlot ts = new TimeSlot(new GregorianCalendar(2019, 10, 4, 10, 30),
+                new GregorianCalendar(2019, 10, 4, 10, 50));
+        assertTrue(a.isFree(ts));
+        assertEquals(1, a.getPrenotazioni().size());
+        // Una prenotazione uguale a una presente viene solo saltata
+        PrenotazioniColonnari d = new PrenotazioniColonnari(a, new DizionarioStringhe());
+        d.addPrenotazione(a.getPrenotazioni().first().getTimeSlot(), "LT", "");
+        assertEquals(0, a.caricaPrenotazioni(d));
+        assertTrue(a.removePrenotazione(a.getPrenotazioni().first()));
+        assertTrue(a.isFree(ts));
+    }
+
     /**
      * Test method for
      * {@link it.unicam.cs.asdl1920.mp1.Aula#removePrenotazione(it.unicam.cs.asdl1920.mp1.Prenotazione)}.
@@ -472,4 +660,85 @@ class AulaTest {
                 new GregorianCalendar(2019, 0, 1, 16, 00)));
     }
 
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.Aula#archiviaPrenotazioniBefore(java.util.GregorianCalendar)}.
+     */
+    @Test
+    final void testArchiviaPrenotazioniBefore() {
+        Aula a = new Aula("LA1", "Polo Lodovici Piano Terra");
+        assertThrows(NullPointerException.class, () -> a.archiviaPrenotazioniBefore(null));
+        assertEquals(0, a.archiviaPrenotazioniBefore(new GregorianCalendar(2019, 10, 30)));
+        for (int g = 1; g <= 10; g++) {
+            a.addPrenotazione(new TimeSlot(new GregorianCalendar(2019, 10, g, 9, 0),
+                    new GregorianCalendar(2019, 10, g, 11, 0)), "LT", "ASD");
+        }
+        assertEquals(5, a.archiviaPrenotazioniBefore(new GregorianCalendar(2019, 10, 5, 9, 0)));
+        assertEquals(5, a.getPrenotazioni().size());
+        assertEquals(5, a.getNumeroPrenotazioniArchiviate());
+        // Le prenotazioni archiviate occupano ancora l'aula
+        TimeSlot ts = new TimeSlot(new GregorianCalendar(2019, 10, 3, 10, 0),
+                new GregorianCalendar(2019, 10, 3, 12, 0));
+        assertFalse(a.isFree(ts));
+        assertThrows(IllegalArgumentException.class, () -> a.addPrenotazione(ts, "MC", ""));
+        assertTrue(a.isFree(new TimeSlot(new GregorianCalendar(2019, 10, 3, 11, 0),
+                new GregorianCalendar(2019, 10, 3, 12, 0))));
+        List<Prenotazione> l = a.getPrenotazioniArchiviate(new GregorianCalendar(2019, 10, 2),
+                new GregorianCalendar(2019, 10, 4));
+        assertEquals(2, l.size());
+        assertEquals("ASD", l.get(1).getMotivo());
+        assertEquals(new GregorianCalendar(2019, 10, 3, 9, 0), l.get(1).getTimeSlot().getStart());
+        assertTrue(new Aula("LB1", "").getPrenotazioniArchiviate(new GregorianCalendar(2019, 10, 2),
+                new GregorianCalendar(2019, 10, 4)).isEmpty());
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.Aula#addAscoltatore(it.unicam.cs.asdl1920.mp1.AscoltatorePrenotazioni)}.
+     */
+    @Test
+    final void testAddAscoltatore() {
+        Aula a = new Aula("LA1", "Polo Lodovici Piano Terra");
+        assertThrows(NullPointerException.class, () -> a.addAscoltatore(null));
+        List<String> notifiche = new ArrayList<String>();
+        AscoltatorePrenotazioni l = new AscoltatorePrenotazioni() {
+            public void prenotazioneAggiunta(Prenotazione p) {
+                notifiche.add("+" + p.getMotivo());
+            }
+
+            public void prenotazioneRimossa(Prenotazione p) {
+                notifiche.add("-" + p.getMotivo());
+            }
+
+            public void prenotazioneScaduta(Prenotazione p) {
+                notifiche.add("x" + p.getMotivo());
+            }
+        };
+        assertTrue(a.addAscoltatore(l));
+        assertFalse(a.addAscoltatore(l));
+        TimeSlot ts1 = new TimeSlot(new GregorianCalendar(2019, 10, 4, 11, 0),
+                new GregorianCalendar(2019, 10, 4, 13, 0));
+        TimeSlot ts2 = new TimeSlot(new GregorianCalendar(2019, 10, 4, 14, 0),
+                new GregorianCalendar(2019, 10, 4, 16, 0));
+        TimeSlot ts3 = new TimeSlot(new GregorianCalendar(2019, 10, 5, 14, 0),
+                new GregorianCalendar(2019, 10, 5, 16, 0));
+        a.addPrenotazione(ts1, "Luca Tesei", "A");
+        a.addPrenotazione(ts2, "Luca Tesei", "B");
+        a.addPrenotazione(ts3, "Luca Tesei", "C");
+        assertThrows(IllegalArgumentException.class,
+                () -> a.addPrenotazione(ts1, "Luca Tesei", "D"));
+        // La notifica riporta la prenotazione memorizzata
+        assertTrue(a.removePrenotazione(new Prenotazione(a, ts2, "", "")));
+        assertFalse(a.removePrenotazione(new Prenotazione(a, ts2, "", "")));
+        assertTrue(a.removePrenotazioniBefore(new GregorianCalendar(2019, 10, 5, 14, 0)));
+        assertTrue(a.removeAscoltatore(l));
+        assertFalse(a.removeAscoltatore(l));
+        a.addPrenotazione(ts1, "Luca Tesei", "E");
+        assertEquals("[+A, +B, +C, -B, xA, xC]", notifiche.toString());
+        // Le prenotazioni si modificano solo tramite l'aula
+        assertThrows(UnsupportedOperationException.class,
+                () -> a.getPrenotazioni().clear());
+    }
+
 }
@@ -0,0 +1,49 @@
+/**
+ * 
+ */
+package it.unicam.cs.asdl1920.mp1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+class CodificatoreJsonTest {
+
+    /**
+     * Test method for {@link it.unicam.cs.asdl1920.mp1.CodificatoreJson#toString()}.
+     */
+    @Test
+    final void testToString() {
+        assertEquals("{}", new CodificatoreJson().inizioOggetto().fineOggetto()
+                .toString());
+        assertEquals("[]", new CodificatoreJson().inizioArray().fineArray()
+                .toString());
+        assertEquals("{\"nome\":\"LA1\",\"posti\":80,\"libera\":true,\"note\":null}",
+                new CodificatoreJson().inizioOggetto().campo("nome", "LA1")
+                        .campo("posti", 80).campo("libera", true)
+                        .campo("note", (String) null).fineOggetto().toString());
+        assertEquals("[{\"a\":[1,2]},{\"b\":\"x\"}]",
+                new CodificatoreJson().inizioArray()
+                        .inizioOggetto().nome("a").inizioArray().valore(1)
+                        .valore(2).fineArray().fineOggetto()
+                        .inizioOggetto().campo("b", "x").fineOggetto()
+                        .fineArray().toString());
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.CodificatoreJson#valore(java.lang.String)}.
+     */
+    @Test
+    final void testValoreString() {
+        assertEquals("\"a\\\"b\\\\c\\nd\\u0001\"",
+                new CodificatoreJson().valore("a\"b\\c\nd\u0001").toString());
+        assertEquals("\"Università\"",
+                new CodificatoreJson().valore("Università").toString());
+    }
+
+}
@@ -0,0 +1,85 @@
+/**
+ * 
+ */
+package it.unicam.cs.asdl1920.mp1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+class DizionarioStringheTest {
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.DizionarioStringhe#id(java.lang.String)}.
+     */
+    @Test
+    final void testId() {
+        DizionarioStringhe d = new DizionarioStringhe();
+        assertThrows(NullPointerException.class, () -> d.id(null));
+        assertEquals(0, d.id("Luca Tesei"));
+        assertEquals(1, d.id("Lezione ASDL"));
+        assertEquals(0, d.id(new String("Luca Tesei")));
+        assertEquals(2, d.size());
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.DizionarioStringhe#stringa(int)}.
+     */
+    @Test
+    final void testStringa() {
+        DizionarioStringhe d = new DizionarioStringhe();
+        int id = d.id("Lezione ASDL");
+        assertEquals("Lezione ASDL", d.stringa(id));
+        assertThrows(IndexOutOfBoundsException.class, () -> d.stringa(1));
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.DizionarioStringhe#id(java.lang.String)}
+     * con più thread.
+     */
+    @Test
+    final void testIdConcorrente() throws InterruptedException {
+        DizionarioStringhe d = new DizionarioStringhe();
+        int[][] id = new int[4][1000];
+        Thread[] t = new Thread[id.length];
+        for (int k = 0; k < t.length; k++) {
+            int[] mio = id[k];
+            t[k] = new Thread(() -> {
+                for (int i = 0; i < mio.length; i++) {
+                    mio[i] = d.id("Docente " + i);
+                }
+            });
+            t[k].start();
+        }
+        for (Thread x : t) {
+            x.join();
+        }
+        assertEquals(1000, d.size());
+        for (int k = 1; k < id.length; k++) {
+            assertArrayEquals(id[0], id[k]);
+        }
+        for (int i = 0; i < 1000; i++) {
+            assertEquals("Docente " + i, d.stringa(id[0][i]));
+        }
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.DizionarioStringhe#interna(java.lang.String)}.
+     */
+    @Test
+    final void testInterna() {
+        DizionarioStringhe d = new DizionarioStringhe();
+        String s = d.interna(new String("Polo Lodovici"));
+        assertSame(s, d.interna(new String("Polo Lodovici")));
+        assertThrows(NullPointerException.class, () -> d.interna(null));
+    }
+
+}
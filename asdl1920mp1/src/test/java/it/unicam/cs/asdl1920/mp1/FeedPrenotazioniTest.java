@@ -0,0 +1,201 @@
+/**
+ * 
+ */
+package it.unicam.cs.asdl1920.mp1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+class FeedPrenotazioniTest {
+
+    private static Prenotazione prenotazione(int giorno) {
+        return new Prenotazione(new Aula("LA1", ""), new TimeSlot(
+                new GregorianCalendar(2019, 10, giorno, 11, 0),
+                new GregorianCalendar(2019, 10, giorno, 13, 0)), "LT", "");
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.FeedPrenotazioni#FeedPrenotazioni(int, it.unicam.cs.asdl1920.mp1.FeedPrenotazioni.Politica)}.
+     */
+    @Test
+    final void testFeedPrenotazioni() {
+        assertThrows(NullPointerException.class,
+                () -> new FeedPrenotazioni(8, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> new FeedPrenotazioni(0, FeedPrenotazioni.Politica.BLOCCA));
+        assertEquals(8, new FeedPrenotazioni(5, FeedPrenotazioni.Politica.BLOCCA)
+                .getCapacita());
+        assertEquals(8, new FeedPrenotazioni(8, FeedPrenotazioni.Politica.BLOCCA)
+                .getCapacita());
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.FeedPrenotazioni.Sottoscrittore#poll()}.
+     */
+    @Test
+    final void testPoll() {
+        FeedPrenotazioni f = new FeedPrenotazioni(4, FeedPrenotazioni.Politica.BLOCCA);
+        // Senza sottoscrittori la pubblicazione non attende mai
+        for (int i = 1; i <= 10; i++) {
+            f.prenotazioneAggiunta(prenotazione(i));
+        }
+        FeedPrenotazioni.Sottoscrittore s1 = f.sottoscrivi();
+        assertNull(s1.poll());
+        f.prenotazioneRimossa(prenotazione(1));
+        FeedPrenotazioni.Sottoscrittore s2 = f.sottoscrivi();
+        f.prenotazioneScaduta(prenotazione(2));
+        EventoPrenotazione e = s1.poll();
+        assertEquals(10, e.getSequenza());
+        assertEquals(EventoPrenotazione.Tipo.RIMOZIONE, e.getTipo());
+        assertEquals(prenotazione(1), e.getPrenotazione());
+        assertEquals(EventoPrenotazione.Tipo.SCADENZA, s1.poll().getTipo());
+        assertNull(s1.poll());
+        assertEquals(11, s2.poll().getSequenza());
+        assertEquals(0, s2.getRitardo());
+        s2.chiudi();
+        assertTrue(s2.isScollegato());
+        assertThrows(IllegalStateException.class, () -> s2.poll());
+    }
+
+    /**
+     * Con la politica SCOLLEGA un sottoscrittore che resta indietro di più
+     * della capacità viene scollegato.
+     */
+    @Test
+    final void testScollega() {
+        FeedPrenotazioni f = new FeedPrenotazioni(4, FeedPrenotazioni.Politica.SCOLLEGA);
+        FeedPrenotazioni.Sottoscrittore lento = f.sottoscrivi();
+        FeedPrenotazioni.Sottoscrittore veloce = f.sottoscrivi();
+        List<EventoPrenotazione> letti = new ArrayList<EventoPrenotazione>();
+        for (int i = 1; i <= 10; i++) {
+            f.prenotazioneAggiunta(prenotazione(i));
+            assertEquals(1, veloce.drena(letti, 10));
+        }
+        assertEquals(10, letti.size());
+        assertTrue(lento.isScollegato());
+        assertThrows(IllegalStateException.class, () -> lento.poll());
+        assertFalse(veloce.isScollegato());
+    }
+
+    /**
+     * Con la politica BLOCCA più thread pubblicano contemporaneamente e un
+     * sottoscrittore lento riceve tutti gli eventi in ordine.
+     */
+    @Test
+    final void testBlocca() throws InterruptedException {
+        FeedPrenotazioni f = new FeedPrenotazioni(8, FeedPrenotazioni.Politica.BLOCCA);
+        FeedPrenotazioni.Sottoscrittore s = f.sottoscrivi();
+        int nThread = 4;
+        int perThread = 5000;
+        Thread[] produttori = new Thread[nThread];
+        for (int t = 0; t < nThread; t++) {
+            produttori[t] = new Thread(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    f.prenotazioneAggiunta(prenotazione(1 + i % 28));
+                }
+            });
+            produttori[t].start();
+        }
+        long attesa = 0;
+        while (attesa < nThread * perThread) {
+            EventoPrenotazione e = s.poll();
+            if (e != null) {
+                assertEquals(attesa, e.getSequenza());
+                attesa++;
+            } else {
+                Thread.yield();
+            }
+        }
+        for (Thread t : produttori) {
+            t.join();
+        }
+        assertNull(s.poll());
+        assertEquals(nThread * perThread, f.getEventiPubblicati());
+    }
+
+
+    /**
+     * Più thread pubblicano contemporaneamente su un buffer piccolo mentre
+     * altri si iscrivono di continuo: ogni sottoscrittore riceve gli eventi
+     * in ordine senza buchi, anche quando chi pubblica si ferma fra la
+     * riserva di una sequenza e la scrittura, e nessuno resta bloccato.
+     */
+    @Test
+    final void testSottoscrittoriTardivi() throws InterruptedException {
+        for (FeedPrenotazioni.Politica politica : FeedPrenotazioni.Politica.values()) {
+            FeedPrenotazioni f = new FeedPrenotazioni(4, politica);
+            int nThread = 6;
+            int perThread = 20000;
+            AtomicInteger finiti = new AtomicInteger();
+            AtomicInteger letture = new AtomicInteger();
+            ConcurrentLinkedQueue<String> errori = new ConcurrentLinkedQueue<String>();
+            Thread[] thread = new Thread[nThread + 3];
+            for (int t = 0; t < nThread; t++) {
+                thread[t] = new Thread(() -> {
+                    Prenotazione p = prenotazione(1);
+                    for (int i = 0; i < perThread; i++) {
+                        f.prenotazioneAggiunta(p);
+                    }
+                    finiti.incrementAndGet();
+                });
+            }
+            for (int t = nThread; t < thread.length; t++) {
+                thread[t] = new Thread(() -> {
+                    while (finiti.get() < nThread) {
+                        FeedPrenotazioni.Sottoscrittore s = f.sottoscrivi();
+                        long attesa = -1;
+                        int letti = 0;
+                        try {
+                            while (letti < 50 && finiti.get() < nThread) {
+                                EventoPrenotazione e = s.poll();
+                                if (e == null) {
+                                    Thread.yield();
+                                    continue;
+                                }
+                                if (attesa >= 0 && e.getSequenza() != attesa) {
+                                    errori.add("Atteso " + attesa + ", letto " + e.getSequenza());
+                                }
+                                attesa = e.getSequenza() + 1;
+                                letti++;
+                            }
+                            letture.addAndGet(letti);
+                        } catch (IllegalStateException e) {
+                            // Con SCOLLEGA un sottoscrittore lento può essere
+                            // scollegato, con BLOCCA mai
+                            if (politica == FeedPrenotazioni.Politica.BLOCCA) {
+                                errori.add("Scollegato con BLOCCA");
+                            }
+                        }
+                        s.chiudi();
+                    }
+                });
+            }
+            for (Thread t : thread) {
+                t.start();
+            }
+            for (Thread t : thread) {
+                t.join(60_000);
+                assertFalse(t.isAlive(), "Thread bloccato con " + politica);
+            }
+            assertTrue(errori.isEmpty(), errori.toString());
+            if (politica == FeedPrenotazioni.Politica.BLOCCA) {
+                assertTrue(letture.get() > 0);
+            }
+            assertEquals(nThread * perThread, f.getEventiPubblicati());
+        }
+    }
+
+}
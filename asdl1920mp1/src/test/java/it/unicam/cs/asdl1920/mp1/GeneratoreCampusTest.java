@@ -0,0 +1,83 @@
+/**
+ * 
+ */
+package it.unicam.cs.asdl1920.mp1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+class GeneratoreCampusTest {
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.GeneratoreCampus#GeneratoreCampus(long, int, int, int, java.util.GregorianCalendar)}.
+     */
+    @Test
+    final void testGeneratoreCampus() {
+        GregorianCalendar inizio = new GregorianCalendar(2019, 8, 1);
+        assertThrows(NullPointerException.class,
+                () -> new GeneratoreCampus(1, 10, 2, 30, null));
+        assertThrows(IllegalArgumentException.class,
+                () -> new GeneratoreCampus(1, 0, 2, 30, inizio));
+        assertThrows(IllegalArgumentException.class,
+                () -> new GeneratoreCampus(1, 10, 0, 30, inizio));
+        assertThrows(IllegalArgumentException.class,
+                () -> new GeneratoreCampus(1, 10, 2, 0, inizio));
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.GeneratoreCampus#creaAule()}.
+     */
+    @Test
+    final void testCreaAule() {
+        GregorianCalendar inizio = new GregorianCalendar(2019, 8, 1);
+        List<Aula> aule = new GeneratoreCampus(7, 100, 30, 30, inizio)
+                .creaAule();
+        List<Aula> stesse = new GeneratoreCampus(7, 100, 30, 30, inizio)
+                .creaAule();
+        assertEquals(100, aule.size());
+        // Stesso seme, stesso campus
+        for (int i = 0; i < aule.size(); i++) {
+            assertEquals(aule.get(i), stesse.get(i));
+            assertEquals(aule.get(i).getLocation(), stesse.get(i).getLocation());
+            assertEquals(aule.get(i).getFacilities(),
+                    stesse.get(i).getFacilities());
+        }
+        // I nomi sono unici
+        assertEquals(100, new GeneratoreCampus(7, 100, 30, 30, inizio)
+                .creaGestore().getAule().size());
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.GeneratoreCampus#prossimoTimeSlot(java.util.Random)}.
+     */
+    @Test
+    final void testProssimoTimeSlot() {
+        GregorianCalendar inizio = new GregorianCalendar(2019, 8, 1);
+        GeneratoreCampus g = new GeneratoreCampus(7, 10, 2, 30, inizio);
+        assertThrows(NullPointerException.class, () -> g.prossimoTimeSlot(null));
+        Random r1 = new Random(3);
+        Random r2 = new Random(3);
+        GregorianCalendar fine = new GregorianCalendar(2019, 9, 1);
+        for (int i = 0; i < 1000; i++) {
+            TimeSlot ts = g.prossimoTimeSlot(r1);
+            assertEquals(ts, g.prossimoTimeSlot(r2));
+            assertFalse(ts.getStart().before(inizio));
+            assertTrue(ts.getStop().before(fine));
+            assertTrue(ts.getStart().get(GregorianCalendar.HOUR_OF_DAY) >= 8);
+            assertTrue(ts.getStop().get(GregorianCalendar.HOUR_OF_DAY) <= 20);
+        }
+    }
+
+}
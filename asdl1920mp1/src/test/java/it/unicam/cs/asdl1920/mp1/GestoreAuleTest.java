@@ -5,8 +5,14 @@ package it.unicam.cs.asdl1920.mp1;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.GregorianCalendar;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.Set;
 
 import org.junit.jupiter.api.Test;
@@ -52,6 +58,21 @@ class GestoreAuleTest {
         assertEquals(s, g.getAule());
     }
 
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.GestoreAule#getAula(java.lang.String)}.
+     */
+    @Test
+    final void testGetAula() {
+        GestoreAule g = new GestoreAule();
+        assertThrows(NullPointerException.class, () -> g.getAula(null));
+        assertNull(g.getAula("LA1"));
+        Aula a = new Aula("LA1", "Polo Lodovici Piano Terra");
+        assertTrue(g.addAula(a));
+        assertFalse(g.addAula(new Aula("LA1", "")));
+        assertSame(a, g.getAula("LA1"));
+    }
+
     /**
      * Test method for
      * {@link it.unicam.cs.asdl1920.mp1.GestoreAule#cercaAuleLibere(java.util.Set, it.unicam.cs.asdl1920.mp1.TimeSlot)}.
@@ -134,4 +155,378 @@ class GestoreAuleTest {
         assertEquals(ris,g.cercaAuleLibere(requestedFacilities, requestedTimeSlot));
     }
 
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.GestoreAule#creaFeed(int, it.unicam.cs.asdl1920.mp1.FeedPrenotazioni.Politica)}.
+     */
+    @Test
+    final void testCreaFeed() {
+        GestoreAule g = new GestoreAule();
+        Aula a = new Aula("LA1", "Polo Lodovici Piano Terra");
+        g.addAula(a);
+        FeedPrenotazioni f = g.creaFeed(16, FeedPrenotazioni.Politica.SCOLLEGA);
+        assertFalse(g.addAscoltatore(f));
+        FeedPrenotazioni.Sottoscrittore s = f.sottoscrivi();
+        // Anche le aule aggiunte dopo la creazione del feed sono osservate
+        Aula b = new Aula("LB1", "Polo Lodovici Edificio B");
+        g.addAula(b);
+        TimeSlot ts = new TimeSlot(new GregorianCalendar(2019, 10, 4, 11, 0),
+                new GregorianCalendar(2019, 10, 4, 13, 0));
+        a.addPrenotazione(ts, "LT", "");
+        b.addPrenotazione(ts, "LT", "");
+        b.removePrenotazione(new Prenotazione(b, ts, "", ""));
+        List<EventoPrenotazione> eventi = new ArrayList<EventoPrenotazione>();
+        assertEquals(3, s.drena(eventi, 10));
+        assertEquals(a, eventi.get(0).getPrenotazione().getAula());
+        assertEquals(EventoPrenotazione.Tipo.AGGIUNTA, eventi.get(1).getTipo());
+        assertEquals(EventoPrenotazione.Tipo.RIMOZIONE, eventi.get(2).getTipo());
+        assertTrue(g.removeAscoltatore(f));
+        a.removePrenotazione(new Prenotazione(a, ts, "", ""));
+        assertNull(s.poll());
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.GestoreAule#caricaPrenotazioni(it.unicam.cs.asdl1920.mp1.PrenotazioniColonnari)}.
+     */
+    @Test
+    final void testCaricaPrenotazioni() {
+        GestoreAule g = new GestoreAule();
+        Aula a = new Aula("LA1", "Polo Lodovici Piano Terra");
+        g.addAula(a);
+        assertThrows(NullPointerException.class, () -> g.caricaPrenotazioni(null));
+        // Un archivio importato si riferisce a una copia dell'aula
+        PrenotazioniColonnari c = new PrenotazioniColonnari(new Aula("LA1", ""),
+                new DizionarioStringhe());
+        for (int giorno = 4; giorno <= 8; giorno++) {
+            c.addPrenotazione(new TimeSlot(new GregorianCalendar(2019, 10, giorno, 9, 0),
+                    new GregorianCalendar(2019, 10, giorno, 11, 0)), "LT", "ASDL");
+        }
+        assertEquals(5, g.caricaPrenotazioni(c));
+        assertEquals(5, a.getPrenotazioni().size());
+        assertSame(a, a.getPrenotazioni().first().getAula());
+        assertFalse(a.isFree(new TimeSlot(new GregorianCalendar(2019, 10, 6, 10, 0),
+                new GregorianCalendar(2019, 10, 6, 12, 0))));
+        assertThrows(IllegalArgumentException.class, () -> g.caricaPrenotazioni(
+                new PrenotazioniColonnari(new Aula("LB1", ""), new DizionarioStringhe())));
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.GestoreAule#rimuoviScadute(java.util.GregorianCalendar)}.
+     */
+    @Test
+    final void testRimuoviScadute() {
+        GestoreAule g = new GestoreAule();
+        Aula a = new Aula("LA1", "Polo Lodovici Piano Terra");
+        g.addAula(a);
+        a.addPrenotazione(new TimeSlot(new GregorianCalendar(2019, 10, 4, 9, 0),
+                new GregorianCalendar(2019, 10, 4, 11, 0)), "LT", "");
+        assertThrows(IllegalStateException.class,
+                () -> g.rimuoviScadute(new GregorianCalendar(2019, 10, 4)));
+        assertThrows(NullPointerException.class, () -> g.attivaScadenze(null));
+        assertTrue(g.attivaScadenze(new GregorianCalendar(2019, 10, 4, 8, 0)));
+        assertFalse(g.attivaScadenze(new GregorianCalendar(2019, 10, 4, 8, 0)));
+        FeedPrenotazioni f = g.creaFeed(16, FeedPrenotazioni.Politica.SCOLLEGA);
+        FeedPrenotazioni.Sottoscrittore s = f.sottoscrivi();
+        Aula b = new Aula("LB1", "Polo Lodovici Edificio B");
+        g.addAula(b);
+        TimeSlot ts = new TimeSlot(new GregorianCalendar(2019, 10, 4, 10, 0),
+                new GregorianCalendar(2019, 10, 4, 12, 30));
+        b.addPrenotazione(ts, "LT", "");
+        // Una prenotazione cancellata e poi aggiunta di nuovo scade una volta
+        TimeSlot ts2 = new TimeSlot(new GregorianCalendar(2019, 10, 5, 10, 0),
+                new GregorianCalendar(2019, 10, 5, 12, 0));
+        a.addPrenotazione(ts2, "LT", "");
+        assertEquals(3, g.scadenzeProgrammate());
+        a.removePrenotazione(new Prenotazione(a, ts2, "", ""));
+        // La cancellazione toglie la prenotazione anche dalla ruota
+        assertEquals(2, g.scadenzeProgrammate());
+        a.addPrenotazione(ts2, "MC", "");
+        assertEquals(0, g.rimuoviScadute(new GregorianCalendar(2019, 10, 4, 10, 59)));
+        assertEquals(1, g.rimuoviScadute(new GregorianCalendar(2019, 10, 4, 11, 0)));
+        assertEquals(1, a.getPrenotazioni().size());
+        assertEquals(1, g.rimuoviScadute(new GregorianCalendar(2019, 10, 5, 0, 0)));
+        assertTrue(b.getPrenotazioni().isEmpty());
+        assertEquals(1, g.rimuoviScadute(new GregorianCalendar(2019, 11, 1)));
+        assertTrue(a.getPrenotazioni().isEmpty());
+        assertEquals(0, g.scadenzeProgrammate());
+        List<EventoPrenotazione> eventi = new ArrayList<EventoPrenotazione>();
+        s.drena(eventi, 10);
+        assertEquals(EventoPrenotazione.Tipo.SCADENZA, eventi.get(eventi.size() - 1).getTipo());
+        assertEquals("MC", eventi.get(eventi.size() - 1).getPrenotazione().getDocente());
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.GestoreAule#addPrenotazioni(java.util.List)}.
+     */
+    @Test
+    final void testAddPrenotazioni() {
+        GestoreAule g = new GestoreAule();
+        Aula a = new Aula("LA1", "Polo Lodovici Piano Terra");
+        Aula b = new Aula("LB1", "Polo Lodovici Edificio B");
+        g.addAula(a);
+        g.addAula(b);
+        TimeSlot ts = new TimeSlot(new GregorianCalendar(2019, 10, 4, 9, 0),
+                new GregorianCalendar(2019, 10, 4, 11, 0));
+        TimeSlot ts2 = new TimeSlot(new GregorianCalendar(2019, 10, 4, 10, 0),
+                new GregorianCalendar(2019, 10, 4, 12, 0));
+        assertThrows(NullPointerException.class, () -> g.addPrenotazioni(null));
+        assertThrows(NullPointerException.class,
+                () -> g.addPrenotazioni(Arrays.asList(new Prenotazione(a, ts, "LT", "Esame"), null)));
+        assertThrows(IllegalArgumentException.class, () -> g.addPrenotazioni(Arrays.asList(
+                new Prenotazione(new Aula("LC1", ""), ts, "LT", "Esame"))));
+        // Due prenotazioni sovrapposte nella stessa richiesta
+        assertThrows(IllegalArgumentException.class, () -> g.addPrenotazioni(Arrays.asList(
+                new Prenotazione(a, ts, "LT", "Esame"), new Prenotazione(b, ts, "LT", "Esame"),
+                new Prenotazione(a, ts2, "LT", "Esame"))));
+        assertTrue(a.getPrenotazioni().isEmpty());
+        assertTrue(b.getPrenotazioni().isEmpty());
+        g.addPrenotazioni(Arrays.asList(new Prenotazione(b, ts, "LT", "Esame"),
+                new Prenotazione(a, ts, "LT", "Esame")));
+        assertEquals(1, a.getPrenotazioni().size());
+        assertEquals("Esame", b.getPrenotazioni().first().getMotivo());
+        // Sovrapposizione con una prenotazione esistente: nessuna aggiunta
+        Aula c = new Aula("LC1", "");
+        g.addAula(c);
+        assertThrows(IllegalArgumentException.class, () -> g.addPrenotazioni(Arrays.asList(
+                new Prenotazione(c, ts2, "MC", ""), new Prenotazione(b, ts2, "MC", ""))));
+        assertTrue(c.getPrenotazioni().isEmpty());
+        // Le richieste su copie di un'aula gestita prenotano l'aula gestita,
+        // e due copie con lo stesso nome sono controllate insieme
+        Aula copia1 = new Aula("LC1", "");
+        Aula copia2 = new Aula("LC1", "");
+        TimeSlot ts4 = new TimeSlot(new GregorianCalendar(2019, 10, 6, 9, 0),
+                new GregorianCalendar(2019, 10, 6, 11, 0));
+        assertThrows(IllegalArgumentException.class, () -> g.addPrenotazioni(Arrays.asList(
+                new Prenotazione(copia1, ts2, "MC", ""), new Prenotazione(copia2, ts, "MC", ""))));
+        g.addPrenotazioni(Arrays.asList(new Prenotazione(copia1, ts4, "MC", "")));
+        assertEquals(1, c.getPrenotazioni().size());
+        assertTrue(copia1.getPrenotazioni().isEmpty());
+        assertSame(c, c.getPrenotazioni().first().getAula());
+        assertThrows(IllegalArgumentException.class, () -> g.addPrenotazioni(Arrays.asList(
+                new Prenotazione(copia2, ts4, "RC", ""))));
+        // Un ascoltatore che fallisce non annulla la transazione: tutte le
+        // prenotazioni sono aggiunte e notificate, poi l'eccezione arriva al
+        // chiamante
+        List<Prenotazione> notificate = new ArrayList<Prenotazione>();
+        g.addAscoltatore(new AscoltatorePrenotazioni() {
+            @Override
+            public void prenotazioneAggiunta(Prenotazione p) {
+                notificate.add(p);
+                if (p.getAula().equals(b)) throw new IllegalStateException();
+            }
+
+            @Override
+            public void prenotazioneRimossa(Prenotazione p) {
+            }
+
+            @Override
+            public void prenotazioneScaduta(Prenotazione p) {
+            }
+        });
+        TimeSlot ts3 = new TimeSlot(new GregorianCalendar(2019, 10, 5, 9, 0),
+                new GregorianCalendar(2019, 10, 5, 11, 0));
+        assertThrows(IllegalStateException.class, () -> g.addPrenotazioni(Arrays.asList(
+                new Prenotazione(a, ts3, "MC", ""), new Prenotazione(c, ts3, "MC", ""),
+                new Prenotazione(b, ts3, "MC", ""))));
+        assertEquals(2, a.getPrenotazioni().size());
+        assertEquals(2, b.getPrenotazioni().size());
+        assertEquals(2, c.getPrenotazioni().size());
+        assertEquals(3, notificate.size());
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.GestoreAule#addPrenotazioni(java.util.List)}.
+     */
+    @Test
+    final void testAddPrenotazioniConcorrenti() throws InterruptedException {
+        GestoreAule g = new GestoreAule();
+        List<Aula> aule = new ArrayList<Aula>();
+        for (int i = 0; i < 6; i++) {
+            Aula a = new Aula("LA" + i, "Polo Lodovici");
+            aule.add(a);
+            g.addAula(a);
+        }
+        AtomicInteger riuscite = new AtomicInteger();
+        AtomicInteger aggiunte = new AtomicInteger();
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 4; t++) {
+            Random random = new Random(t);
+            threads.add(new Thread(() -> {
+                for (int n = 0; n < 300; n++) {
+                    // Da due a quattro aule in ordine casuale, stesso orario
+                    List<Aula> scelte = new ArrayList<Aula>(aule);
+                    Collections.shuffle(scelte, random);
+                    int giorno = 1 + random.nextInt(5);
+                    int ora = 8 + random.nextInt(10);
+                    TimeSlot ts = new TimeSlot(new GregorianCalendar(2019, 10, giorno, ora, 0),
+                            new GregorianCalendar(2019, 10, giorno, ora + 1 + random.nextInt(2), 0));
+                    List<Prenotazione> richieste = new ArrayList<Prenotazione>();
+                    for (Aula a : scelte.subList(0, 2 + random.nextInt(3))) {
+                        richieste.add(new Prenotazione(a, ts, "Docente", "Esame"));
+                    }
+                    try {
+                        g.addPrenotazioni(richieste);
+                        riuscite.incrementAndGet();
+                        aggiunte.addAndGet(richieste.size());
+                    } catch (IllegalArgumentException e) {
+                        // Aule già occupate
+                    }
+                }
+            }));
+        }
+        // Un thread prenota le aule singolarmente, con i metodi dell'aula
+        threads.add(new Thread(() -> {
+            Random random = new Random(9);
+            for (int n = 0; n < 600; n++) {
+                Aula a = aule.get(random.nextInt(aule.size()));
+                int giorno = 1 + random.nextInt(5);
+                int ora = 8 + random.nextInt(10);
+                try {
+                    a.addPrenotazione(new TimeSlot(new GregorianCalendar(2019, 10, giorno, ora, 0),
+                            new GregorianCalendar(2019, 10, giorno, ora + 1, 0)), "Docente", "Lezione");
+                    aggiunte.incrementAndGet();
+                } catch (IllegalArgumentException e) {
+                    // Aula già occupata
+                }
+            }
+        }));
+        for (Thread t : threads) t.start();
+        for (Thread t : threads) t.join();
+        assertTrue(riuscite.get() > 0);
+        int totale = 0;
+        for (Aula a : aule) {
+            List<Prenotazione> ps = new ArrayList<Prenotazione>(a.getPrenotazioni());
+            totale += ps.size();
+            for (int i = 0; i < ps.size(); i++) {
+                for (int j = i + 1; j < ps.size(); j++) {
+                    assertFalse(ps.get(i).getTimeSlot().overlapsWith(ps.get(j).getTimeSlot()));
+                }
+            }
+        }
+        assertEquals(aggiunte.get(), totale);
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.GestoreAule#cercaAuleLibere(java.util.Set, it.unicam.cs.asdl1920.mp1.TimeSlot)}
+     * mentre altri thread modificano le aule.
+     */
+    @Test
+    final void testLettureConcorrenti() throws InterruptedException {
+        GestoreAule g = new GestoreAule();
+        List<Aula> aule = new ArrayList<Aula>();
+        for (int i = 0; i < 2; i++) {
+            Aula a = new Aula("LA" + i, "Polo Lodovici");
+            // Una prenotazione che resta per tutta la prova
+            a.addPrenotazione(new TimeSlot(new GregorianCalendar(2019, 10, 30, 8, 0),
+                    new GregorianCalendar(2019, 10, 30, 9, 0)), "Docente", "Fissa");
+            aule.add(a);
+            g.addAula(a);
+        }
+        TimeSlot fisso = new TimeSlot(new GregorianCalendar(2019, 10, 30, 8, 15),
+                new GregorianCalendar(2019, 10, 30, 8, 45));
+        AtomicInteger finiti = new AtomicInteger();
+        List<String> errori = Collections.synchronizedList(new ArrayList<String>());
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 2; t++) {
+            Random random = new Random(t);
+            threads.add(new Thread(() -> {
+                List<Prenotazione> fatte = new ArrayList<Prenotazione>();
+                for (int n = 0; n < 3000; n++) {
+                    if (!fatte.isEmpty() && random.nextInt(3) == 0) {
+                        Prenotazione p = fatte.remove(random.nextInt(fatte.size()));
+                        for (Aula a : aule) {
+                            a.removePrenotazione(new Prenotazione(a, p.getTimeSlot(), "", ""));
+                        }
+                        continue;
+                    }
+                    int giorno = 1 + random.nextInt(28);
+                    int minuto = 8 * 60 + 15 * random.nextInt(44);
+                    TimeSlot ts = new TimeSlot(new GregorianCalendar(2019, 10, giorno, 0, minuto),
+                            new GregorianCalendar(2019, 10, giorno, 0, minuto + 15 + 15 * random.nextInt(8)));
+                    List<Prenotazione> richieste = new ArrayList<Prenotazione>();
+                    for (Aula a : aule) {
+                        richieste.add(new Prenotazione(a, ts, "Docente", "Esame"));
+                    }
+                    try {
+                        g.addPrenotazioni(richieste);
+                        fatte.add(richieste.get(0));
+                    } catch (IllegalArgumentException e) {
+                        // Aule già occupate
+                    }
+                }
+                finiti.incrementAndGet();
+            }));
+        }
+        for (int t = 0; t < 3; t++) {
+            Random random = new Random(10 + t);
+            threads.add(new Thread(() -> {
+                try {
+                    while (finiti.get() < 2) {
+                        if (!g.cercaAuleLibere(Collections.<Facility>emptySet(), fisso).isEmpty()) {
+                            errori.add("Aula libera durante la prenotazione fissa");
+                        }
+                        int giorno = 1 + random.nextInt(28);
+                        int ora = 8 + random.nextInt(11);
+                        g.cercaAuleLibere(Collections.<Facility>emptySet(), new TimeSlot(
+                                new GregorianCalendar(2019, 10, giorno, ora, 0),
+                                new GregorianCalendar(2019, 10, giorno, ora + 1, 0)));
+                        Prenotazione precedente = null;
+                        for (Prenotazione p : aule.get(random.nextInt(2)).getPrenotazioni()) {
+                            if (precedente != null && precedente.compareTo(p) >= 0) {
+                                errori.add("Prenotazioni fuori ordine");
+                            }
+                            precedente = p;
+                        }
+                    }
+                } catch (RuntimeException e) {
+                    errori.add(e.toString());
+                }
+            }));
+        }
+        for (Thread t : threads) t.start();
+        for (Thread t : threads) t.join();
+        assertTrue(errori.isEmpty(), errori.toString());
+        assertEquals(aule.get(0).getPrenotazioni().size(), aule.get(1).getPrenotazioni().size());
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.GestoreAule#cercaAuleLibere(java.lang.String, int, java.util.Set, it.unicam.cs.asdl1920.mp1.TimeSlot)}.
+     */
+    @Test
+    final void testCercaAuleLibereTesto() {
+        GestoreAule g = new GestoreAule();
+        Set<Facility> proiettore = new HashSet<Facility>();
+        proiettore.add(new PresenceFacility("PR", "Proiettore"));
+        Aula a = new Aula("LA1", "Polo Lodovici Piano Terra", new HashSet<Facility>(proiettore));
+        Aula b = new Aula("LB1", "Polo Lodovici Edificio B", new HashSet<Facility>(proiettore));
+        Aula c = new Aula("AA1", "Polo Lodovici Piano Terra");
+        Aula d = new Aula("Aula Magna", "Rettorato", new HashSet<Facility>(proiettore));
+        g.addAula(a);
+        g.addAula(b);
+        g.addAula(c);
+        g.addAula(d);
+        TimeSlot ts = new TimeSlot(new GregorianCalendar(2019, 10, 4, 9, 0),
+                new GregorianCalendar(2019, 10, 4, 11, 0));
+        b.addPrenotazione(ts, "LT", "");
+        assertEquals(3, g.cercaAule("lodovici", 0).size());
+        assertEquals(3, g.cercaAule("lodovoci", 1).size());
+        Set<Aula> s = g.cercaAuleLibere("lodovoci", 1, proiettore, ts);
+        assertEquals(1, s.size());
+        assertTrue(s.contains(a));
+        assertTrue(g.cercaAuleLibere("magna", 0, new HashSet<Facility>(), ts).contains(d));
+        assertThrows(NullPointerException.class,
+                () -> g.cercaAuleLibere(null, 0, proiettore, ts));
+        assertThrows(NullPointerException.class,
+                () -> g.cercaAuleLibere("LA", 0, null, ts));
+        assertThrows(IllegalArgumentException.class,
+                () -> g.cercaAuleLibere("LA", -1, proiettore, ts));
+    }
+
 }
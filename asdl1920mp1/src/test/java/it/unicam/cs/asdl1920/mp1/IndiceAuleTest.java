@@ -0,0 +1,67 @@
+/**
+ * 
+ */
+package it.unicam.cs.asdl1920.mp1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+class IndiceAuleTest {
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.IndiceAule#aggiungi(it.unicam.cs.asdl1920.mp1.Aula)}.
+     */
+    @Test
+    final void testAggiungi() {
+        IndiceAule i = new IndiceAule();
+        assertThrows(NullPointerException.class, () -> i.aggiungi(null));
+        i.aggiungi(new Aula("LA1", "Polo Lodovici Piano Terra"));
+        i.aggiungi(new Aula("LA1", "Polo Lodovici Piano Terra"));
+        i.aggiungi(new Aula("LB1", "Polo Lodovici Edificio B"));
+        assertEquals(2, i.size());
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.IndiceAule#cerca(java.lang.String, int)}.
+     */
+    @Test
+    final void testCerca() {
+        IndiceAule i = new IndiceAule();
+        Aula la1 = new Aula("LA1", "Polo Lodovici Piano Terra");
+        Aula lb1 = new Aula("LB1", "Polo Lodovici Edificio B");
+        Aula aa = new Aula("Aula Magna", "Rettorato");
+        i.aggiungi(la1);
+        i.aggiungi(lb1);
+        i.aggiungi(aa);
+        assertThrows(NullPointerException.class, () -> i.cerca(null, 0));
+        assertThrows(IllegalArgumentException.class, () -> i.cerca("LA", -1));
+        assertEquals(3, i.cerca("", 0).size());
+        // Prefisso del nome, senza distinguere le maiuscole
+        Set<Aula> s = i.cerca("la", 0);
+        assertEquals(1, s.size());
+        assertTrue(s.contains(la1));
+        assertEquals(2, i.cerca("l", 0).size());
+        // Parole della location e del nome
+        assertEquals(2, i.cerca("lodov", 0).size());
+        assertTrue(i.cerca("magna", 0).contains(aa));
+        assertTrue(i.cerca("polo lodovici e", 0).contains(lb1));
+        assertFalse(i.cerca("polo lodovici e", 0).contains(la1));
+        // Errori di battitura
+        assertTrue(i.cerca("lodovci", 0).isEmpty());
+        assertEquals(2, i.cerca("lodovci", 1).size());
+        assertTrue(i.cerca("retorrato", 1).isEmpty());
+        assertTrue(i.cerca("retorrato", 2).contains(aa));
+        assertTrue(i.cerca("edifico", 1).contains(lb1));
+        assertTrue(i.cerca("xyz", 1).isEmpty());
+    }
+
+}
@@ -0,0 +1,72 @@
+/**
+ * 
+ */
+package it.unicam.cs.asdl1920.mp1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.GregorianCalendar;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+class InternatoreStringheTest {
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.InternatoreStringhe#interna(java.lang.String)}.
+     */
+    @Test
+    final void testInterna() {
+        String s = InternatoreStringhe.interna(new String("Polo Lodovici"));
+        assertEquals("Polo Lodovici", s);
+        assertSame(s, InternatoreStringhe.interna(new String("Polo Lodovici")));
+        assertThrows(NullPointerException.class, () -> InternatoreStringhe.interna(null));
+        // Aule e prenotazioni condividono le stringhe uguali
+        Aula a = new Aula(new String("LA1"), new String("Polo Lodovici"));
+        Aula b = new Aula(new String("LA1"), new String("Polo Lodovici"));
+        assertSame(a.getNome(), b.getNome());
+        assertSame(s, a.getLocation());
+        a.addPrenotazione(new TimeSlot(new GregorianCalendar(2019, 10, 5, 9, 0),
+                new GregorianCalendar(2019, 10, 5, 11, 0)), new String("Luca Tesei"), new String("ASD"));
+        b.addPrenotazione(new TimeSlot(new GregorianCalendar(2019, 10, 5, 9, 0),
+                new GregorianCalendar(2019, 10, 5, 11, 0)), new String("Luca Tesei"), new String("ASD"));
+        assertSame(a.getPrenotazioni().first().getDocente(), b.getPrenotazioni().first().getDocente());
+        assertSame(a.getPrenotazioni().first().getMotivo(), b.getPrenotazioni().first().getMotivo());
+        // Anche le prenotazioni caricate da un archivio colonnare
+        Aula c = new Aula("LA2", "Polo Lodovici");
+        PrenotazioniColonnari d = new PrenotazioniColonnari(c, new DizionarioStringhe());
+        d.addPrenotazione(new TimeSlot(new GregorianCalendar(2019, 10, 5, 9, 0),
+                new GregorianCalendar(2019, 10, 5, 11, 0)), new String("Luca Tesei"), "ASD");
+        c.caricaPrenotazioni(d);
+        assertSame(a.getPrenotazioni().first().getDocente(), c.getPrenotazioni().first().getDocente());
+    }
+
+    /**
+     * Test method for {@link it.unicam.cs.asdl1920.mp1.InternatoreStringhe#size()}.
+     */
+    @Test
+    final void testSize() throws InterruptedException {
+        // Le stringhe non più usate vengono liberate
+        List<String> usate = new ArrayList<String>();
+        for (int i = 0; i < 10000; i++) {
+            usate.add(InternatoreStringhe.interna("Motivo libero " + i));
+        }
+        int piene = InternatoreStringhe.size();
+        assertTrue(piene >= 10000);
+        String tenuta = usate.get(0);
+        usate = null;
+        for (int i = 0; i < 50 && InternatoreStringhe.size() > piene - 5000; i++) {
+            System.gc();
+            Thread.sleep(20);
+        }
+        assertTrue(InternatoreStringhe.size() <= piene - 5000);
+        assertSame(tenuta, InternatoreStringhe.interna(new String("Motivo libero 0")));
+    }
+
+}
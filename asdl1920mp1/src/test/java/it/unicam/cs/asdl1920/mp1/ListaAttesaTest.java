@@ -0,0 +1,182 @@
+/**
+ * 
+ */
+package it.unicam.cs.asdl1920.mp1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.concurrent.CyclicBarrier;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+class ListaAttesaTest {
+
+    private static TimeSlot slot(int giorno, int da, int a) {
+        return new TimeSlot(new GregorianCalendar(2019, 10, giorno, da, 0),
+                new GregorianCalendar(2019, 10, giorno, a, 0));
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.ListaAttesa#accoda(it.unicam.cs.asdl1920.mp1.TimeSlot, java.lang.String, java.lang.String, int)}.
+     */
+    @Test
+    final void testAccoda() {
+        Aula a = new Aula("LA1", "Polo Lodovici Piano Terra");
+        ListaAttesa l = a.getListaAttesa();
+        assertSame(l, a.getListaAttesa());
+        assertEquals(a, l.getAula());
+        assertThrows(NullPointerException.class, () -> l.accoda(null, "LT", "", 0));
+        // Aula libera: prenotata subito
+        ListaAttesa.Attesa x = l.accoda(slot(4, 9, 11), "LT", "ASD", 0);
+        assertNotNull(x.getPrenotazione());
+        assertEquals(0, l.size());
+        assertEquals(1, a.getPrenotazioni().size());
+        ListaAttesa.Attesa y = l.accoda(slot(4, 10, 12), "MC", "PR2", 1);
+        ListaAttesa.Attesa z = l.accoda(slot(4, 9, 10), "RC", "", 5);
+        assertNull(y.getPrenotazione());
+        assertEquals(2, l.size());
+        List<ListaAttesa.Attesa> attese = l.getAttese();
+        assertSame(z, attese.get(0));
+        assertSame(y, attese.get(1));
+    }
+
+    /**
+     * Test method for {@link it.unicam.cs.asdl1920.mp1.Aula#getListaAttesa()}
+     * chiamato da più thread insieme.
+     */
+    @Test
+    final void testGetListaAttesaConcorrente() throws InterruptedException {
+        int nThread = 4;
+        CyclicBarrier partenza = new CyclicBarrier(nThread);
+        Aula[] aule = new Aula[500];
+        for (int i = 0; i < aule.length; i++)
+            aule[i] = new Aula("LA" + i, "Polo Lodovici Piano Terra");
+        ListaAttesa[][] viste = new ListaAttesa[nThread][aule.length];
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < nThread; t++) {
+            ListaAttesa[] vista = viste[t];
+            threads.add(new Thread(() -> {
+                try {
+                    partenza.await();
+                } catch (Exception e) {
+                    return;
+                }
+                for (int i = 0; i < aule.length; i++)
+                    vista[i] = aule[i].getListaAttesa();
+            }));
+        }
+        for (Thread t : threads)
+            t.start();
+        for (Thread t : threads)
+            t.join();
+        // Tutti i thread hanno ottenuto la stessa lista per ogni aula
+        for (int i = 0; i < aule.length; i++)
+            for (int t = 0; t < nThread; t++)
+                assertSame(aule[i].getListaAttesa(), viste[t][i]);
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.Aula#removePrenotazione(it.unicam.cs.asdl1920.mp1.Prenotazione)}
+     * con una lista d'attesa.
+     */
+    @Test
+    final void testPromozione() {
+        Aula a = new Aula("LA1", "Polo Lodovici Piano Terra");
+        ListaAttesa l = a.getListaAttesa();
+        a.addPrenotazione(slot(4, 9, 13), "LT", "ASD");
+        a.addPrenotazione(slot(4, 14, 16), "LT", "ASD");
+        ListaAttesa.Attesa bassa = l.accoda(slot(4, 9, 11), "MC", "", 1);
+        ListaAttesa.Attesa alta = l.accoda(slot(4, 10, 12), "RC", "", 3);
+        ListaAttesa.Attesa compatibile = l.accoda(slot(4, 12, 13), "FC", "", 0);
+        ListaAttesa.Attesa altroGiorno = l.accoda(slot(4, 15, 16), "FC", "", 9);
+        ListaAttesa.Attesa annullata = l.accoda(slot(4, 11, 13), "MR", "", 2);
+        assertTrue(l.annulla(annullata));
+        assertFalse(l.annulla(annullata));
+        assertEquals(4, l.size());
+        // Liberare 9-13 promuove la richiesta più prioritaria e quella
+        // compatibile con essa, non quella che ora si sovrappone
+        a.removePrenotazione(new Prenotazione(a, slot(4, 9, 13), "", ""));
+        assertNotNull(alta.getPrenotazione());
+        assertNotNull(compatibile.getPrenotazione());
+        // La prenotazione della richiesta è quella memorizzata nell'aula
+        assertSame(alta.getPrenotazione(), a.getPrenotazioni().tailSet(alta.getPrenotazione()).first());
+        assertNull(bassa.getPrenotazione());
+        assertNull(altroGiorno.getPrenotazione());
+        assertNull(annullata.getPrenotazione());
+        assertEquals(2, l.size());
+        assertEquals(3, a.getPrenotazioni().size());
+        // La scadenza libera l'aula come una cancellazione
+        a.removePrenotazioniBefore(new GregorianCalendar(2019, 10, 4, 10, 0));
+        assertNotNull(bassa.getPrenotazione());
+        assertEquals(1, l.size());
+        assertFalse(l.annulla(bassa));
+    }
+
+    /**
+     * Controlla che gli ascoltatori registrati dopo la lista d'attesa vedano
+     * la cancellazione prima della promozione.
+     */
+    @Test
+    final void testPromozioneConFeed() {
+        GestoreAule g = new GestoreAule();
+        Aula a = new Aula("LA1", "Polo Lodovici Piano Terra");
+        g.addAula(a);
+        a.addPrenotazione(slot(4, 9, 13), "LT", "ASD");
+        ListaAttesa l = a.getListaAttesa();
+        l.accoda(slot(4, 10, 12), "RC", "", 3);
+        FeedPrenotazioni f = g.creaFeed(16, FeedPrenotazioni.Politica.SCOLLEGA);
+        FeedPrenotazioni.Sottoscrittore s = f.sottoscrivi();
+        a.removePrenotazione(new Prenotazione(a, slot(4, 9, 13), "", ""));
+        a.removePrenotazioniBefore(new GregorianCalendar(2019, 10, 4, 10, 0));
+        List<EventoPrenotazione> eventi = new ArrayList<>();
+        s.drena(eventi, 16);
+        assertEquals(3, eventi.size());
+        assertEquals(EventoPrenotazione.Tipo.RIMOZIONE, eventi.get(0).getTipo());
+        assertEquals(slot(4, 9, 13), eventi.get(0).getPrenotazione().getTimeSlot());
+        assertEquals(EventoPrenotazione.Tipo.AGGIUNTA, eventi.get(1).getTipo());
+        assertEquals(slot(4, 10, 12), eventi.get(1).getPrenotazione().getTimeSlot());
+        assertEquals(EventoPrenotazione.Tipo.SCADENZA, eventi.get(2).getTipo());
+    }
+
+    /**
+     * Controlla che una replica applichi le promozioni della lista d'attesa
+     * e resti allineata.
+     */
+    @Test
+    final void testPromozioneConReplica() throws IOException, InterruptedException {
+        GestoreAule g = new GestoreAule();
+        Aula a = new Aula("LA1", "Polo Lodovici Piano Terra");
+        g.addAula(a);
+        ListaAttesa l = a.getListaAttesa();
+        ReplicaPrimaria p = new ReplicaPrimaria(g, 0);
+        ReplicaSecondaria r = new ReplicaSecondaria("localhost", p.getPorta());
+        try {
+            a.addPrenotazione(slot(4, 9, 13), "LT", "ASD");
+            ListaAttesa.Attesa x = l.accoda(slot(4, 10, 12), "RC", "PR2", 3);
+            a.removePrenotazione(new Prenotazione(a, slot(4, 9, 13), "", ""));
+            assertNotNull(x.getPrenotazione());
+            // Aggiunta, rimozione e promozione
+            assertTrue(r.attendiSequenza(p.getUltimaSequenza(), 5000));
+            assertNull(r.getErrore());
+            assertTrue(r.isConnessa());
+            assertEquals("RC", r.leggi(y -> y.getAula("LA1").getPrenotazioni().first().getDocente()));
+            assertFalse(r.cercaAuleLibere(Collections.<Facility>emptySet(), slot(4, 10, 11)).contains(a));
+            assertTrue(r.cercaAuleLibere(Collections.<Facility>emptySet(), slot(4, 9, 10)).contains(a));
+        } finally {
+            r.chiudi();
+            p.chiudi();
+        }
+    }
+
+}
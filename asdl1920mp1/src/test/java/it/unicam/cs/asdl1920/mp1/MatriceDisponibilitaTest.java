@@ -0,0 +1,76 @@
+/**
+ * 
+ */
+package it.unicam.cs.asdl1920.mp1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.GregorianCalendar;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+class MatriceDisponibilitaTest {
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.MatriceDisponibilita#calcola(java.util.List, java.util.List)}.
+     */
+    @Test
+    final void testCalcola() {
+        assertThrows(NullPointerException.class,
+                () -> MatriceDisponibilita.calcola(null, new ArrayList<TimeSlot>()));
+        assertThrows(NullPointerException.class, () -> MatriceDisponibilita.calcola(
+                Collections.singletonList((Aula) null), new ArrayList<TimeSlot>()));
+        // Confronto con isFree su un campus casuale, con time slot non in
+        // ordine, corti e sovrapposti fra loro
+        GeneratoreCampus c = new GeneratoreCampus(35, 40, 4, 10,
+                new GregorianCalendar(2019, 8, 2));
+        GestoreAule g = c.creaGestore();
+        Random random = new Random(35);
+        List<Aula> aule = new ArrayList<Aula>(g.getAule());
+        for (int n = 0; n < 4000; n++) {
+            Aula a = aule.get(random.nextInt(aule.size()));
+            TimeSlot ts = c.prossimoTimeSlot(random);
+            if (a.isFree(ts)) {
+                a.addPrenotazione(ts, "LT", "");
+            }
+        }
+        // Alcune aule hanno anche prenotazioni archiviate
+        int i = 0;
+        for (Aula a : g.getAule()) {
+            if (i++ % 3 == 0) a.archiviaPrenotazioniBefore(new GregorianCalendar(2019, 8, 6));
+        }
+        List<TimeSlot> slots = new ArrayList<TimeSlot>();
+        for (int n = 0; n < 150; n++) {
+            int giorno = 2 + random.nextInt(10);
+            int inizio = 8 * 60 + random.nextInt(12 * 60);
+            slots.add(new TimeSlot(new GregorianCalendar(2019, 8, giorno, 0, inizio),
+                    new GregorianCalendar(2019, 8, giorno, 0, inizio + 1 + random.nextInt(240))));
+        }
+        MatriceDisponibilita m = g.calcolaDisponibilita(slots);
+        assertEquals(40, m.getAule().size());
+        assertEquals(150, m.getTimeSlots().size());
+        for (int r = 0; r < 40; r++) {
+            Aula a = m.getAule().get(r);
+            BitSet riga = m.getRiga(r);
+            for (int col = 0; col < slots.size(); col++) {
+                assertEquals(a.isFree(slots.get(col)), m.isLibera(r, col));
+                assertEquals(m.isLibera(r, col), riga.get(col));
+            }
+            assertEquals(riga.cardinality(), m.contaLibere(r));
+        }
+        assertTrue(m.getAule().get(0).compareTo(m.getAule().get(1)) < 0);
+        assertThrows(IndexOutOfBoundsException.class, () -> m.isLibera(40, 0));
+        assertThrows(IndexOutOfBoundsException.class, () -> m.isLibera(0, 150));
+    }
+
+}
@@ -0,0 +1,93 @@
+/**
+ * 
+ */
+package it.unicam.cs.asdl1920.mp1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.GregorianCalendar;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+class NucleoSovrapposizioniTest {
+
+    private static TimeSlot slot(long start, long stop) {
+        GregorianCalendar s = new GregorianCalendar();
+        s.setTimeInMillis(start);
+        GregorianCalendar e = new GregorianCalendar();
+        e.setTimeInMillis(stop);
+        return new TimeSlot(s, e);
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.NucleoSovrapposizioni#primaSovrapposta(long[], long[], int, int, long, long)}.
+     */
+    @Test
+    final void testPrimaSovrapposta() {
+        // Intervalli casuali ordinati per inizio, anche sovrapposti fra loro,
+        // confrontati con overlapsWith
+        Random random = new Random(37);
+        long minuto = 60_000;
+        for (int prova = 0; prova < 200; prova++) {
+            int n = random.nextInt(300);
+            long[] start = new long[n];
+            long[] stop = new long[n];
+            long t = 1_570_000_000_000L;
+            for (int i = 0; i < n; i++) {
+                t += random.nextInt(60) * minuto;
+                start[i] = t;
+                stop[i] = t + (1 + random.nextInt(120)) * minuto + random.nextInt(2) * 30_000;
+            }
+            for (int q = 0; q < 20; q++) {
+                long s = 1_570_000_000_000L + random.nextInt(Math.max(1, n) * 30) * minuto;
+                long e = s + (1 + random.nextInt(90)) * minuto;
+                int atteso = -1;
+                for (int i = 0; i < n && atteso < 0; i++) {
+                    if (slot(start[i], stop[i]).overlapsWith(slot(s, e))) atteso = i;
+                }
+                assertEquals(atteso, NucleoSovrapposizioni.primaSovrapposta(start, stop, 0, n, s, e));
+            }
+        }
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.NucleoSovrapposizioni#sovrappostaFraDisgiunti(long[], long[], int, long, long)}.
+     */
+    @Test
+    final void testSovrappostaFraDisgiunti() {
+        // Intervalli più lunghi della tolleranza che si toccano al più per la
+        // tolleranza, come le prenotazioni di un'aula
+        Random random = new Random(43);
+        long minuto = 60_000;
+        for (int prova = 0; prova < 200; prova++) {
+            int n = random.nextInt(300);
+            long[] start = new long[n + 1];
+            long[] stop = new long[n + 1];
+            long t = 1_570_000_000_000L;
+            for (int i = 0; i < n; i++) {
+                start[i] = t - random.nextInt(6) * minuto;
+                stop[i] = start[i] + (6 + random.nextInt(120)) * minuto;
+                t = stop[i] + random.nextInt(30) * minuto;
+            }
+            for (int q = 0; q < 20; q++) {
+                long s = 1_570_000_000_000L + random.nextInt(Math.max(1, n) * 80) * minuto;
+                long e = s + (1 + random.nextInt(200)) * minuto;
+                boolean atteso = false;
+                for (int i = 0; i < n; i++) {
+                    atteso |= slot(start[i], stop[i]).overlapsWith(slot(s, e));
+                }
+                int i = NucleoSovrapposizioni.sovrappostaFraDisgiunti(start, stop, n, s, e);
+                assertEquals(atteso, i >= 0);
+                if (i >= 0) assertTrue(slot(start[i], stop[i]).overlapsWith(slot(s, e)));
+            }
+        }
+    }
+
+}
@@ -0,0 +1,173 @@
+/**
+ * 
+ */
+package it.unicam.cs.asdl1920.mp1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.GregorianCalendar;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.TimeZone;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+class PrenotazioniColonnariTest {
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.PrenotazioniColonnari#addPrenotazione(it.unicam.cs.asdl1920.mp1.TimeSlot, java.lang.String, java.lang.String)}.
+     */
+    @Test
+    final void testAddPrenotazione() {
+        Aula a = new Aula("LA1", "Polo Lodovici Piano Terra");
+        assertThrows(NullPointerException.class,
+                () -> new PrenotazioniColonnari(a, null));
+        PrenotazioniColonnari c = new PrenotazioniColonnari(a,
+                new DizionarioStringhe());
+        TimeSlot ts1 = new TimeSlot(new GregorianCalendar(2019, 10, 4, 11, 0),
+                new GregorianCalendar(2019, 10, 4, 13, 0));
+        TimeSlot ts2 = new TimeSlot(new GregorianCalendar(2019, 10, 4, 14, 0),
+                new GregorianCalendar(2019, 10, 4, 16, 0));
+        TimeSlot ts3 = new TimeSlot(new GregorianCalendar(2019, 10, 4, 12, 55),
+                new GregorianCalendar(2019, 10, 4, 14, 5));
+        assertThrows(NullPointerException.class,
+                () -> c.addPrenotazione(ts1, null, "Lezione ASDL"));
+        c.addPrenotazione(ts2, "Luca Tesei", "Lezione ASDL");
+        c.addPrenotazione(ts1, "Luca Tesei", "Lezione ASDL");
+        c.addPrenotazione(ts3, "Luca Tesei", "Pranzo");
+        assertEquals(3, c.size());
+        assertEquals(new Prenotazione(a, ts1, "", ""), c.get(0));
+        assertEquals(new Prenotazione(a, ts3, "", ""), c.get(1));
+        assertEquals("Pranzo", c.get(1).getMotivo());
+        assertThrows(IllegalArgumentException.class,
+                () -> c.addPrenotazione(new TimeSlot(
+                        new GregorianCalendar(2019, 10, 4, 10, 0),
+                        new GregorianCalendar(2019, 10, 4, 12, 0)), "LT", ""));
+        assertThrows(IndexOutOfBoundsException.class, () -> c.get(3));
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.PrenotazioniColonnari#getZona()}.
+     */
+    @Test
+    final void testGetZona() {
+        // I calendari restituiti hanno il fuso dell'archivio, non quello di
+        // default
+        TimeZone tokyo = TimeZone.getTimeZone("Asia/Tokyo");
+        GregorianCalendar s = new GregorianCalendar(tokyo);
+        s.clear();
+        s.set(2019, 10, 4, 11, 0);
+        GregorianCalendar e = (GregorianCalendar) s.clone();
+        e.add(GregorianCalendar.HOUR_OF_DAY, 2);
+        Aula a = new Aula("LA1", "Polo Lodovici Piano Terra");
+        PrenotazioniColonnari c = new PrenotazioniColonnari(a, new DizionarioStringhe());
+        assertNull(c.getZona());
+        c.addPrenotazione(new TimeSlot(s, e), "LT", "");
+        assertEquals(tokyo.getID(), c.getZona().getID());
+        assertEquals(11, c.get(0).getTimeSlot().getStart().get(GregorianCalendar.HOUR_OF_DAY));
+        assertNull(PrenotazioniColonnari.da(a, new DizionarioStringhe()).getZona());
+        a.addPrenotazione(new TimeSlot(s, e), "LT", "");
+        assertEquals(tokyo.getID(), PrenotazioniColonnari.da(a, new DizionarioStringhe())
+                .get(0).getTimeSlot().getStart().getTimeZone().getID());
+        TimeZone utc = TimeZone.getTimeZone("UTC");
+        PrenotazioniColonnari u = new PrenotazioniColonnari(a, new DizionarioStringhe(), utc);
+        u.addPrenotazione(new TimeSlot(s, e), "LT", "");
+        assertEquals(2, u.get(0).getTimeSlot().getStart().get(GregorianCalendar.HOUR_OF_DAY));
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.PrenotazioniColonnari#isFree(it.unicam.cs.asdl1920.mp1.TimeSlot)}.
+     * Confronta l'archivio con un'aula su sequenze casuali di time slot.
+     */
+    @Test
+    final void testIsFree() {
+        Random r = new Random(11);
+        Aula a = new Aula("LA1", "Polo Lodovici Piano Terra");
+        PrenotazioniColonnari c = new PrenotazioniColonnari(a,
+                new DizionarioStringhe());
+        assertThrows(NullPointerException.class, () -> c.isFree(null));
+        // L'aula considera uguali due time slot con lo stesso inizio, quindi
+        // non si aggiungono prenotazioni con inizi ripetuti
+        Set<Integer> inizi = new HashSet<Integer>();
+        for (int i = 0; i < 3000; i++) {
+            // Minuti casuali in una giornata, anche con slot corti
+            int inizio = r.nextInt(600);
+            int durata = 1 + r.nextInt(i % 2 == 0 ? 8 : 90);
+            TimeSlot ts = new TimeSlot(
+                    new GregorianCalendar(2019, 10, 4, 8, inizio),
+                    new GregorianCalendar(2019, 10, 4, 8, inizio + durata));
+            boolean libera = a.isFree(ts);
+            assertEquals(libera, c.isFree(ts));
+            if (libera && r.nextBoolean() && inizi.add(inizio)) {
+                a.addPrenotazione(ts, "LT", "");
+                c.addPrenotazione(ts, "LT", "");
+            }
+        }
+        assertEquals(a.getPrenotazioni(), c.getPrenotazioni());
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.PrenotazioniColonnari#removePrenotazione(it.unicam.cs.asdl1920.mp1.Prenotazione)}.
+     */
+    @Test
+    final void testRemovePrenotazione() {
+        Aula a = new Aula("LA1", "Polo Lodovici Piano Terra");
+        TimeSlot ts1 = new TimeSlot(new GregorianCalendar(2019, 10, 4, 11, 0),
+                new GregorianCalendar(2019, 10, 4, 13, 0));
+        a.addPrenotazione(ts1, "Luca Tesei", "Lezione ASDL");
+        PrenotazioniColonnari c = PrenotazioniColonnari.da(a,
+                new DizionarioStringhe());
+        assertThrows(NullPointerException.class,
+                () -> c.removePrenotazione(null));
+        assertFalse(c.removePrenotazione(
+                new Prenotazione(new Aula("LA2", ""), ts1, "", "")));
+        assertTrue(c.removePrenotazione(new Prenotazione(a, ts1, "", "")));
+        assertFalse(c.removePrenotazione(new Prenotazione(a, ts1, "", "")));
+        assertEquals(0, c.size());
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.PrenotazioniColonnari#removePrenotazioniBefore(java.util.GregorianCalendar)}.
+     * Carica un anno di prenotazioni e controlla anche l'occupazione di
+     * memoria per prenotazione.
+     */
+    @Test
+    final void testRemovePrenotazioniBefore() {
+        Aula a = new Aula("LA1", "Polo Lodovici Piano Terra");
+        PrenotazioniColonnari c = new PrenotazioniColonnari(a,
+                new DizionarioStringhe());
+        assertThrows(NullPointerException.class,
+                () -> c.removePrenotazioniBefore(null));
+        for (int mese = 0; mese <= 11; mese++)
+            for (int giorno = 1; giorno <= 28; giorno++)
+                for (int ora = 8; ora <= 16; ora += 2) {
+                    c.addPrenotazione(new TimeSlot(
+                            new GregorianCalendar(2019, mese, giorno, ora, 0),
+                            new GregorianCalendar(2019, mese, giorno, ora + 2, 0)),
+                            "LT", "Pippo");
+                }
+        assertEquals(12 * 28 * 5, c.size());
+        c.trimToSize();
+        assertTrue(c.stimaByte() / c.size() <= 32);
+        assertTrue(c.removePrenotazioniBefore(
+                new GregorianCalendar(2019, 0, 1, 16, 0)));
+        assertEquals(12 * 28 * 5 - 5, c.size());
+        assertTrue(c.isFree(new TimeSlot(new GregorianCalendar(2019, 0, 1, 8, 0),
+                new GregorianCalendar(2019, 0, 1, 18, 0))));
+        assertFalse(c.isFree(new TimeSlot(new GregorianCalendar(2019, 0, 2, 8, 0),
+                new GregorianCalendar(2019, 0, 2, 10, 0))));
+        assertFalse(c.removePrenotazioniBefore(
+                new GregorianCalendar(2019, 0, 1, 16, 0)));
+    }
+
+}
@@ -0,0 +1,185 @@
+/**
+ * 
+ */
+package it.unicam.cs.asdl1920.mp1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.GregorianCalendar;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+class ReplicaSecondariaTest {
+
+    private static TimeSlot slot(int giorno, int da, int a) {
+        return new TimeSlot(new GregorianCalendar(2019, 10, giorno, da, 0),
+                new GregorianCalendar(2019, 10, giorno, a, 0));
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.ReplicaSecondaria#cercaAuleLibere(java.util.Set, it.unicam.cs.asdl1920.mp1.TimeSlot)}.
+     */
+    @Test
+    final void testCercaAuleLibere() throws IOException, InterruptedException {
+        GestoreAule g = new GestoreAule();
+        Set<Facility> facilities = new HashSet<>();
+        facilities.add(new QuantitativeFacility("PS", "Posti a sedere", 60));
+        facilities.add(new PresenceFacility("PR", "Proiettore"));
+        Aula a1 = new Aula("LA1", "Polo Lodovici", facilities);
+        g.addAula(a1);
+        a1.addPrenotazione(slot(5, 9, 11), "LT", "ASD");
+        ReplicaPrimaria p = new ReplicaPrimaria(g, 0);
+        Aula a2 = new Aula("LA2", "Polo Lodovici");
+        g.addAula(a2);
+        a2.addPrenotazione(slot(5, 10, 12), "MC", "PR2");
+        a1.addPrenotazione(slot(6, 9, 11), "LT", "ASD");
+        ReplicaSecondaria r = new ReplicaSecondaria("localhost", p.getPorta());
+        try {
+            assertTrue(r.attendiSequenza(p.getUltimaSequenza(), 5000));
+            assertEquals(5, r.getUltimaSequenzaApplicata());
+            Set<Aula> libere = r.cercaAuleLibere(Collections.<Facility>emptySet(), slot(5, 9, 10));
+            assertEquals(1, libere.size());
+            assertTrue(libere.contains(a2));
+            Set<Facility> richieste = new HashSet<>();
+            richieste.add(new QuantitativeFacility("PS", "", 40));
+            assertTrue(r.cercaAuleLibere(richieste, slot(5, 12, 13)).contains(a1));
+            assertEquals(2, (int) r.leggi(x -> x.getAula("LA1").getPrenotazioni().size()));
+            // Cancellazioni e scadenze arrivano come rimozioni
+            a1.removePrenotazione(new Prenotazione(a1, slot(5, 9, 11), "LT", "ASD"));
+            a2.removePrenotazioniBefore(new GregorianCalendar(2019, 10, 6));
+            assertTrue(r.attendiSequenza(7, 5000));
+            assertEquals(2, r.cercaAuleLibere(Collections.<Facility>emptySet(), slot(5, 9, 12)).size());
+            assertEquals(0, r.getRitardoOperazioni());
+            assertTrue(r.isConnessa());
+            assertNull(r.getErrore());
+            assertThrows(NullPointerException.class, () -> r.leggi(null));
+        } finally {
+            r.chiudi();
+            p.chiudi();
+        }
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.ReplicaSecondaria#ReplicaSecondaria(java.lang.String, int)}
+     * con un primario che ha troncato il log.
+     */
+    @Test
+    final void testStatoETroncamento() throws IOException, InterruptedException {
+        GestoreAule g = new GestoreAule();
+        List<Aula> aule = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            Aula a = new Aula("LA" + i, "Polo Lodovici");
+            a.addFacility(new PresenceFacility("PR", "Proiettore"));
+            aule.add(a);
+            g.addAula(a);
+        }
+        ReplicaPrimaria p = new ReplicaPrimaria(g, 0);
+        Random random = new Random(30);
+        // Senza repliche collegate il primario ingloba tutto il log
+        opera(p, aule, random, 5000);
+        assertTrue(p.getRecordNelLog() < ReplicaPrimaria.SOGLIA_TRONCAMENTO);
+        ReplicaSecondaria r1 = new ReplicaSecondaria("localhost", p.getPorta());
+        ReplicaSecondaria r2 = null;
+        try {
+            assertTrue(r1.attendiSequenza(p.getUltimaSequenza(), 5000));
+            assertStessoStato(g, r1);
+            // Con una replica collegata il primario ingloba solo quello che
+            // la replica ha confermato, dopo il battito
+            Thread.sleep(3 * ReplicaPrimaria.INTERVALLO_BATTITO);
+            long confermata = p.getUltimaSequenza();
+            opera(p, aule, random, confermata + ReplicaPrimaria.SOGLIA_TRONCAMENTO);
+            assertTrue(p.getUltimaSequenza() - p.getRecordNelLog() >= confermata);
+            r2 = new ReplicaSecondaria("localhost", p.getPorta());
+            assertTrue(r1.attendiSequenza(p.getUltimaSequenza(), 5000));
+            assertTrue(r2.attendiSequenza(p.getUltimaSequenza(), 5000));
+            assertStessoStato(g, r1);
+            assertStessoStato(g, r2);
+            assertNull(r1.getErrore());
+            assertNull(r2.getErrore());
+        } finally {
+            r1.chiudi();
+            if (r2 != null) r2.chiudi();
+            p.chiudi();
+        }
+    }
+
+    // Prenota e cancella a caso finché il log del primario raggiunge una
+    // sequenza
+    private static void opera(ReplicaPrimaria p, List<Aula> aule, Random random, long sequenza) {
+        while (p.getUltimaSequenza() < sequenza) {
+            Aula a = aule.get(random.nextInt(aule.size()));
+            int giorno = 1 + random.nextInt(28);
+            int ora = 8 + random.nextInt(10);
+            TimeSlot ts = slot(giorno, ora, ora + 1 + random.nextInt(2));
+            if (a.isFree(ts)) {
+                a.addPrenotazione(ts, "Docente" + random.nextInt(50), "Lezione");
+            } else if (!a.getPrenotazioni().isEmpty()) {
+                a.removePrenotazione(a.getPrenotazioni().first());
+            }
+        }
+    }
+
+    private static void assertStessoStato(GestoreAule g, ReplicaSecondaria r) {
+        for (Aula a : g.getAule()) {
+            List<String> attese = new ArrayList<>();
+            for (Prenotazione x : a.getPrenotazioni()) {
+                attese.add(x.getTimeSlot() + x.getDocente() + x.getMotivo());
+            }
+            List<String> replicate = r.leggi(x -> {
+                List<String> l = new ArrayList<>();
+                for (Prenotazione y : x.getAula(a.getNome()).getPrenotazioni()) {
+                    l.add(y.getTimeSlot() + y.getDocente() + y.getMotivo());
+                }
+                return l;
+            });
+            assertEquals(attese, replicate);
+            assertEquals(a.getFacilities(), r.leggi(x -> x.getAula(a.getNome()).getFacilities()));
+        }
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.ReplicaSecondaria#getRitardoOperazioni()}.
+     */
+    @Test
+    final void testGetRitardo() throws IOException, InterruptedException {
+        GestoreAule g = new GestoreAule();
+        ReplicaPrimaria p = new ReplicaPrimaria(g, 0);
+        ReplicaSecondaria r = new ReplicaSecondaria("localhost", p.getPorta());
+        try {
+            Aula a = new Aula("LA1", "");
+            g.addAula(a);
+            for (int i = 1; i <= 20; i++) {
+                a.addPrenotazione(slot(i, 9, 11), "LT", "");
+            }
+            assertTrue(r.attendiSequenza(21, 5000));
+            assertFalse(r.attendiSequenza(22, 50));
+            // Dopo un battito la replica sa di essere allineata
+            Thread.sleep(3 * ReplicaPrimaria.INTERVALLO_BATTITO);
+            assertEquals(0, r.getRitardoOperazioni());
+            assertEquals(0, r.getRitardoMillis());
+            p.chiudi();
+            assertFalse(r.attendiSequenza(22, 5000));
+            assertFalse(r.isConnessa());
+            // Lo stato replicato resta leggibile
+            assertEquals(20, (int) r.leggi(x -> x.getAula("LA1").getPrenotazioni().size()));
+        } finally {
+            r.chiudi();
+            p.chiudi();
+        }
+    }
+
+}
@@ -0,0 +1,75 @@
+/**
+ *
+ */
+package it.unicam.cs.asdl1920.mp1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+class RiepilogoOccupazioneTest {
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.RiepilogoOccupazione#sicuramenteOccupata(long, long)}.
+     */
+    @Test
+    final void testSicuramenteOccupata() {
+        // Aggiunge e toglie intervalli casuali, confrontando il riepilogo con
+        // lo stesso calcolo fatto su una mappa
+        Random random = new Random(41);
+        long periodo = RiepilogoOccupazione.PERIODO;
+        long tolleranza = TimeSlot.MINUTES_OF_TOLERANCE_FOR_OVERLAPPING * 60_000L;
+        long minuto = 60_000;
+        RiepilogoOccupazione r = new RiepilogoOccupazione();
+        Map<Long, long[]> atteso = new HashMap<>();
+        List<long[]> fatti = new ArrayList<>();
+        for (int n = 0; n < 5000; n++) {
+            if (fatti.isEmpty() || random.nextInt(3) > 0) {
+                long s = 1_570_000_000_000L + random.nextInt(20_000) * minuto;
+                long[] x = { s, s + (1 + random.nextInt(240)) * minuto };
+                fatti.add(x);
+                r.aggiorna(x[0], x[1], 1);
+                aggiorna(atteso, x, 1);
+            } else {
+                long[] x = fatti.remove(random.nextInt(fatti.size()));
+                r.aggiorna(x[0], x[1], -1);
+                aggiorna(atteso, x, -1);
+            }
+            assertEquals(atteso.size(), r.size());
+            long s = 1_570_000_000_000L + random.nextInt(20_000) * minuto;
+            long e = s + (1 + random.nextInt(n % 10 == 0 ? 100_000 : 240)) * minuto;
+            boolean occupata = false;
+            for (Map.Entry<Long, long[]> v : atteso.entrySet()) {
+                long i = v.getKey();
+                occupata |= i * periodo >= s && (i + 1) * periodo <= e
+                        && v.getValue()[0] > tolleranza * v.getValue()[1];
+            }
+            assertEquals(occupata, r.sicuramenteOccupata(s, e));
+        }
+        for (long[] x : fatti) {
+            r.aggiorna(x[0], x[1], -1);
+        }
+        assertEquals(0, r.size());
+    }
+
+    private static void aggiorna(Map<Long, long[]> m, long[] x, int segno) {
+        long periodo = RiepilogoOccupazione.PERIODO;
+        for (long i = x[0] / periodo; i <= (x[1] - 1) / periodo; i++) {
+            long[] o = m.computeIfAbsent(i, k -> new long[2]);
+            o[0] += segno * (Math.min(x[1], (i + 1) * periodo) - Math.max(x[0], i * periodo));
+            o[1] += segno;
+            if (o[1] == 0) m.remove(i);
+        }
+    }
+}
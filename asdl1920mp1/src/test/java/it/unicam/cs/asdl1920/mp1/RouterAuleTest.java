@@ -0,0 +1,97 @@
+/**
+ * 
+ */
+package it.unicam.cs.asdl1920.mp1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.GregorianCalendar;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+class RouterAuleTest {
+
+    private static TimeSlot slot(int giorno, int da, int a) {
+        return new TimeSlot(new GregorianCalendar(2019, 10, giorno, da, 0),
+                new GregorianCalendar(2019, 10, giorno, a, 0));
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.RouterAule#cercaAuleLibere(java.util.Set, it.unicam.cs.asdl1920.mp1.TimeSlot)}.
+     */
+    @Test
+    final void testCercaAuleLibere() throws IOException {
+        ShardAule[] shard = { new ShardAule(0), new ShardAule(0), new ShardAule(0) };
+        RouterAule r = new RouterAule(RouterAule.Partizionamento.NOME, shard[0].getPorta(),
+                shard[1].getPorta(), shard[2].getPorta());
+        try {
+            Set<Facility> proiettore = new HashSet<>();
+            proiettore.add(new PresenceFacility("PR", "Proiettore"));
+            for (int i = 0; i < 30; i++) {
+                assertTrue(r.addAula(new Aula("A" + i, "Polo " + i % 4,
+                        i % 2 == 0 ? proiettore : Collections.<Facility>emptySet())));
+            }
+            assertFalse(r.addAula(new Aula("A0", "Polo 0")));
+            int totale = 0;
+            int[] numeri = r.getNumeroAulePerShard();
+            for (int i = 0; i < shard.length; i++) {
+                assertEquals(shard[i].getNumeroAule(), numeri[i]);
+                assertTrue(numeri[i] > 0);
+                totale += numeri[i];
+            }
+            assertEquals(30, totale);
+            r.addPrenotazione("A1", slot(5, 9, 11), "LT", "ASD");
+            r.addPrenotazione("A2", slot(5, 10, 12), "MC", "PR2");
+            assertThrows(IllegalArgumentException.class,
+                    () -> r.addPrenotazione("A1", slot(5, 10, 11), "LT", "ASD"));
+            assertThrows(IllegalArgumentException.class,
+                    () -> r.addPrenotazione("X", slot(5, 10, 11), "LT", "ASD"));
+            Set<Aula> libere = r.cercaAuleLibere(Collections.<Facility>emptySet(), slot(5, 10, 11));
+            assertEquals(28, libere.size());
+            assertFalse(libere.contains(new Aula("A1", "")));
+            assertFalse(libere.contains(new Aula("A2", "")));
+            assertEquals(14, r.cercaAuleLibere(proiettore, slot(5, 10, 11)).size());
+            assertTrue(r.removePrenotazione("A1", slot(5, 9, 11)));
+            assertFalse(r.removePrenotazione("A1", slot(5, 9, 11)));
+            assertEquals(29, r.cercaAuleLibere(Collections.<Facility>emptySet(), slot(5, 10, 11)).size());
+            assertThrows(NullPointerException.class, () -> r.cercaAuleLibere(null, slot(5, 9, 10)));
+        } finally {
+            r.chiudi();
+            for (ShardAule s : shard) {
+                s.chiudi();
+            }
+        }
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.RouterAule#avviaProcessi(it.unicam.cs.asdl1920.mp1.RouterAule.Partizionamento, int)}.
+     */
+    @Test
+    final void testAvviaProcessi() throws IOException {
+        RouterAule r = RouterAule.avviaProcessi(RouterAule.Partizionamento.LOCATION, 2);
+        try {
+            assertEquals(2, r.getNumeroShard());
+            for (int i = 0; i < 10; i++) {
+                Aula a = new Aula("A" + i, "Polo " + i % 3);
+                r.addAula(a);
+                assertEquals(r.shardDi(new Aula("B", "Polo " + i % 3)), r.shardDi(a));
+            }
+            r.addPrenotazione("A4", slot(5, 9, 11), "LT", "ASD");
+            assertThrows(IllegalArgumentException.class,
+                    () -> r.addPrenotazione("B", slot(5, 9, 11), "LT", "ASD"));
+            assertEquals(9, r.cercaAuleLibere(Collections.<Facility>emptySet(), slot(5, 10, 11)).size());
+        } finally {
+            r.chiudi();
+        }
+    }
+}
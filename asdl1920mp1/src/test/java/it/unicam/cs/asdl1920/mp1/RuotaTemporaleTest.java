@@ -0,0 +1,134 @@
+/**
+ * 
+ */
+package it.unicam.cs.asdl1920.mp1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+class RuotaTemporaleTest {
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.RuotaTemporale#RuotaTemporale(long, long)}.
+     */
+    @Test
+    final void testRuotaTemporale() {
+        assertThrows(IllegalArgumentException.class, () -> new RuotaTemporale<String>(0, 0));
+        RuotaTemporale<String> r = new RuotaTemporale<>(1000, 12_345);
+        assertEquals(12_000, r.getIstante());
+        assertEquals(0, r.size());
+        assertThrows(NullPointerException.class, () -> r.programma(0, null));
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.RuotaTemporale#avanzaFinoA(long)}.
+     */
+    @Test
+    final void testAvanzaFinoA() {
+        RuotaTemporale<String> r = new RuotaTemporale<>(1000, 0);
+        r.programma(500, "a");
+        r.programma(1000, "b");
+        r.programma(-1, "passato");
+        // Scadenza oltre i quattro livelli
+        r.programma(20_000_000_000L, "lontano");
+        assertEquals(4, r.size());
+        assertEquals(1, r.avanzaFinoA(0).size());
+        // Le scadenze sono arrotondate al tick successivo
+        assertTrue(r.avanzaFinoA(999).isEmpty());
+        assertEquals(2, r.avanzaFinoA(1000).size());
+        assertTrue(r.avanzaFinoA(19_999_999_999L).isEmpty());
+        assertEquals(1, r.size());
+        assertEquals("lontano", r.avanzaFinoA(20_000_000_000L).get(0));
+        assertEquals(0, r.size());
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.RuotaTemporale#cancella(it.unicam.cs.asdl1920.mp1.RuotaTemporale.Programmazione)}.
+     */
+    @Test
+    final void testCancella() {
+        RuotaTemporale<String> r = new RuotaTemporale<>(1000, 0);
+        assertThrows(NullPointerException.class, () -> r.cancella(null));
+        RuotaTemporale.Programmazione<String> a = r.programma(500, "a");
+        RuotaTemporale.Programmazione<String> b = r.programma(1000, "b");
+        RuotaTemporale.Programmazione<String> c = r.programma(1000, "c");
+        RuotaTemporale.Programmazione<String> passato = r.programma(-1, "passato");
+        RuotaTemporale.Programmazione<String> lontano = r.programma(20_000_000_000L, "lontano");
+        assertEquals("b", b.getElemento());
+        // In mezzo a una lista, fra gli scaduti e oltre l'orizzonte
+        assertTrue(r.cancella(b));
+        assertFalse(r.cancella(b));
+        assertFalse(b.isProgrammata());
+        assertTrue(r.cancella(passato));
+        assertTrue(r.cancella(lontano));
+        assertEquals(2, r.size());
+        assertTrue(r.avanzaFinoA(0).isEmpty());
+        List<String> scaduti = r.avanzaFinoA(1000);
+        assertEquals(2, scaduti.size());
+        assertTrue(scaduti.contains("a") && scaduti.contains("c"));
+        // Un elemento già restituito non si cancella
+        assertFalse(a.isProgrammata());
+        assertFalse(r.cancella(a));
+        assertEquals(0, r.size());
+        assertTrue(r.avanzaFinoA(Long.MAX_VALUE / 2).isEmpty());
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.RuotaTemporale#avanzaFinoA(long)}.
+     */
+    @Test
+    final void testAvanzaFinoACasuale() {
+        Random random = new Random(31);
+        long tick = 60_000;
+        long ora = 1_570_000_000_000L;
+        RuotaTemporale<Integer> r = new RuotaTemporale<>(tick, ora);
+        Map<Integer, Long> attese = new HashMap<>();
+        Map<Integer, RuotaTemporale.Programmazione<Integer>> programmate = new HashMap<>();
+        for (int n = 0; n < 5000; n++) {
+            int scelta = random.nextInt(4);
+            if (scelta > 1) {
+                // Scadenze da qualche minuto fino a qualche mese
+                long scadenza = ora + (long) (Math.pow(random.nextDouble(), 4) * 200L * 24 * 3600 * 1000);
+                programmate.put(n, r.programma(scadenza, n));
+                attese.put(n, scadenza);
+            } else if (scelta == 1 && !attese.isEmpty()) {
+                // Cancello un elemento qualsiasi fra quelli programmati
+                Integer e = new ArrayList<>(attese.keySet()).get(random.nextInt(attese.size()));
+                attese.remove(e);
+                assertTrue(r.cancella(programmate.remove(e)));
+            } else {
+                ora += random.nextInt(6 * 3600 * 1000);
+                List<Integer> scaduti = r.avanzaFinoA(ora);
+                for (Integer e : scaduti) {
+                    long scadenza = attese.remove(e);
+                    programmate.remove(e);
+                    assertTrue(scadenza <= ora);
+                }
+                for (long scadenza : attese.values()) {
+                    // Nessun elemento scaduto è rimasto indietro di più di un
+                    // tick
+                    assertTrue(scadenza > ora - tick);
+                }
+            }
+            assertEquals(attese.size(), r.size());
+        }
+        List<Integer> resto = new ArrayList<>(r.avanzaFinoA(Long.MAX_VALUE / 2));
+        assertEquals(attese.size(), resto.size());
+    }
+
+}
@@ -0,0 +1,179 @@
+/**
+ * 
+ */
+package it.unicam.cs.asdl1920.mp1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.GregorianCalendar;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Test del server HTTP su localhost.
+ * 
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+class ServerPrenotazioniTest {
+
+    private GestoreAule g;
+
+    private ServerPrenotazioni s;
+
+    @BeforeEach
+    final void avvia() throws IOException {
+        this.g = new GestoreAule();
+        Aula a = new Aula("LA1", "Polo Lodovici Piano Terra");
+        a.addFacility(new PresenceFacility("HDMI", ""));
+        a.addFacility(new QuantitativeFacility("POSTI", "", 100));
+        this.g.addAula(a);
+        this.g.addAula(new Aula("AA1", "Polo Lodovici Piano Terra"));
+        this.s = new ServerPrenotazioni(this.g, 0);
+        this.s.avvia();
+    }
+
+    @AfterEach
+    final void ferma() {
+        this.s.ferma();
+    }
+
+    /**
+     * Test method for {@code POST /prenotazioni} e {@code GET /prenotazioni}.
+     */
+    @Test
+    final void testPrenotazioni() throws IOException {
+        String parametri = "aula=LA1&start=2019-11-04T11:00&stop=2019-11-04T13:00"
+                + "&docente=Luca+Tesei&motivo=Lezione%20ASDL";
+        assertEquals("201 {\"aula\":\"LA1\",\"start\":\"2019-11-04T11:00\","
+                + "\"stop\":\"2019-11-04T13:00\",\"docente\":\"Luca Tesei\","
+                + "\"motivo\":\"Lezione ASDL\"}",
+                this.richiesta("POST", "/prenotazioni", parametri));
+        assertEquals(1, this.g.getAula("LA1").getPrenotazioni().size());
+        assertTrue(this.richiesta("POST", "/prenotazioni", parametri)
+                .startsWith("409 "));
+        assertTrue(this.richiesta("POST", "/prenotazioni",
+                parametri.replace("LA1", "LZ9")).startsWith("404 "));
+        assertTrue(this.richiesta("POST", "/prenotazioni",
+                "aula=LA1&start=2019-11-04T11:00").startsWith("400 "));
+        assertTrue(this.richiesta("POST", "/prenotazioni",
+                parametri.replace("13:00", "10:00")).startsWith("400 "));
+        assertTrue(this.richiesta("GET", "/prenotazioni?aula=LA1", null)
+                .startsWith("200 [{\"aula\":\"LA1\",\"start\":\"2019-11-04T11:00\""));
+        assertEquals("200 []",
+                this.richiesta("GET", "/prenotazioni?aula=AA1", null));
+        assertTrue(this.richiesta("DELETE", "/prenotazioni?aula=AA1", null)
+                .startsWith("405 "));
+    }
+
+    /**
+     * Test method for {@code POST /prenotazioni} con parametri ripetuti e
+     * corpi troppo grandi.
+     */
+    @Test
+    final void testRichiesteNonValide() throws IOException {
+        String parametri = "aula=LA1&start=2019-11-04T11:00&stop=2019-11-04T13:00"
+                + "&docente=Luca+Tesei&motivo=Lezione";
+        // Il corpo non può sostituire un parametro della query
+        assertTrue(this.richiesta("POST", "/prenotazioni?aula=AA1", parametri)
+                .startsWith("400 "));
+        assertTrue(this.richiesta("POST", "/prenotazioni",
+                parametri + "&aula=AA1").startsWith("400 "));
+        assertTrue(this.richiesta("GET", "/prenotazioni?aula=LA1&aula=AA1", null)
+                .startsWith("400 "));
+        StringBuilder grande = new StringBuilder(parametri).append("&x=");
+        while (grande.length() <= ServerPrenotazioni.DIMENSIONE_MASSIMA_CORPO) {
+            grande.append("0123456789");
+        }
+        assertTrue(this.richiesta("POST", "/prenotazioni", grande.toString())
+                .startsWith("413 "));
+        // Anche senza lunghezza dichiarata
+        URL url = new URL("http://localhost:" + this.s.getPorta() + "/prenotazioni");
+        HttpURLConnection c = (HttpURLConnection) url.openConnection();
+        c.setRequestMethod("POST");
+        c.setDoOutput(true);
+        c.setChunkedStreamingMode(1024);
+        OutputStream o = c.getOutputStream();
+        o.write(grande.toString().getBytes(StandardCharsets.UTF_8));
+        o.close();
+        assertEquals(413, c.getResponseCode());
+        c.disconnect();
+        assertTrue(this.g.getAula("LA1").getPrenotazioni().isEmpty());
+        assertTrue(this.richiesta("POST", "/prenotazioni", parametri)
+                .startsWith("201 "));
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.ServerPrenotazioni#getIndirizzo()}.
+     */
+    @Test
+    final void testGetIndirizzo() throws IOException {
+        // Di default il server ascolta solo in locale
+        assertTrue(this.s.getIndirizzo().isLoopbackAddress());
+        assertThrows(NullPointerException.class,
+                () -> new ServerPrenotazioni(this.g, null, 0));
+    }
+
+    /**
+     * Test method for {@code GET /aule/libere}.
+     */
+    @Test
+    final void testAuleLibere() throws IOException {
+        this.g.getAula("AA1").addPrenotazione(new TimeSlot(
+                new GregorianCalendar(2019, 10, 4, 9, 0),
+                new GregorianCalendar(2019, 10, 4, 12, 0)), "LT", "");
+        String r = this.richiesta("GET",
+                "/aule/libere?start=2019-11-04T11:00&stop=2019-11-04T13:00", null);
+        assertEquals("200 [{\"nome\":\"LA1\",\"location\":\"Polo Lodovici Piano Terra\"}]", r);
+        r = this.richiesta("GET",
+                "/aule/libere?start=2019-11-04T14:00&stop=2019-11-04T16:00"
+                        + "&facility=HDMI&facility=POSTI:80", null);
+        assertEquals("200 [{\"nome\":\"LA1\",\"location\":\"Polo Lodovici Piano Terra\"}]", r);
+        r = this.richiesta("GET",
+                "/aule/libere?start=2019-11-04T14:00&stop=2019-11-04T16:00"
+                        + "&facility=VGA", null);
+        assertEquals("200 []", r);
+        assertTrue(this.richiesta("GET",
+                "/aule/libere?start=2019-11-04&stop=2019-11-04T16:00", null)
+                .startsWith("400 "));
+    }
+
+    /*
+     * Esegue una richiesta e restituisce codice e corpo separati da uno spazio.
+     */
+    private String richiesta(String metodo, String percorso, String corpo)
+            throws IOException {
+        URL url = new URL("http://localhost:" + this.s.getPorta() + percorso);
+        HttpURLConnection c = (HttpURLConnection) url.openConnection();
+        c.setRequestMethod(metodo);
+        if (corpo != null) {
+            c.setDoOutput(true);
+            c.setRequestProperty("Content-Type",
+                    "application/x-www-form-urlencoded");
+            OutputStream o = c.getOutputStream();
+            o.write(corpo.getBytes(StandardCharsets.UTF_8));
+            o.close();
+        }
+        int codice = c.getResponseCode();
+        InputStream in = codice < 400 ? c.getInputStream() : c.getErrorStream();
+        ByteArrayOutputStream b = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int letti;
+        while ((letti = in.read(buffer)) > 0) {
+            b.write(buffer, 0, letti);
+        }
+        in.close();
+        return codice + " " + new String(b.toByteArray(), StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,69 @@
+/**
+ * 
+ */
+package it.unicam.cs.asdl1920.mp1;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+class SimulatoreCaricoTest {
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.SimulatoreCarico.Configurazione#imposta(java.lang.String)}.
+     */
+    @Test
+    final void testImposta() {
+        SimulatoreCarico.Configurazione c = new SimulatoreCarico.Configurazione();
+        c.imposta("--aule=12");
+        c.imposta("--seme=-3");
+        assertEquals(12, c.aule);
+        assertEquals(-3, c.seme);
+        assertThrows(IllegalArgumentException.class, () -> c.imposta("aule=12"));
+        assertThrows(IllegalArgumentException.class, () -> c.imposta("--aule"));
+        assertThrows(IllegalArgumentException.class, () -> c.imposta("--pippo=1"));
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp1.SimulatoreCarico#esegui()}.
+     */
+    @Test
+    final void testEsegui() throws InterruptedException {
+        assertThrows(NullPointerException.class, () -> new SimulatoreCarico(null));
+        SimulatoreCarico.Configurazione c = new SimulatoreCarico.Configurazione();
+        c.percentualePrenotazioni = 80;
+        c.percentualeRicerche = 30;
+        assertThrows(IllegalArgumentException.class, () -> new SimulatoreCarico(c));
+        c.aule = 20;
+        c.thread = 3;
+        c.operazioni = 3001;
+        c.percentualePrenotazioni = 60;
+        c.percentualeRicerche = 30;
+        SimulatoreCarico s = new SimulatoreCarico(c);
+        SimulatoreCarico.Risultato r = s.esegui();
+        assertEquals(3001, r.getNumeroOperazioni());
+        assertEquals(3001,
+                r.getNumeroOperazioni(SimulatoreCarico.TipoOperazione.PRENOTAZIONE)
+                        + r.getNumeroOperazioni(SimulatoreCarico.TipoOperazione.RICERCA)
+                        + r.getNumeroOperazioni(SimulatoreCarico.TipoOperazione.CANCELLAZIONE));
+        // Le prenotazioni rimaste sono quelle fatte e non cancellate
+        int rimaste = 0;
+        for (Aula a : s.getGestore().getAule()) {
+            rimaste += a.getPrenotazioni().size();
+        }
+        assertEquals(r.getNumeroOperazioni(SimulatoreCarico.TipoOperazione.PRENOTAZIONE)
+                - r.getPrenotazioniRifiutate()
+                - r.getNumeroOperazioni(SimulatoreCarico.TipoOperazione.CANCELLAZIONE),
+                rimaste);
+        assertTrue(r.getPercentile(SimulatoreCarico.TipoOperazione.RICERCA, 50)
+                <= r.getPercentile(SimulatoreCarico.TipoOperazione.RICERCA, 99));
+        assertTrue(r.getThroughput() > 0);
+    }
+
+}
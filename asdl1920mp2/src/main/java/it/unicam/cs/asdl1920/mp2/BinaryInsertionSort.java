@@ -0,0 +1,73 @@
+package it.unicam.cs.asdl1920.mp2;
+
+import java.util.List;
+import java.util.ListIterator;
+import java.util.RandomAccess;
+
+/**
+ * Implementazione dell'algoritmo di Insertion Sort con ricerca binaria della
+ * posizione di inserimento, integrata nel framework di valutazione numerica.
+ * 
+ * Rispetto a {@link InsertionSort} la posizione di ogni elemento viene trovata
+ * con una ricerca binaria fra gli elementi già ordinati, quindi i confronti
+ * sono O(n log n), e gli elementi maggiori vengono spostati in blocco con
+ * {@link System#arraycopy(Object, int, Object, int, int)} su una copia della
+ * lista in un array. Il risultato viene riscritto nella lista con
+ * {@link List#set(int, Object)} se la lista ha accesso diretto
+ * ({@link RandomAccess}), altrimenti con un iteratore, così che anche su una
+ * LinkedList il costo resti quello degli spostamenti nell'array. Gli
+ * spostamenti restano O(n^2), quindi l'algoritmo è adatto a sequenze corte.
+ * L'ordinamento è stabile.
+ * 
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ * @param <E>
+ *            Una classe su cui sia definito un ordinamento naturale.
+ */
+public class BinaryInsertionSort<E extends Comparable<E>>
+        implements SortingAlgorithm<E> {
+
+    public SortingAlgorithmResult<E> sort(List<E> l) {
+        Object[] a = l.toArray();
+        int countCompare = 0;
+        for (int i = 1; i < a.length; i++) {
+            E appoggio = cast(a[i]);
+            // Cerco la prima posizione con un elemento maggiore, dopo quelli
+            // uguali per la stabilità
+            int lo = 0;
+            int hi = i;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                countCompare++;
+                if (appoggio.compareTo(cast(a[mid])) < 0)
+                    hi = mid;
+                else
+                    lo = mid + 1;
+            }
+            if (lo < i) {
+                System.arraycopy(a, lo, a, lo + 1, i - lo);
+                a[lo] = appoggio;
+            }
+        }
+        if (l instanceof RandomAccess) {
+            for (int i = 0; i < a.length; i++)
+                l.set(i, cast(a[i]));
+        } else {
+            ListIterator<E> it = l.listIterator();
+            for (Object x : a) {
+                it.next();
+                it.set(cast(x));
+            }
+        }
+        return new SortingAlgorithmResult<E>(l, countCompare);
+    }
+
+    @SuppressWarnings("unchecked")
+    private E cast(Object x) {
+        return (E) x;
+    }
+
+    public String getName() {
+        return "BinaryInsertionSort";
+    }
+}
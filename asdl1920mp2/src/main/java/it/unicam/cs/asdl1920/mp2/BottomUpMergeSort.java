@@ -0,0 +1,126 @@
+package it.unicam.cs.asdl1920.mp2;
+
+import java.util.List;
+import java.util.ListIterator;
+
+/**
+ * Implementazione iterativa (bottom-up) dell'algoritmo di Merge Sort integrata
+ * nel framework di valutazione numerica.
+ * 
+ * Rispetto a {@link MergeSort} non alloca liste a ogni merge e non è
+ * ricorsivo: gli elementi vengono copiati in un array e fusi in un unico array
+ * ausiliario, allocato all'inizio, scambiando a ogni passata il ruolo dei due
+ * array. Le sequenze iniziali di {@link #CUTOFF} elementi sono ordinate con
+ * Insertion Sort, e due sequenze consecutive già in ordine (l'ultimo elemento
+ * della prima non è maggiore del primo della seconda) vengono copiate con un
+ * solo confronto invece di essere fuse. L'ordinamento è stabile.
+ * 
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ * @param <E>
+ *            Una classe su cui sia definito un ordinamento naturale.
+ */
+public class BottomUpMergeSort<E extends Comparable<E>>
+        implements SortingAlgorithm<E> {
+
+    /**
+     * Lunghezza delle sequenze iniziali ordinate con Insertion Sort.
+     */
+    public static final int CUTOFF = 16;
+
+    public SortingAlgorithmResult<E> sort(List<E> l) {
+        int n = l.size();
+        if (n < 2)
+            return new SortingAlgorithmResult<E>(l, 0);
+        Object[] src = l.toArray();
+        Object[] dst = new Object[n];
+        int countCompare = 0;
+        for (int lo = 0; lo < n; lo += CUTOFF)
+            countCompare += insertionSort(src, lo, Math.min(lo + CUTOFF, n));
+        for (int width = CUTOFF; width < n; width *= 2) {
+            for (int lo = 0; lo < n; lo += 2 * width) {
+                int middle = Math.min(lo + width, n);
+                int hi = Math.min(lo + 2 * width, n);
+                if (middle == hi) {
+                    // Non c'è una seconda sequenza
+                    System.arraycopy(src, lo, dst, lo, hi - lo);
+                    continue;
+                }
+                countCompare++;
+                if (compare(src[middle - 1], src[middle]) <= 0)
+                    System.arraycopy(src, lo, dst, lo, hi - lo);
+                else
+                    countCompare += merge(src, dst, lo, middle, hi);
+            }
+            Object[] t = src;
+            src = dst;
+            dst = t;
+        }
+        // Il risultato dell'ultima passata è in src
+        ListIterator<E> it = l.listIterator();
+        for (Object x : src) {
+            it.next();
+            it.set(cast(x));
+        }
+        return new SortingAlgorithmResult<E>(l, countCompare);
+    }
+
+    /*
+     * Ordina src da lo (incluso) a hi (escluso) con Insertion Sort e
+     * restituisce il numero di confronti.
+     */
+    private static int insertionSort(Object[] src, int lo, int hi) {
+        int countCompare = 0;
+        for (int i = lo + 1; i < hi; i++) {
+            Object appoggio = src[i];
+            int j = i - 1;
+            while (j >= lo) {
+                countCompare++;
+                if (compare(src[j], appoggio) <= 0)
+                    break;
+                src[j + 1] = src[j];
+                j--;
+            }
+            src[j + 1] = appoggio;
+        }
+        return countCompare;
+    }
+
+    /*
+     * Fonde le sequenze ordinate src[lo, middle) e src[middle, hi) in
+     * dst[lo, hi) e restituisce il numero di confronti. A parità viene preso
+     * l'elemento della prima sequenza.
+     */
+    private static int merge(Object[] src, Object[] dst, int lo, int middle, int hi) {
+        int countCompare = 0;
+        int i = lo;
+        int j = middle;
+        int k = lo;
+        while (i < middle && j < hi) {
+            countCompare++;
+            if (compare(src[i], src[j]) <= 0)
+                dst[k++] = src[i++];
+            else
+                dst[k++] = src[j++];
+        }
+        if (i < middle)
+            System.arraycopy(src, i, dst, k, middle - i);
+        else
+            System.arraycopy(src, j, dst, k, hi - j);
+        return countCompare;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E extends Comparable<E>> int compare(Object a, Object b) {
+        return ((E) a).compareTo((E) b);
+    }
+
+    @SuppressWarnings("unchecked")
+    private E cast(Object x) {
+        return (E) x;
+    }
+
+    public String getName() {
+        return "BottomUpMergeSort";
+    }
+}
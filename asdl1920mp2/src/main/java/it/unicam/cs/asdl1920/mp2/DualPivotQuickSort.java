@@ -0,0 +1,147 @@
+package it.unicam.cs.asdl1920.mp2;
+
+import java.util.List;
+import java.util.ListIterator;
+
+/**
+ * Implementazione dell'algoritmo di Quick Sort con due pivot (schema di
+ * Yaroslavskiy) integrata nel framework di valutazione numerica.
+ * 
+ * Gli elementi vengono copiati una volta in un array, ordinati sul posto e
+ * riscritti nella lista, senza altre allocazioni. Due pivot p <= q dividono
+ * ogni sequenza in tre parti: minori di p, fra p e q, maggiori di q. I pivot
+ * sono scelti ai due terzili della sequenza, e se sono uguali la parte
+ * centrale contiene solo elementi uguali e non viene ordinata. Le sequenze
+ * corte sono ordinate con Insertion Sort. Si procede ricorsivamente sulle due
+ * parti più corte e iterativamente sulla più lunga, quindi la ricorsione ha
+ * profondità al più logaritmica. L'ordinamento non è stabile.
+ * 
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ * @param <E>
+ *            Una classe su cui sia definito un ordinamento naturale.
+ */
+public class DualPivotQuickSort<E extends Comparable<E>>
+        implements SortingAlgorithm<E> {
+
+    // Lunghezza sotto cui le sequenze sono ordinate con Insertion Sort
+    private static final int CUTOFF = 17;
+
+    public SortingAlgorithmResult<E> sort(List<E> l) {
+        Object[] a = l.toArray();
+        Ordinamento o = new Ordinamento(a);
+        o.sort(0, a.length - 1);
+        ListIterator<E> it = l.listIterator();
+        for (Object x : a) {
+            it.next();
+            it.set(cast(x));
+        }
+        return new SortingAlgorithmResult<E>(l, o.countCompare);
+    }
+
+    /*
+     * Lo stato di un ordinamento: l'array e il contatore dei confronti.
+     */
+    private static final class Ordinamento {
+
+        private final Object[] a;
+
+        private int countCompare;
+
+        private Ordinamento(Object[] a) {
+            this.a = a;
+        }
+
+        @SuppressWarnings("unchecked")
+        private int compare(Object x, Object y) {
+            this.countCompare++;
+            return ((Comparable<Object>) x).compareTo(y);
+        }
+
+        /*
+         * Ordina a[lo, hi], estremi inclusi.
+         */
+        private void sort(int lo, int hi) {
+            Object[] a = this.a;
+            while (hi - lo + 1 >= CUTOFF) {
+                // Porto agli estremi gli elementi ai terzili come pivot
+                int terzo = (hi - lo + 1) / 3;
+                swap(a, lo, lo + terzo);
+                swap(a, hi, hi - terzo);
+                if (this.compare(a[lo], a[hi]) > 0)
+                    swap(a, lo, hi);
+                Object p = a[lo];
+                Object q = a[hi];
+                // a[lo + 1, lt) < p, a[lt, k) fra p e q, a(gt, hi) > q
+                int lt = lo + 1;
+                int gt = hi - 1;
+                for (int k = lt; k <= gt; k++) {
+                    if (this.compare(a[k], p) < 0) {
+                        swap(a, k, lt++);
+                    } else if (this.compare(a[k], q) > 0) {
+                        while (k < gt && this.compare(a[gt], q) > 0)
+                            gt--;
+                        swap(a, k, gt--);
+                        if (this.compare(a[k], p) < 0)
+                            swap(a, k, lt++);
+                    }
+                }
+                lt--;
+                gt++;
+                swap(a, lo, lt);
+                swap(a, hi, gt);
+                // Parti: [lo, lt - 1], [lt + 1, gt - 1] (solo se p < q),
+                // [gt + 1, hi]
+                boolean centrale = this.compare(p, q) < 0;
+                int n1 = lt - lo;
+                int n2 = centrale ? gt - lt - 1 : 0;
+                int n3 = hi - gt;
+                if (n1 >= n2 && n1 >= n3) {
+                    if (centrale)
+                        this.sort(lt + 1, gt - 1);
+                    this.sort(gt + 1, hi);
+                    hi = lt - 1;
+                } else if (n3 >= n2) {
+                    this.sort(lo, lt - 1);
+                    if (centrale)
+                        this.sort(lt + 1, gt - 1);
+                    lo = gt + 1;
+                } else {
+                    this.sort(lo, lt - 1);
+                    this.sort(gt + 1, hi);
+                    lo = lt + 1;
+                    hi = gt - 1;
+                }
+            }
+            this.insertionSort(lo, hi);
+        }
+
+        private void insertionSort(int lo, int hi) {
+            Object[] a = this.a;
+            for (int i = lo + 1; i <= hi; i++) {
+                Object appoggio = a[i];
+                int j = i - 1;
+                while (j >= lo && this.compare(a[j], appoggio) > 0) {
+                    a[j + 1] = a[j];
+                    j--;
+                }
+                a[j + 1] = appoggio;
+            }
+        }
+    }
+
+    private static void swap(Object[] a, int i, int j) {
+        Object t = a[i];
+        a[i] = a[j];
+        a[j] = t;
+    }
+
+    @SuppressWarnings("unchecked")
+    private E cast(Object x) {
+        return (E) x;
+    }
+
+    public String getName() {
+        return "DualPivotQuickSort";
+    }
+}
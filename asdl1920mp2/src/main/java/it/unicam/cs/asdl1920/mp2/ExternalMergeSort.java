@@ -0,0 +1,476 @@
+package it.unicam.cs.asdl1920.mp2;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.ListIterator;
+
+/**
+ * Ordinamento esterno di sequenze di interi che non entrano in memoria. La
+ * sequenza viene letta da un file, binario o CSV, a blocchi di un numero
+ * massimo di elementi; ogni blocco viene ordinato in memoria con un
+ * {@link IntSortingAlgorithm} e scritto in un file temporaneo (run). I run
+ * vengono poi fusi con un merge a k vie che usa un albero dei perdenti (loser
+ * tree): ogni elemento in uscita costa log2 k confronti, uno per livello
+ * dell'albero. Se i run sono più di {@link #MAX_VIE} vengono fusi in più
+ * passate. Tutti i file sono letti e scritti con buffer.
+ * 
+ * Il formato binario è una sequenza di int a 4 byte big-endian, come scritti
+ * da {@link DataOutputStream#writeInt(int)}; il formato CSV è una sequenza di
+ * interi separati da virgole o spazi bianchi, anche su più righe.
+ * 
+ * La classe è anche un {@link SortingAlgorithm} per liste di interi, così che
+ * possa essere valutata dal framework: la lista viene scritta in un file
+ * temporaneo, ordinata esternamente e riletta. Il numero di confronti è la
+ * somma di quelli degli ordinamenti dei run e di quelli dei merge.
+ * 
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+public class ExternalMergeSort implements SortingAlgorithm<Integer> {
+
+    /**
+     * Formati dei file di ingresso e di uscita.
+     */
+    public enum Formato {
+        /**
+         * Int a 4 byte big-endian.
+         */
+        BINARIO,
+        /**
+         * Interi in decimale separati da virgole o spazi bianchi.
+         */
+        CSV
+    }
+
+    /**
+     * Numero massimo di run fusi insieme in una passata.
+     */
+    public static final int MAX_VIE = 256;
+
+    // Dimensione dei buffer di lettura e scrittura dei file
+    private static final int BUFFER = 1 << 16;
+
+    private final IntSortingAlgorithm ordinamentoRun;
+
+    private final int elementiPerRun;
+
+    private final File directory;
+
+    /**
+     * Crea un ordinamento esterno.
+     * 
+     * @param ordinamentoRun
+     *                           l'algoritmo con cui ordinare i run in memoria
+     * @param elementiPerRun
+     *                           il numero massimo di elementi tenuti in memoria
+     *                           per ogni run
+     * @param directory
+     *                           la directory dei file temporanei, null per
+     *                           quella di default del sistema
+     * @throws NullPointerException
+     *                                      se l'algoritmo è null
+     * @throws IllegalArgumentException
+     *                                      se il numero di elementi per run non
+     *                                      è positivo
+     */
+    public ExternalMergeSort(IntSortingAlgorithm ordinamentoRun, int elementiPerRun, File directory) {
+        if (ordinamentoRun == null)
+            throw new NullPointerException("L'algoritmo per i run è null");
+        if (elementiPerRun <= 0)
+            throw new IllegalArgumentException("Il numero di elementi per run deve essere positivo");
+        this.ordinamentoRun = ordinamentoRun;
+        this.elementiPerRun = elementiPerRun;
+        this.directory = directory;
+    }
+
+    /**
+     * Ordina gli interi di un file e li scrive in un altro file.
+     * 
+     * @param in
+     *                        il file da ordinare
+     * @param formatoIn
+     *                        il formato del file da ordinare
+     * @param out
+     *                        il file in cui scrivere la sequenza ordinata
+     * @param formatoOut
+     *                        il formato del file ordinato
+     * @return il numero di confronti effettuati
+     * @throws IOException
+     *                                  se c'è un errore di lettura o scrittura
+     *                                  o il file in ingresso non è nel formato
+     *                                  indicato
+     * @throws NullPointerException
+     *                                  se uno dei parametri è null
+     */
+    public long ordina(File in, Formato formatoIn, File out, Formato formatoOut) throws IOException {
+        if (in == null || formatoIn == null || out == null || formatoOut == null)
+            throw new NullPointerException("Tentativo di ordinare con file o formati null");
+        List<File> runs = new ArrayList<File>();
+        try {
+            long countCompare = this.creaRun(in, formatoIn, runs);
+            // Fondo a gruppi di MAX_VIE finché i run non si possono fondere
+            // in una sola passata
+            while (runs.size() > MAX_VIE) {
+                List<File> fusi = new ArrayList<File>();
+                boolean completata = false;
+                try {
+                    for (int i = 0; i < runs.size(); i += MAX_VIE) {
+                        List<File> gruppo = runs.subList(i, Math.min(i + MAX_VIE, runs.size()));
+                        File f = this.fileTemporaneo();
+                        fusi.add(f);
+                        try (Destinazione d = new DestinazioneBinaria(f)) {
+                            countCompare += merge(gruppo, d);
+                        }
+                        for (File r : gruppo)
+                            r.delete();
+                    }
+                    completata = true;
+                } finally {
+                    // I run della passata non servono più in ogni caso; se la
+                    // passata è fallita non servono neanche quelli fusi, anche
+                    // l'ultimo scritto solo in parte
+                    for (File r : runs)
+                        r.delete();
+                    if (!completata)
+                        for (File f : fusi)
+                            f.delete();
+                }
+                runs = fusi;
+            }
+            try (Destinazione d = formatoOut == Formato.BINARIO ? new DestinazioneBinaria(out)
+                    : new DestinazioneCsv(out)) {
+                countCompare += merge(runs, d);
+            }
+            return countCompare;
+        } finally {
+            for (File r : runs)
+                r.delete();
+        }
+    }
+
+    public SortingAlgorithmResult<Integer> sort(List<Integer> l) {
+        try {
+            File in = this.fileTemporaneo();
+            File out = this.fileTemporaneo();
+            try {
+                try (Destinazione d = new DestinazioneBinaria(in)) {
+                    for (int x : l)
+                        d.scrivi(x);
+                }
+                long countCompare = this.ordina(in, Formato.BINARIO, out, Formato.BINARIO);
+                try (Sorgente s = new SorgenteBinaria(out)) {
+                    ListIterator<Integer> it = l.listIterator();
+                    while (it.hasNext()) {
+                        it.next();
+                        it.set(s.prossimo());
+                    }
+                }
+                return new SortingAlgorithmResult<Integer>(l, (int) Math.min(countCompare, Integer.MAX_VALUE));
+            } finally {
+                in.delete();
+                out.delete();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /*
+     * Legge il file a blocchi, ordina ogni blocco e lo scrive in un run;
+     * aggiunge i run alla lista e restituisce il numero di confronti.
+     */
+    private long creaRun(File in, Formato formato, List<File> runs) throws IOException {
+        long countCompare = 0;
+        int[] blocco = new int[this.elementiPerRun];
+        try (Sorgente s = formato == Formato.BINARIO ? new SorgenteBinaria(in) : new SorgenteCsv(in)) {
+            boolean finito = false;
+            while (!finito) {
+                int n = 0;
+                while (n < blocco.length && s.haProssimo())
+                    blocco[n++] = s.prossimo();
+                finito = n < blocco.length || !s.haProssimo();
+                if (n == 0)
+                    break;
+                int[] run = n == blocco.length ? blocco : Arrays.copyOf(blocco, n);
+                IntSortingAlgorithmResult r = this.ordinamentoRun.sort(run);
+                countCompare += r.getCountCompare();
+                File f = this.fileTemporaneo();
+                runs.add(f);
+                try (Destinazione d = new DestinazioneBinaria(f)) {
+                    for (int x : r.getA())
+                        d.scrivi(x);
+                }
+            }
+        }
+        return countCompare;
+    }
+
+    /*
+     * Merge a k vie con un albero dei perdenti. I nodi interni 1..k-1
+     * contengono il run perdente del confronto nel nodo, le foglie sono le
+     * posizioni k..2k-1 (il run i è nella foglia k + i) e vincitore è il run
+     * con l'elemento minimo. A parità vince il run con indice minore, quindi
+     * il merge è stabile. Restituisce il numero di confronti.
+     */
+    private static long merge(List<File> runs, Destinazione d) throws IOException {
+        int k = runs.size();
+        if (k == 0)
+            return 0;
+        SorgenteBinaria[] sorgenti = new SorgenteBinaria[k];
+        try {
+            Torneo t = new Torneo(k);
+            for (int i = 0; i < k; i++) {
+                sorgenti[i] = new SorgenteBinaria(runs.get(i));
+                t.finito[i] = !sorgenti[i].haProssimo();
+                if (!t.finito[i])
+                    t.chiave[i] = sorgenti[i].prossimo();
+            }
+            t.costruisci();
+            while (!t.finito[t.vincitore]) {
+                int w = t.vincitore;
+                d.scrivi(t.chiave[w]);
+                if (sorgenti[w].haProssimo())
+                    t.chiave[w] = sorgenti[w].prossimo();
+                else
+                    t.finito[w] = true;
+                t.rigioca(w);
+            }
+            return t.countCompare;
+        } finally {
+            for (SorgenteBinaria s : sorgenti)
+                if (s != null)
+                    s.close();
+        }
+    }
+
+    /*
+     * L'albero dei perdenti sulle chiavi correnti dei run.
+     */
+    private static final class Torneo {
+
+        private final int k;
+
+        private final int[] chiave;
+
+        private final boolean[] finito;
+
+        private final int[] perdente;
+
+        private int vincitore;
+
+        private long countCompare;
+
+        private Torneo(int k) {
+            this.k = k;
+            this.chiave = new int[k];
+            this.finito = new boolean[k];
+            this.perdente = new int[k];
+        }
+
+        // true se il run a precede il run b; un run finito segue tutti
+        private boolean precede(int a, int b) {
+            if (this.finito[a])
+                return false;
+            if (this.finito[b])
+                return true;
+            this.countCompare++;
+            return this.chiave[a] < this.chiave[b] || (this.chiave[a] == this.chiave[b] && a < b);
+        }
+
+        private void costruisci() {
+            // Vincitori dei sottoalberi, con le foglie in k..2k-1
+            int[] vince = new int[2 * this.k];
+            for (int i = 0; i < this.k; i++)
+                vince[this.k + i] = i;
+            for (int t = this.k - 1; t >= 1; t--) {
+                int a = vince[2 * t];
+                int b = vince[2 * t + 1];
+                if (this.precede(a, b)) {
+                    vince[t] = a;
+                    this.perdente[t] = b;
+                } else {
+                    vince[t] = b;
+                    this.perdente[t] = a;
+                }
+            }
+            this.vincitore = this.k == 1 ? 0 : vince[1];
+        }
+
+        // Rigioca le partite dalla foglia del run w alla radice
+        private void rigioca(int w) {
+            for (int t = (this.k + w) >> 1; t >= 1; t >>= 1) {
+                if (this.precede(this.perdente[t], w)) {
+                    int p = this.perdente[t];
+                    this.perdente[t] = w;
+                    w = p;
+                }
+            }
+            this.vincitore = w;
+        }
+    }
+
+    private File fileTemporaneo() throws IOException {
+        File f = File.createTempFile("run", ".bin", this.directory);
+        f.deleteOnExit();
+        return f;
+    }
+
+    /*
+     * Sequenze di interi da leggere da un file.
+     */
+    private interface Sorgente extends Closeable {
+        boolean haProssimo() throws IOException;
+
+        int prossimo() throws IOException;
+    }
+
+    private static final class SorgenteBinaria implements Sorgente {
+
+        private final DataInputStream in;
+
+        private boolean letto;
+
+        private boolean finito;
+
+        private int valore;
+
+        private SorgenteBinaria(File f) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(new FileInputStream(f), BUFFER));
+        }
+
+        public boolean haProssimo() throws IOException {
+            if (!this.letto && !this.finito) {
+                try {
+                    this.valore = this.in.readInt();
+                    this.letto = true;
+                } catch (EOFException e) {
+                    this.finito = true;
+                }
+            }
+            return this.letto;
+        }
+
+        public int prossimo() throws IOException {
+            if (!this.haProssimo())
+                throw new EOFException();
+            this.letto = false;
+            return this.valore;
+        }
+
+        public void close() throws IOException {
+            this.in.close();
+        }
+    }
+
+    private static final class SorgenteCsv implements Sorgente {
+
+        private final BufferedReader in;
+
+        private final StringBuilder token = new StringBuilder();
+
+        private boolean letto;
+
+        private int valore;
+
+        private SorgenteCsv(File f) throws IOException {
+            this.in = new BufferedReader(new FileReader(f), BUFFER);
+        }
+
+        public boolean haProssimo() throws IOException {
+            if (this.letto)
+                return true;
+            this.token.setLength(0);
+            int c;
+            while ((c = this.in.read()) >= 0) {
+                if (c == ',' || Character.isWhitespace(c)) {
+                    if (this.token.length() > 0)
+                        break;
+                } else {
+                    this.token.append((char) c);
+                }
+            }
+            if (this.token.length() == 0)
+                return false;
+            try {
+                this.valore = Integer.parseInt(this.token.toString());
+            } catch (NumberFormatException e) {
+                throw new IOException("Valore non intero nel file CSV: " + this.token, e);
+            }
+            this.letto = true;
+            return true;
+        }
+
+        public int prossimo() throws IOException {
+            if (!this.haProssimo())
+                throw new EOFException();
+            this.letto = false;
+            return this.valore;
+        }
+
+        public void close() throws IOException {
+            this.in.close();
+        }
+    }
+
+    /*
+     * File in cui scrivere una sequenza di interi.
+     */
+    private interface Destinazione extends Closeable {
+        void scrivi(int x) throws IOException;
+    }
+
+    private static final class DestinazioneBinaria implements Destinazione {
+
+        private final DataOutputStream out;
+
+        private DestinazioneBinaria(File f) throws IOException {
+            this.out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(f), BUFFER));
+        }
+
+        public void scrivi(int x) throws IOException {
+            this.out.writeInt(x);
+        }
+
+        public void close() throws IOException {
+            this.out.close();
+        }
+    }
+
+    private static final class DestinazioneCsv implements Destinazione {
+
+        private final BufferedWriter out;
+
+        private DestinazioneCsv(File f) throws IOException {
+            this.out = new BufferedWriter(new FileWriter(f), BUFFER);
+        }
+
+        public void scrivi(int x) throws IOException {
+            this.out.write(Integer.toString(x));
+            this.out.write('\n');
+        }
+
+        public void close() throws IOException {
+            this.out.close();
+        }
+    }
+
+    public String getName() {
+        return "ExternalMergeSort";
+    }
+}
@@ -0,0 +1,115 @@
+package it.unicam.cs.asdl1920.mp2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.RandomAccess;
+
+/**
+ * Implementazione dell'algoritmo di Heap Sort integrata nel framework di
+ * valutazione numerica. Ordina sul posto con memoria aggiuntiva costante
+ * quando la lista ha accesso diretto ({@link RandomAccess}); le altre liste
+ * vengono prima copiate in un ArrayList. Il caso peggiore è O(n log n).
+ * 
+ * Il max-heap viene costruito con il metodo di Floyd, facendo scendere gli
+ * elementi dei nodi interni a partire dall'ultimo, in tempo lineare. Nella
+ * fase di estrazione si usa la variante bottom-up (a "rimbalzo"): invece di
+ * far scendere l'ultimo elemento dalla radice con due confronti per livello,
+ * si scende fino a una foglia lungo il cammino dei figli maggiori con un
+ * confronto per livello, poi si risale finché non si trova la posizione
+ * dell'elemento, che di solito è vicina alla foglia. I confronti sono così
+ * circa n log2 n invece di 2 n log2 n. L'ordinamento non è stabile.
+ * 
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ * @param <E>
+ *            Una classe su cui sia definito un ordinamento naturale.
+ */
+public class HeapSort<E extends Comparable<E>> implements SortingAlgorithm<E> {
+
+    public SortingAlgorithmResult<E> sort(List<E> l) {
+        List<E> v = l instanceof RandomAccess ? l : new ArrayList<E>(l);
+        int n = v.size();
+        int countCompare = 0;
+        // Costruzione dello heap di Floyd
+        for (int i = n / 2 - 1; i >= 0; i--)
+            countCompare += siftDown(v, i, n);
+        // Estrazione: il massimo va in fondo e l'ultimo elemento rientra
+        // nello heap con la discesa a rimbalzo
+        for (int k = n - 1; k > 0; k--) {
+            E x = v.get(k);
+            v.set(k, v.get(0));
+            countCompare += siftBounce(v, x, k);
+        }
+        if (v != l) {
+            ListIterator<E> it = l.listIterator();
+            for (E x : v) {
+                it.next();
+                it.set(x);
+            }
+        }
+        return new SortingAlgorithmResult<E>(l, countCompare);
+    }
+
+    /*
+     * Fa scendere l'elemento in posizione i nello heap v[0, n) e restituisce
+     * il numero di confronti.
+     */
+    private static <E extends Comparable<E>> int siftDown(List<E> v, int i, int n) {
+        int countCompare = 0;
+        E x = v.get(i);
+        int figlio;
+        while ((figlio = 2 * i + 1) < n) {
+            if (figlio + 1 < n) {
+                countCompare++;
+                if (v.get(figlio + 1).compareTo(v.get(figlio)) > 0)
+                    figlio++;
+            }
+            countCompare++;
+            if (v.get(figlio).compareTo(x) <= 0)
+                break;
+            v.set(i, v.get(figlio));
+            i = figlio;
+        }
+        v.set(i, x);
+        return countCompare;
+    }
+
+    /*
+     * Mette x nello heap v[0, n) la cui radice è vuota e restituisce il
+     * numero di confronti: scende fino a una foglia lungo i figli maggiori,
+     * risale fino al primo nodo non minore di x e fa salire di un livello
+     * gli elementi del cammino sopra quel nodo.
+     */
+    private static <E extends Comparable<E>> int siftBounce(List<E> v, E x, int n) {
+        int countCompare = 0;
+        int i = 0;
+        int figlio;
+        while ((figlio = 2 * i + 1) < n) {
+            if (figlio + 1 < n) {
+                countCompare++;
+                if (v.get(figlio + 1).compareTo(v.get(figlio)) > 0)
+                    figlio++;
+            }
+            i = figlio;
+        }
+        while (i > 0) {
+            countCompare++;
+            if (x.compareTo(v.get(i)) <= 0)
+                break;
+            i = (i - 1) / 2;
+        }
+        // x va in i, gli elementi del cammino dalla radice a i salgono
+        E t = x;
+        while (i > 0) {
+            t = v.set(i, t);
+            i = (i - 1) / 2;
+        }
+        v.set(0, t);
+        return countCompare;
+    }
+
+    public String getName() {
+        return "HeapSort";
+    }
+}
@@ -0,0 +1,32 @@
+package it.unicam.cs.asdl1920.mp2;
+
+/**
+ * Implementazione dell'algoritmo di Insertion Sort su array di interi
+ * primitivi. Effettua gli stessi confronti di {@link InsertionSort}.
+ * 
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+public class IntInsertionSort implements IntSortingAlgorithm {
+
+    public IntSortingAlgorithmResult sort(int[] a) {
+        long countCompare = 0;
+        for (int i = 1; i < a.length; i++) {
+            int appoggio = a[i];
+            int j = i - 1;
+            while (j >= 0 && a[j] > appoggio) {
+                a[j + 1] = a[j];
+                j--;
+            }
+            // Il while ha fatto (i - 1) - j confronti veri più uno falso,
+            // tranne quando è uscito per j < 0, come in InsertionSort
+            countCompare += i - j;
+            a[j + 1] = appoggio;
+        }
+        return new IntSortingAlgorithmResult(a, countCompare);
+    }
+
+    public String getName() {
+        return "IntInsertionSort";
+    }
+}
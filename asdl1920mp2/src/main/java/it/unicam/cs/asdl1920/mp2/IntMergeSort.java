@@ -0,0 +1,62 @@
+package it.unicam.cs.asdl1920.mp2;
+
+/**
+ * Implementazione dell'algoritmo di Merge Sort su array di interi primitivi.
+ * Divide e fonde le sequenze come {@link MergeSort}, quindi effettua gli stessi
+ * confronti, ma usa un unico array ausiliario allocato all'inizio
+ * dell'ordinamento: prima di ogni merge vi viene copiata solo la metà
+ * sinistra, mentre la destra viene letta direttamente dall'array da ordinare,
+ * dove non può essere sovrascritta prima di essere letta.
+ * 
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+public class IntMergeSort implements IntSortingAlgorithm {
+
+    public IntSortingAlgorithmResult sort(int[] a) {
+        if (a.length < 2)
+            return new IntSortingAlgorithmResult(a, 0);
+        int[] aux = new int[(a.length + 1) / 2];
+        return new IntSortingAlgorithmResult(a, recSort(a, aux, 0, a.length - 1));
+    }
+
+    /*
+     * Ordina a da start a stop inclusi e restituisce il numero di confronti.
+     */
+    private static long recSort(int[] a, int[] aux, int start, int stop) {
+        if (start == stop)
+            return 0;
+        int nElements = stop - start + 1;
+        // Come in MergeSort l'elemento in più va nella parte destra
+        int middle = start + (nElements / 2) - 1;
+        long countCompare = recSort(a, aux, start, middle);
+        countCompare += recSort(a, aux, middle + 1, stop);
+        return countCompare + merge(a, aux, start, middle, stop);
+    }
+
+    private static long merge(int[] a, int[] aux, int start, int middle, int stop) {
+        int nLeft = middle - start + 1;
+        System.arraycopy(a, start, aux, 0, nLeft);
+        long countCompare = 0;
+        // i scrive su a, j legge la copia della parte sinistra, k legge la
+        // parte destra; i < k finché la parte sinistra non è esaurita
+        int i = start;
+        int j = 0;
+        int k = middle + 1;
+        while (j < nLeft && k <= stop) {
+            countCompare++;
+            if (aux[j] < a[k])
+                a[i++] = aux[j++];
+            else
+                a[i++] = a[k++];
+        }
+        // Se resta la parte destra è già al suo posto
+        if (j < nLeft)
+            System.arraycopy(aux, j, a, i, nLeft - j);
+        return countCompare;
+    }
+
+    public String getName() {
+        return "IntMergeSort";
+    }
+}
@@ -0,0 +1,196 @@
+package it.unicam.cs.asdl1920.mp2;
+
+/**
+ * Algoritmo di ordinamento che usa un albero Rosso-Nero con molteplicità per
+ * ordinare un array di interi primitivi. Inserisce gli elementi come
+ * {@link RBTreeSort}, quindi effettua gli stessi confronti, ma l'albero non ha
+ * oggetti nodo: i nodi sono indici in array paralleli di chiavi, figli,
+ * genitori, colori e molteplicità, e l'indice 0 è la foglia NIL.
+ * 
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+public class IntRBTreeSort implements IntSortingAlgorithm {
+
+    public IntSortingAlgorithmResult sort(int[] a) {
+        Albero t = new Albero(a.length);
+        long countCompare = 0;
+        for (int x : a)
+            countCompare += t.insert(x);
+        t.inOrderVisit(a);
+        return new IntSortingAlgorithmResult(a, countCompare);
+    }
+
+    public String getName() {
+        return "IntRBTreeSort";
+    }
+
+    /*
+     * Albero Rosso-Nero con molteplicità su array paralleli, con spazio per
+     * un numero massimo di nodi fissato alla creazione.
+     */
+    private static final class Albero {
+
+        private final int[] key;
+
+        private final int[] left;
+
+        private final int[] right;
+
+        private final int[] parent;
+
+        private final int[] count;
+
+        private final boolean[] red;
+
+        private int root;
+
+        private int numberOfNodes;
+
+        private Albero(int capacity) {
+            this.key = new int[capacity + 1];
+            this.left = new int[capacity + 1];
+            this.right = new int[capacity + 1];
+            this.parent = new int[capacity + 1];
+            this.count = new int[capacity + 1];
+            this.red = new boolean[capacity + 1];
+        }
+
+        /*
+         * Inserisce un elemento e restituisce il numero di confronti, contati
+         * come in RBTree.insert: uno per ogni nodo visitato più uno per
+         * decidere da che parte attaccare il nuovo nodo.
+         */
+        private int insert(int el) {
+            int y = 0;
+            int x = this.root;
+            int countCmp = 0;
+            while (x != 0) {
+                y = x;
+                countCmp++;
+                if (el < this.key[x]) {
+                    x = this.left[x];
+                } else if (el > this.key[x]) {
+                    x = this.right[x];
+                } else {
+                    this.count[x]++;
+                    return countCmp;
+                }
+            }
+            int z = ++this.numberOfNodes;
+            this.key[z] = el;
+            this.count[z] = 1;
+            this.red[z] = true;
+            this.parent[z] = y;
+            if (y == 0) {
+                this.root = z;
+            } else {
+                countCmp++;
+                if (el < this.key[y])
+                    this.left[y] = z;
+                else
+                    this.right[y] = z;
+            }
+            this.insertFixup(z);
+            return countCmp;
+        }
+
+        private void insertFixup(int z) {
+            while (this.red[this.parent[z]]) {
+                int p = this.parent[z];
+                int g = this.parent[p];
+                if (p == this.left[g]) {
+                    int y = this.right[g];
+                    if (this.red[y]) {
+                        this.red[p] = false;
+                        this.red[y] = false;
+                        this.red[g] = true;
+                        z = g;
+                    } else {
+                        if (z == this.right[p]) {
+                            z = p;
+                            this.leftRotate(z);
+                            p = this.parent[z];
+                        }
+                        this.red[p] = false;
+                        this.red[g] = true;
+                        this.rightRotate(g);
+                    }
+                } else {
+                    int y = this.left[g];
+                    if (this.red[y]) {
+                        this.red[p] = false;
+                        this.red[y] = false;
+                        this.red[g] = true;
+                        z = g;
+                    } else {
+                        if (z == this.left[p]) {
+                            z = p;
+                            this.rightRotate(z);
+                            p = this.parent[z];
+                        }
+                        this.red[p] = false;
+                        this.red[g] = true;
+                        this.leftRotate(g);
+                    }
+                }
+            }
+            this.red[this.root] = false;
+        }
+
+        private void leftRotate(int x) {
+            int y = this.right[x];
+            this.right[x] = this.left[y];
+            if (this.left[y] != 0)
+                this.parent[this.left[y]] = x;
+            this.sostituisci(x, y);
+            this.left[y] = x;
+            this.parent[x] = y;
+        }
+
+        private void rightRotate(int x) {
+            int y = this.left[x];
+            this.left[x] = this.right[y];
+            if (this.right[y] != 0)
+                this.parent[this.right[y]] = x;
+            this.sostituisci(x, y);
+            this.right[y] = x;
+            this.parent[x] = y;
+        }
+
+        // Mette y al posto di x come figlio del genitore di x
+        private void sostituisci(int x, int y) {
+            int p = this.parent[x];
+            this.parent[y] = p;
+            if (p == 0)
+                this.root = y;
+            else if (x == this.left[p])
+                this.left[p] = y;
+            else
+                this.right[p] = y;
+        }
+
+        /*
+         * Visita in-order iterativa, con una pila grande quanto l'altezza
+         * massima di un albero Rosso-Nero, che scrive gli elementi con la
+         * loro molteplicità in a.
+         */
+        private void inOrderVisit(int[] a) {
+            int[] stack = new int[2 * (32 - Integer.numberOfLeadingZeros(this.numberOfNodes + 1)) + 1];
+            int top = 0;
+            int i = 0;
+            int x = this.root;
+            while (x != 0 || top > 0) {
+                while (x != 0) {
+                    stack[top++] = x;
+                    x = this.left[x];
+                }
+                x = stack[--top];
+                for (int c = this.count[x]; c > 0; c--)
+                    a[i++] = this.key[x];
+                x = this.right[x];
+            }
+        }
+    }
+
+}
@@ -0,0 +1,164 @@
+package it.unicam.cs.asdl1920.mp2;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Implementazione del Radix Sort LSD (dalla cifra meno significativa) su array
+ * di interi primitivi. Non confronta elementi, quindi il contatore del
+ * risultato riporta il numero di accessi alle chiavi: una lettura di ogni
+ * elemento per trovare minimo e massimo, una per gli istogrammi e una per
+ * ogni passata di distribuzione.
+ * 
+ * Le chiavi vengono ordinate come differenze (senza segno) dal minimo, così
+ * che i numeri negativi non richiedano trattamenti particolari e che un
+ * intervallo di valori piccolo dia poche cifre. Il numero di bit per cifra
+ * viene scelto minimizzando il costo stimato di tutte le passate, n letture
+ * più un istogramma di 2^bit contatori per passata: con intervalli piccoli
+ * rispetto a n si ottiene una sola passata, cioè un Counting Sort. Gli
+ * istogrammi di tutte le passate vengono calcolati con una sola lettura
+ * dell'array, divisa in parallelo su un {@link ForkJoinPool} per array
+ * grandi. L'ordinamento è stabile.
+ * 
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+public class IntRadixSort implements IntSortingAlgorithm {
+
+    // Numero massimo di bit per cifra, cioè istogrammi di al più 65536
+    // contatori
+    private static final int MAX_BIT = 16;
+
+    // Lunghezza delle parti dell'array sotto cui gli istogrammi sono
+    // calcolati da un solo task
+    private static final int SOGLIA = 1 << 16;
+
+    public IntSortingAlgorithmResult sort(int[] a) {
+        int n = a.length;
+        if (n < 2)
+            return new IntSortingAlgorithmResult(a, n);
+        int min = a[0];
+        int max = a[0];
+        for (int i = 1; i < n; i++) {
+            if (a[i] < min)
+                min = a[i];
+            else if (a[i] > max)
+                max = a[i];
+        }
+        long accessi = n;
+        int bit = 32 - Integer.numberOfLeadingZeros(max - min);
+        if (bit == 0)
+            // Tutti gli elementi sono uguali
+            return new IntSortingAlgorithmResult(a, accessi);
+        int passate = numeroPassate(n, bit);
+        int bitCifra = (bit + passate - 1) / passate;
+        int[][] conteggi = ForkJoinPool.commonPool()
+                .invoke(new Istogrammi(a, 0, n, min, passate, bitCifra));
+        accessi += n;
+        int[] src = a;
+        int[] dst = new int[n];
+        int maschera = (1 << bitCifra) - 1;
+        for (int p = 0; p < passate; p++) {
+            int[] conteggio = conteggi[p];
+            // Da conteggi a posizioni di inizio di ogni cifra
+            int somma = 0;
+            for (int c = 0; c < conteggio.length; c++) {
+                int t = conteggio[c];
+                conteggio[c] = somma;
+                somma += t;
+            }
+            int shift = p * bitCifra;
+            for (int i = 0; i < n; i++) {
+                int x = src[i];
+                dst[conteggio[((x - min) >>> shift) & maschera]++] = x;
+            }
+            accessi += n;
+            int[] t = src;
+            src = dst;
+            dst = t;
+        }
+        if (src != a)
+            System.arraycopy(src, 0, a, 0, n);
+        return new IntSortingAlgorithmResult(a, accessi);
+    }
+
+    /*
+     * Sceglie il numero di passate per chiavi di un certo numero di bit che
+     * minimizza n letture più 2^bitCifra contatori per passata.
+     */
+    private static int numeroPassate(int n, int bit) {
+        int migliore = 0;
+        long costoMigliore = Long.MAX_VALUE;
+        for (int passate = 1; passate <= bit; passate++) {
+            int bitCifra = (bit + passate - 1) / passate;
+            if (bitCifra > MAX_BIT)
+                continue;
+            long costo = passate * ((long) n + (1L << bitCifra));
+            if (costo < costoMigliore) {
+                costoMigliore = costo;
+                migliore = passate;
+            }
+        }
+        return migliore;
+    }
+
+    /*
+     * Calcola gli istogrammi delle cifre di tutte le passate per a[lo, hi),
+     * dividendo in parallelo le parti più lunghe della soglia.
+     */
+    private static final class Istogrammi extends RecursiveTask<int[][]> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int[] a;
+
+        private final int lo;
+
+        private final int hi;
+
+        private final int min;
+
+        private final int passate;
+
+        private final int bitCifra;
+
+        private Istogrammi(int[] a, int lo, int hi, int min, int passate, int bitCifra) {
+            this.a = a;
+            this.lo = lo;
+            this.hi = hi;
+            this.min = min;
+            this.passate = passate;
+            this.bitCifra = bitCifra;
+        }
+
+        @Override
+        protected int[][] compute() {
+            if (this.hi - this.lo > SOGLIA) {
+                int middle = (this.lo + this.hi) >>> 1;
+                Istogrammi sinistra = new Istogrammi(this.a, this.lo, middle, this.min, this.passate, this.bitCifra);
+                Istogrammi destra = new Istogrammi(this.a, middle, this.hi, this.min, this.passate, this.bitCifra);
+                sinistra.fork();
+                int[][] r = destra.compute();
+                int[][] s = sinistra.join();
+                for (int p = 0; p < r.length; p++)
+                    for (int c = 0; c < r[p].length; c++)
+                        r[p][c] += s[p][c];
+                return r;
+            }
+            int[][] conteggi = new int[this.passate][1 << this.bitCifra];
+            int maschera = (1 << this.bitCifra) - 1;
+            for (int i = this.lo; i < this.hi; i++) {
+                int k = this.a[i] - this.min;
+                for (int p = 0; p < this.passate; p++) {
+                    conteggi[p][k & maschera]++;
+                    k >>>= this.bitCifra;
+                }
+            }
+            return conteggi;
+        }
+    }
+
+    public String getName() {
+        return "IntRadixSort";
+    }
+}
@@ -0,0 +1,35 @@
+package it.unicam.cs.asdl1920.mp2;
+
+/**
+ * Interfaccia per algoritmi di ordinamento di array di interi primitivi. È
+ * l'analogo di {@link SortingAlgorithm} per sequenze di {@code int}: gli
+ * elementi vengono confrontati direttamente, senza oggetti {@code Integer} né
+ * chiamate a {@code compareTo}, ma il numero di confronti viene contato
+ * allo stesso modo.
+ * 
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+public interface IntSortingAlgorithm {
+
+    /**
+     * Ordina un array di interi in maniera crescente. L'array passato viene
+     * modificato.
+     * 
+     * @param a
+     *              l'array da ordinare
+     * @return un oggetto contenente l'array ordinato e il numero di operazioni
+     *         di confronto tra elementi effettuate dall'algoritmo.
+     * @throws NullPointerException
+     *                                  se l'array è null
+     */
+    public IntSortingAlgorithmResult sort(int[] a);
+
+    /**
+     * Restituisce il nome dell'algoritmo di ordinamento.
+     * 
+     * @return il nome dell'algoritmo
+     */
+    public String getName();
+
+}
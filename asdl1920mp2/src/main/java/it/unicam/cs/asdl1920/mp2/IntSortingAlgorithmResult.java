@@ -0,0 +1,63 @@
+package it.unicam.cs.asdl1920.mp2;
+
+/**
+ * Risultato di un algoritmo di ordinamento di interi primitivi. Contiene
+ * l'array ordinato e il numero di operazioni di confronto effettuate. Il
+ * numero di confronti è un {@code long} perché con array di centinaia di
+ * milioni di elementi supera il massimo valore di un {@code int}.
+ * 
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+public class IntSortingAlgorithmResult {
+
+    private final int[] a;
+
+    private final long countCompare;
+
+    /**
+     * Costruisce un risultato di un algoritmo di ordinamento.
+     * 
+     * @param a
+     *                         un array ordinato in maniera crescente
+     * @param countCompare
+     *                         numero di operazioni di confronto effettuate
+     *                         durante l'ordinamento
+     */
+    public IntSortingAlgorithmResult(int[] a, long countCompare) {
+        this.a = a;
+        this.countCompare = countCompare;
+    }
+
+    /**
+     * Restituisce l'array ordinato.
+     * 
+     * @return l'array ordinato
+     */
+    public int[] getA() {
+        return a;
+    }
+
+    /**
+     * Restituisce il numero di confronti effettuati.
+     * 
+     * @return il numero di confronti effettuati.
+     */
+    public long getCountCompare() {
+        return countCompare;
+    }
+
+    /**
+     * Controlla che l'array restituito sia in ordine crescente.
+     * 
+     * @return true se l'array è ordinato in maniera crescente, false
+     *         altrimenti
+     */
+    public boolean checkOrder() {
+        for (int i = 0; i < a.length - 1; i++)
+            if (this.a[i] > this.a[i + 1])
+                return false;
+        return true;
+    }
+
+}
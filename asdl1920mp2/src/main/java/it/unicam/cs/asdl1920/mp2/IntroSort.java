@@ -0,0 +1,172 @@
+package it.unicam.cs.asdl1920.mp2;
+
+import java.util.List;
+import java.util.ListIterator;
+
+/**
+ * Implementazione dell'algoritmo di Introsort integrata nel framework di
+ * valutazione numerica.
+ * 
+ * È un Quick Sort con pivot mediano di tre che tiene traccia della profondità
+ * della ricorsione: se supera 2 log2 n, segno che i pivot stanno dividendo
+ * male la sequenza, la parte corrente viene ordinata con Heap Sort, così che
+ * il caso peggiore resti O(n log n). Le parti corte sono ordinate con
+ * Insertion Sort. Gli elementi vengono copiati una volta in un array,
+ * ordinati sul posto e riscritti nella lista. L'ordinamento non è stabile.
+ * 
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ * @param <E>
+ *            Una classe su cui sia definito un ordinamento naturale.
+ */
+public class IntroSort<E extends Comparable<E>>
+        implements SortingAlgorithm<E> {
+
+    // Lunghezza sotto cui le parti sono ordinate con Insertion Sort
+    private static final int CUTOFF = 16;
+
+    public SortingAlgorithmResult<E> sort(List<E> l) {
+        Object[] a = l.toArray();
+        Ordinamento o = new Ordinamento(a);
+        if (a.length > 1)
+            o.sort(0, a.length, 2 * (31 - Integer.numberOfLeadingZeros(a.length)));
+        ListIterator<E> it = l.listIterator();
+        for (Object x : a) {
+            it.next();
+            it.set(cast(x));
+        }
+        return new SortingAlgorithmResult<E>(l, o.countCompare);
+    }
+
+    /*
+     * Lo stato di un ordinamento: l'array e il contatore dei confronti.
+     */
+    private static final class Ordinamento {
+
+        private final Object[] a;
+
+        private int countCompare;
+
+        private Ordinamento(Object[] a) {
+            this.a = a;
+        }
+
+        @SuppressWarnings("unchecked")
+        private int compare(Object x, Object y) {
+            this.countCompare++;
+            return ((Comparable<Object>) x).compareTo(y);
+        }
+
+        /*
+         * Ordina a[lo, hi) con al più profondita livelli di Quick Sort.
+         * Ricorre sulla parte più corta e itera sulla più lunga.
+         */
+        private void sort(int lo, int hi, int profondita) {
+            while (hi - lo > CUTOFF) {
+                if (profondita-- == 0) {
+                    this.heapSort(lo, hi);
+                    return;
+                }
+                int p = this.partition(lo, hi);
+                if (p - lo < hi - p - 1) {
+                    this.sort(lo, p, profondita);
+                    lo = p + 1;
+                } else {
+                    this.sort(p + 1, hi, profondita);
+                    hi = p;
+                }
+            }
+            this.insertionSort(lo, hi);
+        }
+
+        /*
+         * Partiziona a[lo, hi) attorno al mediano di primo, centrale e
+         * ultimo elemento e restituisce la posizione finale del pivot.
+         */
+        private int partition(int lo, int hi) {
+            Object[] a = this.a;
+            int mid = (lo + hi) >>> 1;
+            // Ordino i tre candidati: a[lo] <= a[mid] <= a[hi - 1]
+            if (this.compare(a[mid], a[lo]) < 0)
+                swap(a, mid, lo);
+            if (this.compare(a[hi - 1], a[mid]) < 0) {
+                swap(a, hi - 1, mid);
+                if (this.compare(a[mid], a[lo]) < 0)
+                    swap(a, mid, lo);
+            }
+            // Il pivot va in hi - 2; a[lo] e a[hi - 1] fanno da sentinelle
+            swap(a, mid, hi - 2);
+            Object pivot = a[hi - 2];
+            int i = lo;
+            int j = hi - 2;
+            while (true) {
+                while (this.compare(a[++i], pivot) < 0)
+                    ;
+                while (this.compare(pivot, a[--j]) < 0)
+                    ;
+                if (i >= j)
+                    break;
+                swap(a, i, j);
+            }
+            swap(a, i, hi - 2);
+            return i;
+        }
+
+        /*
+         * Heap Sort di a[lo, hi) con un max-heap i cui figli del nodo i
+         * (relativo a lo) sono 2i + 1 e 2i + 2.
+         */
+        private void heapSort(int lo, int hi) {
+            int n = hi - lo;
+            for (int i = n / 2 - 1; i >= 0; i--)
+                this.siftDown(lo, i, n);
+            for (int k = n - 1; k > 0; k--) {
+                swap(this.a, lo, lo + k);
+                this.siftDown(lo, 0, k);
+            }
+        }
+
+        private void siftDown(int lo, int i, int n) {
+            Object[] a = this.a;
+            Object x = a[lo + i];
+            int figlio;
+            while ((figlio = 2 * i + 1) < n) {
+                if (figlio + 1 < n && this.compare(a[lo + figlio + 1], a[lo + figlio]) > 0)
+                    figlio++;
+                if (this.compare(a[lo + figlio], x) <= 0)
+                    break;
+                a[lo + i] = a[lo + figlio];
+                i = figlio;
+            }
+            a[lo + i] = x;
+        }
+
+        private void insertionSort(int lo, int hi) {
+            Object[] a = this.a;
+            for (int i = lo + 1; i < hi; i++) {
+                Object appoggio = a[i];
+                int j = i - 1;
+                while (j >= lo && this.compare(a[j], appoggio) > 0) {
+                    a[j + 1] = a[j];
+                    j--;
+                }
+                a[j + 1] = appoggio;
+            }
+        }
+    }
+
+    private static void swap(Object[] a, int i, int j) {
+        Object t = a[i];
+        a[i] = a[j];
+        a[j] = t;
+    }
+
+    @SuppressWarnings("unchecked")
+    private E cast(Object x) {
+        return (E) x;
+    }
+
+    public String getName() {
+        return "IntroSort";
+    }
+}
@@ -0,0 +1,318 @@
+package it.unicam.cs.asdl1920.mp2;
+
+import java.util.List;
+import java.util.ListIterator;
+
+/**
+ * Implementazione di un Merge Sort adattivo che sfrutta le sequenze già
+ * ordinate presenti nell'input (natural merge sort), integrata nel framework
+ * di valutazione numerica.
+ *
+ * L'input viene scandito da sinistra a destra cercando sequenze (run) non
+ * decrescenti o strettamente decrescenti; queste ultime vengono rovesciate,
+ * il che non altera la stabilità perché non contengono elementi uguali. I run
+ * più corti di {@link #RUN_MINIMO} elementi vengono estesi fino a quella
+ * lunghezza con un Binary Insertion Sort.
+ *
+ * Ogni run trovato viene messo su una pila di run adiacenti, e dopo ogni
+ * inserimento si fondono i run in cima finché le lunghezze, lette dalla cima
+ * verso il fondo, crescono più in fretta dei numeri di Fibonacci: ogni run è
+ * più lungo di quello sopra e più lungo della somma dei due sopra. Quando la
+ * seconda regola non vale, il run di mezzo viene fuso con il più corto dei
+ * suoi due vicini. Così la pila contiene O(log n) run, si fondono sempre run
+ * di lunghezza simile e ogni elemento partecipa a O(log r) fusioni, con r il
+ * numero di run: i confronti sono O(n log r), e molti meno quando i run hanno
+ * lunghezze molto diverse, perché un run lungo resta sulla pila finché i run
+ * corti che lo seguono non sono stati fusi fra loro. Alla fine i run rimasti
+ * vengono fusi dalla cima. Su un input già ordinato o rovesciato c'è un solo
+ * run e i confronti sono n - 1.
+ *
+ * Due run consecutivi già in ordine vengono fusi con un solo confronto.
+ * Altrimenti il primo run viene copiato in un array di appoggio e fuso con il
+ * secondo direttamente nell'array da ordinare. Durante una fusione, quando
+ * uno dei due run fornisce {@link #SERIE} elementi di fila, si passa a
+ * fusione a blocchi: con una ricerca esponenziale seguita da una binaria si
+ * trova quanti elementi di un run precedono il primo dell'altro e li si copia
+ * in blocco, alternando i due run; si torna al confronto elemento per
+ * elemento quando entrambi i blocchi trovati sono più corti di
+ * {@link #SERIE}. Un blocco di k elementi costa così O(log k) confronti
+ * invece di k. L'ordinamento è stabile.
+ *
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ * @param <E>
+ *            Una classe su cui sia definito un ordinamento naturale.
+ */
+public class NaturalMergeSort<E extends Comparable<E>>
+        implements SortingAlgorithm<E> {
+
+    /**
+     * Lunghezza minima di un run; i run più corti vengono estesi con Binary
+     * Insertion Sort.
+     */
+    public static final int RUN_MINIMO = 16;
+
+    /**
+     * Numero di elementi di fila presi dallo stesso run dopo cui una fusione
+     * passa a copiare blocchi.
+     */
+    public static final int SERIE = 8;
+
+    public SortingAlgorithmResult<E> sort(List<E> l) {
+        int n = l.size();
+        if (n < 2)
+            return new SortingAlgorithmResult<E>(l, 0);
+        Ordinamento o = new Ordinamento(l.toArray());
+        o.ordina();
+        ListIterator<E> it = l.listIterator();
+        for (Object x : o.a) {
+            it.next();
+            it.set(cast(x));
+        }
+        return new SortingAlgorithmResult<E>(l, o.countCompare);
+    }
+
+    /*
+     * Lo stato di un ordinamento: l'array da ordinare, la pila dei run ancora
+     * da fondere, l'array di appoggio delle fusioni e il contatore dei
+     * confronti.
+     */
+    private static final class Ordinamento {
+
+        private final Object[] a;
+
+        // Inizi e lunghezze dei run sulla pila, dal fondo alla cima; i run
+        // sono adiacenti, quindi ognuno inizia dove finisce il precedente
+        private final int[] inizio;
+
+        private final int[] lunghezza;
+
+        private int pila;
+
+        // Creato alla prima fusione e allungato quando serve
+        private Object[] appoggio;
+
+        private int countCompare;
+
+        private Ordinamento(Object[] a) {
+            this.a = a;
+            // Con le lunghezze che crescono almeno come i numeri di Fibonacci
+            // a partire da RUN_MINIMO, 64 posti bastano per qualsiasi array
+            this.inizio = new int[64];
+            this.lunghezza = new int[64];
+            this.appoggio = new Object[0];
+        }
+
+        @SuppressWarnings("unchecked")
+        private int compare(Object x, Object y) {
+            this.countCompare++;
+            return ((Comparable<Object>) x).compareTo(y);
+        }
+
+        /*
+         * Ordina l'array, cercando i run e fondendoli con la pila.
+         */
+        private void ordina() {
+            int n = this.a.length;
+            for (int lo = 0; lo < n;) {
+                int hi = this.fineRun(lo);
+                if (hi - lo < RUN_MINIMO) {
+                    int fine = Math.min(n, lo + RUN_MINIMO);
+                    this.estendi(lo, hi, fine);
+                    hi = fine;
+                }
+                this.inizio[this.pila] = lo;
+                this.lunghezza[this.pila] = hi - lo;
+                this.pila++;
+                this.ristabilisci();
+                lo = hi;
+            }
+            while (this.pila > 1)
+                this.fondiPila(this.pila - 2);
+        }
+
+        /*
+         * Fonde i run in cima alla pila finché, per ogni run, la lunghezza
+         * supera quella del run sopra e la somma dei due sopra. Le regole
+         * vengono controllate sui quattro run in cima: dopo una fusione in
+         * mezzo alla pila non basta guardarne tre.
+         */
+        private void ristabilisci() {
+            while (this.pila > 1) {
+                int m = this.pila - 2;
+                int[] l = this.lunghezza;
+                if ((m > 0 && l[m - 1] <= l[m] + l[m + 1])
+                        || (m > 1 && l[m - 2] <= l[m - 1] + l[m])) {
+                    // Il run m va fuso con il più corto dei suoi vicini
+                    this.fondiPila(l[m - 1] < l[m + 1] ? m - 1 : m);
+                } else if (l[m] <= l[m + 1]) {
+                    this.fondiPila(m);
+                } else {
+                    return;
+                }
+            }
+        }
+
+        /*
+         * Fonde il run i della pila con il successivo e toglie il secondo
+         * dalla pila.
+         */
+        private void fondiPila(int i) {
+            int lo = this.inizio[i];
+            int mid = lo + this.lunghezza[i];
+            int hi = mid + this.lunghezza[i + 1];
+            this.fondi(lo, mid, hi);
+            this.lunghezza[i] = hi - lo;
+            if (i + 2 < this.pila) {
+                this.inizio[i + 1] = this.inizio[i + 2];
+                this.lunghezza[i + 1] = this.lunghezza[i + 2];
+            }
+            this.pila--;
+        }
+
+        /*
+         * Restituisce la fine (esclusa) del run che inizia in lo, dopo averlo
+         * rovesciato se è strettamente decrescente. Ogni coppia di elementi
+         * adiacenti viene confrontata una volta sola.
+         */
+        private int fineRun(int lo) {
+            int n = this.a.length;
+            int hi = lo + 1;
+            if (hi == n)
+                return hi;
+            if (this.compare(this.a[lo], this.a[hi]) > 0) {
+                hi++;
+                while (hi < n && this.compare(this.a[hi - 1], this.a[hi]) > 0)
+                    hi++;
+                for (int i = lo, j = hi - 1; i < j; i++, j--) {
+                    Object t = this.a[i];
+                    this.a[i] = this.a[j];
+                    this.a[j] = t;
+                }
+            } else {
+                hi++;
+                while (hi < n && this.compare(this.a[hi - 1], this.a[hi]) <= 0)
+                    hi++;
+            }
+            return hi;
+        }
+
+        /*
+         * Estende il run ordinato a[lo, hi) fino a fine, inserendo ogni
+         * elemento dopo quelli uguali, nella posizione trovata con una
+         * ricerca binaria.
+         */
+        private void estendi(int lo, int hi, int fine) {
+            for (int i = hi; i < fine; i++) {
+                Object x = this.a[i];
+                int sx = lo;
+                int dx = i;
+                while (sx < dx) {
+                    int m = (sx + dx) >>> 1;
+                    if (this.compare(this.a[m], x) <= 0)
+                        sx = m + 1;
+                    else
+                        dx = m;
+                }
+                System.arraycopy(this.a, sx, this.a, sx + 1, i - sx);
+                this.a[sx] = x;
+            }
+        }
+
+        /*
+         * Fonde i run a[lo, mid) e a[mid, hi) in a[lo, hi); a parità viene
+         * preso l'elemento del primo run. Il primo run viene copiato
+         * nell'array di appoggio; gli elementi vengono scritti in a da lo in
+         * avanti, sempre prima della posizione del prossimo elemento del
+         * secondo run da leggere.
+         */
+        private void fondi(int lo, int mid, int hi) {
+            Object[] a = this.a;
+            if (this.compare(a[mid - 1], a[mid]) <= 0)
+                return;
+            int nSx = mid - lo;
+            if (this.appoggio.length < nSx)
+                this.appoggio = new Object[Math.max(nSx, Math.min(a.length, 2 * this.appoggio.length))];
+            Object[] sx = this.appoggio;
+            System.arraycopy(a, lo, sx, 0, nSx);
+            int i = 0;
+            int j = mid;
+            int k = lo;
+            int serieSx = 0;
+            int serieDx = 0;
+            while (i < nSx && j < hi) {
+                if (serieSx < SERIE && serieDx < SERIE) {
+                    if (this.compare(sx[i], a[j]) <= 0) {
+                        a[k++] = sx[i++];
+                        serieSx++;
+                        serieDx = 0;
+                    } else {
+                        a[k++] = a[j++];
+                        serieDx++;
+                        serieSx = 0;
+                    }
+                    continue;
+                }
+                // Fusione a blocchi: gli elementi del primo run non maggiori
+                // di a[j], poi quelli del secondo minori di sx[i]
+                int fine = this.primoOltre(sx, i, nSx, a[j], 1);
+                int bloccoSx = fine - i;
+                System.arraycopy(sx, i, a, k, bloccoSx);
+                k += bloccoSx;
+                i = fine;
+                if (i == nSx)
+                    break;
+                fine = this.primoOltre(a, j, hi, sx[i], 0);
+                int bloccoDx = fine - j;
+                System.arraycopy(a, j, a, k, bloccoDx);
+                k += bloccoDx;
+                j = fine;
+                if (bloccoSx < SERIE && bloccoDx < SERIE) {
+                    serieSx = 0;
+                    serieDx = 0;
+                }
+            }
+            // Se resta il secondo run è già al suo posto
+            if (i < nSx)
+                System.arraycopy(sx, i, a, k, nSx - i);
+        }
+
+        /*
+         * Restituisce la prima posizione x in [da, a) con
+         * compare(src[x], chiave) >= soglia, oppure a se non ce ne sono:
+         * con soglia 1 salta gli elementi non maggiori della chiave, con
+         * soglia 0 quelli minori. Prova le posizioni da, da + 1, da + 3,
+         * da + 7, ... e poi cerca con una ricerca binaria nell'ultimo
+         * intervallo, quindi costa O(log k) confronti se la risposta è
+         * da + k.
+         */
+        private int primoOltre(Object[] src, int da, int a, Object chiave, int soglia) {
+            int sx = da;
+            int prova = da;
+            int passo = 1;
+            while (prova < a && this.compare(src[prova], chiave) < soglia) {
+                sx = prova + 1;
+                passo *= 2;
+                prova = passo - 1 > a - da ? a : da + passo - 1;
+            }
+            int dx = prova;
+            while (sx < dx) {
+                int m = (sx + dx) >>> 1;
+                if (this.compare(src[m], chiave) < soglia)
+                    sx = m + 1;
+                else
+                    dx = m;
+            }
+            return sx;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private E cast(Object x) {
+        return (E) x;
+    }
+
+    public String getName() {
+        return "NaturalMergeSort";
+    }
+}
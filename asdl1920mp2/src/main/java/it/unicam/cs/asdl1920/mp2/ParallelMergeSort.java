@@ -0,0 +1,277 @@
+package it.unicam.cs.asdl1920.mp2;
+
+import java.util.List;
+import java.util.ListIterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Implementazione parallela dell'algoritmo di Merge Sort su un
+ * {@link ForkJoinPool}, integrata nel framework di valutazione numerica.
+ * 
+ * Gli elementi vengono copiati in un array e ordinati con un array ausiliario
+ * della stessa lunghezza: ogni livello della ricorsione fonde le due metà da un
+ * array nell'altro, così che non servano copie fra un livello e l'altro. Le
+ * due metà di una sequenza lunga più della soglia sequenziale vengono ordinate
+ * da due task in parallelo, e anche il merge di due sequenze lunghe viene
+ * diviso: l'elemento centrale della sequenza più lunga viene cercato con una
+ * ricerca binaria nell'altra, e le due parti a sinistra e a destra vengono
+ * fuse in parallelo. Sotto la soglia l'ordinamento è sequenziale, con
+ * Insertion Sort per le sequenze corte.
+ * 
+ * Ogni task conta i propri confronti e li restituisce al task che lo ha
+ * creato, quindi non ci sono contatori condivisi. Il numero di confronti è
+ * diverso da quello di {@link MergeSort} per via delle ricerche binarie dei
+ * merge paralleli. L'ordinamento è stabile.
+ * 
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ * @param <E>
+ *            Una classe su cui sia definito un ordinamento naturale.
+ */
+public class ParallelMergeSort<E extends Comparable<E>>
+        implements SortingAlgorithm<E> {
+
+    /**
+     * Soglia sequenziale di default: sequenze di al più questa lunghezza
+     * vengono ordinate e fuse da un solo task.
+     */
+    public static final int SOGLIA = 8192;
+
+    // Lunghezza delle sequenze ordinate con Insertion Sort
+    private static final int CUTOFF = 16;
+
+    private final ForkJoinPool pool;
+
+    private final int soglia;
+
+    /**
+     * Crea un ordinamento che usa il pool comune con la soglia di default.
+     */
+    public ParallelMergeSort() {
+        this(ForkJoinPool.commonPool(), SOGLIA);
+    }
+
+    /**
+     * Crea un ordinamento che usa un certo pool e una certa soglia sequenziale.
+     * 
+     * @param pool
+     *                   il pool su cui eseguire i task
+     * @param soglia
+     *                   la lunghezza massima delle sequenze ordinate o fuse
+     *                   da un solo task
+     * @throws NullPointerException
+     *                                      se il pool è null
+     * @throws IllegalArgumentException
+     *                                      se la soglia è minore di 2
+     */
+    public ParallelMergeSort(ForkJoinPool pool, int soglia) {
+        if (pool == null)
+            throw new NullPointerException("Il pool passato è null");
+        if (soglia < 2)
+            throw new IllegalArgumentException("La soglia deve essere almeno 2");
+        this.pool = pool;
+        this.soglia = soglia;
+    }
+
+    public SortingAlgorithmResult<E> sort(List<E> l) {
+        int n = l.size();
+        if (n < 2)
+            return new SortingAlgorithmResult<E>(l, 0);
+        Object[] a = l.toArray();
+        Object[] b = new Object[n];
+        long countCompare = this.pool.invoke(new Ordina(a, b, 0, n, false));
+        ListIterator<E> it = l.listIterator();
+        for (Object x : a) {
+            it.next();
+            it.set(cast(x));
+        }
+        // Il risultato ha un contatore int: oltre il massimo si satura
+        return new SortingAlgorithmResult<E>(l, (int) Math.min(countCompare, Integer.MAX_VALUE));
+    }
+
+    /*
+     * Ordina gli elementi che all'inizio sono in a[lo, hi) e mette il
+     * risultato in b se inB, altrimenti in a; l'altro array viene usato come
+     * appoggio nello stesso intervallo. Restituisce il numero di confronti.
+     */
+    private final class Ordina extends RecursiveTask<Long> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Object[] a;
+
+        private final Object[] b;
+
+        private final int lo;
+
+        private final int hi;
+
+        private final boolean inB;
+
+        private Ordina(Object[] a, Object[] b, int lo, int hi, boolean inB) {
+            this.a = a;
+            this.b = b;
+            this.lo = lo;
+            this.hi = hi;
+            this.inB = inB;
+        }
+
+        @Override
+        protected Long compute() {
+            if (this.hi - this.lo <= soglia)
+                return ordinaSequenziale(this.a, this.b, this.lo, this.hi, this.inB);
+            int middle = (this.lo + this.hi) >>> 1;
+            // Le metà vanno nell'array opposto a quello del risultato, da cui
+            // vengono poi fuse
+            Ordina sinistra = new Ordina(this.a, this.b, this.lo, middle, !this.inB);
+            Ordina destra = new Ordina(this.a, this.b, middle, this.hi, !this.inB);
+            sinistra.fork();
+            long countCompare = destra.compute() + sinistra.join();
+            Object[] src = this.inB ? this.a : this.b;
+            Object[] dst = this.inB ? this.b : this.a;
+            return countCompare + new Fondi(src, dst, this.lo, middle, middle, this.hi, this.lo).compute();
+        }
+    }
+
+    /*
+     * Fonde src[lo1, hi1) e src[lo2, hi2), ordinate, in dst a partire da k e
+     * restituisce il numero di confronti.
+     */
+    private final class Fondi extends RecursiveTask<Long> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final Object[] src;
+
+        private final Object[] dst;
+
+        private final int lo1;
+
+        private final int hi1;
+
+        private final int lo2;
+
+        private final int hi2;
+
+        private final int k;
+
+        private Fondi(Object[] src, Object[] dst, int lo1, int hi1, int lo2, int hi2, int k) {
+            this.src = src;
+            this.dst = dst;
+            this.lo1 = lo1;
+            this.hi1 = hi1;
+            this.lo2 = lo2;
+            this.hi2 = hi2;
+            this.k = k;
+        }
+
+        @Override
+        protected Long compute() {
+            int n1 = this.hi1 - this.lo1;
+            int n2 = this.hi2 - this.lo2;
+            if (n1 + n2 <= soglia || n1 == 0 || n2 == 0)
+                return merge(this.src, this.dst, this.lo1, this.hi1, this.lo2, this.hi2, this.k);
+            // Divido la sequenza più lunga a metà e cerco nell'altra dove
+            // cade il suo elemento centrale. Per la stabilità, a parità gli
+            // elementi della prima sequenza restano a sinistra di quelli
+            // della seconda
+            int m1;
+            int m2;
+            long[] countCompare = new long[1];
+            if (n1 >= n2) {
+                m1 = (this.lo1 + this.hi1) >>> 1;
+                m2 = cerca(this.src, this.lo2, this.hi2, this.src[m1], false, countCompare);
+            } else {
+                m2 = (this.lo2 + this.hi2) >>> 1;
+                m1 = cerca(this.src, this.lo1, this.hi1, this.src[m2], true, countCompare);
+            }
+            int kMiddle = this.k + (m1 - this.lo1) + (m2 - this.lo2);
+            Fondi sinistra = new Fondi(this.src, this.dst, this.lo1, m1, this.lo2, m2, this.k);
+            Fondi destra = new Fondi(this.src, this.dst, m1, this.hi1, m2, this.hi2, kMiddle);
+            sinistra.fork();
+            return countCompare[0] + destra.compute() + sinistra.join();
+        }
+    }
+
+    /*
+     * Ricerca binaria in src[lo, hi) della prima posizione con un elemento
+     * maggiore di x (se dopoUguali) o maggiore o uguale a x (altrimenti).
+     * Aggiunge i confronti effettuati a countCompare[0].
+     */
+    private static int cerca(Object[] src, int lo, int hi, Object x, boolean dopoUguali, long[] countCompare) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            countCompare[0]++;
+            int cmp = compare(src[mid], x);
+            if (cmp < 0 || (dopoUguali && cmp == 0))
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        return lo;
+    }
+
+    /*
+     * Versione sequenziale di Ordina.
+     */
+    private static long ordinaSequenziale(Object[] a, Object[] b, int lo, int hi, boolean inB) {
+        if (hi - lo <= CUTOFF) {
+            long countCompare = insertionSort(a, lo, hi);
+            if (inB)
+                System.arraycopy(a, lo, b, lo, hi - lo);
+            return countCompare;
+        }
+        int middle = (lo + hi) >>> 1;
+        long countCompare = ordinaSequenziale(a, b, lo, middle, !inB)
+                + ordinaSequenziale(a, b, middle, hi, !inB);
+        Object[] src = inB ? a : b;
+        Object[] dst = inB ? b : a;
+        return countCompare + merge(src, dst, lo, middle, middle, hi, lo);
+    }
+
+    private static long insertionSort(Object[] a, int lo, int hi) {
+        long countCompare = 0;
+        for (int i = lo + 1; i < hi; i++) {
+            Object appoggio = a[i];
+            int j = i - 1;
+            while (j >= lo) {
+                countCompare++;
+                if (compare(a[j], appoggio) <= 0)
+                    break;
+                a[j + 1] = a[j];
+                j--;
+            }
+            a[j + 1] = appoggio;
+        }
+        return countCompare;
+    }
+
+    private static long merge(Object[] src, Object[] dst, int lo1, int hi1, int lo2, int hi2, int k) {
+        long countCompare = 0;
+        while (lo1 < hi1 && lo2 < hi2) {
+            countCompare++;
+            if (compare(src[lo1], src[lo2]) <= 0)
+                dst[k++] = src[lo1++];
+            else
+                dst[k++] = src[lo2++];
+        }
+        System.arraycopy(src, lo1, dst, k, hi1 - lo1);
+        System.arraycopy(src, lo2, dst, k + hi1 - lo1, hi2 - lo2);
+        return countCompare;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E extends Comparable<E>> int compare(Object a, Object b) {
+        return ((E) a).compareTo((E) b);
+    }
+
+    @SuppressWarnings("unchecked")
+    private E cast(Object x) {
+        return (E) x;
+    }
+
+    public String getName() {
+        return "ParallelMergeSort";
+    }
+}
@@ -0,0 +1,37 @@
+package it.unicam.cs.asdl1920.mp2;
+
+import java.util.List;
+import java.util.ListIterator;
+
+/**
+ * Radix Sort per liste di interi integrato nel framework di valutazione
+ * numerica. Copia gli elementi in un array di int, lo ordina con
+ * {@link IntRadixSort} e riscrive la lista. Come per IntRadixSort, il numero
+ * riportato nel risultato al posto dei confronti è il numero di accessi alle
+ * chiavi.
+ * 
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+public class RadixSort implements SortingAlgorithm<Integer> {
+
+    private final IntRadixSort radix = new IntRadixSort();
+
+    public SortingAlgorithmResult<Integer> sort(List<Integer> l) {
+        int[] a = new int[l.size()];
+        int i = 0;
+        for (Integer x : l)
+            a[i++] = x;
+        long accessi = this.radix.sort(a).getCountCompare();
+        ListIterator<Integer> it = l.listIterator();
+        for (int x : a) {
+            it.next();
+            it.set(x);
+        }
+        return new SortingAlgorithmResult<Integer>(l, (int) Math.min(accessi, Integer.MAX_VALUE));
+    }
+
+    public String getName() {
+        return "RadixSort";
+    }
+}
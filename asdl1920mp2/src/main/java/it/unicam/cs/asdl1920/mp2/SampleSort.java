@@ -0,0 +1,266 @@
+package it.unicam.cs.asdl1920.mp2;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Implementazione parallela dell'algoritmo di Sample Sort integrata nel
+ * framework di valutazione numerica.
+ * 
+ * Da un campione casuale di (numero di bucket) x {@link #SOVRACAMPIONAMENTO}
+ * elementi, ordinato, vengono scelti come separatori gli elementi a intervalli
+ * regolari; con il sovracampionamento i bucket hanno dimensioni vicine fra
+ * loro. L'array viene diviso in parti, una per bucket, e ogni parte viene
+ * classificata in parallelo cercando con una ricerca binaria fra i separatori
+ * il bucket di ogni elemento; i conteggi delle parti danno la posizione di
+ * ogni bucket, e le parti vengono distribuite in parallelo. Infine i bucket
+ * sono ordinati in parallelo, ciascuno con un {@link SortingAlgorithm}
+ * configurabile: uno per i bucket piccoli e uno per gli altri.
+ * 
+ * Ogni task conta i propri confronti, compresi quelli degli algoritmi usati
+ * per i bucket e per il campione, e il totale viene sommato alla fine.
+ * 
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ * @param <E>
+ *            Una classe su cui sia definito un ordinamento naturale.
+ */
+public class SampleSort<E extends Comparable<E>> implements SortingAlgorithm<E> {
+
+    /**
+     * Numero di elementi del campione per ogni bucket.
+     */
+    public static final int SOVRACAMPIONAMENTO = 32;
+
+    /**
+     * Lunghezza di default sotto cui un bucket è piccolo.
+     */
+    public static final int SOGLIA_PICCOLI = 32;
+
+    private final ForkJoinPool pool;
+
+    private final int numeroBucket;
+
+    private final SortingAlgorithm<E> perPiccoli;
+
+    private final SortingAlgorithm<E> perGrandi;
+
+    private final int sogliaPiccoli;
+
+    /**
+     * Crea un ordinamento che usa il pool comune, quattro bucket per thread
+     * del pool, Insertion Sort per i bucket piccoli e Merge Sort per gli
+     * altri.
+     */
+    public SampleSort() {
+        this(ForkJoinPool.commonPool(), 4 * ForkJoinPool.commonPool().getParallelism(),
+                new InsertionSort<E>(), new MergeSort<E>(), SOGLIA_PICCOLI);
+    }
+
+    /**
+     * Crea un ordinamento con un pool, un numero di bucket e gli algoritmi per
+     * i bucket dati.
+     * 
+     * @param pool
+     *                          il pool su cui eseguire i task
+     * @param numeroBucket
+     *                          il numero di bucket
+     * @param perPiccoli
+     *                          l'algoritmo per i bucket con meno di
+     *                          sogliaPiccoli elementi
+     * @param perGrandi
+     *                          l'algoritmo per gli altri bucket e per il
+     *                          campione
+     * @param sogliaPiccoli
+     *                          la lunghezza da cui un bucket non è piccolo
+     * @throws NullPointerException
+     *                                      se il pool o uno degli algoritmi è
+     *                                      null
+     * @throws IllegalArgumentException
+     *                                      se il numero di bucket è minore di 1
+     */
+    public SampleSort(ForkJoinPool pool, int numeroBucket, SortingAlgorithm<E> perPiccoli,
+            SortingAlgorithm<E> perGrandi, int sogliaPiccoli) {
+        if (pool == null || perPiccoli == null || perGrandi == null)
+            throw new NullPointerException("Il pool o un algoritmo per i bucket è null");
+        if (numeroBucket < 1)
+            throw new IllegalArgumentException("Il numero di bucket deve essere almeno 1");
+        this.pool = pool;
+        this.numeroBucket = numeroBucket;
+        this.perPiccoli = perPiccoli;
+        this.perGrandi = perGrandi;
+        this.sogliaPiccoli = sogliaPiccoli;
+    }
+
+    public SortingAlgorithmResult<E> sort(List<E> l) {
+        int n = l.size();
+        int p = this.numeroBucket;
+        // Con pochi elementi per bucket la distribuzione non conviene
+        if (p == 1 || n < 2 * p * SOVRACAMPIONAMENTO) {
+            List<E> copia = new ArrayList<E>(l);
+            long countCompare = this.ordinaBucket(copia);
+            riscrivi(l, copia);
+            return new SortingAlgorithmResult<E>(l, satura(countCompare));
+        }
+        Object[] a = l.toArray();
+        long countCompare = 0;
+        // Campione e separatori
+        Random random = new Random(n);
+        List<E> campione = new ArrayList<E>(p * SOVRACAMPIONAMENTO);
+        for (int i = 0; i < p * SOVRACAMPIONAMENTO; i++)
+            campione.add(cast(a[random.nextInt(n)]));
+        countCompare += this.ordinaBucket(campione);
+        Object[] separatori = new Object[p - 1];
+        for (int i = 1; i < p; i++)
+            separatori[i - 1] = campione.get(i * SOVRACAMPIONAMENTO);
+        // Classificazione parallela: parte i = a[inizio(i), inizio(i + 1))
+        int[] bucket = new int[n];
+        int[][] conteggi = new int[p][];
+        List<Callable<Long>> classifica = new ArrayList<Callable<Long>>();
+        for (int i = 0; i < p; i++) {
+            int parte = i;
+            classifica.add(() -> {
+                int[] conteggio = new int[p];
+                long confronti = 0;
+                for (int j = inizio(parte, n, p); j < inizio(parte + 1, n, p); j++) {
+                    // Numero di separatori minori o uguali ad a[j]
+                    int lo = 0;
+                    int hi = separatori.length;
+                    while (lo < hi) {
+                        int mid = (lo + hi) >>> 1;
+                        confronti++;
+                        if (SampleSort.<E>compare(a[j], separatori[mid]) < 0)
+                            hi = mid;
+                        else
+                            lo = mid + 1;
+                    }
+                    bucket[j] = lo;
+                    conteggio[lo]++;
+                }
+                conteggi[parte] = conteggio;
+                return confronti;
+            });
+        }
+        countCompare += this.esegui(classifica);
+        // Posizioni: il bucket b inizia dopo i bucket precedenti, e dentro il
+        // bucket la parte i scrive dopo le parti precedenti
+        int[] inizioBucket = new int[p + 1];
+        int[][] posizione = new int[p][p];
+        int somma = 0;
+        for (int b = 0; b < p; b++) {
+            inizioBucket[b] = somma;
+            for (int i = 0; i < p; i++) {
+                posizione[i][b] = somma;
+                somma += conteggi[i][b];
+            }
+        }
+        inizioBucket[p] = n;
+        // Distribuzione parallela
+        Object[] distribuiti = new Object[n];
+        List<Callable<Long>> distribuisci = new ArrayList<Callable<Long>>();
+        for (int i = 0; i < p; i++) {
+            int parte = i;
+            distribuisci.add(() -> {
+                int[] pos = posizione[parte];
+                for (int j = inizio(parte, n, p); j < inizio(parte + 1, n, p); j++)
+                    distribuiti[pos[bucket[j]]++] = a[j];
+                return 0L;
+            });
+        }
+        this.esegui(distribuisci);
+        // Ordinamento parallelo dei bucket
+        List<Callable<Long>> ordina = new ArrayList<Callable<Long>>();
+        for (int b = 0; b < p; b++) {
+            int da = inizioBucket[b];
+            int a2 = inizioBucket[b + 1];
+            ordina.add(() -> {
+                List<E> v = new ArrayList<E>(a2 - da);
+                for (int j = da; j < a2; j++)
+                    v.add(cast(distribuiti[j]));
+                long confronti = this.ordinaBucket(v);
+                for (int j = da; j < a2; j++)
+                    distribuiti[j] = v.get(j - da);
+                return confronti;
+            });
+        }
+        countCompare += this.esegui(ordina);
+        ListIterator<E> it = l.listIterator();
+        for (Object x : distribuiti) {
+            it.next();
+            it.set(cast(x));
+        }
+        return new SortingAlgorithmResult<E>(l, satura(countCompare));
+    }
+
+    /*
+     * Ordina un bucket con l'algoritmo adatto alla sua lunghezza e
+     * restituisce il numero di confronti. Il bucket viene ordinato sul posto
+     * anche se l'algoritmo restituisce una lista diversa.
+     */
+    private long ordinaBucket(List<E> v) {
+        if (v.size() < 2)
+            return 0;
+        SortingAlgorithm<E> alg = v.size() < this.sogliaPiccoli ? this.perPiccoli : this.perGrandi;
+        SortingAlgorithmResult<E> r = alg.sort(v);
+        if (r.getL() != v)
+            riscrivi(v, r.getL());
+        return r.getCountCompare();
+    }
+
+    /*
+     * Esegue i task sul pool e restituisce la somma dei loro risultati.
+     */
+    private long esegui(List<Callable<Long>> task) {
+        long somma = 0;
+        for (Future<Long> f : this.pool.invokeAll(task)) {
+            try {
+                somma += f.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SortingException("Interrotto durante l'ordinamento", e);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException)
+                    throw (RuntimeException) e.getCause();
+                throw new SortingException(e.getCause());
+            }
+        }
+        return somma;
+    }
+
+    // Inizio della parte i di p in cui è diviso un array di n elementi
+    private static int inizio(int i, int n, int p) {
+        return (int) ((long) i * n / p);
+    }
+
+    private static <E> void riscrivi(List<E> l, List<E> da) {
+        ListIterator<E> it = l.listIterator();
+        for (E x : da) {
+            it.next();
+            it.set(x);
+        }
+    }
+
+    private static int satura(long countCompare) {
+        return (int) Math.min(countCompare, Integer.MAX_VALUE);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E extends Comparable<E>> int compare(Object a, Object b) {
+        return ((E) a).compareTo((E) b);
+    }
+
+    @SuppressWarnings("unchecked")
+    private E cast(Object x) {
+        return (E) x;
+    }
+
+    public String getName() {
+        return "SampleSort";
+    }
+}
@@ -4,6 +4,7 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.PrintStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
@@ -13,7 +14,9 @@ import java.util.Random;
  * sequenze. I dati relativi al numero di confronti, il tempo di esecuzione in
  * millisecondi e in nanosecondi di ogni algoritmo su ogni sequenza sono scritti
  * su un file .csv (Comma Separated Values). In un altro file .csv sono
- * riportate le sequenze generate.
+ * riportate le sequenze generate. Per gli algoritmi che non confrontano gli
+ * elementi, come il Radix Sort, al posto del numero di confronti è riportato
+ * il numero di accessi alle chiavi.
  * 
  * Il main può essere chiamato con il nome della directory di destinazione dei
  * file come parametro di linea di comando. Se non è presente nessun parametro
@@ -51,6 +54,25 @@ public class SortingAlgorithmEvaluationFramework {
         algs.add(new InsertionSort<Integer>());
         algs.add(new MergeSort<Integer>());
         algs.add(new RBTreeSort<Integer>());
+        algs.add(new BottomUpMergeSort<Integer>());
+        algs.add(new ParallelMergeSort<Integer>());
+        algs.add(new NaturalMergeSort<Integer>());
+        algs.add(new BinaryInsertionSort<Integer>());
+        algs.add(new RadixSort());
+        algs.add(new DualPivotQuickSort<Integer>());
+        algs.add(new IntroSort<Integer>());
+        algs.add(new HeapSort<Integer>());
+        // Ordinamento esterno con run piccoli, per avere più run anche sulle
+        // sequenze corte del framework
+        algs.add(new ExternalMergeSort(new IntMergeSort(), 256, null));
+        algs.add(new SampleSort<Integer>());
+        // Creo una lista di algoritmi di ordinamento di interi primitivi, che
+        // ordinano copie della stessa sequenza in un array di int
+        List<IntSortingAlgorithm> intAlgs = new ArrayList<IntSortingAlgorithm>();
+        intAlgs.add(new IntInsertionSort());
+        intAlgs.add(new IntMergeSort());
+        intAlgs.add(new IntRBTreeSort());
+        intAlgs.add(new IntRadixSort());
         // Creo una lista di liste per contenere le copie delle liste da
         // ordinare, una per ogni algoritmo
         List<List<Integer>> lists = new ArrayList<List<Integer>>();
@@ -59,8 +81,14 @@ public class SortingAlgorithmEvaluationFramework {
             lists.add(new ArrayList<Integer>());
         // Inserisco la linea di intestazione dei dati nei file csv
         o.print("SeqId,");
+        // Per gli algoritmi che non fanno confronti la colonna riporta il
+        // numero di accessi alle chiavi
         for (SortingAlgorithm<Integer> a : algs) {
-            o.print(a.getName() + "NComp,");
+            o.print(a.getName() + (a instanceof RadixSort ? "NAcc," : "NComp,"));
+            o.print(a.getName() + "Tns,");
+        }
+        for (IntSortingAlgorithm a : intAlgs) {
+            o.print(a.getName() + (a instanceof IntRadixSort ? "NAcc," : "NComp,"));
             o.print(a.getName() + "Tns,");
         }
         o.print("\n"); // Fine riga
@@ -82,12 +110,14 @@ public class SortingAlgorithmEvaluationFramework {
                 o.print("seq" + "_" + n + "_" + count + ",");
                 sequences.print("seq" + "_" + n + "_" + count + ",");
                 // Genero la sequenza
+                int[] generated = new int[n];
                 for (int j = 0; j < n; j++) {
                     Integer x = new Integer(randomGenerator.nextInt(
                             SortingAlgorithmEvaluationFrameworkParameters.MAX_GENERATED_INTEGER));
                     // Aggiungo l'elemento a tutte le liste
                     for (List<Integer> l : lists)
                         l.add(x);
+                    generated[j] = x;
                     // Salvo l'elemento sul file delle sequenze
                     sequences.print(x.intValue() + ",");
                 } // Sequenza generata
@@ -130,6 +160,25 @@ public class SortingAlgorithmEvaluationFramework {
                     o.print(elapsedTimeNano + ",");
                     idx++;
                 }
+                // Gli algoritmi su interi primitivi ordinano ciascuno una
+                // copia della sequenza generata
+                for (IntSortingAlgorithm a : intAlgs) {
+                    int[] seq = generated.clone();
+                    startTimeNano = System.nanoTime();
+                    IntSortingAlgorithmResult result = a.sort(seq);
+                    elapsedTimeNano = System.nanoTime() - startTimeNano;
+                    if (!result.checkOrder()) {
+                        o.close();
+                        sequences.close();
+                        System.out.println("L'algoritmo " + a.getName()
+                                + " non ha ordinato correttamente la sequenza "
+                                + Arrays.toString(generated));
+                        throw new SortingException("L'algoritmo " + a.getName()
+                                + " non ha ordinato correttamente una sequenza");
+                    }
+                    o.print(result.getCountCompare() + ",");
+                    o.print(elapsedTimeNano + ",");
+                }
                 o.print("\n"); // Fine riga
                 // Azzero tutte le liste
                 for (List<Integer> l : lists)
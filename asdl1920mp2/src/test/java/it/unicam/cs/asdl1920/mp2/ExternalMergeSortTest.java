@@ -0,0 +1,174 @@
+/**
+ * 
+ */
+package it.unicam.cs.asdl1920.mp2;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+/**
+ * Classe di test JUnit 5 per ExternalMergeSort.
+ * 
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+class ExternalMergeSortTest {
+
+    @TempDir
+    Path dir;
+
+    private static int[] casuali(int n, long seme) {
+        Random r = new Random(seme);
+        int[] a = new int[n];
+        for (int i = 0; i < n; i++)
+            a[i] = r.nextInt(1000) - 500;
+        return a;
+    }
+
+    private static int[] leggiBinario(File f) throws IOException {
+        int[] a = new int[(int) (f.length() / 4)];
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)))) {
+            for (int i = 0; i < a.length; i++)
+                a[i] = in.readInt();
+        }
+        return a;
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp2.ExternalMergeSort#ordina(java.io.File, it.unicam.cs.asdl1920.mp2.ExternalMergeSort.Formato, java.io.File, it.unicam.cs.asdl1920.mp2.ExternalMergeSort.Formato)}.
+     */
+    @Test
+    final void testOrdinaBinario() throws IOException {
+        // 5000 elementi in run da 10: 500 run, fusi in due passate
+        int[] a = casuali(5000, 71);
+        File in = this.dir.resolve("in.bin").toFile();
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(in))) {
+            for (int x : a)
+                out.writeInt(x);
+        }
+        File out = this.dir.resolve("out.bin").toFile();
+        ExternalMergeSort s = new ExternalMergeSort(new IntInsertionSort(), 10, this.dir.toFile());
+        long countCompare = s.ordina(in, ExternalMergeSort.Formato.BINARIO, out, ExternalMergeSort.Formato.BINARIO);
+        int[] atteso = a.clone();
+        Arrays.sort(atteso);
+        assertArrayEquals(atteso, leggiBinario(out));
+        assertTrue(countCompare > 0);
+        // Restano solo ingresso e uscita: i run temporanei sono cancellati
+        assertEquals(2, this.dir.toFile().list().length);
+        // File vuoto
+        File vuoto = this.dir.resolve("vuoto.bin").toFile();
+        vuoto.createNewFile();
+        assertEquals(0, s.ordina(vuoto, ExternalMergeSort.Formato.BINARIO, out, ExternalMergeSort.Formato.BINARIO));
+        assertEquals(0, out.length());
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp2.ExternalMergeSort#ordina(java.io.File, it.unicam.cs.asdl1920.mp2.ExternalMergeSort.Formato, java.io.File, it.unicam.cs.asdl1920.mp2.ExternalMergeSort.Formato)}
+     * con file CSV.
+     */
+    @Test
+    final void testOrdinaCsv() throws IOException {
+        int[] a = casuali(1000, 73);
+        File in = this.dir.resolve("in.csv").toFile();
+        try (PrintStream out = new PrintStream(in)) {
+            for (int i = 0; i < a.length; i++)
+                out.print(a[i] + (i % 20 == 19 ? ",\n" : ", "));
+        }
+        File out = this.dir.resolve("out.csv").toFile();
+        ExternalMergeSort s = new ExternalMergeSort(new IntMergeSort(), 64, this.dir.toFile());
+        s.ordina(in, ExternalMergeSort.Formato.CSV, out, ExternalMergeSort.Formato.CSV);
+        List<String> righe = Files.readAllLines(out.toPath());
+        int[] letti = new int[righe.size()];
+        for (int i = 0; i < letti.length; i++)
+            letti[i] = Integer.parseInt(righe.get(i));
+        int[] atteso = a.clone();
+        Arrays.sort(atteso);
+        assertArrayEquals(atteso, letti);
+        try (PrintStream p = new PrintStream(in)) {
+            p.print("1,2,tre,4");
+        }
+        assertThrows(IOException.class,
+                () -> s.ordina(in, ExternalMergeSort.Formato.CSV, out, ExternalMergeSort.Formato.BINARIO));
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp2.ExternalMergeSort#ordina(java.io.File, it.unicam.cs.asdl1920.mp2.ExternalMergeSort.Formato, java.io.File, it.unicam.cs.asdl1920.mp2.ExternalMergeSort.Formato)}
+     * con un errore durante una passata intermedia.
+     */
+    @Test
+    final void testOrdinaErrore() throws IOException {
+        // 600 run da un elemento: la prima passata li fonde in tre
+        int[] a = casuali(600, 83);
+        File in = this.dir.resolve("in.bin").toFile();
+        try (DataOutputStream out = new DataOutputStream(new FileOutputStream(in))) {
+            for (int x : a)
+                out.writeInt(x);
+        }
+        File temporanei = this.dir.resolve("run").toFile();
+        temporanei.mkdir();
+        // Mentre ordina l'ultimo run cancella uno di quelli già scritti, così
+        // la passata fallisce quando prova a leggerlo
+        IntSortingAlgorithm guasto = new IntSortingAlgorithm() {
+            private int chiamate;
+
+            public IntSortingAlgorithmResult sort(int[] b) {
+                if (++this.chiamate == a.length)
+                    temporanei.listFiles()[0].delete();
+                return new IntInsertionSort().sort(b);
+            }
+
+            public String getName() {
+                return "Guasto";
+            }
+        };
+        ExternalMergeSort s = new ExternalMergeSort(guasto, 1, temporanei);
+        File out = this.dir.resolve("out.bin").toFile();
+        assertThrows(IOException.class,
+                () -> s.ordina(in, ExternalMergeSort.Formato.BINARIO, out, ExternalMergeSort.Formato.BINARIO));
+        // Nessun run, consumato o scritto in parte, resta sul disco
+        assertEquals(0, temporanei.list().length);
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp2.ExternalMergeSort#sort(java.util.List)}.
+     */
+    @Test
+    final void testSort() {
+        assertThrows(NullPointerException.class, () -> new ExternalMergeSort(null, 10, null));
+        assertThrows(IllegalArgumentException.class, () -> new ExternalMergeSort(new IntMergeSort(), 0, null));
+        ExternalMergeSort s = new ExternalMergeSort(new IntRadixSort(), 100, this.dir.toFile());
+        List<Integer> l = new ArrayList<Integer>();
+        for (int x : casuali(1234, 79))
+            l.add(x);
+        List<Integer> atteso = new ArrayList<Integer>(l);
+        Collections.sort(atteso);
+        SortingAlgorithmResult<Integer> res = s.sort(l);
+        assertSame(l, res.getL());
+        assertEquals(atteso, l);
+        assertTrue(res.checkOrder());
+        assertEquals(0, this.dir.toFile().list().length);
+    }
+
+}
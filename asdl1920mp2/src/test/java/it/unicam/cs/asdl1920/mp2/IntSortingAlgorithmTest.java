@@ -0,0 +1,125 @@
+/**
+ * 
+ */
+package it.unicam.cs.asdl1920.mp2;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Classe di test JUnit 5 per le implementazioni di IntSortingAlgorithm,
+ * confrontate con gli algoritmi generici corrispondenti.
+ * 
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+class IntSortingAlgorithmTest {
+
+    /*
+     * Controlla che l'algoritmo su interi ordini come Arrays.sort e faccia
+     * gli stessi confronti dell'algoritmo generico su sequenze casuali, con
+     * ripetizioni, ordinate e ordinate al contrario.
+     */
+    private static void confronta(IntSortingAlgorithm alg, SortingAlgorithm<Integer> generico) {
+        Random r = new Random(41);
+        for (int n = 1; n <= 300; n += 7) {
+            for (int tipo = 0; tipo < 4; tipo++) {
+                int[] a = new int[n];
+                for (int i = 0; i < n; i++) {
+                    switch (tipo) {
+                    case 0:
+                        a[i] = r.nextInt();
+                        break;
+                    case 1:
+                        a[i] = r.nextInt(10);
+                        break;
+                    case 2:
+                        a[i] = i;
+                        break;
+                    default:
+                        a[i] = n - i;
+                    }
+                }
+                List<Integer> l = new ArrayList<Integer>();
+                for (int x : a)
+                    l.add(x);
+                int[] atteso = a.clone();
+                Arrays.sort(atteso);
+                IntSortingAlgorithmResult res = alg.sort(a);
+                assertSame(a, res.getA());
+                assertArrayEquals(atteso, res.getA());
+                assertTrue(res.checkOrder());
+                assertEquals(generico.sort(l).getCountCompare(), res.getCountCompare());
+            }
+        }
+        assertEquals(0, alg.sort(new int[0]).getA().length);
+        assertThrows(NullPointerException.class, () -> alg.sort(null));
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp2.IntInsertionSort#sort(int[])}.
+     */
+    @Test
+    final void testIntInsertionSort() {
+        confronta(new IntInsertionSort(), new InsertionSort<Integer>());
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp2.IntMergeSort#sort(int[])}.
+     */
+    @Test
+    final void testIntMergeSort() {
+        confronta(new IntMergeSort(), new MergeSort<Integer>());
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp2.IntRBTreeSort#sort(int[])}.
+     */
+    @Test
+    final void testIntRBTreeSort() {
+        confronta(new IntRBTreeSort(), new RBTreeSort<Integer>());
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp2.IntRadixSort#sort(int[])}.
+     */
+    @Test
+    final void testIntRadixSort() {
+        IntRadixSort alg = new IntRadixSort();
+        Random r = new Random(61);
+        // Intervalli piccoli (una passata), grandi e con negativi, e un array
+        // abbastanza lungo da calcolare gli istogrammi in parallelo
+        int[] lunghezze = { 2, 10, 1000, 50000, 300000 };
+        int[] intervalli = { 1, 16, 1500, 1 << 20, 0 };
+        for (int n : lunghezze) {
+            for (int intervallo : intervalli) {
+                int[] a = new int[n];
+                for (int i = 0; i < n; i++)
+                    a[i] = intervallo == 0 ? r.nextInt() : r.nextInt(intervallo) - intervallo / 2;
+                int[] atteso = a.clone();
+                Arrays.sort(atteso);
+                IntSortingAlgorithmResult res = alg.sort(a);
+                assertArrayEquals(atteso, res.getA());
+                // Almeno due letture di ogni elemento, più una per passata
+                assertTrue(res.getCountCompare() >= (intervallo == 1 ? 1 : 3) * (long) n);
+            }
+        }
+        int[] estremi = { Integer.MAX_VALUE, -1, 0, Integer.MIN_VALUE, 7, -7, Integer.MIN_VALUE };
+        int[] atteso = estremi.clone();
+        Arrays.sort(atteso);
+        assertArrayEquals(atteso, alg.sort(estremi).getA());
+        assertEquals(0, alg.sort(new int[0]).getA().length);
+        assertThrows(NullPointerException.class, () -> alg.sort(null));
+    }
+
+}
@@ -0,0 +1,380 @@
+/**
+ * 
+ */
+package it.unicam.cs.asdl1920.mp2;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Classe di test JUnit 5 per le implementazioni di SortingAlgorithm<E>.
+ * 
+ * @author ENZO DI NARDO - enzo.dinardo@studenti.unicam.it
+ *
+ */
+class SortingAlgorithmTest {
+
+    /*
+     * Controlla che l'algoritmo ordini come Collections.sort sequenze vuote,
+     * casuali, con molte ripetizioni, ordinate e ordinate al contrario, e
+     * restituisce il numero totale di confronti.
+     */
+    private static long controlla(SortingAlgorithm<Integer> alg) {
+        Random r = new Random(43);
+        long countCompare = 0;
+        assertTrue(alg.sort(new ArrayList<Integer>()).getL().isEmpty());
+        for (int n = 1; n <= 2000; n = n * 3 / 2 + 1) {
+            for (int tipo = 0; tipo < 4; tipo++) {
+                List<Integer> l = new ArrayList<Integer>();
+                for (int i = 0; i < n; i++)
+                    l.add(tipo == 0 ? r.nextInt() : tipo == 1 ? r.nextInt(5) : tipo == 2 ? i : n - i);
+                List<Integer> atteso = new ArrayList<Integer>(l);
+                Collections.sort(atteso);
+                SortingAlgorithmResult<Integer> res = alg.sort(l);
+                assertEquals(atteso, res.getL());
+                assertTrue(res.checkOrder());
+                assertTrue(res.getCountCompare() >= 0);
+                countCompare += res.getCountCompare();
+            }
+        }
+        return countCompare;
+    }
+
+    /*
+     * Elementi che si confrontano solo per chiave, per controllare la
+     * stabilità.
+     */
+    private static final class Coppia implements Comparable<Coppia> {
+        private final int chiave;
+
+        private final int posizione;
+
+        private Coppia(int chiave, int posizione) {
+            this.chiave = chiave;
+            this.posizione = posizione;
+        }
+
+        public int compareTo(Coppia o) {
+            return Integer.compare(this.chiave, o.chiave);
+        }
+    }
+
+    private static void controllaStabilita(SortingAlgorithm<Coppia> alg) {
+        Random r = new Random(47);
+        List<Coppia> l = new ArrayList<Coppia>();
+        for (int i = 0; i < 1000; i++)
+            l.add(new Coppia(r.nextInt(20), i));
+        List<Coppia> s = alg.sort(l).getL();
+        for (int i = 1; i < s.size(); i++)
+            if (s.get(i - 1).chiave == s.get(i).chiave)
+                assertTrue(s.get(i - 1).posizione < s.get(i).posizione);
+    }
+
+    /*
+     * Avversario di McIlroy ("A Killer Adversary for Quicksort"): gli
+     * elementi non hanno un valore finché un confronto non lo richiede, e
+     * l'avversario lo assegna in modo che il pivot scelto sia il più piccolo
+     * possibile. Un Quick Sort senza protezioni fa così un numero quadratico
+     * di confronti.
+     */
+    private static final class Avversario {
+        private final int[] valore;
+
+        private final int gas;
+
+        private int solidi;
+
+        private int candidato = -1;
+
+        private Avversario(int n) {
+            this.valore = new int[n];
+            this.gas = n;
+            Arrays.fill(this.valore, n);
+        }
+
+        private int confronta(int x, int y) {
+            if (this.valore[x] == this.gas && this.valore[y] == this.gas) {
+                if (x == this.candidato)
+                    this.valore[x] = this.solidi++;
+                else
+                    this.valore[y] = this.solidi++;
+            }
+            if (this.valore[x] == this.gas)
+                this.candidato = x;
+            else if (this.valore[y] == this.gas)
+                this.candidato = y;
+            return Integer.compare(this.valore[x], this.valore[y]);
+        }
+    }
+
+    private static final class Elemento implements Comparable<Elemento> {
+        private final Avversario avversario;
+
+        private final int indice;
+
+        private Elemento(Avversario avversario, int indice) {
+            this.avversario = avversario;
+            this.indice = indice;
+        }
+
+        public int compareTo(Elemento o) {
+            return this.avversario.confronta(this.indice, o.indice);
+        }
+    }
+
+    /*
+     * Ordina n elementi contro l'avversario e restituisce il numero di
+     * confronti.
+     */
+    private static int controllaAvversario(SortingAlgorithm<Elemento> alg, int n) {
+        Avversario avv = new Avversario(n);
+        List<Elemento> l = new ArrayList<Elemento>();
+        for (int i = 0; i < n; i++)
+            l.add(new Elemento(avv, i));
+        SortingAlgorithmResult<Elemento> res = alg.sort(l);
+        assertTrue(res.checkOrder());
+        return res.getCountCompare();
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp2.BottomUpMergeSort#sort(java.util.List)}.
+     */
+    @Test
+    final void testBottomUpMergeSort() {
+        controlla(new BottomUpMergeSort<Integer>());
+        controllaStabilita(new BottomUpMergeSort<Coppia>());
+        // Su sequenze ordinate ogni merge è saltato con un confronto
+        List<Integer> l = new ArrayList<Integer>();
+        for (int i = 0; i < 1024; i++)
+            l.add(i);
+        assertEquals(64 * 15 + 63, new BottomUpMergeSort<Integer>().sort(l).getCountCompare());
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp2.ParallelMergeSort#sort(java.util.List)}.
+     */
+    @Test
+    final void testParallelMergeSort() {
+        controlla(new ParallelMergeSort<Integer>());
+        // Con una soglia piccola anche le sequenze di prova vengono divise
+        // fra più task e fuse in parallelo
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            controlla(new ParallelMergeSort<Integer>(pool, 4));
+            controllaStabilita(new ParallelMergeSort<Coppia>(pool, 4));
+        } finally {
+            pool.shutdown();
+        }
+        assertThrows(NullPointerException.class, () -> new ParallelMergeSort<Integer>(null, 4));
+        assertThrows(IllegalArgumentException.class,
+                () -> new ParallelMergeSort<Integer>(ForkJoinPool.commonPool(), 1));
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp2.NaturalMergeSort#sort(java.util.List)}.
+     */
+    @Test
+    final void testNaturalMergeSort() {
+        controlla(new NaturalMergeSort<Integer>());
+        controllaStabilita(new NaturalMergeSort<Coppia>());
+        NaturalMergeSort<Integer> s = new NaturalMergeSort<Integer>();
+        // Sequenze ordinate o rovesciate: un solo run, n - 1 confronti
+        List<Integer> l = new ArrayList<Integer>();
+        for (int i = 0; i < 100000; i++)
+            l.add(i);
+        assertEquals(99999, s.sort(l).getCountCompare());
+        Collections.reverse(l);
+        assertEquals(99999, s.sort(l).getCountCompare());
+        // Due metà ordinate i cui valori si alternano a blocchi di 1000, più
+        // qualche scambio: pochi confronti in più di n grazie al galoppo
+        Random r = new Random(53);
+        l.clear();
+        for (int i = 0; i < 50000; i++)
+            l.add(2000 * (i / 1000) + i % 1000);
+        for (int i = 0; i < 50000; i++)
+            l.add(2000 * (i / 1000) + 1000 + i % 1000);
+        for (int k = 0; k < 10; k++)
+            Collections.swap(l, r.nextInt(l.size()), r.nextInt(l.size()));
+        List<Integer> atteso = new ArrayList<Integer>(l);
+        Collections.sort(atteso);
+        SortingAlgorithmResult<Integer> res = s.sort(l);
+        assertEquals(atteso, res.getL());
+        assertTrue(res.getCountCompare() < l.size() * 3 / 2, "confronti: " + res.getCountCompare());
+        // Run di lunghezze molto diverse, 2^16, 2^15, ..., 16, con valori
+        // casuali: la pila fonde prima i run corti fra loro e poi il
+        // risultato con quelli lunghi, quindi ogni elemento partecipa in
+        // media a circa due fusioni; fondendo a coppie di run adiacenti il
+        // run più lungo verrebbe fuso a ogni passata
+        l.clear();
+        for (int lunghezza = 1 << 16; lunghezza >= 16; lunghezza >>= 1) {
+            List<Integer> run = new ArrayList<Integer>();
+            for (int i = 0; i < lunghezza; i++)
+                run.add(r.nextInt());
+            Collections.sort(run);
+            l.addAll(run);
+        }
+        atteso = new ArrayList<Integer>(l);
+        Collections.sort(atteso);
+        res = s.sort(l);
+        assertEquals(atteso, res.getL());
+        assertTrue(res.getCountCompare() < l.size() * 13 / 4, "confronti: " + res.getCountCompare());
+        // Il galoppo deve restare corretto su sequenze con molte ripetizioni
+        // e run lunghi intervallati
+        for (int prova = 0; prova < 50; prova++) {
+            l.clear();
+            int n = 1 + r.nextInt(5000);
+            int base = 0;
+            while (l.size() < n) {
+                int run = 1 + r.nextInt(300);
+                boolean crescente = r.nextBoolean();
+                for (int i = 0; i < run && l.size() < n; i++)
+                    l.add(base + (crescente ? i : -i) / (1 + prova % 3));
+                base = r.nextInt(1000);
+            }
+            atteso = new ArrayList<Integer>(l);
+            Collections.sort(atteso);
+            assertEquals(atteso, s.sort(l).getL());
+        }
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp2.BinaryInsertionSort#sort(java.util.List)}.
+     */
+    @Test
+    final void testBinaryInsertionSort() {
+        controlla(new BinaryInsertionSort<Integer>());
+        controllaStabilita(new BinaryInsertionSort<Coppia>());
+        // Anche una LinkedList viene ordinata sul posto, con al più
+        // ceil(log2(i + 1)) confronti per l'elemento i
+        Random r = new Random(59);
+        List<Integer> l = new LinkedList<Integer>();
+        for (int i = 0; i < 1000; i++)
+            l.add(r.nextInt(100));
+        List<Integer> atteso = new ArrayList<Integer>(l);
+        Collections.sort(atteso);
+        SortingAlgorithmResult<Integer> res = new BinaryInsertionSort<Integer>().sort(l);
+        assertSame(l, res.getL());
+        assertEquals(atteso, l);
+        int massimo = 0;
+        for (int i = 1; i < 1000; i++)
+            massimo += 32 - Integer.numberOfLeadingZeros(i);
+        assertTrue(res.getCountCompare() <= massimo);
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp2.RadixSort#sort(java.util.List)}.
+     */
+    @Test
+    final void testRadixSort() {
+        controlla(new RadixSort());
+        // Valori estremi e negativi
+        List<Integer> l = new ArrayList<Integer>();
+        Collections.addAll(l, Integer.MAX_VALUE, -1, 0, Integer.MIN_VALUE, 7, -7, Integer.MIN_VALUE);
+        List<Integer> atteso = new ArrayList<Integer>(l);
+        Collections.sort(atteso);
+        assertEquals(atteso, new RadixSort().sort(l).getL());
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp2.DualPivotQuickSort#sort(java.util.List)}.
+     */
+    @Test
+    final void testDualPivotQuickSort() {
+        controlla(new DualPivotQuickSort<Integer>());
+        // Tutti uguali e a "canne d'organo"
+        List<Integer> l = new ArrayList<Integer>();
+        for (int i = 0; i < 5000; i++)
+            l.add(i % 2 == 0 ? 7 : Math.min(i, 5000 - i));
+        List<Integer> atteso = new ArrayList<Integer>(l);
+        Collections.sort(atteso);
+        assertEquals(atteso, new DualPivotQuickSort<Integer>().sort(l).getL());
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp2.IntroSort#sort(java.util.List)}.
+     */
+    @Test
+    final void testIntroSort() {
+        controlla(new IntroSort<Integer>());
+        // Contro l'avversario il Quick Sort degenera, ma il passaggio a Heap
+        // Sort mantiene i confronti O(n log n)
+        int n = 5000;
+        int countCompare = controllaAvversario(new IntroSort<Elemento>(), n);
+        assertTrue(countCompare < 6 * n * 13, "confronti: " + countCompare);
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp2.HeapSort#sort(java.util.List)}.
+     */
+    @Test
+    final void testHeapSort() {
+        controlla(new HeapSort<Integer>());
+        // Con la discesa a rimbalzo i confronti sono circa n log2 n, anche
+        // contro l'avversario e su una LinkedList
+        int n = 4096;
+        int countCompare = controllaAvversario(new HeapSort<Elemento>(), n);
+        assertTrue(countCompare < n * 12 * 5 / 4, "confronti: " + countCompare);
+        Random r = new Random(67);
+        List<Integer> l = new LinkedList<Integer>();
+        for (int i = 0; i < n; i++)
+            l.add(r.nextInt());
+        List<Integer> atteso = new ArrayList<Integer>(l);
+        Collections.sort(atteso);
+        SortingAlgorithmResult<Integer> res = new HeapSort<Integer>().sort(l);
+        assertSame(l, res.getL());
+        assertEquals(atteso, l);
+        assertTrue(res.getCountCompare() < n * 12 * 5 / 4, "confronti: " + res.getCountCompare());
+    }
+
+    /**
+     * Test method for
+     * {@link it.unicam.cs.asdl1920.mp2.SampleSort#sort(java.util.List)}.
+     */
+    @Test
+    final void testSampleSort() {
+        controlla(new SampleSort<Integer>());
+        // Con più bucket su un pool proprio e altri algoritmi per i bucket;
+        // la lista di partenza è una LinkedList e deve essere riscritta
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            SampleSort<Integer> alg = new SampleSort<Integer>(pool, 8, new BinaryInsertionSort<Integer>(),
+                    new HeapSort<Integer>(), 64);
+            controlla(alg);
+            Random r = new Random(71);
+            List<Integer> l = new LinkedList<Integer>();
+            for (int i = 0; i < 20000; i++)
+                l.add(r.nextInt(i % 2 == 0 ? 1000 : Integer.MAX_VALUE));
+            List<Integer> atteso = new ArrayList<Integer>(l);
+            Collections.sort(atteso);
+            SortingAlgorithmResult<Integer> res = alg.sort(l);
+            assertSame(l, res.getL());
+            assertEquals(atteso, l);
+        } finally {
+            pool.shutdown();
+        }
+        assertThrows(NullPointerException.class,
+                () -> new SampleSort<Integer>(null, 4, new InsertionSort<Integer>(), new MergeSort<Integer>(), 32));
+        assertThrows(NullPointerException.class, () -> new SampleSort<Integer>(ForkJoinPool.commonPool(), 4,
+                null, new MergeSort<Integer>(), 32));
+        assertThrows(IllegalArgumentException.class, () -> new SampleSort<Integer>(ForkJoinPool.commonPool(), 0,
+                new InsertionSort<Integer>(), new MergeSort<Integer>(), 32));
+    }
+
+}